@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
+import org.eclipse.jdi.internal.jdwp.JdwpPacket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and decoding of JDWP packets, without any IO.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JdwpPacketBenchmark {
+
+	/**
+	 * Size of the packet data, in bytes.
+	 */
+	@Param({ "0", "64", "4096" })
+	public int fDataSize;
+
+	private JdwpCommandPacket fPacket;
+
+	private byte[] fPacketBytes;
+
+	@Setup
+	public void setup() throws IOException {
+		fPacket = new JdwpCommandPacket(JdwpCommandPacket.OR_GET_VALUES);
+		if (fDataSize > 0) {
+			byte[] data = new byte[fDataSize];
+			for (int i = 0; i < data.length; i++) {
+				data[i] = (byte) i;
+			}
+			fPacket.setData(data);
+		}
+		fPacketBytes = fPacket.getPacketAsBytes();
+	}
+
+	@Benchmark
+	public JdwpPacket build() throws IOException {
+		return JdwpPacket.build(fPacketBytes);
+	}
+
+	@Benchmark
+	public byte[] getPacketAsBytes() throws IOException {
+		return fPacket.getPacketAsBytes();
+	}
+}
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal.benchmarks;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
+
+/**
+ * Scripted stand-in for a target VM: a JDWP responder on a loopback socket
+ * that answers every command with the reply data registered for that command,
+ * or with an empty reply. The responder does not interpret the commands, so
+ * the cost measured on the client side is that of the client only.
+ * <p>
+ * Replies are registered for the commands a {@link org.eclipse.jdi.internal.VirtualMachineImpl}
+ * sends before anything else: ID sizes (8 bytes each), version (JDWP 1.8) and
+ * capabilities (all supported).
+ * </p>
+ */
+public class LoopbackVM implements Runnable, Closeable {
+
+	private static final byte[] HANDSHAKE = "JDWP-Handshake".getBytes(StandardCharsets.US_ASCII); //$NON-NLS-1$
+
+	private static final int HEADER_LENGTH = 11;
+
+	private static final byte FLAG_REPLY_PACKET = (byte) 0x80;
+
+	private final ServerSocket fServerSocket;
+
+	private final Map<Integer, byte[]> fReplies = new ConcurrentHashMap<>();
+
+	private volatile Socket fSocket;
+
+	public LoopbackVM() throws IOException {
+		fServerSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		setReply(JdwpCommandPacket.VM_ID_SIZES, ints(8, 8, 8, 8, 8));
+		ByteArrayOutputStream version = new ByteArrayOutputStream();
+		version.write(string("Loopback VM")); //$NON-NLS-1$
+		version.write(ints(1, 8));
+		version.write(string("1.8.0")); //$NON-NLS-1$
+		version.write(string("LoopbackVM")); //$NON-NLS-1$
+		setReply(JdwpCommandPacket.VM_VERSION, version.toByteArray());
+		byte[] capabilities = new byte[32];
+		for (int i = 0; i < capabilities.length; i++) {
+			capabilities[i] = 1;
+		}
+		setReply(JdwpCommandPacket.VM_CAPABILITIES_NEW, capabilities);
+		setReply(JdwpCommandPacket.ER_SET, ints(1));
+	}
+
+	/**
+	 * @return Returns the port to attach to.
+	 */
+	public int getPort() {
+		return fServerSocket.getLocalPort();
+	}
+
+	/**
+	 * Sets the data of the reply to the given command.
+	 *
+	 * @param command
+	 *            256 * JDWP CommandSet + JDWP Command, see
+	 *            {@link JdwpCommandPacket}
+	 * @param data
+	 *            the reply data
+	 */
+	public void setReply(int command, byte[] data) {
+		fReplies.put(Integer.valueOf(command), data);
+	}
+
+	/**
+	 * Starts accepting a connection in a daemon thread.
+	 */
+	public void start() {
+		Thread thread = new Thread(this, "Loopback VM"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void run() {
+		try {
+			fSocket = fServerSocket.accept();
+			fSocket.setTcpNoDelay(true);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(fSocket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fSocket.getOutputStream()));
+
+			byte[] handshake = new byte[HANDSHAKE.length];
+			in.readFully(handshake);
+			out.write(HANDSHAKE);
+			out.flush();
+
+			byte[] header = new byte[HEADER_LENGTH];
+			byte[] commandData = new byte[1024];
+			while (true) {
+				in.readFully(header);
+				int length = readInt(header, 0);
+				int id = readInt(header, 4);
+				int command = ((header[9] & 0xff) << 8) + (header[10] & 0xff);
+				int commandDataLength = length - HEADER_LENGTH;
+				if (commandData.length < commandDataLength) {
+					commandData = new byte[commandDataLength];
+				}
+				in.readFully(commandData, 0, commandDataLength);
+				if ((header[8] & FLAG_REPLY_PACKET) != 0) {
+					continue;
+				}
+				byte[] data = fReplies.get(Integer.valueOf(command));
+				int dataLength = data == null ? 0 : data.length;
+				out.writeInt(HEADER_LENGTH + dataLength);
+				out.writeInt(id);
+				out.writeByte(FLAG_REPLY_PACKET);
+				out.writeShort(0); // error code
+				if (data != null) {
+					out.write(data);
+				}
+				// a VM replies to each command as it is handled
+				if (in.available() == 0) {
+					out.flush();
+				}
+			}
+		} catch (EOFException e) {
+			// client disconnected
+		} catch (IOException e) {
+			// closed
+		} finally {
+			try {
+				close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		Socket socket = fSocket;
+		if (socket != null) {
+			socket.close();
+		}
+		fServerSocket.close();
+	}
+
+	private static int readInt(byte[] bytes, int index) {
+		return ((bytes[index] & 0xff) << 24) + ((bytes[index + 1] & 0xff) << 16)
+				+ ((bytes[index + 2] & 0xff) << 8) + (bytes[index + 3] & 0xff);
+	}
+
+	/**
+	 * @return Returns the given values encoded as JDWP ints.
+	 */
+	public static byte[] ints(int... values) {
+		byte[] bytes = new byte[values.length * 4];
+		for (int i = 0; i < values.length; i++) {
+			int value = values[i];
+			bytes[i * 4] = (byte) (value >>> 24);
+			bytes[i * 4 + 1] = (byte) (value >>> 16);
+			bytes[i * 4 + 2] = (byte) (value >>> 8);
+			bytes[i * 4 + 3] = (byte) value;
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return Returns the given string encoded as a JDWP string.
+	 */
+	public static byte[] string(String value) {
+		byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+		byte[] bytes = new byte[4 + utf8.length];
+		System.arraycopy(ints(utf8.length), 0, bytes, 0, 4);
+		System.arraycopy(utf8, 0, bytes, 4, utf8.length);
+		return bytes;
+	}
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdi.internal.MirrorCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookups in the mirror cache of a VM, which every reference type and object
+ * read from a reply goes through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MirrorCacheBenchmark {
+
+	/**
+	 * Number of cached mirrors.
+	 */
+	@Param({ "1000", "100000" })
+	public int fSize;
+
+	private MirrorCache<Object> fCache;
+
+	private long[] fKeys;
+
+	/**
+	 * Lookup position, per benchmark thread.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		int fIndex;
+	}
+
+	@Setup
+	public void setup() {
+		fCache = new MirrorCache<>();
+		fKeys = new long[fSize];
+		for (int i = 0; i < fSize; i++) {
+			// object IDs handed out by a VM are typically sequential
+			fKeys[i] = 0x7f0000000L + i * 8L;
+			fCache.put(fKeys[i], new Object());
+		}
+	}
+
+	private long nextKey(Cursor cursor) {
+		int index = cursor.fIndex;
+		cursor.fIndex = index + 1 == fKeys.length ? 0 : index + 1;
+		return fKeys[index];
+	}
+
+	@Benchmark
+	public Object get(Cursor cursor) {
+		return fCache.get(nextKey(cursor));
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Object getContended(Cursor cursor) {
+		return fCache.get(nextKey(cursor));
+	}
+
+	@Benchmark
+	public void put(Cursor cursor) {
+		fCache.put(nextKey(cursor), cursor);
+	}
+}
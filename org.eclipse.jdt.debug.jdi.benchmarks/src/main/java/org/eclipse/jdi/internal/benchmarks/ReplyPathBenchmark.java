@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdi.internal.connect.ChannelTransportService;
+import org.eclipse.jdi.internal.connect.PacketReceiveManager;
+import org.eclipse.jdi.internal.connect.PacketSendManager;
+import org.eclipse.jdi.internal.connect.SocketTransportService;
+import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
+import org.eclipse.jdi.internal.jdwp.JdwpReplyPacket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.jdi.connect.spi.Connection;
+
+/**
+ * Round trips through the packet send and receive managers to a
+ * {@link LoopbackVM}: the path every JDI request takes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplyPathBenchmark {
+
+	private static final long TIMEOUT = 5000;
+
+	private static final int PIPELINED_REQUESTS = 16;
+
+	/**
+	 * The transport: <code>socket</code> for the stream based transport,
+	 * <code>channel</code> for the NIO transport.
+	 */
+	@Param({ "socket", "channel" })
+	public String fTransport;
+
+	/**
+	 * Size of the reply data, in bytes.
+	 */
+	@Param({ "16", "4096" })
+	public int fReplySize;
+
+	private LoopbackVM fVM;
+
+	private PacketReceiveManager fReceiveManager;
+
+	private PacketSendManager fSendManager;
+
+	@Setup
+	public void setup() throws IOException {
+		fVM = new LoopbackVM();
+		fVM.setReply(JdwpCommandPacket.VM_ALL_THREADS, new byte[fReplySize]);
+		fVM.start();
+
+		Connection connection;
+		if ("channel".equals(fTransport)) { //$NON-NLS-1$
+			connection = new ChannelTransportService().attach("localhost", fVM.getPort(), TIMEOUT, TIMEOUT); //$NON-NLS-1$
+		} else {
+			connection = new SocketTransportService().attach("localhost", fVM.getPort(), TIMEOUT, TIMEOUT); //$NON-NLS-1$
+		}
+
+		// wired up as in VirtualMachineImpl, without the VM mirror
+		fReceiveManager = new PacketReceiveManager(connection, null);
+		Thread receiveThread = new Thread(fReceiveManager, "Packet Receiver"); //$NON-NLS-1$
+		receiveThread.setDaemon(true);
+		fReceiveManager.setPartnerThread(receiveThread);
+		receiveThread.start();
+
+		fSendManager = new PacketSendManager(connection);
+		Thread sendThread = new Thread(fSendManager, "Packet Sender"); //$NON-NLS-1$
+		sendThread.setDaemon(true);
+		fReceiveManager.setPartnerThread(sendThread);
+		sendThread.start();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		fSendManager.disconnectVM();
+		fReceiveManager.disconnectVM();
+		fVM.close();
+	}
+
+	private CompletableFuture<JdwpReplyPacket> send() {
+		JdwpCommandPacket packet = new JdwpCommandPacket(JdwpCommandPacket.VM_ALL_THREADS);
+		CompletableFuture<JdwpReplyPacket> reply = fReceiveManager.getReplyAsync(packet);
+		fSendManager.sendPacket(packet);
+		return reply;
+	}
+
+	/**
+	 * One request at a time, as a synchronous JDI call.
+	 */
+	@Benchmark
+	public JdwpReplyPacket roundTrip() {
+		return fReceiveManager.getReply(send(), TIMEOUT);
+	}
+
+	/**
+	 * Requests sent back to back before waiting for the replies, as a batched
+	 * JDI call.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(PIPELINED_REQUESTS)
+	public JdwpReplyPacket pipelined() {
+		@SuppressWarnings("unchecked")
+		CompletableFuture<JdwpReplyPacket>[] replies = new CompletableFuture[PIPELINED_REQUESTS];
+		for (int i = 0; i < PIPELINED_REQUESTS; i++) {
+			replies[i] = send();
+		}
+		JdwpReplyPacket reply = null;
+		for (int i = 0; i < PIPELINED_REQUESTS; i++) {
+			reply = fReceiveManager.getReply(replies[i], TIMEOUT);
+		}
+		return reply;
+	}
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdi.internal.ClassTypeImpl;
+import org.eclipse.jdi.internal.SourceDebugExtensionParser;
+import org.eclipse.jdi.internal.VirtualMachineImpl;
+import org.eclipse.jdi.internal.connect.SocketTransportService;
+import org.eclipse.jdi.internal.jdwp.JdwpClassID;
+import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.jdi.AbsentInformationException;
+
+/**
+ * Parsing of the JSR-045 SMAP of a class, as generated for JSPs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SourceDebugExtensionParserBenchmark {
+
+	/**
+	 * Number of mapped source lines.
+	 */
+	@Param({ "100", "10000" })
+	public int fLines;
+
+	private LoopbackVM fLoopbackVM;
+
+	private VirtualMachineImpl fVM;
+
+	private ClassTypeImpl fType;
+
+	private String fSmap;
+
+	@Setup
+	public void setup() throws IOException, AbsentInformationException {
+		StringBuilder smap = new StringBuilder();
+		smap.append("SMAP\nindex_jsp.java\nJSP\n*S JSP\n*F\n+ 0 index.jsp\nindex.jsp\n+ 1 header.jsp\nheader.jsp\n*L\n"); //$NON-NLS-1$
+		for (int i = 1; i <= fLines; i++) {
+			// alternate between both files, with repeat counts and increments
+			smap.append(i).append('#').append(i % 2).append(",2:").append(i * 3).append(",3\n"); //$NON-NLS-1$
+		}
+		smap.append("*E\n"); //$NON-NLS-1$
+		fSmap = smap.toString();
+
+		fLoopbackVM = new LoopbackVM();
+		fLoopbackVM.setReply(JdwpCommandPacket.RT_SOURCE_DEBUG_EXTENSION, LoopbackVM.string(fSmap));
+		fLoopbackVM.start();
+		fVM = new VirtualMachineImpl(new SocketTransportService().attach("localhost", fLoopbackVM.getPort(), 5000, 5000)); //$NON-NLS-1$
+
+		// the first access retrieves the SMAP from the VM, so that parsing
+		// it again does not need a request
+		fType = new ClassTypeImpl(fVM, new JdwpClassID(fVM));
+		fType.sourceDebugExtension();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		fVM.disconnectVM();
+		fLoopbackVM.close();
+	}
+
+	@Benchmark
+	public ClassTypeImpl parse() throws AbsentInformationException {
+		SourceDebugExtensionParser.parse(fSmap, fType);
+		return fType;
+	}
+}
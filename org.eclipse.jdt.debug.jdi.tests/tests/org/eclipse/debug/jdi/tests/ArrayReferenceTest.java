@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,10 +11,15 @@
 
 package org.eclipse.debug.jdi.tests;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ListIterator;
 
+import org.eclipse.jdi.internal.ArrayReferenceImpl;
+
 import com.sun.jdi.ArrayReference;
+import com.sun.jdi.ArrayType;
 import com.sun.jdi.ClassNotLoadedException;
 import com.sun.jdi.DoubleValue;
 import com.sun.jdi.InvalidTypeException;
@@ -29,6 +34,7 @@ public class ArrayReferenceTest extends AbstractJDITest {
 
 	private ArrayReference fArray;
 	private ArrayReference fDoubleArray;
+	private List<ArrayReference> fNewArrays = new ArrayList<>();
 
 	/**
 	 * Creates a new test.
@@ -44,6 +50,16 @@ public class ArrayReferenceTest extends AbstractJDITest {
 		// Get array references
 		fArray = getObjectArrayReference();
 		fDoubleArray = getNonEmptyDoubleArrayReference();
+		fNewArrays.clear();
+	}
+	/**
+	 * Make sure the test leaves the VM in the same state it found it.
+	 */
+	@Override
+	public void localTearDown() {
+		for (ArrayReference array : fNewArrays) {
+			array.enableCollection();
+		}
 	}
 	/**
 	 * Run all tests and output to standard output.
@@ -251,4 +267,117 @@ public class ArrayReferenceTest extends AbstractJDITest {
 		int length = fArray.length();
 		assertEquals("1", 3, length);
 	}
+	/**
+	 * Returns a new array in the VM of the type of the given array, holding
+	 * the given values.
+	 */
+	private ArrayReferenceImpl newArray(ArrayReference template, Value... values) {
+		ArrayReference array = ((ArrayType) template.referenceType()).newInstance(values.length);
+		array.disableCollection();
+		fNewArrays.add(array);
+		try {
+			array.setValues(Arrays.asList(values));
+		} catch (ClassNotLoadedException e) {
+			fail("newArray.1");
+		} catch (InvalidTypeException e) {
+			fail("newArray.2");
+		}
+		return (ArrayReferenceImpl) array;
+	}
+	/**
+	 * Test the typed getters of arrays of primitives, which retrieve the
+	 * components as an array of the primitive type.
+	 */
+	public void testJDIGetPrimitiveValues() {
+		ArrayReferenceImpl booleans = newArray(getBooleanArrayReference(), fVM.mirrorOf(true), fVM.mirrorOf(false), fVM.mirrorOf(true));
+		assertTrue("1", Arrays.equals(new boolean[] { true, false, true }, booleans.getBooleanValues(0, -1)));
+		assertTrue("2", Arrays.equals(new boolean[] { false }, booleans.getBooleanValues(1, 1)));
+
+		ArrayReferenceImpl bytes = newArray(getByteArrayReference(), fVM.mirrorOf((byte) -1), fVM.mirrorOf((byte) 2), fVM.mirrorOf(Byte.MAX_VALUE));
+		assertTrue("3", Arrays.equals(new byte[] { -1, 2, Byte.MAX_VALUE }, bytes.getByteValues(0, -1)));
+		assertTrue("4", Arrays.equals(new byte[] { 2, Byte.MAX_VALUE }, bytes.getByteValues(1, 2)));
+
+		ArrayReferenceImpl chars = newArray(getCharArrayReference(), fVM.mirrorOf('a'), fVM.mirrorOf('\u00e9'), fVM.mirrorOf('z'));
+		assertTrue("5", Arrays.equals(new char[] { 'a', '\u00e9', 'z' }, chars.getCharValues(0, 3)));
+		assertTrue("6", Arrays.equals(new char[] { '\u00e9' }, chars.getCharValues(1, 1)));
+
+		ArrayReferenceImpl shorts = newArray(getShortArrayReference(), fVM.mirrorOf(Short.MIN_VALUE), fVM.mirrorOf((short) 0), fVM.mirrorOf((short) 7));
+		assertTrue("7", Arrays.equals(new short[] { Short.MIN_VALUE, 0, 7 }, shorts.getShortValues(0, -1)));
+		assertTrue("8", Arrays.equals(new short[] { 0, 7 }, shorts.getShortValues(1, -1)));
+
+		ArrayReferenceImpl ints = newArray(getIntArrayReference(), fVM.mirrorOf(Integer.MIN_VALUE), fVM.mirrorOf(42), fVM.mirrorOf(Integer.MAX_VALUE));
+		assertTrue("9", Arrays.equals(new int[] { Integer.MIN_VALUE, 42, Integer.MAX_VALUE }, ints.getIntValues(0, -1)));
+		assertTrue("10", Arrays.equals(new int[] { 42 }, ints.getIntValues(1, 1)));
+
+		ArrayReferenceImpl longs = newArray(getLongArrayReference(), fVM.mirrorOf(Long.MIN_VALUE), fVM.mirrorOf(1L << 40), fVM.mirrorOf(-3L));
+		assertTrue("11", Arrays.equals(new long[] { Long.MIN_VALUE, 1L << 40, -3L }, longs.getLongValues(0, -1)));
+		assertTrue("12", Arrays.equals(new long[] { -3L }, longs.getLongValues(2, 1)));
+
+		ArrayReferenceImpl floats = newArray(getFloatArrayReference(), fVM.mirrorOf(1.5f), fVM.mirrorOf(Float.NaN), fVM.mirrorOf(-0.0f));
+		assertTrue("13", Arrays.equals(new float[] { 1.5f, Float.NaN, -0.0f }, floats.getFloatValues(0, -1)));
+		assertTrue("14", Arrays.equals(new float[] { 1.5f }, floats.getFloatValues(0, 1)));
+
+		ArrayReferenceImpl doubles = newArray(getDoubleArrayReference(), fVM.mirrorOf(Math.PI), fVM.mirrorOf(Double.NEGATIVE_INFINITY), fVM.mirrorOf(1e-300));
+		assertTrue("15", Arrays.equals(new double[] { Math.PI, Double.NEGATIVE_INFINITY, 1e-300 }, doubles.getDoubleValues(0, -1)));
+		assertTrue("16", Arrays.equals(new double[] { Double.NEGATIVE_INFINITY, 1e-300 }, doubles.getDoubleValues(1, 2)));
+	}
+	/**
+	 * Test that the typed getters agree with getValues(int,int).
+	 */
+	public void testJDIGetPrimitiveValuesAsValues() {
+		double[] doubles = ((ArrayReferenceImpl) fDoubleArray).getDoubleValues(0, -1);
+		List<Value> values = fDoubleArray.getValues();
+		assertEquals("1", values.size(), doubles.length);
+		for (int i = 0; i < doubles.length; i++) {
+			assertEquals("2." + i, ((DoubleValue) values.get(i)).value(), doubles[i], 0.0);
+		}
+	}
+	/**
+	 * Test that the typed getters reject arrays of another component type.
+	 */
+	public void testJDIGetPrimitiveValuesOfAnotherType() {
+		try {
+			((ArrayReferenceImpl) fDoubleArray).getFloatValues(0, 1);
+			fail("1");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			((ArrayReferenceImpl) fArray).getIntValues(0, 1);
+			fail("2");
+		} catch (IllegalArgumentException e) {
+		}
+		ArrayReferenceImpl ints = newArray(getIntDoubleArrayReference(), getIntArrayReference());
+		try {
+			ints.getIntValues(0, 1);
+			fail("3");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	/**
+	 * Test that the typed getters reject ranges outside the bounds of the
+	 * array.
+	 */
+	public void testJDIGetPrimitiveValuesOutOfBounds() {
+		ArrayReferenceImpl doubles = (ArrayReferenceImpl) fDoubleArray;
+		try {
+			doubles.getDoubleValues(-1, 1);
+			fail("1");
+		} catch (IndexOutOfBoundsException e) {
+		}
+		try {
+			doubles.getDoubleValues(3, 1);
+			fail("2");
+		} catch (IndexOutOfBoundsException e) {
+		}
+		try {
+			doubles.getDoubleValues(1, 3);
+			fail("3");
+		} catch (IndexOutOfBoundsException e) {
+		}
+		try {
+			doubles.getDoubleValues(0, -2);
+			fail("4");
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
 }
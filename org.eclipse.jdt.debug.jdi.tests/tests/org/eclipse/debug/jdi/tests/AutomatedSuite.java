@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2012 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -43,6 +43,7 @@ public class AutomatedSuite extends TestSuite {
 		addTest(new TestSuite(ClassTypeTest.class));
 		addTest(new TestSuite(DoubleValueTest.class));
 		addTest(new TestSuite(EventRequestManagerTest.class));
+		addTest(new TestSuite(EventRequestLookupTest.class));
 		addTest(new TestSuite(EventRequestTest.class));
 		addTest(new TestSuite(EventTest.class));
 		addTest(new TestSuite(ExceptionEventTest.class));
@@ -94,6 +95,16 @@ public class AutomatedSuite extends TestSuite {
 		addTest(new TestSuite(MonitorFrameInfoTests.class));
 		addTest(new TestSuite(ProvideArgumentsTests.class));
 		addTest(new TestSuite(ContendedMonitorTests.class));
+
+		addTest(new TestSuite(ClassIndexTest.class));
+
+		// decoding and data structure tests, which do not need a target VM
+		addTest(new TestSuite(JdwpStringTest.class));
+		addTest(new TestSuite(MirrorCacheTest.class));
+		addTest(new TestSuite(LongObjectMapTest.class));
+		addTest(new TestSuite(LongIntMapTest.class));
+		addTest(new TestSuite(IntObjectMapTest.class));
+		addTest(new TestSuite(ChannelTransportServiceTest.class));
 	}
 
 }
@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.tests;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+import org.eclipse.jdi.internal.connect.ChannelTransportService;
+
+import com.sun.jdi.connect.TransportTimeoutException;
+import com.sun.jdi.connect.spi.Connection;
+import com.sun.jdi.connect.spi.TransportService.ListenKey;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the socket channel transport service against a peer on the loopback
+ * interface that plays the part of the VM. Does not need a target VM.
+ */
+public class ChannelTransportServiceTest extends TestCase {
+
+	private static final byte[] HANDSHAKE = "JDWP-Handshake".getBytes(); //$NON-NLS-1$
+
+	/**
+	 * Timeout of the operations expected to succeed, in milliseconds
+	 */
+	private static final int TIMEOUT = 10000;
+
+	/**
+	 * A JDWP command packet without data: length, ID, flags, command set and
+	 * command.
+	 */
+	private static final byte[] PACKET = new byte[] { 0, 0, 0, 11, 0, 0, 0, 42, 0, 1, 1 };
+
+	private ChannelTransportService fService;
+
+	private ServerSocket fServer;
+
+	private Connection fConnection;
+
+	@Override
+	protected void setUp() throws Exception {
+		fService = new ChannelTransportService();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (fConnection != null) {
+			fConnection.close();
+		}
+		if (fServer != null) {
+			fServer.close();
+		}
+	}
+
+	/**
+	 * Peer that accepts one connection, optionally answers the handshake, and
+	 * then echoes what it reads.
+	 */
+	class Peer extends Thread {
+
+		private final byte[] fHandshake;
+
+		volatile boolean fClosed;
+
+		Peer(byte[] handshake) {
+			super("Channel transport test peer"); //$NON-NLS-1$
+			fHandshake = handshake;
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			try (Socket socket = fServer.accept()) {
+				InputStream in = socket.getInputStream();
+				OutputStream out = socket.getOutputStream();
+				byte[] handshake = new byte[HANDSHAKE.length];
+				new DataInputStream(in).readFully(handshake);
+				if (fHandshake != null) {
+					out.write(fHandshake);
+					out.flush();
+				}
+				byte[] buffer = new byte[256];
+				int count;
+				while ((count = in.read(buffer)) >= 0) {
+					out.write(buffer, 0, count);
+					out.flush();
+				}
+				fClosed = true;
+			} catch (IOException e) {
+				fClosed = true;
+			}
+		}
+	}
+
+	private Peer startPeer(byte[] handshake) throws IOException {
+		fServer = new ServerSocket(0);
+		Peer peer = new Peer(handshake);
+		peer.start();
+		return peer;
+	}
+
+	private String getPeerAddress() {
+		return "localhost:" + fServer.getLocalPort(); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test attaching, the handshake, and a packet sent and read back.
+	 */
+	public void testAttach() throws Exception {
+		startPeer(HANDSHAKE);
+		fConnection = fService.attach(getPeerAddress(), TIMEOUT, TIMEOUT);
+		assertTrue("1", fConnection.isOpen()); //$NON-NLS-1$
+		fConnection.writePacket(PACKET);
+		assertTrue("2", Arrays.equals(PACKET, fConnection.readPacket())); //$NON-NLS-1$
+		fConnection.close();
+		assertFalse("3", fConnection.isOpen()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test that attaching to a port nobody listens on fails without a
+	 * timeout.
+	 */
+	public void testAttachRefused() throws Exception {
+		fServer = new ServerSocket(0);
+		String address = getPeerAddress();
+		fServer.close();
+		fServer = null;
+		try {
+			fConnection = fService.attach(address, TIMEOUT, TIMEOUT);
+			fail("1"); //$NON-NLS-1$
+		} catch (TransportTimeoutException e) {
+			fail("2"); //$NON-NLS-1$
+		} catch (IOException e) {
+		}
+	}
+
+	/**
+	 * Test that a peer that does not answer the handshake times out, and
+	 * that the channel is closed.
+	 */
+	public void testHandshakeTimeout() throws Exception {
+		Peer peer = startPeer(null);
+		try {
+			fConnection = fService.attach(getPeerAddress(), TIMEOUT, 200);
+			fail("1"); //$NON-NLS-1$
+		} catch (TransportTimeoutException e) {
+		}
+		peer.join(TIMEOUT);
+		assertTrue("2", peer.fClosed); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test that a peer answering something else than the handshake is
+	 * rejected, and that the channel is closed.
+	 */
+	public void testInvalidHandshake() throws Exception {
+		Peer peer = startPeer("JDWP-Handshakx".getBytes()); //$NON-NLS-1$
+		try {
+			fConnection = fService.attach(getPeerAddress(), TIMEOUT, TIMEOUT);
+			fail("1"); //$NON-NLS-1$
+		} catch (TransportTimeoutException e) {
+			fail("2"); //$NON-NLS-1$
+		} catch (IOException e) {
+		}
+		peer.join(TIMEOUT);
+		assertTrue("3", peer.fClosed); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test accepting a connection, the handshake, and a packet received.
+	 */
+	public void testAccept() throws Exception {
+		ListenKey key = fService.startListening("localhost:0"); //$NON-NLS-1$
+		try {
+			final int port = Integer.parseInt(key.address().substring(key.address().indexOf(':') + 1));
+			final IOException[] failure = new IOException[1];
+			Thread client = new Thread("Channel transport test client") { //$NON-NLS-1$
+				@Override
+				public void run() {
+					try (Socket socket = new Socket("localhost", port)) { //$NON-NLS-1$
+						OutputStream out = socket.getOutputStream();
+						out.write(HANDSHAKE);
+						byte[] handshake = new byte[HANDSHAKE.length];
+						new DataInputStream(socket.getInputStream()).readFully(handshake);
+						if (!Arrays.equals(HANDSHAKE, handshake)) {
+							throw new IOException("Wrong handshake"); //$NON-NLS-1$
+						}
+						out.write(PACKET);
+						out.flush();
+						// wait for the service to close the connection
+						socket.getInputStream().read();
+					} catch (IOException e) {
+						failure[0] = e;
+					}
+				}
+			};
+			client.setDaemon(true);
+			client.start();
+			fConnection = fService.accept(key, TIMEOUT, TIMEOUT);
+			assertTrue("1", Arrays.equals(PACKET, fConnection.readPacket())); //$NON-NLS-1$
+			fConnection.close();
+			client.join(TIMEOUT);
+			assertNull("2", failure[0]); //$NON-NLS-1$
+		} finally {
+			fService.stopListening(key);
+		}
+	}
+
+	/**
+	 * Test that accepting times out when nobody connects.
+	 */
+	public void testAcceptTimeout() throws Exception {
+		ListenKey key = fService.startListening("localhost:0"); //$NON-NLS-1$
+		try {
+			fConnection = fService.accept(key, 200, TIMEOUT);
+			fail("1"); //$NON-NLS-1$
+		} catch (TransportTimeoutException e) {
+		} finally {
+			fService.stopListening(key);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.tests;
+
+import java.util.List;
+
+import org.eclipse.jdi.internal.VirtualMachineImpl;
+
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.event.ClassPrepareEvent;
+import com.sun.jdi.request.ClassPrepareRequest;
+import com.sun.jdi.request.EventRequestManager;
+
+/**
+ * Tests for the signature index of the reference types built by
+ * {@link VirtualMachineImpl#hydrateClasses()}.
+ */
+public class ClassIndexTest extends AbstractJDITest {
+
+	private static final String PREPARED_CLASS = "org.eclipse.debug.jdi.tests.program.TestClazz11";
+
+	private static final String PREPARED_SIGNATURE = "Lorg/eclipse/debug/jdi/tests/program/TestClazz11;";
+
+	private VirtualMachineImpl fVMImpl;
+
+	/**
+	 * Creates a new test.
+	 */
+	public ClassIndexTest() {
+		super();
+	}
+
+	/**
+	 * Init the fields that are used by this test only.
+	 */
+	@Override
+	public void localSetUp() {
+		fVMImpl = (VirtualMachineImpl) fVM;
+		fVMImpl.hydrateClasses();
+	}
+
+	/**
+	 * Run all tests and output to standard output.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		new ClassIndexTest().runSuite(args);
+	}
+
+	/**
+	 * Gets the name of the test case.
+	 * @see junit.framework.TestCase#getName()
+	 */
+	@Override
+	public String getName() {
+		return "org.eclipse.jdi.internal.VirtualMachineImpl class index";
+	}
+
+	private long getSentPacketCount() {
+		return fVMImpl.packetSendManager().getSentPacketCount();
+	}
+
+	/**
+	 * Makes sure the prepared class is loaded, triggering its class prepare
+	 * event if it is not loaded yet.
+	 */
+	private void prepareClass() {
+		EventRequestManager requestManager = fVM.eventRequestManager();
+		ClassPrepareRequest request = requestManager.createClassPrepareRequest();
+		request.addClassFilter(PREPARED_CLASS);
+		ClassPrepareEvent event = (ClassPrepareEvent) triggerAndWait(request, "ClassPrepareEvent9", true, 5000);
+		requestManager.deleteEventRequest(request);
+		waitUntilReady();
+		if (event != null) {
+			assertEquals("prepared", PREPARED_CLASS, event.referenceType().name());
+		}
+	}
+
+	/**
+	 * Test that a class loaded before the class table is hydrated is found
+	 * without a request.
+	 */
+	public void testJDIHydratedLookup() {
+		long sent = getSentPacketCount();
+		List<ReferenceType> types = fVM.classesByName(getMainClass().name());
+		assertEquals("1", 1, types.size());
+		assertEquals("2", getMainClass(), types.get(0));
+		assertEquals("3", sent, getSentPacketCount());
+	}
+
+	/**
+	 * Test that a class prepared after the class table is hydrated is indexed
+	 * by its class prepare event, and found by signature without a request.
+	 */
+	public void testJDILookupAfterPrepare() {
+		prepareClass();
+		long sent = getSentPacketCount();
+		List<ReferenceType> types = fVMImpl.classesBySignature(PREPARED_SIGNATURE);
+		assertEquals("1", 1, types.size());
+		assertEquals("2", PREPARED_CLASS, types.get(0).name());
+		assertEquals("3", sent, getSentPacketCount());
+	}
+
+	/**
+	 * Test that an unloaded class is removed from the index, so that the next
+	 * lookup asks the VM again and indexes its answer.
+	 */
+	public void testJDILookupAfterUnload() {
+		prepareClass();
+		ReferenceType type = fVMImpl.classesBySignature(PREPARED_SIGNATURE).get(0);
+		// the class is still loaded, so this only simulates its unload event
+		fVMImpl.removeKnownRefType(PREPARED_SIGNATURE);
+
+		long sent = getSentPacketCount();
+		List<ReferenceType> types = fVMImpl.classesBySignature(PREPARED_SIGNATURE);
+		assertEquals("1", 1, types.size());
+		assertEquals("2", type, types.get(0));
+		assertTrue("3", getSentPacketCount() > sent);
+
+		sent = getSentPacketCount();
+		types = fVMImpl.classesBySignature(PREPARED_SIGNATURE);
+		assertEquals("4", 1, types.size());
+		assertEquals("5", sent, getSentPacketCount());
+	}
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdi.internal.event.EventImpl;
+import org.eclipse.jdi.internal.request.EventRequestImpl;
+import org.eclipse.jdi.internal.request.EventRequestManagerImpl;
+
+import com.sun.jdi.event.BreakpointEvent;
+import com.sun.jdi.request.BreakpointRequest;
+import com.sun.jdi.request.ClassPrepareRequest;
+import com.sun.jdi.request.EventRequest;
+import com.sun.jdi.request.MethodExitRequest;
+
+/**
+ * Tests the lookup of the request of an incoming event by its event kind and
+ * request ID in the event request manager.
+ */
+public class EventRequestLookupTest extends AbstractJDITest {
+
+	private EventRequestManagerImpl fManager;
+
+	private List<EventRequest> fRequests = new ArrayList<>();
+
+	/**
+	 * Creates a new test.
+	 */
+	public EventRequestLookupTest() {
+		super();
+	}
+
+	/**
+	 * Init the fields that are used by this test only.
+	 */
+	@Override
+	public void localSetUp() {
+		fManager = (EventRequestManagerImpl) fVM.eventRequestManager();
+		fRequests.clear();
+	}
+
+	/**
+	 * Make sure the test leaves the VM in the same state it found it.
+	 */
+	@Override
+	public void localTearDown() {
+		fManager.deleteEventRequests(fRequests);
+	}
+
+	/**
+	 * Run all tests and output to standard output.
+	 * @param args
+	 */
+	public static void main(java.lang.String[] args) {
+		new EventRequestLookupTest().runSuite(args);
+	}
+
+	/**
+	 * Gets the name of the test case.
+	 * @see junit.framework.TestCase#getName()
+	 */
+	@Override
+	public String getName() {
+		return "org.eclipse.jdi.internal.request.EventRequestManagerImpl.findRequest";
+	}
+
+	private int requestID(EventRequest request) {
+		return ((EventRequestImpl) request).requestID().value();
+	}
+
+	/**
+	 * Test that an enabled request is found under its own event kind only,
+	 * and no longer once it is disabled.
+	 */
+	public void testJDIFindEnabledRequest() {
+		BreakpointRequest request = getBreakpointRequest();
+		fRequests.add(request);
+		request.enable();
+		int id = requestID(request);
+		assertSame("1", request, fManager.findRequest(EventImpl.EVENT_BREAKPOINT, id));
+		assertNull("2", fManager.findRequest(EventImpl.EVENT_CLASS_PREPARE, id));
+		assertNull("3", fManager.findRequest(EventImpl.EVENT_SINGLE_STEP, id));
+
+		request.disable();
+		assertNull("4", fManager.findRequest(EventImpl.EVENT_BREAKPOINT, id));
+
+		request.enable();
+		assertSame("5", request, fManager.findRequest(EventImpl.EVENT_BREAKPOINT, requestID(request)));
+	}
+
+	/**
+	 * Test that requests of different kinds are kept apart.
+	 */
+	public void testJDISeveralKinds() {
+		BreakpointRequest breakpoint = getBreakpointRequest();
+		ClassPrepareRequest classPrepare = fManager.createClassPrepareRequest();
+		classPrepare.addClassFilter("no.such.Class");
+		fRequests.add(breakpoint);
+		fRequests.add(classPrepare);
+		breakpoint.enable();
+		classPrepare.enable();
+		int breakpointID = requestID(breakpoint);
+		int classPrepareID = requestID(classPrepare);
+		assertSame("1", breakpoint, fManager.findRequest(EventImpl.EVENT_BREAKPOINT, breakpointID));
+		assertSame("2", classPrepare, fManager.findRequest(EventImpl.EVENT_CLASS_PREPARE, classPrepareID));
+
+		classPrepare.disable();
+		assertNull("3", fManager.findRequest(EventImpl.EVENT_CLASS_PREPARE, classPrepareID));
+		assertSame("4", breakpoint, fManager.findRequest(EventImpl.EVENT_BREAKPOINT, breakpointID));
+	}
+
+	/**
+	 * Test that method exit events with and without a return value both find
+	 * the method exit request.
+	 */
+	public void testJDIMethodExitKinds() {
+		MethodExitRequest request = fManager.createMethodExitRequest();
+		request.addClassFilter("no.such.Class");
+		fRequests.add(request);
+		request.enable();
+		int id = requestID(request);
+		assertSame("1", request, fManager.findRequest(EventImpl.EVENT_METHOD_EXIT, id));
+		assertSame("2", request, fManager.findRequest(EventImpl.EVENT_METHOD_EXIT_WITH_RETURN_VALUE, id));
+	}
+
+	/**
+	 * Test that deleting an enabled request removes it.
+	 */
+	public void testJDIDeleteRequest() {
+		BreakpointRequest request = getBreakpointRequest();
+		request.enable();
+		int id = requestID(request);
+		fManager.deleteEventRequest(request);
+		assertNull("1", fManager.findRequest(EventImpl.EVENT_BREAKPOINT, id));
+		assertFalse("2", fManager.breakpointRequests().contains(request));
+	}
+
+	/**
+	 * Test that an event kind without requests is reported.
+	 */
+	public void testJDIUnknownKind() {
+		try {
+			fManager.findRequest(EventImpl.EVENT_VM_DISCONNECTED, 1);
+			fail("1");
+		} catch (InternalError e) {
+		}
+		try {
+			fManager.findRequest((byte) -1, 1);
+			fail("2");
+		} catch (InternalError e) {
+		}
+	}
+
+	/**
+	 * Test that an incoming event is resolved to its request.
+	 */
+	public void testJDIEventRequest() {
+		BreakpointRequest request = getBreakpointRequest();
+		fRequests.add(request);
+		BreakpointEvent event = (BreakpointEvent) triggerAndWait(request, "BreakpointEvent", true);
+		assertSame("1", request, event.request());
+		fVM.resume();
+		waitUntilReady();
+	}
+}
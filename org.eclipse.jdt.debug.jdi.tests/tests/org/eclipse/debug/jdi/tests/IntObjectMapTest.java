@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.tests;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.jdi.internal.IntObjectMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the map from <code>int</code> keys to objects. Does not need a target
+ * VM.
+ */
+public class IntObjectMapTest extends TestCase {
+
+	/**
+	 * Test put, get and remove of single keys.
+	 */
+	public void testPutGetRemove() {
+		IntObjectMap<String> map = new IntObjectMap<>();
+		assertNull("1", map.put(3, "three")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull("2", map.put(Integer.MIN_VALUE, "min")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("3", "three", map.put(3, "drei")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertEquals("4", 2, map.size()); //$NON-NLS-1$
+		assertEquals("5", "drei", map.get(3)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("6", "drei", map.remove(3)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull("7", map.get(3)); //$NON-NLS-1$
+		assertNull("8", map.remove(3)); //$NON-NLS-1$
+		assertEquals("9", "min", map.get(Integer.MIN_VALUE)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("10", 1, map.size()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test that null values are rejected, since null marks a free slot.
+	 */
+	public void testNullValue() {
+		IntObjectMap<String> map = new IntObjectMap<>();
+		try {
+			map.put(1, null);
+			fail("1"); //$NON-NLS-1$
+		} catch (IllegalArgumentException e) {
+		}
+		assertTrue("2", map.isEmpty()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test removing keys from the middle of probe sequences: the keys after
+	 * the removed one must still be found.
+	 */
+	public void testRemoveWithCollisions() {
+		IntObjectMap<Integer> map = new IntObjectMap<>(8);
+		// more keys than the initial table holds, so probe sequences overlap
+		// before and after the resize
+		for (int i = 0; i < 64; i++) {
+			map.put(i * 16, Integer.valueOf(i));
+		}
+		for (int i = 0; i < 64; i += 3) {
+			assertEquals("1." + i, Integer.valueOf(i), map.remove(i * 16)); //$NON-NLS-1$
+		}
+		for (int i = 0; i < 64; i++) {
+			Integer expected = i % 3 == 0 ? null : Integer.valueOf(i);
+			assertEquals("2." + i, expected, map.get(i * 16)); //$NON-NLS-1$
+		}
+		assertEquals("3", 64 - 22, map.size()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test random puts and removes against a {@link HashMap}, with enough keys
+	 * to resize the table several times.
+	 */
+	public void testAgainstHashMap() {
+		IntObjectMap<Integer> map = new IntObjectMap<>(0);
+		Map<Integer, Integer> expected = new HashMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 20000; i++) {
+			int key = random.nextInt(2000) - 1000;
+			if (random.nextInt(3) == 0) {
+				assertEquals("1." + i, expected.remove(Integer.valueOf(key)), map.remove(key)); //$NON-NLS-1$
+			} else {
+				Integer value = Integer.valueOf(i);
+				assertEquals("2." + i, expected.put(Integer.valueOf(key), value), map.put(key, value)); //$NON-NLS-1$
+			}
+		}
+		assertEquals("3", expected.size(), map.size()); //$NON-NLS-1$
+		for (int key = -1000; key < 1000; key++) {
+			assertEquals("4." + key, expected.get(Integer.valueOf(key)), map.get(key)); //$NON-NLS-1$
+		}
+		assertEquals("5", new HashSet<>(expected.values()), new HashSet<>(map.values())); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test that a copy is not affected by later changes to the original.
+	 */
+	public void testCopy() {
+		IntObjectMap<String> map = new IntObjectMap<>();
+		map.put(1, "one"); //$NON-NLS-1$
+		IntObjectMap<String> copy = map.copy();
+		map.put(2, "two"); //$NON-NLS-1$
+		map.remove(1);
+		assertEquals("1", "one", copy.get(1)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull("2", copy.get(2)); //$NON-NLS-1$
+		assertEquals("3", 1, copy.size()); //$NON-NLS-1$
+		List<String> values = new ArrayList<>(copy.values());
+		assertEquals("4", 1, values.size()); //$NON-NLS-1$
+	}
+}
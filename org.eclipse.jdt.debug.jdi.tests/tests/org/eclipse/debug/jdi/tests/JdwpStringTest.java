@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+
+import org.eclipse.jdi.internal.jdwp.JdwpString;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the decoding of JDWP strings from streams and from packet buffers,
+ * including truncated and malformed input. Does not need a target VM.
+ */
+public class JdwpStringTest extends TestCase {
+
+	/**
+	 * Returns the JDWP encoding of the given string: its length as an int,
+	 * followed by its modified UTF-8 bytes.
+	 */
+	private byte[] encode(String string) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		JdwpString.write(string, new DataOutputStream(bytes));
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Returns the given UTF bytes, preceded by their length.
+	 */
+	private byte[] withLength(int... utfBytes) {
+		ByteBuffer buffer = ByteBuffer.allocate(4 + utfBytes.length);
+		buffer.putInt(utfBytes.length);
+		for (int b : utfBytes) {
+			buffer.put((byte) b);
+		}
+		return buffer.array();
+	}
+
+	private String readFromStream(byte[] bytes) throws IOException {
+		return JdwpString.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+	private String readFromHeapBuffer(byte[] bytes) throws IOException {
+		return JdwpString.read(ByteBuffer.wrap(bytes));
+	}
+
+	private String readFromDirectBuffer(byte[] bytes) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes);
+		buffer.flip();
+		return JdwpString.read(buffer);
+	}
+
+	/**
+	 * Asserts that the given bytes are rejected with a
+	 * UTFDataFormatException by every decoding path.
+	 */
+	private void assertMalformed(String message, byte[] bytes) throws IOException {
+		try {
+			readFromStream(bytes);
+			fail(message + " stream"); //$NON-NLS-1$
+		} catch (UTFDataFormatException e) {
+		}
+		try {
+			readFromHeapBuffer(bytes);
+			fail(message + " heap buffer"); //$NON-NLS-1$
+		} catch (UTFDataFormatException e) {
+		}
+		try {
+			readFromDirectBuffer(bytes);
+			fail(message + " direct buffer"); //$NON-NLS-1$
+		} catch (UTFDataFormatException e) {
+		}
+	}
+
+	/**
+	 * Test that strings of one, two and three byte characters survive an
+	 * encoding and decoding round trip on every path.
+	 */
+	public void testRoundTrip() throws IOException {
+		String[] strings = { "", "abc", "\u00e9t\u00e9", "\u20ac 5", "a\u0000b", "\u4e2d\u6587" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+		for (String string : strings) {
+			byte[] bytes = encode(string);
+			assertEquals("1", string, readFromStream(bytes)); //$NON-NLS-1$
+			assertEquals("2", string, readFromHeapBuffer(bytes)); //$NON-NLS-1$
+			assertEquals("3", string, readFromDirectBuffer(bytes)); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Test that decoding from a buffer consumes exactly the string, also when
+	 * the buffer is a slice of a larger array.
+	 */
+	public void testBufferPosition() throws IOException {
+		byte[] first = encode("first"); //$NON-NLS-1$
+		byte[] second = encode("\u00e9"); //$NON-NLS-1$
+		byte[] bytes = new byte[3 + first.length + second.length];
+		System.arraycopy(first, 0, bytes, 3, first.length);
+		System.arraycopy(second, 0, bytes, 3 + first.length, second.length);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, 3, bytes.length - 3).slice();
+		assertEquals("1", "first", JdwpString.read(buffer)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("2", first.length, buffer.position()); //$NON-NLS-1$
+		assertEquals("3", "\u00e9", JdwpString.read(buffer)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse("4", buffer.hasRemaining()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test that a string announcing more bytes than available is reported as
+	 * the end of the data.
+	 */
+	public void testTruncatedString() throws IOException {
+		byte[] bytes = encode("truncated"); //$NON-NLS-1$
+		byte[] truncated = new byte[bytes.length - 2];
+		System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+		try {
+			readFromStream(truncated);
+			fail("1"); //$NON-NLS-1$
+		} catch (EOFException e) {
+		}
+		try {
+			readFromHeapBuffer(truncated);
+			fail("2"); //$NON-NLS-1$
+		} catch (EOFException e) {
+		}
+		try {
+			readFromDirectBuffer(truncated);
+			fail("3"); //$NON-NLS-1$
+		} catch (EOFException e) {
+		}
+	}
+
+	/**
+	 * Test that a negative length is reported as the end of the data.
+	 */
+	public void testNegativeLength() throws IOException {
+		byte[] bytes = ByteBuffer.allocate(8).putInt(-1).array();
+		try {
+			readFromHeapBuffer(bytes);
+			fail("1"); //$NON-NLS-1$
+		} catch (EOFException e) {
+		}
+	}
+
+	/**
+	 * Test that a multi-byte character cut off by the end of the string is
+	 * rejected, rather than read from the bytes following the string.
+	 */
+	public void testCharacterCutOff() throws IOException {
+		// first byte of a two byte character
+		assertMalformed("1", withLength(0x61, 0xc3)); //$NON-NLS-1$
+		// first byte of a three byte character
+		assertMalformed("2", withLength(0xe2)); //$NON-NLS-1$
+		// first two bytes of a three byte character
+		assertMalformed("3", withLength(0x61, 0xe2, 0x82)); //$NON-NLS-1$
+
+		// the following bytes are in the buffer, but not part of the string
+		byte[] bytes = withLength(0x61, 0xe2, 0x82, 0xac);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		buffer.putInt(0, 2);
+		try {
+			JdwpString.read(buffer);
+			fail("4"); //$NON-NLS-1$
+		} catch (UTFDataFormatException e) {
+		}
+	}
+
+	/**
+	 * Test that bytes that are not modified UTF-8 are rejected.
+	 */
+	public void testInvalidBytes() throws IOException {
+		// second byte of a two byte character without the continuation bits
+		assertMalformed("1", withLength(0xc3, 0x29)); //$NON-NLS-1$
+		// third byte of a three byte character without the continuation bits
+		assertMalformed("2", withLength(0xe2, 0x82, 0x28)); //$NON-NLS-1$
+		// four byte form, not part of modified UTF-8
+		assertMalformed("3", withLength(0xf0, 0x9f, 0x98, 0x80)); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.tests;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.jdi.internal.LongIntMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the map from <code>long</code> keys to <code>int</code> values. Does
+ * not need a target VM.
+ */
+public class LongIntMapTest extends TestCase {
+
+	/**
+	 * Test put and get, including replacing a value and the default value of
+	 * absent keys.
+	 */
+	public void testPutGet() {
+		LongIntMap map = new LongIntMap(0);
+		assertTrue("1", map.isEmpty()); //$NON-NLS-1$
+		map.put(10, 1);
+		map.put(0, 0);
+		map.put(-5, Integer.MIN_VALUE);
+		map.put(10, 2);
+		assertEquals("2", 3, map.size()); //$NON-NLS-1$
+		assertEquals("3", 2, map.get(10, -1)); //$NON-NLS-1$
+		assertEquals("4", 0, map.get(0, -1)); //$NON-NLS-1$
+		assertEquals("5", Integer.MIN_VALUE, map.get(-5, -1)); //$NON-NLS-1$
+		assertEquals("6", -1, map.get(11, -1)); //$NON-NLS-1$
+		assertTrue("7", map.containsKey(0)); //$NON-NLS-1$
+		assertFalse("8", map.containsKey(1)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test that maps are independent: modifying one, such as the map of a
+	 * method without code, does not affect another.
+	 */
+	public void testIndependentMaps() {
+		LongIntMap first = new LongIntMap(0);
+		LongIntMap second = new LongIntMap(0);
+		first.put(1, 1);
+		assertTrue("1", second.isEmpty()); //$NON-NLS-1$
+		assertFalse("2", second.containsKey(1)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test keys with the same hash, which share one probe sequence.
+	 */
+	public void testCollisions() {
+		LongIntMap map = new LongIntMap(0);
+		for (int i = 0; i < 100; i++) {
+			map.put(((long) i << 32) | i, i);
+		}
+		assertEquals("1", 100, map.size()); //$NON-NLS-1$
+		for (int i = 0; i < 100; i++) {
+			assertEquals("2." + i, i, map.get(((long) i << 32) | i, -1)); //$NON-NLS-1$
+		}
+		assertEquals("3", -1, map.get(1, -1)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test that the map grows while keeping all entries, compared against a
+	 * {@link HashMap}, with code indexes as keys and line numbers as values.
+	 */
+	public void testResize() {
+		LongIntMap map = new LongIntMap(1);
+		Map<Long, Integer> expected = new HashMap<>();
+		Random random = new Random(23);
+		for (int i = 0; i < 5000; i++) {
+			long codeIndex = random.nextInt(20000);
+			int line = random.nextInt(1000);
+			map.put(codeIndex, line);
+			expected.put(Long.valueOf(codeIndex), Integer.valueOf(line));
+		}
+		assertEquals("1", expected.size(), map.size()); //$NON-NLS-1$
+		for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+			assertEquals("2", entry.getValue().intValue(), map.get(entry.getKey().longValue(), -1)); //$NON-NLS-1$
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.tests;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.jdi.internal.LongObjectMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the map from <code>long</code> keys to objects. Does not need a target
+ * VM.
+ */
+public class LongObjectMapTest extends TestCase {
+
+	/**
+	 * Test put and get, including replacing a value.
+	 */
+	public void testPutGet() {
+		LongObjectMap<String> map = new LongObjectMap<>();
+		assertTrue("1", map.isEmpty()); //$NON-NLS-1$
+		assertNull("2", map.put(1, "one")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull("3", map.put(Long.MIN_VALUE, "min")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull("4", map.put(0, "zero")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("5", "one", map.put(1, "uno")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertEquals("6", 3, map.size()); //$NON-NLS-1$
+		assertEquals("7", "uno", map.get(1)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("8", "min", map.get(Long.MIN_VALUE)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("9", "zero", map.get(0)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull("10", map.get(2)); //$NON-NLS-1$
+		assertTrue("11", map.containsKey(0)); //$NON-NLS-1$
+		assertFalse("12", map.containsKey(-1)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test keys whose high and low halves cancel out, so that they all have
+	 * the same hash and share one probe sequence.
+	 */
+	public void testCollisions() {
+		LongObjectMap<Long> map = new LongObjectMap<>();
+		for (long i = 0; i < 100; i++) {
+			long key = (i << 32) | i;
+			map.put(key, Long.valueOf(i));
+		}
+		assertEquals("1", 100, map.size()); //$NON-NLS-1$
+		for (long i = 0; i < 100; i++) {
+			assertEquals("2." + i, Long.valueOf(i), map.get((i << 32) | i)); //$NON-NLS-1$
+		}
+		assertNull("3", map.get(1)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test that the map grows from its initial size while keeping all
+	 * entries, compared against a {@link HashMap}.
+	 */
+	public void testResize() {
+		LongObjectMap<Long> map = new LongObjectMap<>(0);
+		Map<Long, Long> expected = new HashMap<>();
+		Random random = new Random(17);
+		for (int i = 0; i < 5000; i++) {
+			long key = random.nextInt(3) == 0 ? random.nextLong() : random.nextInt(10000) * 8L;
+			Long value = Long.valueOf(i);
+			assertEquals("1." + i, expected.put(Long.valueOf(key), value), map.put(key, value)); //$NON-NLS-1$
+		}
+		assertEquals("2", expected.size(), map.size()); //$NON-NLS-1$
+		for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+			assertEquals("3", entry.getValue(), map.get(entry.getKey().longValue())); //$NON-NLS-1$
+		}
+	}
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.tests;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jdi.internal.MirrorCache;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the cache of mirrors keyed by JDWP IDs. Does not need a target VM.
+ */
+public class MirrorCacheTest extends TestCase {
+
+	/**
+	 * Number of entries used to grow the segments several times.
+	 */
+	private static final int MANY = 10000;
+
+	private MirrorCache<String> fCache;
+
+	@Override
+	protected void setUp() throws Exception {
+		fCache = new MirrorCache<>();
+	}
+
+	/**
+	 * Test put, get and the hit and miss counts.
+	 */
+	public void testPutGet() {
+		assertNull("1", fCache.get(1)); //$NON-NLS-1$
+		fCache.put(1, "one"); //$NON-NLS-1$
+		fCache.put(Long.MAX_VALUE, "max"); //$NON-NLS-1$
+		fCache.put(-1, "minus one"); //$NON-NLS-1$
+		assertEquals("2", "one", fCache.get(1)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("3", "max", fCache.get(Long.MAX_VALUE)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("4", "minus one", fCache.get(-1)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull("5", fCache.get(2)); //$NON-NLS-1$
+		assertEquals("6", 3, fCache.size()); //$NON-NLS-1$
+		assertEquals("7", 3, fCache.getHitCount()); //$NON-NLS-1$
+		assertEquals("8", 2, fCache.getMissCount()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test that putting a key again replaces its value rather than adding an
+	 * entry.
+	 */
+	public void testReplace() {
+		fCache.put(42, "old"); //$NON-NLS-1$
+		fCache.put(42, "new"); //$NON-NLS-1$
+		assertEquals("1", "new", fCache.get(42)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("2", 1, fCache.size()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test removing present and absent keys.
+	 */
+	public void testRemove() {
+		fCache.put(7, "seven"); //$NON-NLS-1$
+		fCache.put(8, "eight"); //$NON-NLS-1$
+		assertEquals("1", "seven", fCache.remove(7)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull("2", fCache.get(7)); //$NON-NLS-1$
+		assertNull("3", fCache.remove(7)); //$NON-NLS-1$
+		assertEquals("4", "eight", fCache.get(8)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("5", 1, fCache.size()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test that sequential and aligned IDs, as handed out by VMs, are all
+	 * found again after the segments have grown, and that removing every
+	 * other one leaves the rest in place.
+	 */
+	public void testManyKeys() {
+		List<String> values = new ArrayList<>();
+		for (int i = 0; i < MANY; i++) {
+			values.add(Integer.toString(i));
+			fCache.put(key(i), values.get(i));
+		}
+		assertEquals("1", MANY, fCache.size()); //$NON-NLS-1$
+		for (int i = 0; i < MANY; i++) {
+			assertSame("2." + i, values.get(i), fCache.get(key(i))); //$NON-NLS-1$
+		}
+		for (int i = 0; i < MANY; i += 2) {
+			assertSame("3." + i, values.get(i), fCache.remove(key(i))); //$NON-NLS-1$
+		}
+		assertEquals("4", MANY / 2, fCache.size()); //$NON-NLS-1$
+		for (int i = 0; i < MANY; i++) {
+			if (i % 2 == 0) {
+				assertNull("5." + i, fCache.get(key(i))); //$NON-NLS-1$
+			} else {
+				assertSame("6." + i, values.get(i), fCache.get(key(i))); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Returns IDs that differ in their high and low bits only, which collide
+	 * in the low bits without spreading.
+	 */
+	private static long key(int i) {
+		return ((long) i << 32) | ((i & 0xF) << 3);
+	}
+
+	/**
+	 * Test that the values snapshot holds every cached value once.
+	 */
+	public void testValues() {
+		Set<String> expected = new HashSet<>();
+		for (int i = 0; i < 100; i++) {
+			String value = "v" + i; //$NON-NLS-1$
+			expected.add(value);
+			fCache.put(i * 8, value);
+		}
+		List<String> values = fCache.values();
+		assertEquals("1", expected.size(), values.size()); //$NON-NLS-1$
+		assertEquals("2", expected, new HashSet<>(values)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test that threads putting, getting and removing disjoint keys at the
+	 * same time do not lose or corrupt entries.
+	 */
+	public void testConcurrentAccess() throws Exception {
+		final int threadCount = 8;
+		final int perThread = 2000;
+		final Throwable[] failure = new Throwable[1];
+		Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++) {
+			final int base = t * perThread;
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int i = base; i < base + perThread; i++) {
+							fCache.put(i, Integer.toString(i));
+						}
+						for (int i = base; i < base + perThread; i++) {
+							assertEquals(Integer.toString(i), fCache.get(i));
+						}
+						for (int i = base; i < base + perThread; i += 2) {
+							fCache.remove(i);
+						}
+					} catch (Throwable e) {
+						synchronized (failure) {
+							failure[0] = e;
+						}
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (failure[0] != null) {
+			fail("1 " + failure[0]); //$NON-NLS-1$
+		}
+		assertEquals("2", threadCount * perThread / 2, fCache.size()); //$NON-NLS-1$
+		for (int i = 1; i < threadCount * perThread; i += 2) {
+			assertEquals("3." + i, Integer.toString(i), fCache.get(i)); //$NON-NLS-1$
+		}
+	}
+}
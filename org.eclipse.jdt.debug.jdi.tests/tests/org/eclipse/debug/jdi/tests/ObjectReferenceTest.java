@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,8 @@
 package org.eclipse.debug.jdi.tests;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -18,6 +20,8 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Vector;
 
+import org.eclipse.jdi.internal.ObjectReferenceImpl;
+
 import junit.framework.Test;
 
 import com.sun.jdi.ClassNotLoadedException;
@@ -193,6 +197,39 @@ public class ObjectReferenceTest extends AbstractJDITest {
 		//assertEquals("10", fVM.mirrorOf("HEY"), fObject.getValue(field));
 
 	}
+	/**
+	 * Test ObjectReferenceImpl.getValues(Map,int), which retrieves the values
+	 * of fields of many objects with pipelined 'Object - Get Fields Values'
+	 * and 'Reference Type - Get Values' commands.
+	 */
+	public void testJDIGetValuesOfManyObjects() {
+		ObjectReference string = (ObjectReference) getMainClass().getValue(getField("fString"));
+		List<Field> stringFields = new ArrayList<>();
+		for (Field field : string.referenceType().allFields()) {
+			if (!field.isStatic()) {
+				stringFields.add(field);
+			}
+		}
+		Map<ObjectReference, List<Field>> requests = new HashMap<>();
+		requests.put(fObject, Arrays.asList(getField("fBool"), getField("fChar"), getField("fString"), getField("fInt")));
+		requests.put(string, stringFields);
+
+		// every pipeline depth retrieves the same values as one request per object
+		for (int depth = 0; depth <= 3; depth++) {
+			Map<ObjectReference, Map<Field, Value>> values = ObjectReferenceImpl.getValues(requests, depth);
+			assertEquals("1." + depth, 2, values.size());
+			for (Map.Entry<ObjectReference, List<Field>> entry : requests.entrySet()) {
+				Map<Field, Value> objectValues = values.get(entry.getKey());
+				assertNotNull("2." + depth, objectValues);
+				assertEquals("3." + depth, entry.getKey().getValues(entry.getValue()), objectValues);
+			}
+		}
+		Map<Field, Value> values = ObjectReferenceImpl.getValues(requests, 4).get(fObject);
+		assertEquals("4", "Hello World", ((StringReference) values.get(getField("fString"))).value());
+
+		// no request at all
+		assertTrue("5", ObjectReferenceImpl.getValues(new HashMap<ObjectReference, List<Field>>(), 4).isEmpty());
+	}
 	/**
 	 * Test JDI invokeMethod.
 	 */
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+public class SimpleConditions {
+
+	static class Base {
+		public int hidden = 1;
+		int packageField = 2;
+		public static int staticField = 4;
+	}
+
+	static class Sub extends Base {
+		public int hidden = 10;
+	}
+
+	static class Derived extends SimpleConditions {
+		int own = 50;
+	}
+
+	private int own = 5;
+	int i = 7;
+	Integer boxed = 42;
+	Long boxedLong = 42L;
+	Object integerObject = boxed;
+	String string = "text";
+	String nullString = null;
+	int[] array = { 1, 2, 3 };
+	Base base = new Sub();
+	Sub sub = (Sub) base;
+	Other other = new Other();
+
+	void run() {
+		int i = 42;
+		long l = 42;
+		double d = 0.5;
+		char c = 'a';
+		boolean flag = true;
+		Integer nullInteger = null;
+		System.out.println(i + l + d + c + " " + flag + nullInteger); // breakpoint here
+	}
+
+	public static void main(String[] args) {
+		new Derived().run();
+	}
+}
+
+class Other {
+	private int secret = 7;
+}
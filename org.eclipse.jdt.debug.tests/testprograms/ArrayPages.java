@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+public class ArrayPages {
+
+	public static void main(String[] args) {
+		int[] ints = new int[70 * 1024];
+		for (int i = 0; i < ints.length; i++) {
+			ints[i] = i;
+		}
+		String[] strings = new String[2 * 1024];
+		for (int i = 0; i < strings.length; i++) {
+			strings[i] = Integer.toString(i);
+		}
+		pause();
+		ints[0] = -1;
+		strings[0] = "first";
+		pause();
+	}
+
+	static void pause() {
+		System.out.println("pause"); // breakpoint here
+	}
+
+	static void fill(int[] values, int value) {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = value;
+		}
+	}
+}
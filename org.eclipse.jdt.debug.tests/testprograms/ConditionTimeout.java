@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+public class ConditionTimeout {
+
+	public static void main(String[] args) {
+		for (int i = 0; i < 3; i++) {
+			hit(i);
+		}
+		System.out.println("done");
+	}
+
+	static void hit(int i) {
+		System.out.println(i);
+	}
+
+	static boolean block(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+		}
+		return false;
+	}
+}
@@ -0,0 +1,25 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+public class DeepStack {
+
+	public static void main(String[] args) {
+		recurse(500);
+	}
+
+	static void recurse(int depth) {
+		if (depth == 0) {
+			System.out.println("bottom");
+			return;
+		}
+		recurse(depth - 1);
+	}
+}
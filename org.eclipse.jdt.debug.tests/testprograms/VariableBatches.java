@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+public class VariableBatches {
+
+	int field1 = 1;
+	String field2 = "two";
+
+	public static void main(String[] args) {
+		new VariableBatches().run();
+	}
+
+	void run() {
+		int a = 1;
+		int b = 2;
+		String c = "three";
+		for (int i = 0; i < 10; i++) {
+			a = step(a + b + i);
+		}
+		System.out.println(a + c);
+	}
+
+	int step(int value) {
+		return field1 = value + 1;
+	}
+}
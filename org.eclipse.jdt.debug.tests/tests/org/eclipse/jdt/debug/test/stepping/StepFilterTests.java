@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2014 IBM Corporation and others.
+ *  Copyright (c) 2000, 2018 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -11,11 +11,14 @@
  *******************************************************************************/
 package org.eclipse.jdt.debug.test.stepping;
 
+import java.util.Arrays;
+
 import org.eclipse.debug.core.model.ILineBreakpoint;
 import org.eclipse.jdt.debug.core.IJavaStackFrame;
 import org.eclipse.jdt.debug.core.IJavaThread;
 import org.eclipse.jdt.debug.tests.AbstractDebugTest;
 import org.eclipse.jdt.debug.tests.TestAgainException;
+import org.eclipse.jdt.internal.debug.core.model.StepFilterMatcher;
 import org.eclipse.jdt.internal.debug.ui.IJDIPreferencesConstants;
 import org.eclipse.jdt.internal.debug.ui.JDIDebugUIPlugin;
 import org.eclipse.jface.preference.IPreferenceStore;
@@ -321,6 +324,38 @@ public class StepFilterTests extends AbstractDebugTest {
 		}
 	}
 
+	/**
+	 * Tests that class exclusion patterns covered by a broader package prefix
+	 * pattern are dropped from step requests, and that duplicates are removed
+	 *
+	 * @throws Exception
+	 */
+	public void testCompiledPrefixFilters() throws Exception {
+		assertCompiled(new String[] { "java.*", "javax.*", "com.foo.Bar" }, new String[] { "java.lang.String", "java.*",
+				"java.lang.*", "javax.*", "java.*", "com.foo.Bar" });
+		// a prefix pattern only covers the classes of its package and sub-packages
+		assertCompiled(new String[] { "org.eclipse.*", "org.eclipsex.Foo", "org.eclipse" }, new String[] { "org.eclipse.*",
+				"org.eclipsex.Foo", "org.eclipse", "org.eclipse.jdt.*" });
+		assertCompiled(new String[0], null);
+		assertCompiled(new String[0], new String[] { "" });
+	}
+
+	/**
+	 * Tests that a <code>*</code> pattern covers every other class exclusion
+	 * pattern, and that other patterns with a wildcard are kept as they are
+	 *
+	 * @throws Exception
+	 */
+	public void testCompiledWildcardFilters() throws Exception {
+		assertCompiled(new String[] { "*" }, new String[] { "java.lang.*", "*", "java.util.Map", "*Test" });
+		assertCompiled(new String[] { "*Test", "*.Foo", "java.*" }, new String[] { "*Test", "*.Foo", "java.*", "java.util.*" });
+	}
+
+	private void assertCompiled(String[] expected, String[] filters) {
+		String[] compiled = StepFilterMatcher.compile(filters);
+		assertEquals("Wrong class exclusion patterns", Arrays.asList(expected), Arrays.asList(compiled));
+	}
+
 	/**
 	 * Reset the step filtering preferences
 	 */
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.tests.breakpoints;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.debug.core.model.ITriggerPoint;
+import org.eclipse.jdt.debug.core.IJavaBreakpoint;
+import org.eclipse.jdt.debug.core.IJavaLineBreakpoint;
+import org.eclipse.jdt.debug.core.IJavaThread;
+import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.internal.debug.core.breakpoints.BreakpointAttributeSnapshot;
+import org.eclipse.jdt.internal.debug.core.breakpoints.JavaBreakpoint;
+import org.eclipse.jdt.internal.debug.core.breakpoints.JavaLineBreakpoint;
+
+/**
+ * Tests that the copy of the attributes of a breakpoint read when it is hit is
+ * taken again after the attributes change, whether through the breakpoint or
+ * through its marker.
+ */
+public class BreakpointAttributeSnapshotTests extends AbstractDebugTest {
+
+	private static final String TYPE_NAME = "HitCountLooper";
+
+	/**
+	 * Marker attribute of the suspend policy of a breakpoint
+	 */
+	private static final String SUSPEND_POLICY = "org.eclipse.jdt.debug.core.suspendPolicy";
+
+	/**
+	 * A line breakpoint that sets several attributes at once.
+	 */
+	static class TestLineBreakpoint extends JavaLineBreakpoint {
+
+		TestLineBreakpoint(IResource resource, String typeName, int lineNumber) throws DebugException {
+			super(resource, typeName, lineNumber, -1, -1, 0, false, new HashMap<String, Object>());
+		}
+
+		void putAttributes(Map<String, Object> attributes) throws CoreException {
+			setAttributes(attributes);
+		}
+	}
+
+	public BreakpointAttributeSnapshotTests(String name) {
+		super(name);
+	}
+
+	/**
+	 * Tests that the snapshot is kept while the attributes do not change, and
+	 * taken again when they are set one by one.
+	 *
+	 * @throws Exception
+	 */
+	public void testSetAttribute() throws Exception {
+		IJavaLineBreakpoint bp = createLineBreakpoint(16, TYPE_NAME);
+		try {
+			JavaBreakpoint breakpoint = (JavaBreakpoint) bp;
+			BreakpointAttributeSnapshot snapshot = breakpoint.getAttributeSnapshot();
+			assertSame("The snapshot should be kept", snapshot, breakpoint.getAttributeSnapshot());
+			assertEquals("Wrong suspend policy", IJavaBreakpoint.SUSPEND_THREAD, snapshot.getSuspendPolicy());
+			assertFalse("Should not be a trigger point", snapshot.isTriggerPoint());
+			assertEquals("Should have no listeners", 0, snapshot.getBreakpointListeners().length);
+
+			bp.setSuspendPolicy(IJavaBreakpoint.SUSPEND_VM);
+			assertEquals("The suspend policy should be read again", IJavaBreakpoint.SUSPEND_VM, breakpoint.getAttributeSnapshot().getSuspendPolicy());
+
+			bp.setTriggerPoint(true);
+			assertTrue("The trigger point should be read again", breakpoint.getAttributeSnapshot().isTriggerPoint());
+
+			bp.addBreakpointListener("org.eclipse.jdt.debug.tests.listener");
+			assertEquals("The listeners should be read again", Arrays.asList("org.eclipse.jdt.debug.tests.listener"), Arrays.asList(breakpoint.getAttributeSnapshot().getBreakpointListeners()));
+		} finally {
+			removeAllBreakpoints();
+		}
+	}
+
+	/**
+	 * Tests that the snapshot is taken again when attributes are set together.
+	 *
+	 * @throws Exception
+	 */
+	public void testSetAttributes() throws Exception {
+		TestLineBreakpoint breakpoint = new TestLineBreakpoint(getBreakpointResource(TYPE_NAME), TYPE_NAME, 16);
+		try {
+			BreakpointAttributeSnapshot snapshot = breakpoint.getAttributeSnapshot();
+			assertFalse("Should not be a trigger point", snapshot.isTriggerPoint());
+
+			Map<String, Object> attributes = new HashMap<>();
+			attributes.put(ITriggerPoint.TRIGGERPOINT, Boolean.TRUE);
+			attributes.put(JavaBreakpoint.BREAKPOINT_LISTENERS, "a,b");
+			breakpoint.putAttributes(attributes);
+			snapshot = breakpoint.getAttributeSnapshot();
+			assertTrue("The trigger point should be read again", snapshot.isTriggerPoint());
+			assertEquals("The listeners should be read again", Arrays.asList("a", "b"), Arrays.asList(snapshot.getBreakpointListeners()));
+		} finally {
+			breakpoint.delete();
+		}
+	}
+
+	/**
+	 * Tests that the snapshot is taken again when the marker of a breakpoint
+	 * installed in a target is changed directly.
+	 *
+	 * @throws Exception
+	 */
+	public void testDirectMarkerEdit() throws Exception {
+		IJavaLineBreakpoint bp = createLineBreakpoint(16, TYPE_NAME);
+		IJavaThread thread = null;
+		try {
+			thread = launchToLineBreakpoint(TYPE_NAME, bp);
+			JavaBreakpoint breakpoint = (JavaBreakpoint) bp;
+			assertFalse("Should not be a trigger point", breakpoint.getAttributeSnapshot().isTriggerPoint());
+
+			IMarker marker = bp.getMarker();
+			marker.setAttributes(new String[] { SUSPEND_POLICY, ITriggerPoint.TRIGGERPOINT,
+					JavaBreakpoint.BREAKPOINT_LISTENERS }, new Object[] { Integer.valueOf(IJavaBreakpoint.SUSPEND_VM),
+					Boolean.TRUE, "org.eclipse.jdt.debug.tests.listener" });
+			BreakpointAttributeSnapshot snapshot = breakpoint.getAttributeSnapshot();
+			long timeout = System.currentTimeMillis() + DEFAULT_TIMEOUT;
+			while (!snapshot.isTriggerPoint() && System.currentTimeMillis() < timeout) {
+				Thread.sleep(100);
+				snapshot = breakpoint.getAttributeSnapshot();
+			}
+			assertTrue("The trigger point should be read again", snapshot.isTriggerPoint());
+			assertEquals("The suspend policy should be read again", IJavaBreakpoint.SUSPEND_VM, snapshot.getSuspendPolicy());
+			assertEquals("The listeners should be read again", Arrays.asList("org.eclipse.jdt.debug.tests.listener"), Arrays.asList(snapshot.getBreakpointListeners()));
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.tests.breakpoints;
+
+import org.eclipse.debug.core.model.IThread;
+import org.eclipse.jdt.debug.core.IJavaDebugTarget;
+import org.eclipse.jdt.debug.core.IJavaLineBreakpoint;
+import org.eclipse.jdt.debug.core.IJavaStackFrame;
+import org.eclipse.jdt.debug.core.IJavaThread;
+import org.eclipse.jdt.debug.eval.ICompiledExpression;
+import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.internal.debug.core.breakpoints.CompiledConditionCache;
+import org.eclipse.jdt.internal.debug.eval.ast.engine.ASTEvaluationEngine;
+
+/**
+ * Tests that compiled breakpoint conditions are shared between the threads a
+ * breakpoint is hit in, that the least recently used ones are discarded, and
+ * that they are discarded when the condition changes.
+ */
+public class CompiledConditionCacheTests extends AbstractDebugTest {
+
+	private static final String TYPE_NAME = "ParallelBreakpointHits";
+
+	private IJavaThread fThread;
+
+	private IJavaLineBreakpoint fBreakpoint;
+
+	private ASTEvaluationEngine fEngine;
+
+	public CompiledConditionCacheTests(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fBreakpoint = createLineBreakpoint(33, TYPE_NAME);
+		fThread = launchToBreakpoint(TYPE_NAME);
+		assertNotNull("Breakpoint not hit within timeout period", fThread);
+		fEngine = new ASTEvaluationEngine(getProjectContext(), (IJavaDebugTarget) fThread.getDebugTarget());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (fEngine != null) {
+			fEngine.dispose();
+		}
+		terminateAndRemove(fThread);
+		removeAllBreakpoints();
+		super.tearDown();
+	}
+
+	private ICompiledExpression compile(CompiledConditionCache cache, String condition, IJavaThread thread) throws Exception {
+		IJavaStackFrame frame = (IJavaStackFrame) thread.getTopStackFrame();
+		ICompiledExpression expression = cache.getCompiledExpression(fBreakpoint, condition, getProjectContext(), frame, fEngine);
+		assertFalse("The condition should compile", expression.hasErrors());
+		return expression;
+	}
+
+	/**
+	 * Returns another thread suspended by the breakpoint, as every thread of
+	 * the program hits it.
+	 */
+	private IJavaThread waitForOtherThread() throws Exception {
+		long timeout = System.currentTimeMillis() + DEFAULT_TIMEOUT;
+		while (System.currentTimeMillis() < timeout) {
+			for (IThread thread : fThread.getDebugTarget().getThreads()) {
+				if (thread != fThread && thread.isSuspended() && thread.getBreakpoints().length > 0) {
+					return (IJavaThread) thread;
+				}
+			}
+			Thread.sleep(100);
+		}
+		return null;
+	}
+
+	/**
+	 * Tests that a condition hit in two threads is compiled once, and that
+	 * another condition is compiled on its own.
+	 *
+	 * @throws Exception
+	 */
+	public void testSharedBetweenThreads() throws Exception {
+		CompiledConditionCache cache = new CompiledConditionCache(10);
+		ICompiledExpression expression = compile(cache, "j == 49", fThread);
+		assertSame("The condition should be reused in the same thread", expression, compile(cache, "j == 49", fThread));
+		IJavaThread other = waitForOtherThread();
+		assertNotNull("No other thread hit the breakpoint", other);
+		assertSame("The condition should be shared with other threads", expression, compile(cache, "j == 49", other));
+		assertNotSame("Another condition should be compiled", expression, compile(cache, "j == 48", other));
+	}
+
+	/**
+	 * Tests that the least recently used condition is discarded when the cache
+	 * is full.
+	 *
+	 * @throws Exception
+	 */
+	public void testEviction() throws Exception {
+		CompiledConditionCache cache = new CompiledConditionCache(2);
+		ICompiledExpression first = compile(cache, "j == 1", fThread);
+		ICompiledExpression second = compile(cache, "j == 2", fThread);
+		assertSame("The first condition should be cached", first, compile(cache, "j == 1", fThread));
+		// the second condition is now the least recently used one
+		compile(cache, "j == 3", fThread);
+		assertSame("The recently used condition should be kept", first, compile(cache, "j == 1", fThread));
+		assertNotSame("The least recently used condition should be discarded", second, compile(cache, "j == 2", fThread));
+	}
+
+	/**
+	 * Tests that the compiled conditions of a breakpoint are discarded when
+	 * its condition changes.
+	 *
+	 * @throws Exception
+	 */
+	public void testConditionChange() throws Exception {
+		CompiledConditionCache cache = CompiledConditionCache.getDefault();
+		ICompiledExpression expression = compile(cache, "j == 49", fThread);
+		assertSame("The condition should be cached", expression, compile(cache, "j == 49", fThread));
+		fBreakpoint.setCondition("j == 48");
+		assertNotSame("The condition should be discarded", expression, compile(cache, "j == 49", fThread));
+	}
+}
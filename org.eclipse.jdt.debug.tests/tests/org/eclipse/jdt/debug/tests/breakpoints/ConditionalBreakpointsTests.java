@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.jdt.debug.tests.breakpoints;
 
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.debug.core.model.IBreakpoint;
 import org.eclipse.debug.core.model.IStackFrame;
 import org.eclipse.debug.core.model.IVariable;
@@ -18,6 +20,8 @@ import org.eclipse.jdt.debug.core.IJavaPrimitiveValue;
 import org.eclipse.jdt.debug.core.IJavaStackFrame;
 import org.eclipse.jdt.debug.core.IJavaThread;
 import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
+import org.eclipse.jdt.internal.debug.core.breakpoints.JavaLineBreakpoint;
 
 /**
  * Tests conditional breakpoints.
@@ -562,4 +566,55 @@ public class ConditionalBreakpointsTests extends AbstractDebugTest {
 			removeAllBreakpoints();
 		}
 	}
+
+	/**
+	 * Tests that a condition that blocks longer than the breakpoint's timeout
+	 * is aborted and counted, and that the thread is resumed when the
+	 * preference says so.
+	 *
+	 * @throws Exception
+	 */
+	public void testConditionTimeoutResume() throws Exception {
+		String typeName = "ConditionTimeout";
+		IEclipsePreferences node = InstanceScope.INSTANCE.getNode(JDIDebugPlugin.getUniqueIdentifier());
+		node.putBoolean(JDIDebugPlugin.PREF_SUSPEND_ON_CONDITION_TIMEOUT, false);
+		JavaLineBreakpoint bp = (JavaLineBreakpoint) createConditionalLineBreakpoint(22, typeName, "block(1000)", true);
+		bp.setConditionTimeout(200);
+		IJavaLineBreakpoint done = createLineBreakpoint(18, typeName);
+
+		IJavaThread thread = null;
+		try {
+			thread = launchToLineBreakpoint(typeName, done);
+			assertEquals("Every evaluation should time out", 3, bp.getConditionTimeoutCount());
+		}
+		finally {
+			node.remove(JDIDebugPlugin.PREF_SUSPEND_ON_CONDITION_TIMEOUT);
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+	/**
+	 * Tests that a condition that blocks longer than the breakpoint's timeout
+	 * is aborted and counted, and that the thread is suspended by default.
+	 *
+	 * @throws Exception
+	 */
+	public void testConditionTimeoutSuspend() throws Exception {
+		String typeName = "ConditionTimeout";
+		JavaLineBreakpoint bp = (JavaLineBreakpoint) createConditionalLineBreakpoint(22, typeName, "block(1000)", true);
+		bp.setConditionTimeout(200);
+
+		IJavaThread thread = null;
+		try {
+			thread = launchToLineBreakpoint(typeName, bp);
+			IJavaStackFrame frame = (IJavaStackFrame) thread.getTopStackFrame();
+			assertEquals("Should suspend in the first hit", "hit", frame.getMethodName());
+			assertEquals("The evaluation should time out", 1, bp.getConditionTimeoutCount());
+		}
+		finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
 }
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.tests.breakpoints;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.debug.core.IJavaPrimitiveValue;
+import org.eclipse.jdt.debug.core.IJavaStackFrame;
+import org.eclipse.jdt.debug.core.IJavaThread;
+import org.eclipse.jdt.debug.eval.IEvaluationResult;
+import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.internal.debug.core.breakpoints.SimpleCondition;
+
+/**
+ * Tests that the breakpoint conditions evaluated without the evaluation engine
+ * have the value the evaluation engine computes, and that conditions the
+ * compiler rejects or that throw an exception are left to the engine.
+ */
+public class SimpleConditionTests extends AbstractDebugTest {
+
+	private static final String TYPE_NAME = "SimpleConditions";
+
+	private IJavaThread fThread;
+
+	public SimpleConditionTests(String name) {
+		super(name);
+	}
+
+	@Override
+	protected IJavaProject getProjectContext() {
+		return get18Project();
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		createLineBreakpoint(47, TYPE_NAME);
+		fThread = launchToBreakpoint(TYPE_NAME);
+		assertNotNull("Breakpoint not hit within timeout period", fThread);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		terminateAndRemove(fThread);
+		removeAllBreakpoints();
+		super.tearDown();
+	}
+
+	/**
+	 * Asserts that the given condition is evaluated without the engine, to
+	 * the value the engine computes.
+	 */
+	private void assertSameValue(String condition) throws Exception {
+		SimpleCondition simple = SimpleCondition.forCondition(condition);
+		assertNotNull("Should be a simple condition: " + condition, simple);
+		Boolean value = simple.evaluate((IJavaStackFrame) fThread.getTopStackFrame(), getProjectContext());
+		IEvaluationResult result = evaluate(condition, fThread);
+		assertNotNull("Evaluation did not complete: " + condition, result);
+		assertFalse("Evaluation should succeed: " + condition, result.hasErrors());
+		assertNotNull("Should be evaluated without the engine: " + condition, value);
+		boolean expected = ((IJavaPrimitiveValue) result.getValue()).getBooleanValue();
+		assertEquals("Wrong value: " + condition, expected, value.booleanValue());
+	}
+
+	/**
+	 * Asserts that the given condition is left to the engine, and that the
+	 * engine reports errors for it.
+	 */
+	private void assertEngineErrors(String condition) throws Exception {
+		assertLeftToEngine(condition);
+		IEvaluationResult result = evaluate(condition, fThread);
+		assertNotNull("Evaluation did not complete: " + condition, result);
+		assertTrue("Evaluation should fail: " + condition, result.hasErrors());
+	}
+
+	/**
+	 * Asserts that the given condition is left to the engine.
+	 */
+	private void assertLeftToEngine(String condition) throws Exception {
+		SimpleCondition simple = SimpleCondition.forCondition(condition);
+		if (simple != null) {
+			assertNull("Should be left to the engine: " + condition, simple.evaluate((IJavaStackFrame) fThread.getTopStackFrame(), getProjectContext()));
+		}
+	}
+
+	/**
+	 * Tests comparisons and arithmetic over local variables and literals.
+	 *
+	 * @throws Exception
+	 */
+	public void testPrimitives() throws Exception {
+		assertSameValue("i == 42");
+		assertSameValue("i != 42");
+		assertSameValue("i < 50 && l >= 42");
+		assertSameValue("i > 50 || l <= 41");
+		assertSameValue("i + 1 == 43");
+		assertSameValue("l * 2 == 84L");
+		assertSameValue("i / 5 == 8");
+		assertSameValue("i % 5 == 2");
+		assertSameValue("-i < 0");
+		assertSameValue("d < 1");
+		assertSameValue("d == 0.5");
+		assertSameValue("c == 'a'");
+		assertSameValue("c + 1 == 98");
+		assertSameValue("!flag");
+		assertSameValue("flag == true");
+		assertSameValue("(i - 2) * 2 == 80");
+	}
+
+	/**
+	 * Tests that fields are resolved through the declared type of their
+	 * qualifier, and that a local variable hides a field.
+	 *
+	 * @throws Exception
+	 */
+	public void testFields() throws Exception {
+		// the local variable i hides the field
+		assertSameValue("i == 7");
+		assertSameValue("this.i == 7");
+		// the frame's method is declared in SimpleConditions, not in the
+		// subclass of 'this' that hides the private field
+		assertSameValue("own == 5");
+		assertSameValue("this.own == 5");
+		// Base.hidden is hidden in Sub, the type of both objects
+		assertSameValue("base.hidden == 1");
+		assertSameValue("sub.hidden == 10");
+		assertSameValue("base.packageField == 2");
+		assertSameValue("base.staticField == 4");
+		assertSameValue("array.length == 3");
+	}
+
+	/**
+	 * Tests unboxing conversions.
+	 *
+	 * @throws Exception
+	 */
+	public void testBoxing() throws Exception {
+		assertSameValue("boxed == 42");
+		assertSameValue("42 == boxed");
+		assertSameValue("boxed > 40");
+		assertSameValue("boxed + 1 == 43");
+		assertSameValue("boxedLong == 42");
+		assertSameValue("boxed == boxed");
+		assertSameValue("nullInteger == null");
+	}
+
+	/**
+	 * Tests strings.
+	 *
+	 * @throws Exception
+	 */
+	public void testStrings() throws Exception {
+		assertSameValue("string.equals(\"text\")");
+		assertSameValue("\"text\".equals(string)");
+		assertSameValue("string.equals(nullString)");
+		assertSameValue("string.length() == 4");
+		assertSameValue("string.isEmpty()");
+		assertSameValue("nullString == null");
+		assertSameValue("string != null");
+	}
+
+	/**
+	 * Tests that conditions the compiler rejects are left to the engine,
+	 * which reports the errors.
+	 *
+	 * @throws Exception
+	 */
+	public void testCompileErrors() throws Exception {
+		assertEngineErrors("boxed == boxedLong");
+		assertEngineErrors("integerObject == 42");
+		assertEngineErrors("i == null");
+		assertEngineErrors("flag == 1");
+		assertEngineErrors("string == 1");
+		assertEngineErrors("!i");
+		assertEngineErrors("other.secret == 7");
+		assertEngineErrors("base.noSuchField == 1");
+		assertEngineErrors("noSuchVariable == 1");
+	}
+
+	/**
+	 * Tests that conditions that throw an exception are left to the engine.
+	 *
+	 * @throws Exception
+	 */
+	public void testExceptions() throws Exception {
+		assertLeftToEngine("nullInteger == 1");
+		assertLeftToEngine("nullString.length() == 0");
+		assertLeftToEngine("i / 0 == 1");
+		assertLeftToEngine("nullString.isEmpty()");
+	}
+}
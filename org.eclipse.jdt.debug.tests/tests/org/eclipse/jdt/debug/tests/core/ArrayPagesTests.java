@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.tests.core;
+
+import org.eclipse.jdi.internal.VirtualMachineImpl;
+import org.eclipse.jdi.internal.connect.PacketSendManager;
+import org.eclipse.jdt.debug.core.IJavaArray;
+import org.eclipse.jdt.debug.core.IJavaClassType;
+import org.eclipse.jdt.debug.core.IJavaDebugTarget;
+import org.eclipse.jdt.debug.core.IJavaLineBreakpoint;
+import org.eclipse.jdt.debug.core.IJavaPrimitiveValue;
+import org.eclipse.jdt.debug.core.IJavaStackFrame;
+import org.eclipse.jdt.debug.core.IJavaThread;
+import org.eclipse.jdt.debug.core.IJavaValue;
+import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
+
+/**
+ * Tests that the components of an array are retrieved in pages, that only the
+ * pages accessed last are kept, and that pages are discarded once the
+ * components may have changed.
+ */
+public class ArrayPagesTests extends AbstractDebugTest {
+
+	private static final String TYPE_NAME = "ArrayPages";
+
+	/**
+	 * Number of components in a page
+	 */
+	private static final int PAGE_SIZE = 1024;
+
+	/**
+	 * Number of pages kept
+	 */
+	private static final int MAX_PAGES = 64;
+
+	private IJavaLineBreakpoint fBreakpoint;
+
+	private IJavaThread fThread;
+
+	private PacketSendManager fPackets;
+
+	public ArrayPagesTests(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fBreakpoint = createLineBreakpoint(30, TYPE_NAME);
+		fThread = launchToBreakpoint(TYPE_NAME);
+		assertNotNull("Breakpoint not hit within timeout period", fThread);
+		fPackets = ((VirtualMachineImpl) ((JDIDebugTarget) fThread.getDebugTarget()).getVM()).packetSendManager();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		terminateAndRemove(fThread);
+		removeAllBreakpoints();
+		super.tearDown();
+	}
+
+	/**
+	 * Returns the array held by the given local variable of main(), the caller
+	 * of the frame the breakpoint suspends in, as the views only show the top
+	 * frame.
+	 */
+	private IJavaArray getArray(String name) throws Exception {
+		IJavaStackFrame caller = (IJavaStackFrame) fThread.getStackFrames()[1];
+		IJavaArray array = (IJavaArray) caller.findVariable(name).getValue();
+		// the length and the type are retrieved once
+		array.getSize();
+		array.getSignature();
+		return array;
+	}
+
+	private int getInt(IJavaArray array, int index) throws Exception {
+		return ((IJavaPrimitiveValue) array.getValue(index)).getIntValue();
+	}
+
+	/**
+	 * Asserts that the component at the given index has the given value and
+	 * is retrieved with the given number of requests.
+	 */
+	private void assertRetrieved(IJavaArray array, int index, int requests) throws Exception {
+		long sent = fPackets.getSentPacketCount();
+		assertEquals("Wrong value at " + index, index, getInt(array, index));
+		assertEquals("Wrong number of requests for " + index, requests, fPackets.getSentPacketCount() - sent);
+	}
+
+	/**
+	 * Tests that a range spanning several pages is retrieved with one request,
+	 * and that its components are then at hand.
+	 *
+	 * @throws Exception
+	 */
+	public void testRangeAcrossPages() throws Exception {
+		IJavaArray array = getArray("ints");
+		long sent = fPackets.getSentPacketCount();
+		array.getVariables(PAGE_SIZE - 24, 3 * PAGE_SIZE);
+		assertEquals("The range should be retrieved with one request", 1, fPackets.getSentPacketCount() - sent);
+		assertRetrieved(array, 0, 0);
+		assertRetrieved(array, PAGE_SIZE - 1, 0);
+		assertRetrieved(array, PAGE_SIZE, 0);
+		assertRetrieved(array, 4 * PAGE_SIZE - 1, 0);
+		assertRetrieved(array, 4 * PAGE_SIZE, 1);
+
+		// only the pages not retrieved yet are asked for
+		sent = fPackets.getSentPacketCount();
+		array.getVariables(2 * PAGE_SIZE, 4 * PAGE_SIZE);
+		assertEquals("Only the missing pages should be retrieved", 1, fPackets.getSentPacketCount() - sent);
+		assertRetrieved(array, 6 * PAGE_SIZE - 1, 0);
+	}
+
+	/**
+	 * Tests that a page is retrieved once, and again after it has been
+	 * evicted by accessing more pages than are kept.
+	 *
+	 * @throws Exception
+	 */
+	public void testEviction() throws Exception {
+		IJavaArray array = getArray("ints");
+		assertRetrieved(array, 0, 1);
+		assertRetrieved(array, 1, 0);
+		for (int page = 1; page < MAX_PAGES; page++) {
+			assertRetrieved(array, page * PAGE_SIZE, 1);
+		}
+		// accessing the first page again keeps it
+		assertRetrieved(array, 2, 0);
+		assertRetrieved(array, MAX_PAGES * PAGE_SIZE, 1);
+		// the second page was accessed least recently
+		assertRetrieved(array, 3, 0);
+		assertRetrieved(array, PAGE_SIZE + 1, 1);
+		assertRetrieved(array, MAX_PAGES * PAGE_SIZE + 1, 0);
+	}
+
+	/**
+	 * Tests that the components are retrieved again after one is set.
+	 *
+	 * @throws Exception
+	 */
+	public void testInvalidationAfterSet() throws Exception {
+		IJavaArray array = getArray("ints");
+		assertRetrieved(array, 5, 1);
+		array.setValue(5, ((IJavaDebugTarget) fThread.getDebugTarget()).newValue(42));
+		assertEquals("The value set should be retrieved", 42, getInt(array, 5));
+		assertEquals("Wrong value", 6, getInt(array, 6));
+	}
+
+	/**
+	 * Tests that the components are retrieved again after the target has
+	 * resumed and modified them.
+	 *
+	 * @throws Exception
+	 */
+	public void testInvalidationAfterResume() throws Exception {
+		IJavaArray ints = getArray("ints");
+		IJavaArray strings = getArray("strings");
+		assertRetrieved(ints, 0, 1);
+		assertEquals("Wrong value", "0", strings.getValue(0).getValueString());
+
+		fThread = resumeToLineBreakpoint(fThread, fBreakpoint);
+		assertEquals("The modified value should be retrieved", -1, getInt(ints, 0));
+		assertEquals("The modified value should be retrieved", "first", strings.getValue(0).getValueString());
+		assertRetrieved(ints, 1, 0);
+	}
+
+	/**
+	 * Tests that the components are retrieved again after a method invocation
+	 * has modified them, although the thread was not suspended by an event.
+	 *
+	 * @throws Exception
+	 */
+	public void testInvalidationAfterInvocation() throws Exception {
+		IJavaArray array = getArray("ints");
+		assertRetrieved(array, 7, 1);
+		IJavaDebugTarget target = (IJavaDebugTarget) fThread.getDebugTarget();
+		IJavaClassType type = (IJavaClassType) target.getJavaTypes(TYPE_NAME)[0];
+		type.sendMessage("fill", "([II)V", new IJavaValue[] {array, target.newValue(3)}, fThread);
+		assertEquals("The modified value should be retrieved", 3, getInt(array, 7));
+		assertEquals("The modified value should be retrieved", 3, getInt(array, MAX_PAGES * PAGE_SIZE));
+	}
+}
@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.tests.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.debug.core.DebugEvent;
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.IDebugEventSetListener;
+import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.internal.debug.core.DebugEventBatch;
+
+/**
+ * Tests that the debug events fired in a batch reach debug event listeners as
+ * one event set, however the batch ends.
+ */
+public class DebugEventBatchTests extends AbstractDebugTest {
+
+	/**
+	 * Event sets that have an event of one of the given sources
+	 */
+	class SetCollector implements IDebugEventSetListener {
+
+		private final Object[] fSources;
+
+		final List<DebugEvent[]> fSets = new ArrayList<>();
+
+		SetCollector(Object... sources) {
+			fSources = sources;
+		}
+
+		@Override
+		public void handleDebugEvents(DebugEvent[] events) {
+			for (DebugEvent event : events) {
+				for (Object source : fSources) {
+					if (event.getSource() == source) {
+						synchronized (fSets) {
+							fSets.add(events);
+							fSets.notifyAll();
+						}
+						return;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Waits until an event set has the given event, and returns the event
+		 * sets collected so far.
+		 */
+		List<DebugEvent[]> waitFor(DebugEvent event) throws InterruptedException {
+			long timeout = System.currentTimeMillis() + DEFAULT_TIMEOUT;
+			synchronized (fSets) {
+				while (!contains(event) && System.currentTimeMillis() < timeout) {
+					fSets.wait(100);
+				}
+				assertTrue("The event should be fired", contains(event));
+				return new ArrayList<>(fSets);
+			}
+		}
+
+		private boolean contains(DebugEvent event) {
+			for (DebugEvent[] set : fSets) {
+				for (DebugEvent member : set) {
+					if (member == event) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+	}
+
+	private final Object fFirst = new Object();
+
+	private final Object fSecond = new Object();
+
+	private SetCollector fCollector;
+
+	public DebugEventBatchTests(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fCollector = new SetCollector(fFirst, fSecond);
+		DebugPlugin.getDefault().addDebugEventListener(fCollector);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		DebugPlugin.getDefault().removeDebugEventListener(fCollector);
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that the events fired in a batch are fired as one event set, in
+	 * the order they were fired, when the batch ends.
+	 *
+	 * @throws Exception
+	 */
+	public void testOneSet() throws Exception {
+		DebugEvent change = new DebugEvent(fFirst, DebugEvent.CHANGE);
+		DebugEvent suspend = new DebugEvent(fSecond, DebugEvent.SUSPEND, DebugEvent.BREAKPOINT);
+		DebugEventBatch batch = DebugEventBatch.begin();
+		try {
+			assertTrue("The event should be batched", DebugEventBatch.add(change));
+			assertTrue("The event should be batched", DebugEventBatch.add(suspend));
+		} finally {
+			batch.end();
+		}
+		assertFalse("The batch should have ended", DebugEventBatch.add(new DebugEvent(fFirst, DebugEvent.CHANGE)));
+		List<DebugEvent[]> sets = fCollector.waitFor(suspend);
+		assertEquals("Should be one event set", 1, sets.size());
+		DebugEvent[] set = sets.get(0);
+		assertEquals("Should be two events", 2, set.length);
+		assertSame("Wrong first event", change, set[0]);
+		assertSame("Wrong second event", suspend, set[1]);
+	}
+
+	/**
+	 * Tests that only the last suspend or resume event of an element is kept.
+	 *
+	 * @throws Exception
+	 */
+	public void testLastStateKept() throws Exception {
+		DebugEvent resume = new DebugEvent(fFirst, DebugEvent.RESUME, DebugEvent.CLIENT_REQUEST);
+		DebugEvent suspend = new DebugEvent(fFirst, DebugEvent.SUSPEND, DebugEvent.BREAKPOINT);
+		DebugEventBatch batch = DebugEventBatch.begin();
+		try {
+			DebugEventBatch.add(resume);
+			DebugEventBatch.add(suspend);
+		} finally {
+			batch.end();
+		}
+		List<DebugEvent[]> sets = fCollector.waitFor(suspend);
+		assertEquals("Should be one event set", 1, sets.size());
+		assertEquals("Should be one event", 1, sets.get(0).length);
+	}
+
+	/**
+	 * Tests that a batch begun while another is in progress joins it, and that
+	 * the events are fired when the outer batch ends.
+	 *
+	 * @throws Exception
+	 */
+	public void testNestedBatch() throws Exception {
+		DebugEvent first = new DebugEvent(fFirst, DebugEvent.CHANGE);
+		DebugEvent second = new DebugEvent(fSecond, DebugEvent.CHANGE);
+		DebugEventBatch outer = DebugEventBatch.begin();
+		try {
+			DebugEventBatch inner = DebugEventBatch.begin();
+			assertSame("The batch in progress should be joined", outer, inner);
+			try {
+				DebugEventBatch.add(first);
+			} finally {
+				inner.end();
+			}
+			assertTrue("The outer batch should still be in progress", DebugEventBatch.add(second));
+		} finally {
+			outer.end();
+		}
+		List<DebugEvent[]> sets = fCollector.waitFor(second);
+		assertEquals("Should be one event set", 1, sets.size());
+		assertEquals("Should be two events", 2, sets.get(0).length);
+	}
+
+	/**
+	 * Tests that the events of a batch are fired when an exception is thrown
+	 * in it, from a nested batch or not, and that the batch is no longer in
+	 * progress.
+	 *
+	 * @throws Exception
+	 */
+	public void testThrowingBatch() throws Exception {
+		DebugEvent first = new DebugEvent(fFirst, DebugEvent.CHANGE);
+		DebugEvent second = new DebugEvent(fSecond, DebugEvent.CHANGE);
+		try {
+			DebugEventBatch outer = DebugEventBatch.begin();
+			try {
+				DebugEventBatch.add(first);
+				DebugEventBatch inner = DebugEventBatch.begin();
+				try {
+					DebugEventBatch.add(second);
+					throw new IllegalStateException();
+				} finally {
+					inner.end();
+				}
+			} finally {
+				outer.end();
+			}
+		} catch (IllegalStateException e) {
+		}
+		assertFalse("The batch should have ended", DebugEventBatch.add(new DebugEvent(fFirst, DebugEvent.CHANGE)));
+		List<DebugEvent[]> sets = fCollector.waitFor(second);
+		assertEquals("Should be one event set", 1, sets.size());
+		assertEquals("Should be two events", 2, sets.get(0).length);
+	}
+}
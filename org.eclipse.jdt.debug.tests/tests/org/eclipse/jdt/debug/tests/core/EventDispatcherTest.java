@@ -13,22 +13,38 @@ package org.eclipse.jdt.debug.tests.core;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.debug.core.DebugEvent;
 import org.eclipse.debug.core.DebugException;
 import org.eclipse.debug.core.DebugPlugin;
 import org.eclipse.debug.core.IDebugEventSetListener;
 import org.eclipse.debug.core.model.IStackFrame;
+import org.eclipse.jdt.core.dom.Message;
+import org.eclipse.jdt.debug.core.IJavaBreakpoint;
+import org.eclipse.jdt.debug.core.IJavaBreakpointListener;
+import org.eclipse.jdt.debug.core.IJavaDebugTarget;
 import org.eclipse.jdt.debug.core.IJavaLineBreakpoint;
 import org.eclipse.jdt.debug.core.IJavaThread;
+import org.eclipse.jdt.debug.core.IJavaType;
+import org.eclipse.jdt.debug.core.JDIDebugModel;
 import org.eclipse.jdt.debug.tests.AbstractDebugTest;
 import org.eclipse.jdt.internal.debug.core.EventDispatcher.AbstractDispatchJob;
+import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
 import org.eclipse.jdt.internal.debug.core.model.JDIThread;
 
+import com.sun.jdi.ClassType;
+import com.sun.jdi.Method;
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.VirtualMachine;
+
 public class EventDispatcherTest extends AbstractDebugTest {
 
 	private JobChangeAdapter jobListener;
@@ -124,4 +140,159 @@ public class EventDispatcherTest extends AbstractDebugTest {
 		assertEquals("Unexpected number of event dispatching jobs: " + jobs.size() + " | " + jobs.keySet(), 2, jobs.size());
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Counts the hits of a breakpoint, without suspending, and records the
+	 * threads they are dispatched by.
+	 */
+	class HitCounter implements IJavaBreakpointListener {
+
+		private IJavaBreakpoint fBreakpoint;
+
+		AtomicInteger fHits = new AtomicInteger();
+
+		Set<String> fDispatchThreads = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+		HitCounter(IJavaBreakpoint breakpoint) {
+			fBreakpoint = breakpoint;
+		}
+
+		@Override
+		public int breakpointHit(IJavaThread thread, IJavaBreakpoint breakpoint) {
+			if (breakpoint != fBreakpoint) {
+				return DONT_CARE;
+			}
+			fHits.incrementAndGet();
+			fDispatchThreads.add(Thread.currentThread().getName());
+			return DONT_SUSPEND;
+		}
+
+		@Override
+		public void addingBreakpoint(IJavaDebugTarget target, IJavaBreakpoint breakpoint) {
+		}
+
+		@Override
+		public int installingBreakpoint(IJavaDebugTarget target, IJavaBreakpoint breakpoint, IJavaType type) {
+			return DONT_CARE;
+		}
+
+		@Override
+		public void breakpointInstalled(IJavaDebugTarget target, IJavaBreakpoint breakpoint) {
+		}
+
+		@Override
+		public void breakpointRemoved(IJavaDebugTarget target, IJavaBreakpoint breakpoint) {
+		}
+
+		@Override
+		public void breakpointHasRuntimeException(IJavaLineBreakpoint breakpoint, DebugException exception) {
+		}
+
+		@Override
+		public void breakpointHasCompilationErrors(IJavaLineBreakpoint breakpoint, Message[] errors) {
+		}
+	}
+
+	/**
+	 * Tests that the breakpoint events of several threads are all dispatched
+	 * when the event sets of different threads are dispatched in parallel, and
+	 * that they are dispatched by the workers.
+	 *
+	 * @throws Exception
+	 */
+	public void testParallelDispatch() throws Exception {
+		String typeName = "ParallelBreakpointHits";
+		IEclipsePreferences node = InstanceScope.INSTANCE.getNode(JDIDebugPlugin.getUniqueIdentifier());
+		node.putInt(JDIDebugPlugin.PREF_EVENT_DISPATCH_THREADS, 4);
+		IJavaLineBreakpoint hit = createLineBreakpoint(33, typeName);
+		hit.setSuspendPolicy(IJavaBreakpoint.SUSPEND_THREAD);
+		IJavaLineBreakpoint done = createLineBreakpoint(29, typeName);
+		HitCounter counter = new HitCounter(hit);
+		JDIDebugModel.addJavaBreakpointListener(counter);
+		IJavaThread thread = null;
+		try {
+			thread = launchToLineBreakpoint(typeName, done);
+			assertEquals("Every hit should be dispatched", 200, counter.fHits.get());
+			for (String name : counter.fDispatchThreads) {
+				assertTrue("Hits should be dispatched by the workers: " + name, name.startsWith("JDI Event Dispatch Worker"));
+			}
+		}
+		finally {
+			JDIDebugModel.removeJavaBreakpointListener(counter);
+			node.remove(JDIDebugPlugin.PREF_EVENT_DISPATCH_THREADS);
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+	/**
+	 * Loads a class from the thread of the first hit of a breakpoint, while
+	 * the hit is dispatched.
+	 */
+	class ClassLoadingHitCounter extends HitCounter {
+
+		private final String fTypeName;
+
+		volatile Exception fFailure;
+
+		volatile boolean fLoaded;
+
+		ClassLoadingHitCounter(IJavaBreakpoint breakpoint, String typeName) {
+			super(breakpoint);
+			fTypeName = typeName;
+		}
+
+		@Override
+		public int breakpointHit(IJavaThread thread, IJavaBreakpoint breakpoint) {
+			int vote = super.breakpointHit(thread, breakpoint);
+			if (vote == DONT_SUSPEND && fHits.get() == 1) {
+				try {
+					ThreadReference reference = ((JDIThread) thread).getUnderlyingThread();
+					VirtualMachine vm = reference.virtualMachine();
+					ClassType type = (ClassType) vm.classesByName("java.lang.Class").get(0);
+					Method forName = type.concreteMethodByName("forName", "(Ljava/lang/String;)Ljava/lang/Class;");
+					type.invokeMethod(reference, forName, Collections.singletonList(vm.mirrorOf(fTypeName)), ClassType.INVOKE_SINGLE_THREADED);
+					fLoaded = true;
+				}
+				catch (Exception e) {
+					fFailure = e;
+				}
+			}
+			return vote;
+		}
+	}
+
+	/**
+	 * Tests that a class prepare event caused by a method a listener invokes
+	 * while event sets are dispatched in parallel is dispatched, rather than
+	 * waiting for the listener to return.
+	 *
+	 * @throws Exception
+	 */
+	public void testClassPrepareDuringParallelDispatch() throws Exception {
+		String typeName = "ParallelBreakpointHits";
+		IEclipsePreferences node = InstanceScope.INSTANCE.getNode(JDIDebugPlugin.getUniqueIdentifier());
+		node.putInt(JDIDebugPlugin.PREF_EVENT_DISPATCH_THREADS, 4);
+		IJavaLineBreakpoint hit = createLineBreakpoint(33, typeName);
+		hit.setSuspendPolicy(IJavaBreakpoint.SUSPEND_THREAD);
+		IJavaLineBreakpoint done = createLineBreakpoint(29, typeName);
+		// a deferred breakpoint, so that loading its type causes a class prepare event
+		IJavaLineBreakpoint deferred = createLineBreakpoint(18, "OneToTen");
+		ClassLoadingHitCounter counter = new ClassLoadingHitCounter(hit, "OneToTen");
+		JDIDebugModel.addJavaBreakpointListener(counter);
+		IJavaThread thread = null;
+		try {
+			thread = launchToLineBreakpoint(typeName, done);
+			assertNull("The class should be loaded: " + counter.fFailure, counter.fFailure);
+			assertTrue("The class should be loaded", counter.fLoaded);
+			assertTrue("The deferred breakpoint should be installed", deferred.isInstalled());
+			assertEquals("Every hit should be dispatched", 200, counter.fHits.get());
+		}
+		finally {
+			JDIDebugModel.removeJavaBreakpointListener(counter);
+			node.remove(JDIDebugPlugin.PREF_EVENT_DISPATCH_THREADS);
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,10 +25,13 @@ import org.eclipse.jdt.debug.core.IJavaStackFrame;
 import org.eclipse.jdt.debug.core.IJavaThread;
 import org.eclipse.jdt.debug.core.IJavaVariable;
 import org.eclipse.jdt.debug.core.JDIDebugModel;
+import org.eclipse.jdt.debug.eval.ICompiledExpression;
 import org.eclipse.jdt.debug.testplugin.DebugElementEventWaiter;
 import org.eclipse.jdt.debug.testplugin.DebugEventWaiter;
 import org.eclipse.jdt.debug.tests.AbstractDebugTest;
 import org.eclipse.jdt.debug.tests.TestAgainException;
+import org.eclipse.jdt.internal.debug.core.breakpoints.CompiledConditionCache;
+import org.eclipse.jdt.internal.debug.eval.ast.engine.ASTEvaluationEngine;
 
 /**
  * Tests hot code replace
@@ -193,6 +196,80 @@ public class HcrTests extends AbstractDebugTest {
 		}
 	}
 
+	/**
+	 * Tests that breakpoint conditions compiled before a hot code replace are
+	 * compiled again afterwards, as they were compiled against the old types.
+	 *
+	 * @throws Exception
+	 */
+	public void testHcrDiscardsCompiledConditions() throws Exception {
+		String typeName = "org.eclipse.debug.tests.targets.HcrClass";
+		IJavaLineBreakpoint bp = createLineBreakpoint(39, typeName);
+
+		IJavaThread thread= null;
+		ASTEvaluationEngine engine = null;
+		try {
+			thread= launchToBreakpoint(typeName);
+			assertNotNull("Breakpoint not hit within timeout period", thread);
+
+			IJavaDebugTarget target = (IJavaDebugTarget)thread.getDebugTarget();
+			if (target.supportsHotCodeReplace()) {
+				engine = new ASTEvaluationEngine(getProjectContext(), target);
+				CompiledConditionCache cache = CompiledConditionCache.getDefault();
+				IJavaStackFrame frame = (IJavaStackFrame)thread.getTopStackFrame();
+				ICompiledExpression expression = cache.getCompiledExpression(bp, "x != null", get14Project(), frame, engine);
+				assertFalse("The condition should compile", expression.hasErrors());
+				assertSame("The condition should be cached", expression, cache.getCompiledExpression(bp, "x != null", get14Project(), frame, engine));
+				removeAllBreakpoints();
+				// now do the HCR
+				ICompilationUnit cu = getCompilationUnit(get14Project(), "src", "org.eclipse.debug.tests.targets", "HcrClass.java");
+				cu = cu.getPrimary();
+				if (!cu.isWorkingCopy()) {
+					cu = cu.getWorkingCopy(null);
+				}
+				assertTrue("HcrClass.java does not exist", cu.exists());
+				IBuffer buffer = cu.getBuffer();
+				String contents = buffer.getContents();
+				String originalContent = buffer.getContents();
+				int index = contents.indexOf("\"One\"");
+				assertTrue("Could not find code to replace", index > 0);
+				String newCode = contents.substring(0, index) + "\"Two\"" + contents.substring(index + 5);
+				buffer.setContents(newCode);
+
+				// save contents
+				DebugElementEventWaiter waiter = new DebugElementEventWaiter(DebugEvent.SUSPEND, thread);
+				cu.commitWorkingCopy(true, null);
+				waitForBuild();
+				waiter.waitForEvent();
+
+				// should have dropped to frame 'one'
+				frame = (IJavaStackFrame)thread.getTopStackFrame();
+				assertNotNull("No top stack frame", frame);
+				if (!"one".equals(frame.getMethodName())) {
+					// terminate & restore, and try again - @see bug 287084
+					thread.terminate();
+					buffer.setContents(originalContent);
+					cu.commitWorkingCopy(true, null);
+					throw new TestAgainException("Retest - the correct method name was not present after HCR");
+				}
+
+				// resume to the same location, where the condition was compiled
+				createLineBreakpoint(39, typeName);
+				thread = resume(thread);
+				frame = (IJavaStackFrame)thread.getTopStackFrame();
+				assertNotSame("The condition should be compiled again", expression, cache.getCompiledExpression(bp, "x != null", get14Project(), frame, engine));
+			} else {
+				System.err.println("Warning: HCR test skipped since target VM does not support HCR.");
+			}
+		} finally {
+			if (engine != null) {
+				engine.dispose();
+			}
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
 	/**
 	 * Tests a general (plug-in) listener.
 	 *
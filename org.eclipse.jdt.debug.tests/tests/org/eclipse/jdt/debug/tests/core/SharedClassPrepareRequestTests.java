@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.tests.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.debug.core.IJavaLineBreakpoint;
+import org.eclipse.jdt.debug.core.IJavaThread;
+import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.internal.debug.core.IJDIEventListener;
+import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
+
+import com.sun.jdi.event.ClassPrepareEvent;
+import com.sun.jdi.event.Event;
+import com.sun.jdi.event.EventSet;
+import com.sun.jdi.request.ClassPrepareRequest;
+
+/**
+ * Tests the class prepare requests that are shared between the breakpoints of
+ * a debug target.
+ */
+public class SharedClassPrepareRequestTests extends AbstractDebugTest {
+
+	/**
+	 * Counts the class prepare events of a class.
+	 */
+	class ClassPrepareCounter implements IJDIEventListener {
+
+		private String fClassName;
+
+		AtomicInteger fCount = new AtomicInteger();
+
+		ClassPrepareCounter(String className) {
+			fClassName = className;
+		}
+
+		@Override
+		public boolean handleEvent(Event event, JDIDebugTarget target, boolean suspendVote, EventSet eventSet) {
+			if (fClassName.equals(((ClassPrepareEvent) event).referenceType().name())) {
+				fCount.incrementAndGet();
+			}
+			return true;
+		}
+
+		@Override
+		public void eventSetComplete(Event event, JDIDebugTarget target, boolean suspend, EventSet eventSet) {
+		}
+	}
+
+	public SharedClassPrepareRequestTests(String name) {
+		super(name);
+	}
+
+	/**
+	 * Tests that the same patterns share one request, which stays in the VM
+	 * until its last reference is released.
+	 *
+	 * @throws Exception
+	 */
+	public void testAcquireRelease() throws Exception {
+		String typeName = "Breakpoints";
+		createLineBreakpoint(52, typeName);
+		IJavaThread thread = null;
+		try {
+			thread = launchToBreakpoint(typeName);
+			assertNotNull("Breakpoint not hit within timeout period", thread);
+			JDIDebugTarget target = (JDIDebugTarget) thread.getDebugTarget();
+
+			ClassPrepareRequest request = target.acquireClassPrepareRequest("no.such.Type", null);
+			assertSame("The same pattern should share the request", request, target.acquireClassPrepareRequest("no.such.Type", null));
+			assertTrue("The request should be shared", target.isSharedRequest(request));
+			assertTrue("The request should be enabled", request.isEnabled());
+			assertTrue("The request should be installed", target.getEventRequestManager().classPrepareRequests().contains(request));
+
+			ClassPrepareRequest excluding = target.acquireClassPrepareRequest("no.such.Type", "no.such.Type$*");
+			assertNotSame("Another exclusion pattern should have its own request", request, excluding);
+
+			assertTrue("The request should be released", target.releaseClassPrepareRequest(request));
+			assertTrue("The request should still be installed", target.getEventRequestManager().classPrepareRequests().contains(request));
+			assertTrue("The request should still be shared", target.isSharedRequest(request));
+
+			assertTrue("The request should be released", target.releaseClassPrepareRequest(request));
+			assertFalse("The request should be deleted", target.getEventRequestManager().classPrepareRequests().contains(request));
+			assertFalse("The request should no longer be shared", target.isSharedRequest(request));
+			assertFalse("A deleted request should not be released", target.releaseClassPrepareRequest(request));
+			assertTrue("The other request should still be installed", target.getEventRequestManager().classPrepareRequests().contains(excluding));
+
+			ClassPrepareRequest again = target.acquireClassPrepareRequest("no.such.Type", null);
+			assertNotSame("A new request should be created after the last release", request, again);
+			target.releaseClassPrepareRequest(again);
+			target.releaseClassPrepareRequest(excluding);
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+	/**
+	 * Tests that the listeners registered for a shared request receive its
+	 * events, and no longer do once removed.
+	 *
+	 * @throws Exception
+	 */
+	public void testListeners() throws Exception {
+		String typeName = "Breakpoints";
+		String className = "Breakpoints$InnerRunnable";
+		createLineBreakpoint(52, typeName);
+		IJavaLineBreakpoint breakpoint = createLineBreakpoint(54, typeName);
+		IJavaThread thread = null;
+		try {
+			thread = launchToBreakpoint(typeName);
+			assertNotNull("Breakpoint not hit within timeout period", thread);
+			JDIDebugTarget target = (JDIDebugTarget) thread.getDebugTarget();
+
+			ClassPrepareCounter first = new ClassPrepareCounter(className);
+			ClassPrepareCounter second = new ClassPrepareCounter(className);
+			ClassPrepareCounter removed = new ClassPrepareCounter(className);
+			ClassPrepareRequest request = target.acquireClassPrepareRequest(className, null);
+			target.addJDIEventListener(first, request);
+			target.addJDIEventListener(removed, request);
+			assertSame("The same pattern should share the request", request, target.acquireClassPrepareRequest(className, null));
+			target.addJDIEventListener(second, request);
+			target.removeJDIEventListener(removed, request);
+
+			thread = resumeToLineBreakpoint(thread, breakpoint);
+			assertEquals("The first listener should be notified once", 1, first.fCount.get());
+			assertEquals("The second listener should be notified once", 1, second.fCount.get());
+			assertEquals("A removed listener should not be notified", 0, removed.fCount.get());
+
+			target.removeJDIEventListener(first, request);
+			target.removeJDIEventListener(second, request);
+			target.releaseClassPrepareRequest(request);
+			target.releaseClassPrepareRequest(request);
+			assertFalse("The request should be deleted", target.getEventRequestManager().classPrepareRequests().contains(request));
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+}
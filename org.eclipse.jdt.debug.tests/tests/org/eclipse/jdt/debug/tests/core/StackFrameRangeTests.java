@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.tests.core;
+
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.debug.core.model.IStackFrame;
+import org.eclipse.jdt.debug.core.IJavaStackFrame;
+import org.eclipse.jdt.debug.core.IJavaThread;
+import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
+import org.eclipse.jdt.internal.debug.core.model.JDIThread;
+
+/**
+ * Tests that the stack frames of a range are retrieved by pages, without
+ * retrieving the rest of a deep stack.
+ */
+public class StackFrameRangeTests extends AbstractDebugTest {
+
+	private static final String TYPE_NAME = "DeepStack";
+
+	/**
+	 * Frames on the stack at the breakpoint: <code>main</code> and 501
+	 * invocations of <code>recurse</code>
+	 */
+	private static final int STACK_SIZE = 502;
+
+	private static final int PAGE_SIZE = 32;
+
+	private IEclipsePreferences fNode;
+
+	private JDIThread fThread;
+
+	public StackFrameRangeTests(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fNode = InstanceScope.INSTANCE.getNode(JDIDebugPlugin.getUniqueIdentifier());
+		fNode.putInt(JDIDebugPlugin.PREF_STACK_FRAME_PAGE_SIZE, PAGE_SIZE);
+		createLineBreakpoint(20, TYPE_NAME);
+		IJavaThread thread = launchToBreakpoint(TYPE_NAME);
+		assertNotNull("Breakpoint not hit within timeout period", thread);
+		fThread = (JDIThread) thread;
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fNode.remove(JDIDebugPlugin.PREF_STACK_FRAME_PAGE_SIZE);
+		terminateAndRemove(fThread);
+		removeAllBreakpoints();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that only the page of the frames of a range is retrieved.
+	 *
+	 * @throws Exception
+	 */
+	public void testRange() throws Exception {
+		assertEquals("Wrong number of frames", STACK_SIZE, fThread.getFrameCount());
+		IStackFrame[] top = fThread.getStackFrames(0, 10);
+		assertEquals("Wrong number of frames", 10, top.length);
+		assertEquals("Wrong line number", 20, top[0].getLineNumber());
+		assertTrue("The stack should not be retrieved", fThread.getRetrievedStackFrameCount() < STACK_SIZE);
+
+		int retrieved = fThread.getRetrievedStackFrameCount();
+		IStackFrame[] frames = fThread.getStackFrames(400, 10);
+		assertEquals("Only one page of frames should be retrieved", retrieved + PAGE_SIZE, fThread.getRetrievedStackFrameCount());
+		assertEquals("Wrong number of frames", 10, frames.length);
+		for (IStackFrame frame : frames) {
+			assertEquals("Wrong method", "recurse", ((IJavaStackFrame) frame).getMethodName());
+		}
+		assertSame("Frames should be retrieved once", frames[5], fThread.getStackFrames(405, 1)[0]);
+		assertEquals("No frames should be retrieved again", retrieved + PAGE_SIZE, fThread.getRetrievedStackFrameCount());
+	}
+
+	/**
+	 * Tests that a single frame is retrieved with its page, and that the list
+	 * of frames returns the same frame.
+	 *
+	 * @throws Exception
+	 */
+	public void testSingleFrame() throws Exception {
+		int retrieved = fThread.getRetrievedStackFrameCount();
+		IJavaStackFrame frame = fThread.getStackFrame(400);
+		assertEquals("Wrong method", "recurse", frame.getMethodName());
+		assertTrue("The stack should not be retrieved", fThread.getRetrievedStackFrameCount() < STACK_SIZE);
+		assertTrue("The page of the frame should be retrieved", fThread.getRetrievedStackFrameCount() >= retrieved + PAGE_SIZE);
+		assertSame("Frames should be retrieved once", frame, fThread.getStackFrames(400, 1)[0]);
+		assertSame("The list should have the same frame", frame, fThread.computeStackFrames().get(400));
+	}
+
+	/**
+	 * Tests that a range is truncated to the frames on the stack.
+	 *
+	 * @throws Exception
+	 */
+	public void testRangeAtBottom() throws Exception {
+		IStackFrame[] frames = fThread.getStackFrames(STACK_SIZE - 2, 10);
+		assertEquals("Wrong number of frames", 2, frames.length);
+		assertEquals("Wrong method", "main", ((IJavaStackFrame) frames[1]).getMethodName());
+		assertEquals("Wrong number of frames", 0, fThread.getStackFrames(STACK_SIZE, 10).length);
+	}
+
+	/**
+	 * Tests that all frames returned for the whole stack are those returned
+	 * for ranges.
+	 *
+	 * @throws Exception
+	 */
+	public void testWholeStack() throws Exception {
+		IStackFrame[] frames = fThread.getStackFrames(300, 1);
+		IStackFrame[] stack = fThread.getStackFrames();
+		assertEquals("Wrong number of frames", STACK_SIZE, stack.length);
+		assertEquals("All frames should be retrieved", STACK_SIZE, fThread.getRetrievedStackFrameCount());
+		assertSame("Frames should be retrieved once", frames[0], stack[300]);
+		for (IStackFrame frame : stack) {
+			assertNotNull("Missing frame", frame);
+		}
+	}
+}
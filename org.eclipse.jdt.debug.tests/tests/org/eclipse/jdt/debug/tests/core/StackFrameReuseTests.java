@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.tests.core;
+
+import java.util.Arrays;
+
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.debug.core.model.IStackFrame;
+import org.eclipse.debug.core.model.IVariable;
+import org.eclipse.jdt.debug.core.IJavaLineBreakpoint;
+import org.eclipse.jdt.debug.core.IJavaStackFrame;
+import org.eclipse.jdt.debug.core.IJavaThread;
+import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.internal.debug.core.model.JDIStackFrame;
+import org.eclipse.jdt.internal.debug.core.model.JDIThread;
+
+/**
+ * Tests that stack frames keep their identity across suspends, and that the
+ * frames known not to have executed during a step keep their variables.
+ */
+public class StackFrameReuseTests extends AbstractDebugTest {
+
+	private static final String TYPE_NAME = "DeepStack";
+
+	/**
+	 * Number of frames compared at the top of the stack
+	 */
+	private static final int FRAMES = 6;
+
+	public StackFrameReuseTests(String name) {
+		super(name);
+	}
+
+	/**
+	 * Returns the given number of frames at the top of the stack of the given
+	 * thread.
+	 */
+	private IStackFrame[] getTopFrames(IJavaThread thread, int count) throws DebugException {
+		return ((JDIThread) thread).getStackFrames(0, count);
+	}
+
+	/**
+	 * Returns the binding since which each of the given frames is unchanged.
+	 */
+	private int[] getChangedGenerations(IStackFrame[] frames) {
+		int[] generations = new int[frames.length];
+		for (int i = 0; i < frames.length; i++) {
+			generations[i] = ((JDIStackFrame) frames[i]).getChangedGeneration();
+		}
+		return generations;
+	}
+
+	private void assertChanged(IStackFrame frame) {
+		JDIStackFrame jdiFrame = (JDIStackFrame) frame;
+		assertEquals("The frame should have changed", jdiFrame.getGeneration(), jdiFrame.getChangedGeneration());
+	}
+
+	private void assertUnchanged(IStackFrame frame, int changedGeneration) {
+		JDIStackFrame jdiFrame = (JDIStackFrame) frame;
+		assertTrue("The frame should be bound again", jdiFrame.getGeneration() > changedGeneration);
+		assertEquals("The frame should not have changed", changedGeneration, jdiFrame.getChangedGeneration());
+	}
+
+	/**
+	 * Tests that a step over keeps the frames at the same depth, and that only
+	 * the stepping frame and its caller are updated.
+	 *
+	 * @throws Exception
+	 */
+	public void testStepOver() throws Exception {
+		IJavaLineBreakpoint bp = createLineBreakpoint(20, TYPE_NAME);
+		IJavaThread thread = null;
+		try {
+			thread = launchToLineBreakpoint(TYPE_NAME, bp);
+			IStackFrame[] before = getTopFrames(thread, FRAMES);
+			IVariable[] variables = before[2].getVariables();
+			int[] changed = getChangedGenerations(before);
+
+			thread = stepOver((IJavaStackFrame) before[0]);
+			IStackFrame[] after = getTopFrames(thread, FRAMES);
+			assertEquals("Wrong line number", 21, after[0].getLineNumber());
+			for (int i = 0; i < FRAMES; i++) {
+				assertSame("The frame should be kept", before[i], after[i]);
+			}
+			assertChanged(after[0]);
+			assertChanged(after[1]);
+			for (int i = 2; i < FRAMES; i++) {
+				assertUnchanged(after[i], changed[i]);
+			}
+			assertTrue("The variables should be kept", Arrays.equals(variables, after[2].getVariables()));
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+	/**
+	 * Tests that a step return discards the stepping frame, and keeps the
+	 * frames below it at their depth.
+	 *
+	 * @throws Exception
+	 */
+	public void testStepReturn() throws Exception {
+		IJavaLineBreakpoint bp = createLineBreakpoint(20, TYPE_NAME);
+		IJavaThread thread = null;
+		try {
+			thread = launchToLineBreakpoint(TYPE_NAME, bp);
+			int size = thread.getFrameCount();
+			IStackFrame[] before = getTopFrames(thread, FRAMES);
+			int[] changed = getChangedGenerations(before);
+
+			thread = stepReturn((IJavaStackFrame) before[0]);
+			assertEquals("Wrong number of frames", size - 1, thread.getFrameCount());
+			IStackFrame[] after = getTopFrames(thread, FRAMES - 1);
+			assertFalse("The returning frame should be discarded", Arrays.asList(after).contains(before[0]));
+			for (int i = 0; i < after.length; i++) {
+				assertSame("The frame should be kept", before[i + 1], after[i]);
+			}
+			assertChanged(after[0]);
+			for (int i = 1; i < after.length; i++) {
+				assertUnchanged(after[i], changed[i + 1]);
+			}
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+	/**
+	 * Tests that a step into a call keeps the frames below the new frame at
+	 * their depth.
+	 *
+	 * @throws Exception
+	 */
+	public void testStepInto() throws Exception {
+		IJavaLineBreakpoint bp = createLineBreakpoint(23, TYPE_NAME);
+		bp.setHitCount(10);
+		IJavaThread thread = null;
+		try {
+			thread = launchToLineBreakpoint(TYPE_NAME, bp);
+			IStackFrame[] before = thread.getStackFrames();
+			assertEquals("Wrong number of frames", 11, before.length);
+			int[] changed = getChangedGenerations(before);
+
+			thread = stepInto((IJavaStackFrame) before[0]);
+			IStackFrame[] after = thread.getStackFrames();
+			assertEquals("Wrong number of frames", before.length + 1, after.length);
+			assertFalse("The called frame should be new", Arrays.asList(before).contains(after[0]));
+			for (int i = 0; i < before.length; i++) {
+				assertSame("The frame should be kept", before[i], after[i + 1]);
+			}
+			assertChanged(after[1]);
+			assertChanged(after[2]);
+			for (int i = 3; i < after.length; i++) {
+				assertUnchanged(after[i], changed[i - 1]);
+			}
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+	/**
+	 * Tests that the frames are kept at their depth when the thread suspends
+	 * deeper after a resume, but that they are all updated.
+	 *
+	 * @throws Exception
+	 */
+	public void testResume() throws Exception {
+		IJavaLineBreakpoint bp = createLineBreakpoint(23, TYPE_NAME);
+		IJavaThread thread = null;
+		try {
+			thread = launchToLineBreakpoint(TYPE_NAME, bp);
+			IStackFrame[] before = thread.getStackFrames();
+			assertEquals("Wrong number of frames", 2, before.length);
+
+			thread = resume(thread);
+			IStackFrame[] after = thread.getStackFrames();
+			assertEquals("Wrong number of frames", 3, after.length);
+			for (int i = 0; i < before.length; i++) {
+				assertSame("The frame should be kept", before[i], after[i + 1]);
+			}
+			for (IStackFrame frame : after) {
+				assertChanged(frame);
+			}
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+}
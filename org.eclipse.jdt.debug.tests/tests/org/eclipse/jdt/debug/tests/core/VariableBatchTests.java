@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.tests.core;
+
+import org.eclipse.debug.core.model.IVariable;
+import org.eclipse.jdi.internal.VirtualMachineImpl;
+import org.eclipse.jdi.internal.connect.PacketSendManager;
+import org.eclipse.jdt.debug.core.IJavaStackFrame;
+import org.eclipse.jdt.debug.core.IJavaThread;
+import org.eclipse.jdt.debug.core.IJavaVariable;
+import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
+
+/**
+ * Tests that the values of the variables of a stack frame are retrieved in a
+ * batch when the variables are listed for display only, and that looking up
+ * variables, as conditional breakpoints and hovers do, leaves the values to be
+ * retrieved when asked for.
+ */
+public class VariableBatchTests extends AbstractDebugTest {
+
+	private static final String TYPE_NAME = "VariableBatches";
+
+	public VariableBatchTests(String name) {
+		super(name);
+	}
+
+	/**
+	 * Counts the JDWP requests sent while inspecting the caller of the frame a
+	 * conditional breakpoint suspends in, as the views only show the top
+	 * frame.
+	 *
+	 * @throws Exception
+	 */
+	public void testConditionalBreakpoint() throws Exception {
+		createConditionalLineBreakpoint(32, TYPE_NAME, "value == 12", true);
+		IJavaThread thread = null;
+		try {
+			thread = launchToBreakpoint(TYPE_NAME);
+			assertNotNull("Breakpoint not hit within timeout period", thread);
+			IJavaStackFrame top = (IJavaStackFrame) thread.getTopStackFrame();
+			assertEquals("Wrong value", "12", top.findVariable("value").getValue().getValueString());
+			IJavaStackFrame caller = (IJavaStackFrame) thread.getStackFrames()[1];
+			PacketSendManager packets = ((VirtualMachineImpl) ((JDIDebugTarget) thread.getDebugTarget()).getVM()).packetSendManager();
+
+			assertTrue("Should have variables", caller.hasVariables());
+			IJavaVariable b = caller.findVariable("b");
+			assertNotNull("Missing variable", b);
+			long sent = packets.getSentPacketCount();
+			assertEquals("Wrong value", "2", b.getValue().getValueString());
+			assertTrue("The value should be retrieved when asked for", packets.getSentPacketCount() > sent);
+
+			sent = packets.getSentPacketCount();
+			IVariable[] variables = caller.getVariables();
+			assertTrue("The values should be retrieved when the variables are listed", packets.getSentPacketCount() > sent);
+			sent = packets.getSentPacketCount();
+			int locals = 0;
+			for (IVariable variable : variables) {
+				if (((IJavaVariable) variable).isLocal()) {
+					variable.getValue();
+					locals++;
+				}
+			}
+			assertEquals("Wrong number of locals", 4, locals);
+			assertEquals("The values should be at hand", sent, packets.getSentPacketCount());
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+	/**
+	 * Lists the variables of the given frame, which retrieves the values of
+	 * the fields of <code>this</code> in a batch, and returns the field
+	 * variable of the given name without asking for its value.
+	 */
+	private IJavaVariable getPrefetchedField(IJavaStackFrame frame, String name) throws Exception {
+		assertTrue("Should have variables", frame.getVariables().length > 0);
+		IJavaVariable field = frame.findVariable(name);
+		assertNotNull("Missing field", field);
+		return field;
+	}
+
+	/**
+	 * Tests that field values retrieved in a batch are discarded when the
+	 * thread is resumed before they are asked for.
+	 *
+	 * @throws Exception
+	 */
+	public void testPrefetchedFieldAfterResume() throws Exception {
+		createLineBreakpoint(26, TYPE_NAME);
+		IJavaThread thread = null;
+		try {
+			thread = launchToBreakpoint(TYPE_NAME);
+			assertNotNull("Breakpoint not hit within timeout period", thread);
+			IJavaVariable field = getPrefetchedField((IJavaStackFrame) thread.getTopStackFrame(), "field1");
+			thread = resume(thread);
+			assertEquals("The prefetched value should be discarded", "4", field.getValue().getValueString());
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+	/**
+	 * Tests that field values retrieved in a batch are discarded when the
+	 * thread steps before they are asked for.
+	 *
+	 * @throws Exception
+	 */
+	public void testPrefetchedFieldAfterStep() throws Exception {
+		createLineBreakpoint(26, TYPE_NAME);
+		IJavaThread thread = null;
+		try {
+			thread = launchToBreakpoint(TYPE_NAME);
+			assertNotNull("Breakpoint not hit within timeout period", thread);
+			IJavaStackFrame frame = (IJavaStackFrame) thread.getTopStackFrame();
+			IJavaVariable field = getPrefetchedField(frame, "field1");
+			thread = stepOver(frame);
+			assertEquals("The prefetched value should be discarded", "4", field.getValue().getValueString());
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+}
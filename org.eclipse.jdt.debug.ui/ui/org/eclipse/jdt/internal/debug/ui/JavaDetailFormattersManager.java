@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -51,6 +51,7 @@ import org.eclipse.jdt.debug.eval.IEvaluationResult;
 import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
 import org.eclipse.jdt.internal.debug.core.JavaDebugUtils;
 import org.eclipse.jdt.internal.debug.core.logicalstructures.JDIAllInstancesValue;
+import org.eclipse.jdt.internal.debug.core.model.JDIArrayValue;
 import org.eclipse.jdt.internal.debug.core.model.JDINullValue;
 import org.eclipse.jdt.internal.debug.core.model.JDIReferenceListValue;
 import org.eclipse.jface.util.IPropertyChangeListener;
@@ -688,6 +689,15 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 			int length = -1;
 			try {
 				length = arrayValue.getLength();
+				if (arrayValue instanceof JDIArrayValue && ((JDIArrayValue) arrayValue).isPrimitiveArray()) {
+					// render the components without a value per component
+					partial = maxLength > 0 && length > maxEntries;
+					((JDIArrayValue) arrayValue).appendValues(result, 0, partial ? maxEntries : length, partial ? maxLength : 0);
+					if (!partial) {
+						result.append(']');
+					}
+					return;
+				}
 				if (maxLength > 0 && length > maxEntries) {
 					partial = true;
 					IVariable[] variables = arrayValue.getVariables(0, maxEntries);
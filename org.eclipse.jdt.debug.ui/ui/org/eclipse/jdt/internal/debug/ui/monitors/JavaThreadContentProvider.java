@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2006, 2012 IBM Corporation and others.
+ *  Copyright (c) 2006, 2018 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -65,53 +65,92 @@ public class JavaThreadContentProvider extends JavaElementContentProvider {
 		if (!thread.isSuspended()) {
 			return EMPTY;
 		}
+		if (thread instanceof JDIThread) {
+			return getChildren((JDIThread) thread, index, length);
+		}
 		return getElements(getChildren(thread), index, length);
 	}
 
+	/**
+	 * Returns the given range of the children of the given thread. Only the
+	 * stack frames in the range are retrieved.
+	 */
+	private Object[] getChildren(JDIThread thread, int index, int length) {
+		try {
+			if (isSuspendVoteInProgress(thread)) {
+				return EMPTY;
+			}
+			Object[] monitors = isDisplayMonitors() ? getMonitors(thread) : EMPTY;
+			int frameIndex = Math.max(0, index - monitors.length);
+			int frameLength = index + length - monitors.length - frameIndex;
+			IStackFrame[] frames = frameLength > 0 ? thread.getStackFrames(frameIndex, frameLength) : new IStackFrame[0];
+			int monitorCount = Math.max(0, Math.min(length, monitors.length - index));
+			Object[] children = new Object[monitorCount + frames.length];
+			if (monitorCount > 0) {
+				System.arraycopy(monitors, index, children, 0, monitorCount);
+			}
+			System.arraycopy(frames, 0, children, monitorCount, frames.length);
+			return children;
+		} catch (DebugException e) {
+			return EMPTY;
+		}
+	}
+
 	protected Object[] getChildren(IJavaThread thread) {
 		try {
 			if (thread instanceof JDIThread) {
-				JDIThread jThread = (JDIThread) thread;
-				if (!jThread.getDebugTarget().isSuspended() ) {
-					if (jThread.isSuspendVoteInProgress()) {
-						return EMPTY;
-					}
+				if (isSuspendVoteInProgress((JDIThread) thread)) {
+					return EMPTY;
 				}
 			}
 			IStackFrame[] frames = thread.getStackFrames();
 			if (!isDisplayMonitors()) {
 				return frames;
 			}
-
-			Object[] children;
-			int length = frames.length;
-			if (((IJavaDebugTarget) thread.getDebugTarget()).supportsMonitorInformation()) {
-				IDebugElement[] ownedMonitors = JavaDebugUtils.getOwnedMonitors(thread);
-				IDebugElement contendedMonitor = JavaDebugUtils.getContendedMonitor(thread);
-				length += ownedMonitors.length;
-				if (contendedMonitor != null) {
-					length++;
-				}
-				children = new Object[length];
-				if (ownedMonitors.length > 0) {
-					System.arraycopy(ownedMonitors, 0, children, 0, ownedMonitors.length);
-				}
-				if (contendedMonitor != null) {
-					// Insert the contended monitor after the owned monitors
-					children[ownedMonitors.length] = contendedMonitor;
-				}
-			} else {
-				children = new Object[length + 1];
-				children[0] = new NoMonitorInformationElement(thread.getDebugTarget());
-			}
-			int offset = children.length - frames.length;
-			System.arraycopy(frames, 0, children, offset, frames.length);
+			Object[] monitors = getMonitors(thread);
+			Object[] children = new Object[monitors.length + frames.length];
+			System.arraycopy(monitors, 0, children, 0, monitors.length);
+			System.arraycopy(frames, 0, children, monitors.length, frames.length);
 			return children;
 		} catch (DebugException e) {
 			return EMPTY;
 		}
 	}
 
+	/**
+	 * Returns whether the given thread is being suspended, and its children
+	 * are not to be shown yet.
+	 */
+	private boolean isSuspendVoteInProgress(JDIThread thread) {
+		return !thread.getDebugTarget().isSuspended() && thread.isSuspendVoteInProgress();
+	}
+
+	/**
+	 * Returns the monitor children of the given thread, shown before its stack
+	 * frames: its owned monitors followed by its contended monitor, or a notice
+	 * that monitor information is not available.
+	 */
+	private Object[] getMonitors(IJavaThread thread) throws DebugException {
+		if (((IJavaDebugTarget) thread.getDebugTarget()).supportsMonitorInformation()) {
+			IDebugElement[] ownedMonitors = JavaDebugUtils.getOwnedMonitors(thread);
+			IDebugElement contendedMonitor = JavaDebugUtils.getContendedMonitor(thread);
+			int length = ownedMonitors.length;
+			if (contendedMonitor != null) {
+				length++;
+			}
+			Object[] monitors = new Object[length];
+			if (ownedMonitors.length > 0) {
+				System.arraycopy(ownedMonitors, 0, monitors, 0, ownedMonitors.length);
+			}
+			if (contendedMonitor != null) {
+				// Insert the contended monitor after the owned monitors
+				monitors[ownedMonitors.length] = contendedMonitor;
+			}
+			return monitors;
+		}
+		return new Object[] { new NoMonitorInformationElement(thread.getDebugTarget()) };
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.debug.internal.ui.model.elements.ElementContentProvider#hasChildren(java.lang.Object, org.eclipse.debug.internal.ui.viewers.model.provisional.IPresentationContext, org.eclipse.core.runtime.IProgressMonitor)
 	 */
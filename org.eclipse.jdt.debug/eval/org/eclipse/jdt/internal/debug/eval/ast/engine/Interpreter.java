@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -58,18 +58,18 @@ public class Interpreter {
 	}
 
 	public void execute() throws CoreException {
+		Interpreter outer = Instruction.bindInterpreter(this);
 		try {
 			reset();
 			while (fInstructionCounter < fInstructions.length && !fStopped) {
 				Instruction instruction = fInstructions[fInstructionCounter++];
-				instruction.setInterpreter(this);
 				instruction.execute();
-				instruction.setInterpreter(null);
 			}
 		} catch (VMDisconnectedException e) {
 			throw new CoreException(new Status(IStatus.ERROR,
 					JDIDebugModel.getPluginIdentifier(), e.getMessage(), e));
 		} finally {
+			Instruction.bindInterpreter(outer);
 			releaseObjects();
 		}
 	}
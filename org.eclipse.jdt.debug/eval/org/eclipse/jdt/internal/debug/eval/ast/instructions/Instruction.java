@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -33,20 +33,49 @@ import org.eclipse.osgi.util.NLS;
  */
 public abstract class Instruction {
 
-	private Interpreter fInterpreter;
+	/**
+	 * The interpreter executing instructions in each thread. Instructions hold
+	 * no state of their own during an evaluation, such that a compiled
+	 * expression can be evaluated in several threads at once.
+	 */
+	private static final ThreadLocal<Interpreter> fgInterpreter = new ThreadLocal<>();
 
 	public abstract int getSize();
 
+	/**
+	 * Sets the interpreter executing instructions in the current thread.
+	 *
+	 * @param interpreter
+	 *            the interpreter, or <code>null</code> if none
+	 */
 	public void setInterpreter(Interpreter interpreter) {
-		fInterpreter = interpreter;
+		bindInterpreter(interpreter);
+	}
+
+	/**
+	 * Sets the interpreter executing instructions in the current thread.
+	 *
+	 * @param interpreter
+	 *            the interpreter, or <code>null</code> if none
+	 * @return the interpreter that was executing instructions in the current
+	 *         thread, or <code>null</code> if none
+	 */
+	public static Interpreter bindInterpreter(Interpreter interpreter) {
+		Interpreter previous = fgInterpreter.get();
+		if (interpreter == null) {
+			fgInterpreter.remove();
+		} else {
+			fgInterpreter.set(interpreter);
+		}
+		return previous;
 	}
 
 	public void setLastValue(IJavaValue value) {
-		fInterpreter.setLastValue(value);
+		fgInterpreter.get().setLastValue(value);
 	}
 
 	public void stop() {
-		fInterpreter.stop();
+		fgInterpreter.get().stop();
 	}
 
 	public static int getBinaryPromotionType(int left, int right) {
@@ -56,7 +85,7 @@ public abstract class Instruction {
 	public abstract void execute() throws CoreException;
 
 	protected IRuntimeContext getContext() {
-		return fInterpreter.getContext();
+		return fgInterpreter.get().getContext();
 	}
 
 	protected IJavaDebugTarget getVM() {
@@ -69,7 +98,7 @@ public abstract class Instruction {
 	 * @see Interpreter#getInternalVariable(String)
 	 */
 	protected IVariable getInternalVariable(String name) {
-		return fInterpreter.getInternalVariable(name);
+		return fgInterpreter.get().getInternalVariable(name);
 	}
 
 	/**
@@ -80,7 +109,7 @@ public abstract class Instruction {
 	 */
 	protected IVariable createInternalVariable(String name,
 			IJavaType referencType) {
-		return fInterpreter.createInternalVariable(name, referencType);
+		return fgInterpreter.get().createInternalVariable(name, referencType);
 	}
 
 	/**
@@ -94,19 +123,19 @@ public abstract class Instruction {
 	}
 
 	protected void jump(int offset) {
-		fInterpreter.jump(offset);
+		fgInterpreter.get().jump(offset);
 	}
 
 	protected void push(Object object) {
-		fInterpreter.push(object);
+		fgInterpreter.get().push(object);
 	}
 
 	protected Object pop() {
-		return fInterpreter.pop();
+		return fgInterpreter.get().pop();
 	}
 
 	protected IJavaValue popValue() throws CoreException {
-		Object element = fInterpreter.pop();
+		Object element = fgInterpreter.get().pop();
 		if (element instanceof IJavaVariable) {
 			return (IJavaValue) ((IJavaVariable) element).getValue();
 		}
@@ -114,7 +143,7 @@ public abstract class Instruction {
 	}
 
 	protected void pushNewValue(boolean value) {
-		fInterpreter.push(newValue(value));
+		fgInterpreter.get().push(newValue(value));
 	}
 
 	protected IJavaValue newValue(boolean value) {
@@ -122,7 +151,7 @@ public abstract class Instruction {
 	}
 
 	protected void pushNewValue(byte value) {
-		fInterpreter.push(newValue(value));
+		fgInterpreter.get().push(newValue(value));
 	}
 
 	protected IJavaValue newValue(byte value) {
@@ -130,7 +159,7 @@ public abstract class Instruction {
 	}
 
 	protected void pushNewValue(short value) {
-		fInterpreter.push(newValue(value));
+		fgInterpreter.get().push(newValue(value));
 	}
 
 	protected IJavaValue newValue(short value) {
@@ -138,7 +167,7 @@ public abstract class Instruction {
 	}
 
 	protected void pushNewValue(int value) {
-		fInterpreter.push(newValue(value));
+		fgInterpreter.get().push(newValue(value));
 	}
 
 	protected IJavaValue newValue(int value) {
@@ -146,7 +175,7 @@ public abstract class Instruction {
 	}
 
 	protected void pushNewValue(long value) {
-		fInterpreter.push(newValue(value));
+		fgInterpreter.get().push(newValue(value));
 	}
 
 	protected IJavaValue newValue(long value) {
@@ -154,7 +183,7 @@ public abstract class Instruction {
 	}
 
 	protected void pushNewValue(char value) {
-		fInterpreter.push(newValue(value));
+		fgInterpreter.get().push(newValue(value));
 	}
 
 	protected IJavaValue newValue(char value) {
@@ -162,7 +191,7 @@ public abstract class Instruction {
 	}
 
 	protected void pushNewValue(float value) {
-		fInterpreter.push(newValue(value));
+		fgInterpreter.get().push(newValue(value));
 	}
 
 	protected IJavaValue newValue(float value) {
@@ -170,7 +199,7 @@ public abstract class Instruction {
 	}
 
 	protected void pushNewValue(double value) {
-		fInterpreter.push(newValue(value));
+		fgInterpreter.get().push(newValue(value));
 	}
 
 	protected IJavaValue newValue(double value) {
@@ -178,7 +207,7 @@ public abstract class Instruction {
 	}
 
 	protected void pushNewValue(String value) {
-		fInterpreter.push(newValue(value));
+		fgInterpreter.get().push(newValue(value));
 	}
 
 	protected IJavaValue newValue(String value) {
@@ -186,7 +215,7 @@ public abstract class Instruction {
 	}
 
 	protected void pushNullValue() {
-		fInterpreter.push(nullValue());
+		fgInterpreter.get().push(nullValue());
 	}
 
 	protected IJavaValue nullValue() {
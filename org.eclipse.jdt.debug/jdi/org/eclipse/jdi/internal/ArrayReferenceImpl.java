@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -90,9 +91,155 @@ public class ArrayReferenceImpl extends ObjectReferenceImpl implements
 	 * @throws IndexOutOfBoundsException if the index is outside the bounds of the array
 	 * @returns Returns a range of array components.
 	 */
+	@SuppressWarnings("unchecked")
 	@Override
 	public List<Value> getValues(int firstIndex, int length)
 			throws IndexOutOfBoundsException {
+		return (List<Value>) getValues(firstIndex, length, false);
+	}
+
+	/**
+	 * Gets the values starting at firstIndex and ending at firstIndex+length
+	 * of this array of <code>boolean</code>s.
+	 *
+	 * @param firstIndex the start
+	 * @param length the number of values to return, or -1 for all values to the end of the array
+	 * @return the values
+	 * @throws IndexOutOfBoundsException if the index is outside the bounds of the array
+	 * @throws IllegalArgumentException if the components of this array are not <code>boolean</code>s
+	 */
+	public boolean[] getBooleanValues(int firstIndex, int length)
+			throws IndexOutOfBoundsException {
+		return (boolean[]) getPrimitiveValues(firstIndex, length, BooleanValueImpl.tag);
+	}
+
+	/**
+	 * Gets the values starting at firstIndex and ending at firstIndex+length
+	 * of this array of <code>byte</code>s.
+	 *
+	 * @param firstIndex the start
+	 * @param length the number of values to return, or -1 for all values to the end of the array
+	 * @return the values
+	 * @throws IndexOutOfBoundsException if the index is outside the bounds of the array
+	 * @throws IllegalArgumentException if the components of this array are not <code>byte</code>s
+	 */
+	public byte[] getByteValues(int firstIndex, int length)
+			throws IndexOutOfBoundsException {
+		return (byte[]) getPrimitiveValues(firstIndex, length, ByteValueImpl.tag);
+	}
+
+	/**
+	 * Gets the values starting at firstIndex and ending at firstIndex+length
+	 * of this array of <code>char</code>s.
+	 *
+	 * @param firstIndex the start
+	 * @param length the number of values to return, or -1 for all values to the end of the array
+	 * @return the values
+	 * @throws IndexOutOfBoundsException if the index is outside the bounds of the array
+	 * @throws IllegalArgumentException if the components of this array are not <code>char</code>s
+	 */
+	public char[] getCharValues(int firstIndex, int length)
+			throws IndexOutOfBoundsException {
+		return (char[]) getPrimitiveValues(firstIndex, length, CharValueImpl.tag);
+	}
+
+	/**
+	 * Gets the values starting at firstIndex and ending at firstIndex+length
+	 * of this array of <code>short</code>s.
+	 *
+	 * @param firstIndex the start
+	 * @param length the number of values to return, or -1 for all values to the end of the array
+	 * @return the values
+	 * @throws IndexOutOfBoundsException if the index is outside the bounds of the array
+	 * @throws IllegalArgumentException if the components of this array are not <code>short</code>s
+	 */
+	public short[] getShortValues(int firstIndex, int length)
+			throws IndexOutOfBoundsException {
+		return (short[]) getPrimitiveValues(firstIndex, length, ShortValueImpl.tag);
+	}
+
+	/**
+	 * Gets the values starting at firstIndex and ending at firstIndex+length
+	 * of this array of <code>int</code>s.
+	 *
+	 * @param firstIndex the start
+	 * @param length the number of values to return, or -1 for all values to the end of the array
+	 * @return the values
+	 * @throws IndexOutOfBoundsException if the index is outside the bounds of the array
+	 * @throws IllegalArgumentException if the components of this array are not <code>int</code>s
+	 */
+	public int[] getIntValues(int firstIndex, int length)
+			throws IndexOutOfBoundsException {
+		return (int[]) getPrimitiveValues(firstIndex, length, IntegerValueImpl.tag);
+	}
+
+	/**
+	 * Gets the values starting at firstIndex and ending at firstIndex+length
+	 * of this array of <code>long</code>s.
+	 *
+	 * @param firstIndex the start
+	 * @param length the number of values to return, or -1 for all values to the end of the array
+	 * @return the values
+	 * @throws IndexOutOfBoundsException if the index is outside the bounds of the array
+	 * @throws IllegalArgumentException if the components of this array are not <code>long</code>s
+	 */
+	public long[] getLongValues(int firstIndex, int length)
+			throws IndexOutOfBoundsException {
+		return (long[]) getPrimitiveValues(firstIndex, length, LongValueImpl.tag);
+	}
+
+	/**
+	 * Gets the values starting at firstIndex and ending at firstIndex+length
+	 * of this array of <code>float</code>s.
+	 *
+	 * @param firstIndex the start
+	 * @param length the number of values to return, or -1 for all values to the end of the array
+	 * @return the values
+	 * @throws IndexOutOfBoundsException if the index is outside the bounds of the array
+	 * @throws IllegalArgumentException if the components of this array are not <code>float</code>s
+	 */
+	public float[] getFloatValues(int firstIndex, int length)
+			throws IndexOutOfBoundsException {
+		return (float[]) getPrimitiveValues(firstIndex, length, FloatValueImpl.tag);
+	}
+
+	/**
+	 * Gets the values starting at firstIndex and ending at firstIndex+length
+	 * of this array of <code>double</code>s.
+	 *
+	 * @param firstIndex the start
+	 * @param length the number of values to return, or -1 for all values to the end of the array
+	 * @return the values
+	 * @throws IndexOutOfBoundsException if the index is outside the bounds of the array
+	 * @throws IllegalArgumentException if the components of this array are not <code>double</code>s
+	 */
+	public double[] getDoubleValues(int firstIndex, int length)
+			throws IndexOutOfBoundsException {
+		return (double[]) getPrimitiveValues(firstIndex, length, DoubleValueImpl.tag);
+	}
+
+	/**
+	 * Returns a range of the components of this array, which are expected to
+	 * be primitives with the given JDWP tag, as an array of the primitive
+	 * type. JDWP tags of primitive types are their type signatures.
+	 */
+	private Object getPrimitiveValues(int firstIndex, int length, byte tag)
+			throws IndexOutOfBoundsException {
+		String signature = ((ArrayTypeImpl) referenceType()).componentSignature();
+		if (signature.length() != 1 || signature.charAt(0) != tag) {
+			throw new IllegalArgumentException(
+					JDIMessages.ArrayReferenceImpl_Components_not_of_requested_type_3);
+		}
+		return getValues(firstIndex, length, true);
+	}
+
+	/**
+	 * Returns a range of array components, as a {@link List} of
+	 * {@link Value}s or, when raw components are asked for and the components
+	 * are primitives, as a primitive array.
+	 */
+	private Object getValues(int firstIndex, int length, boolean raw)
+			throws IndexOutOfBoundsException {
 
 		int arrayLength = length();
 
@@ -162,6 +309,9 @@ public class ArrayReferenceImpl extends ObjectReferenceImpl implements
 			case IntegerValueImpl.tag:
 			case LongValueImpl.tag:
 			case ShortValueImpl.tag:
+				if (raw) {
+					return readPrimitiveArray(readLength, type, replyData);
+				}
 				return readPrimitiveSequence(readLength, type, replyData);
 
 			case VoidValueImpl.tag:
@@ -219,6 +369,75 @@ public class ArrayReferenceImpl extends ObjectReferenceImpl implements
 		return elements;
 	}
 
+	/**
+	 * @param length
+	 *            the number of primitives to read
+	 * @param type
+	 *            the type
+	 * @param in
+	 *            the input stream
+	 * @return Returns an array of the primitive type holding the values read.
+	 * @throws IOException
+	 *             if reading from the stream encounters a problem
+	 */
+	private Object readPrimitiveArray(int length, int type, DataInputStream in)
+			throws IOException {
+		switch (type) {
+		case BooleanValueImpl.tag:
+			boolean[] booleans = new boolean[length];
+			for (int i = 0; i < length; i++) {
+				booleans[i] = readBoolean("booleanValue", in); //$NON-NLS-1$
+			}
+			return booleans;
+		case ByteValueImpl.tag:
+			byte[] bytes = new byte[length];
+			for (int i = 0; i < length; i++) {
+				bytes[i] = readByte("byteValue", in); //$NON-NLS-1$
+			}
+			return bytes;
+		case CharValueImpl.tag:
+			char[] chars = new char[length];
+			for (int i = 0; i < length; i++) {
+				chars[i] = readChar("charValue", in); //$NON-NLS-1$
+			}
+			return chars;
+		case DoubleValueImpl.tag:
+			double[] doubles = new double[length];
+			for (int i = 0; i < length; i++) {
+				doubles[i] = readDouble("doubleValue", in); //$NON-NLS-1$
+			}
+			return doubles;
+		case FloatValueImpl.tag:
+			float[] floats = new float[length];
+			for (int i = 0; i < length; i++) {
+				floats[i] = readFloat("floatValue", in); //$NON-NLS-1$
+			}
+			return floats;
+		case IntegerValueImpl.tag:
+			int[] ints = new int[length];
+			for (int i = 0; i < length; i++) {
+				ints[i] = readInt("integerValue", in); //$NON-NLS-1$
+			}
+			return ints;
+		case LongValueImpl.tag:
+			long[] longs = new long[length];
+			for (int i = 0; i < length; i++) {
+				longs[i] = readLong("longValue", in); //$NON-NLS-1$
+			}
+			return longs;
+		case ShortValueImpl.tag:
+			short[] shorts = new short[length];
+			for (int i = 0; i < length; i++) {
+				shorts[i] = readShort("shortValue", in); //$NON-NLS-1$
+			}
+			return shorts;
+		default:
+			throw new InternalException(
+					JDIMessages.ArrayReferenceImpl_Invalid_ArrayReference_Value_tag_encountered___2
+							+ type);
+		}
+	}
+
 	/**
 	 * @return Returns the number of components in this array.
 	 */
@@ -456,4 +675,29 @@ public class ArrayReferenceImpl extends ObjectReferenceImpl implements
 		ArrayReferenceImpl mirror = new ArrayReferenceImpl(vmImpl, ID);
 		return mirror;
 	}
+
+	/**
+	 * Reads JDWP representation and returns new instance.
+	 *
+	 * @param target
+	 *            the target {@link Mirror} object
+	 * @param in
+	 *            the input stream to read from
+	 * @return Reads JDWP representation and returns new instance.
+	 */
+	public static ArrayReferenceImpl read(MirrorImpl target, ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		JdwpObjectID ID = new JdwpObjectID(vmImpl);
+		ID.read(in);
+		if (target.fVerboseWriter != null) {
+			target.fVerboseWriter.println("arrayReference", ID.value()); //$NON-NLS-1$
+		}
+
+		if (ID.isNull()) {
+			return null;
+		}
+
+		ArrayReferenceImpl mirror = new ArrayReferenceImpl(vmImpl, ID);
+		return mirror;
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -186,6 +187,29 @@ public class ArrayTypeImpl extends ReferenceTypeImpl implements ArrayType {
 		return mirror;
 	}
 
+	/**
+	 * @param target the target
+	 * @param in the stream
+	 * @return Reads JDWP representation and returns new instance.
+	 */
+	public static ArrayTypeImpl read(MirrorImpl target, ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		JdwpArrayID ID = new JdwpArrayID(vmImpl);
+		ID.read(in);
+		if (target.fVerboseWriter != null)
+			target.fVerboseWriter.println("arrayType", ID.value()); //$NON-NLS-1$
+
+		if (ID.isNull())
+			return null;
+
+		ArrayTypeImpl mirror = (ArrayTypeImpl) vmImpl.getCachedMirror(ID);
+		if (mirror == null) {
+			mirror = new ArrayTypeImpl(vmImpl, ID);
+			vmImpl.addCachedMirror(mirror);
+		}
+		return mirror;
+	}
+
 	/**
 	 * @return Returns modifier bits.
 	 */
@@ -276,6 +300,40 @@ public class ArrayTypeImpl extends ReferenceTypeImpl implements ArrayType {
 		return mirror;
 	}
 
+	/**
+	 * @param target the target
+	 * @param withGenericSignature if the generic signature should be read
+	 * @param in the stream
+	 * @return Reads JDWP representation and returns new instance.
+	 * @throws IOException if the read fails
+	 */
+	public static ArrayTypeImpl readWithSignature(MirrorImpl target,
+			boolean withGenericSignature, ByteBuffer in)
+			throws IOException {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		JdwpArrayID ID = new JdwpArrayID(vmImpl);
+		ID.read(in);
+		if (target.fVerboseWriter != null)
+			target.fVerboseWriter.println("arrayType", ID.value()); //$NON-NLS-1$
+
+		String signature = target.readString("signature", in); //$NON-NLS-1$
+		String genericSignature = null;
+		if (withGenericSignature) {
+			genericSignature = target.readString("generic signature", in); //$NON-NLS-1$
+		}
+		if (ID.isNull())
+			return null;
+
+		ArrayTypeImpl mirror = (ArrayTypeImpl) vmImpl.getCachedMirror(ID);
+		if (mirror == null) {
+			mirror = new ArrayTypeImpl(vmImpl, ID);
+			vmImpl.addCachedMirror(mirror);
+		}
+		mirror.setSignature(signature);
+		mirror.setGenericSignature(genericSignature);
+		return mirror;
+	}
+
 	/**
 	 * @see com.sun.jdi.ReferenceType#allLineLocations()
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.jdi.internal;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.jdwp.JdwpID;
 
@@ -82,6 +83,17 @@ public class ByteValueImpl extends PrimitiveValueImpl implements ByteValue, Comp
 		return new ByteValueImpl(vmImpl, new Byte(value));
 	}
 
+	/**
+	 * @param target the target
+	 * @param in the stream
+	 * @return Reads and returns new instance.
+	 */
+	public static ByteValueImpl read(MirrorImpl target, ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		byte value = target.readByte("byteValue", in); //$NON-NLS-1$
+		return new ByteValueImpl(vmImpl, new Byte(value));
+	}
+
 	/**
 	 * Writes value without value tag.
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.jdi.internal;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.jdwp.JdwpID;
 
@@ -77,6 +78,15 @@ public class CharValueImpl extends PrimitiveValueImpl implements CharValue, Comp
 		return new CharValueImpl(vmImpl, new Character(value));
 	}
 
+	/**
+	 * @return Reads and returns new instance.
+	 */
+	public static CharValueImpl read(MirrorImpl target, ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		char value = target.readChar("charValue", in); //$NON-NLS-1$
+		return new CharValueImpl(vmImpl, new Character(value));
+	}
+
 	/**
 	 * Writes value without value tag.
 	 */
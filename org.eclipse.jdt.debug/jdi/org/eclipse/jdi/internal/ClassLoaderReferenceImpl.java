@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ package org.eclipse.jdi.internal;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -121,4 +122,23 @@ public class ClassLoaderReferenceImpl extends ObjectReferenceImpl implements Cla
 				ID);
 		return mirror;
 	}
+
+	/**
+	 * @return Reads JDWP representation and returns new instance.
+	 */
+	public static ClassLoaderReferenceImpl read(MirrorImpl target,
+			ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		JdwpClassLoaderID ID = new JdwpClassLoaderID(vmImpl);
+		ID.read(in);
+		if (target.fVerboseWriter != null)
+			target.fVerboseWriter.println("classLoaderReference", ID.value()); //$NON-NLS-1$
+
+		if (ID.isNull())
+			return null;
+
+		ClassLoaderReferenceImpl mirror = new ClassLoaderReferenceImpl(vmImpl,
+				ID);
+		return mirror;
+	}
 }
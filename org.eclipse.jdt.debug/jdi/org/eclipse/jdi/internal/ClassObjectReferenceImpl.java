@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ package org.eclipse.jdi.internal;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.jdwp.JdwpClassObjectID;
 import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
@@ -85,4 +86,23 @@ public class ClassObjectReferenceImpl extends ObjectReferenceImpl implements
 				ID);
 		return mirror;
 	}
+
+	/**
+	 * @return Reads JDWP representation and returns new instance.
+	 */
+	public static ClassObjectReferenceImpl read(MirrorImpl target,
+			ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		JdwpClassObjectID ID = new JdwpClassObjectID(vmImpl);
+		ID.read(in);
+		if (target.fVerboseWriter != null)
+			target.fVerboseWriter.println("classObjectReference", ID.value()); //$NON-NLS-1$
+
+		if (ID.isNull())
+			return null;
+
+		ClassObjectReferenceImpl mirror = new ClassObjectReferenceImpl(vmImpl,
+				ID);
+		return mirror;
+	}
 }
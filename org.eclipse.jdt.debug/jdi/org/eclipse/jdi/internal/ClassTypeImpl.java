@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -92,9 +93,9 @@ public class ClassTypeImpl extends ReferenceTypeImpl implements ClassType {
 
 		// For all classes that have this class cached as superclass, this cache
 		// must be undone.
-		Iterator<Object> itr = virtualMachineImpl().allCachedRefTypes();
+		Iterator<ReferenceTypeImpl> itr = virtualMachineImpl().allCachedRefTypes();
 		while (itr.hasNext()) {
-			ReferenceTypeImpl refType = (ReferenceTypeImpl) itr.next();
+			ReferenceTypeImpl refType = itr.next();
 			if (refType instanceof ClassTypeImpl) {
 				ClassTypeImpl classType = (ClassTypeImpl) refType;
 				if (classType.fSuperclass != null && classType.fSuperclass.equals(this)) {
@@ -340,6 +341,28 @@ public class ClassTypeImpl extends ReferenceTypeImpl implements ClassType {
 		return mirror;
 	}
 
+	/*
+	 * @return Reads ID and returns known ReferenceTypeImpl with that ID, or if
+	 * ID is unknown a newly created ReferenceTypeImpl.
+	 */
+	public static ClassTypeImpl read(MirrorImpl target, ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		JdwpClassID ID = new JdwpClassID(vmImpl);
+		ID.read(in);
+		if (target.fVerboseWriter != null)
+			target.fVerboseWriter.println("classType", ID.value()); //$NON-NLS-1$
+
+		if (ID.isNull())
+			return null;
+
+		ClassTypeImpl mirror = (ClassTypeImpl) vmImpl.getCachedMirror(ID);
+		if (mirror == null) {
+			mirror = new ClassTypeImpl(vmImpl, ID);
+			vmImpl.addCachedMirror(mirror);
+		}
+		return mirror;
+	}
+
 	/*
 	 * @return Reads ID and returns known ReferenceTypeImpl with that ID, or if
 	 * ID is unknown a newly created ReferenceTypeImpl.
@@ -371,6 +394,37 @@ public class ClassTypeImpl extends ReferenceTypeImpl implements ClassType {
 		return mirror;
 	}
 
+	/*
+	 * @return Reads ID and returns known ReferenceTypeImpl with that ID, or if
+	 * ID is unknown a newly created ReferenceTypeImpl.
+	 */
+	public static ClassTypeImpl readWithSignature(MirrorImpl target,
+			boolean withGenericSignature, ByteBuffer in)
+			throws IOException {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		JdwpClassID ID = new JdwpClassID(vmImpl);
+		ID.read(in);
+		if (target.fVerboseWriter != null)
+			target.fVerboseWriter.println("classType", ID.value()); //$NON-NLS-1$
+
+		String signature = target.readString("signature", in); //$NON-NLS-1$
+		String genericSignature = null;
+		if (withGenericSignature) {
+			genericSignature = target.readString("generic signature", in); //$NON-NLS-1$
+		}
+		if (ID.isNull())
+			return null;
+
+		ClassTypeImpl mirror = (ClassTypeImpl) vmImpl.getCachedMirror(ID);
+		if (mirror == null) {
+			mirror = new ClassTypeImpl(vmImpl, ID);
+			vmImpl.addCachedMirror(mirror);
+		}
+		mirror.setSignature(signature);
+		mirror.setGenericSignature(genericSignature);
+		return mirror;
+	}
+
 	@Override
 	public boolean isEnum() {
 		if (virtualMachineImpl().isJdwpVersionGreaterOrEqual(1, 5)) {
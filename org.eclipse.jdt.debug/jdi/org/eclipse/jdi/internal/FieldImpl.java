@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.jdi.internal;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.jdwp.JdwpFieldID;
 
@@ -189,6 +190,33 @@ public class FieldImpl extends TypeComponentImpl implements Field {
 		return field;
 	}
 
+	/**
+	 * @return Reads JDWP representation and returns new instance.
+	 */
+	public static FieldImpl readWithReferenceTypeWithTag(MirrorImpl target,
+			ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		// See Events FIELD_ACCESS and FIELD_MODIFICATION (refTypeTag + typeID +
+		// fieldID).
+		ReferenceTypeImpl referenceType = ReferenceTypeImpl.readWithTypeTag(
+				target, in);
+		if (referenceType == null)
+			return null;
+
+		JdwpFieldID ID = new JdwpFieldID(vmImpl);
+		ID.read(in);
+		if (target.fVerboseWriter != null)
+			target.fVerboseWriter.println("field", ID.value()); //$NON-NLS-1$
+
+		if (ID.isNull())
+			return null;
+		FieldImpl field = referenceType.findField(ID);
+		if (field == null)
+			throw new InternalError(
+					JDIMessages.FieldImpl_Got_FieldID_of_ReferenceType_that_is_not_a_member_of_the_ReferenceType_2);
+		return field;
+	}
+
 	/**
 	 * @return Reads JDWP representation and returns new instance.
 	 */
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Open-addressing hash map from primitive <code>int</code> keys, such as line
+ * numbers, to non-null objects. Keys are not boxed.
+ * <p>
+ * The map is not synchronized. Readers that must not lock can be handed a
+ * {@link #copy()} that is no longer modified.
+ * </p>
+ *
+ * @param <V>
+ *            the type of the values
+ */
+public final class IntObjectMap<V> {
+
+	private int[] fKeys;
+	private Object[] fValues;
+	private int fSize;
+	private int fResizeThreshold;
+
+	/**
+	 * Creates a map sized to hold the given number of entries without
+	 * rehashing.
+	 */
+	public IntObjectMap(int expectedSize) {
+		allocate(LongObjectMap.tableSizeFor(expectedSize));
+	}
+
+	public IntObjectMap() {
+		this(8);
+	}
+
+	private IntObjectMap(IntObjectMap<V> map) {
+		fKeys = map.fKeys.clone();
+		fValues = map.fValues.clone();
+		fSize = map.fSize;
+		fResizeThreshold = map.fResizeThreshold;
+	}
+
+	/**
+	 * @return Returns a copy of this map.
+	 */
+	public IntObjectMap<V> copy() {
+		return new IntObjectMap<>(this);
+	}
+
+	static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private void allocate(int tableSize) {
+		fKeys = new int[tableSize];
+		fValues = new Object[tableSize];
+		fResizeThreshold = tableSize - (tableSize >>> 2);
+	}
+
+	/**
+	 * @return Returns the value mapped to the given key, or <code>null</code>
+	 *         if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		int mask = fKeys.length - 1;
+		for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+			Object value = fValues[i];
+			if (value == null) {
+				return null;
+			}
+			if (fKeys[i] == key) {
+				return (V) value;
+			}
+		}
+	}
+
+	public boolean containsKey(int key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Maps the given key to the given value.
+	 *
+	 * @return Returns the value previously mapped to the key, or
+	 *         <code>null</code> if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		if (value == null) {
+			throw new IllegalArgumentException();
+		}
+		int mask = fKeys.length - 1;
+		int i = hash(key) & mask;
+		while (fValues[i] != null) {
+			if (fKeys[i] == key) {
+				V previous = (V) fValues[i];
+				fValues[i] = value;
+				return previous;
+			}
+			i = (i + 1) & mask;
+		}
+		fKeys[i] = key;
+		fValues[i] = value;
+		if (++fSize >= fResizeThreshold) {
+			rehash();
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the mapping for the given key.
+	 *
+	 * @return Returns the value that was mapped to the key, or
+	 *         <code>null</code> if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+		int mask = fKeys.length - 1;
+		int i = hash(key) & mask;
+		for (;; i = (i + 1) & mask) {
+			if (fValues[i] == null) {
+				return null;
+			}
+			if (fKeys[i] == key) {
+				break;
+			}
+		}
+		V previous = (V) fValues[i];
+		// Move later entries of the probe sequence into the gap, unless that
+		// would put them before their home slot.
+		int gap = i;
+		for (int j = (gap + 1) & mask; fValues[j] != null; j = (j + 1) & mask) {
+			int home = hash(fKeys[j]) & mask;
+			if (((j - home) & mask) >= ((j - gap) & mask)) {
+				fKeys[gap] = fKeys[j];
+				fValues[gap] = fValues[j];
+				gap = j;
+			}
+		}
+		fValues[gap] = null;
+		fSize--;
+		return previous;
+	}
+
+	/**
+	 * @return Returns the values of this map, in no particular order.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values() {
+		List<V> values = new ArrayList<>(fSize);
+		for (Object value : fValues) {
+			if (value != null) {
+				values.add((V) value);
+			}
+		}
+		return values;
+	}
+
+	public int size() {
+		return fSize;
+	}
+
+	public boolean isEmpty() {
+		return fSize == 0;
+	}
+
+	private void rehash() {
+		int[] oldKeys = fKeys;
+		Object[] oldValues = fValues;
+		allocate(oldKeys.length << 1);
+		int mask = fKeys.length - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldValues[j] != null) {
+				int i = hash(oldKeys[j]) & mask;
+				while (fValues[i] != null) {
+					i = (i + 1) & mask;
+				}
+				fKeys[i] = oldKeys[j];
+				fValues[i] = oldValues[j];
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.jdi.internal;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -87,9 +88,9 @@ public class InterfaceTypeImpl extends ReferenceTypeImpl implements
 
 		// For all reference types that have this interface cached, this cache must be
 		// undone.
-		Iterator<Object> itr = virtualMachineImpl().allCachedRefTypes();
+		Iterator<ReferenceTypeImpl> itr = virtualMachineImpl().allCachedRefTypes();
 		while (itr.hasNext()) {
-			ReferenceTypeImpl refType = (ReferenceTypeImpl) itr.next();
+			ReferenceTypeImpl refType = itr.next();
 			if (refType.fInterfaces != null
 					&& refType.fInterfaces.contains(this)) {
 				refType.flushStoredJdwpResults();
@@ -235,6 +236,31 @@ public class InterfaceTypeImpl extends ReferenceTypeImpl implements
 		return mirror;
 	}
 
+	/**
+	 * @return Reads ID and returns known ReferenceTypeImpl with that ID, or if
+	 *         ID is unknown a newly created ReferenceTypeImpl.
+	 */
+	public static InterfaceTypeImpl read(MirrorImpl target, ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		JdwpInterfaceID ID = new JdwpInterfaceID(vmImpl);
+		ID.read(in);
+		if (target.fVerboseWriter != null) {
+			target.fVerboseWriter.println("interfaceType", ID.value()); //$NON-NLS-1$
+		}
+
+		if (ID.isNull()) {
+			return null;
+		}
+
+		InterfaceTypeImpl mirror = (InterfaceTypeImpl) vmImpl
+				.getCachedMirror(ID);
+		if (mirror == null) {
+			mirror = new InterfaceTypeImpl(vmImpl, ID);
+			vmImpl.addCachedMirror(mirror);
+		}
+		return mirror;
+	}
+
 	/**
 	 * @return Reads ID and returns known ReferenceTypeImpl with that ID, or if
 	 *         ID is unknown a newly created ReferenceTypeImpl.
@@ -268,4 +294,38 @@ public class InterfaceTypeImpl extends ReferenceTypeImpl implements
 		mirror.setGenericSignature(genericSignature);
 		return mirror;
 	}
+
+	/**
+	 * @return Reads ID and returns known ReferenceTypeImpl with that ID, or if
+	 *         ID is unknown a newly created ReferenceTypeImpl.
+	 */
+	public static InterfaceTypeImpl readWithSignature(MirrorImpl target,
+			boolean withGenericSignature, ByteBuffer in)
+			throws IOException {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		JdwpInterfaceID ID = new JdwpInterfaceID(vmImpl);
+		ID.read(in);
+		if (target.fVerboseWriter != null) {
+			target.fVerboseWriter.println("interfaceType", ID.value()); //$NON-NLS-1$
+		}
+
+		String signature = target.readString("signature", in); //$NON-NLS-1$
+		String genericSignature = null;
+		if (withGenericSignature) {
+			genericSignature = target.readString("generic signature", in); //$NON-NLS-1$
+		}
+		if (ID.isNull()) {
+			return null;
+		}
+
+		InterfaceTypeImpl mirror = (InterfaceTypeImpl) vmImpl
+				.getCachedMirror(ID);
+		if (mirror == null) {
+			mirror = new InterfaceTypeImpl(vmImpl, ID);
+			vmImpl.addCachedMirror(mirror);
+		}
+		mirror.setSignature(signature);
+		mirror.setGenericSignature(genericSignature);
+		return mirror;
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -137,6 +137,7 @@ public class JDIMessages extends NLS {
 	public static String ValueImpl_Type_of_the_value_not_compatible_with_the_expected_type__1;
 	public static String ArrayReferenceImpl_Invalid_number_of_value_to_get_from_array_1;
 	public static String ArrayReferenceImpl_Attempted_to_get_more_values_from_array_than_length_of_array_2;
+	public static String ArrayReferenceImpl_Components_not_of_requested_type_3;
 	public static String ReferenceTypeImpl_28;
 	public static String ReferenceTypeImpl_29;
 	public static String ReferenceTypeImpl_30;
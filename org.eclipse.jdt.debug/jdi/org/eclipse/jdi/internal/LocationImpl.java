@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.jdi.internal;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.osgi.util.NLS;
 
@@ -180,6 +181,21 @@ public class LocationImpl extends MirrorImpl implements Location {
 		return new LocationImpl(vmImpl, method, index);
 	}
 
+	/**
+	 * @return Reads JDWP representation and returns new instance.
+	 */
+	public static LocationImpl read(MirrorImpl target, ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		// Notice that Locations are not stored or cached because they don't
+		// 'remember' any information.
+		MethodImpl method = MethodImpl.readWithReferenceTypeWithTag(target, in);
+		long index = target.readLong("index", in); //$NON-NLS-1$
+		if (method == null) {
+			return null;
+		}
+		return new LocationImpl(vmImpl, method, index);
+	}
+
 	/**
 	 * @see Location#lineNumber(String)
 	 */
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal;
+
+/**
+ * Open-addressing hash map from primitive <code>long</code> keys to primitive
+ * <code>int</code> values, such as a code index to line number table. Neither
+ * keys nor values are boxed.
+ * <p>
+ * The map is not synchronized. Entries cannot be removed.
+ * </p>
+ */
+public final class LongIntMap {
+
+	private long[] fKeys;
+	private int[] fValues;
+	private boolean[] fUsed;
+	private int fSize;
+	private int fResizeThreshold;
+
+	/**
+	 * Creates a map sized to hold the given number of entries without
+	 * rehashing.
+	 */
+	public LongIntMap(int expectedSize) {
+		allocate(LongObjectMap.tableSizeFor(expectedSize));
+	}
+
+	private void allocate(int tableSize) {
+		fKeys = new long[tableSize];
+		fValues = new int[tableSize];
+		fUsed = new boolean[tableSize];
+		fResizeThreshold = tableSize - (tableSize >>> 2);
+	}
+
+	private int indexOf(long key) {
+		int mask = fKeys.length - 1;
+		for (int i = LongObjectMap.hash(key) & mask;; i = (i + 1) & mask) {
+			if (!fUsed[i]) {
+				return -1;
+			}
+			if (fKeys[i] == key) {
+				return i;
+			}
+		}
+	}
+
+	/**
+	 * @return Returns the value mapped to the given key, or
+	 *         <code>defaultValue</code> if there is none.
+	 */
+	public int get(long key, int defaultValue) {
+		int i = indexOf(key);
+		return i < 0 ? defaultValue : fValues[i];
+	}
+
+	public boolean containsKey(long key) {
+		return indexOf(key) >= 0;
+	}
+
+	/**
+	 * Maps the given key to the given value, replacing any previous value.
+	 */
+	public void put(long key, int value) {
+		int mask = fKeys.length - 1;
+		int i = LongObjectMap.hash(key) & mask;
+		while (fUsed[i]) {
+			if (fKeys[i] == key) {
+				fValues[i] = value;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		fKeys[i] = key;
+		fValues[i] = value;
+		fUsed[i] = true;
+		if (++fSize >= fResizeThreshold) {
+			rehash();
+		}
+	}
+
+	public int size() {
+		return fSize;
+	}
+
+	public boolean isEmpty() {
+		return fSize == 0;
+	}
+
+	private void rehash() {
+		long[] oldKeys = fKeys;
+		int[] oldValues = fValues;
+		boolean[] oldUsed = fUsed;
+		allocate(oldKeys.length << 1);
+		int mask = fKeys.length - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldUsed[j]) {
+				int i = LongObjectMap.hash(oldKeys[j]) & mask;
+				while (fUsed[i]) {
+					i = (i + 1) & mask;
+				}
+				fKeys[i] = oldKeys[j];
+				fValues[i] = oldValues[j];
+				fUsed[i] = true;
+			}
+		}
+	}
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal;
+
+/**
+ * Open-addressing hash map from primitive <code>long</code> keys, such as
+ * JDWP ID values and code indexes, to non-null objects. Keys are not boxed.
+ * <p>
+ * The map is not synchronized. Entries cannot be removed.
+ * </p>
+ *
+ * @param <V>
+ *            the type of the values
+ */
+public final class LongObjectMap<V> {
+
+	private long[] fKeys;
+	private Object[] fValues;
+	private int fSize;
+	private int fResizeThreshold;
+
+	/**
+	 * Creates a map sized to hold the given number of entries without
+	 * rehashing.
+	 */
+	public LongObjectMap(int expectedSize) {
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	public LongObjectMap() {
+		this(8);
+	}
+
+	/**
+	 * Returns the smallest power of two table size that keeps the load factor
+	 * of the given number of entries below 3/4.
+	 */
+	static int tableSizeFor(int expectedSize) {
+		int size = 8;
+		while (size - (size >>> 2) <= expectedSize) {
+			size <<= 1;
+		}
+		return size;
+	}
+
+	static int hash(long key) {
+		int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private void allocate(int tableSize) {
+		fKeys = new long[tableSize];
+		fValues = new Object[tableSize];
+		fResizeThreshold = tableSize - (tableSize >>> 2);
+	}
+
+	/**
+	 * @return Returns the value mapped to the given key, or <code>null</code>
+	 *         if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int mask = fKeys.length - 1;
+		for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+			Object value = fValues[i];
+			if (value == null) {
+				return null;
+			}
+			if (fKeys[i] == key) {
+				return (V) value;
+			}
+		}
+	}
+
+	public boolean containsKey(long key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Maps the given key to the given value.
+	 *
+	 * @return Returns the value previously mapped to the key, or
+	 *         <code>null</code> if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		if (value == null) {
+			throw new IllegalArgumentException();
+		}
+		int mask = fKeys.length - 1;
+		int i = hash(key) & mask;
+		while (fValues[i] != null) {
+			if (fKeys[i] == key) {
+				V previous = (V) fValues[i];
+				fValues[i] = value;
+				return previous;
+			}
+			i = (i + 1) & mask;
+		}
+		fKeys[i] = key;
+		fValues[i] = value;
+		if (++fSize >= fResizeThreshold) {
+			rehash();
+		}
+		return null;
+	}
+
+	public int size() {
+		return fSize;
+	}
+
+	public boolean isEmpty() {
+		return fSize == 0;
+	}
+
+	private void rehash() {
+		long[] oldKeys = fKeys;
+		Object[] oldValues = fValues;
+		allocate(oldKeys.length << 1);
+		int mask = fKeys.length - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldValues[j] != null) {
+				int i = hash(oldKeys[j]) & mask;
+				while (fValues[i] != null) {
+					i = (i + 1) & mask;
+				}
+				fKeys[i] = oldKeys[j];
+				fValues[i] = oldValues[j];
+			}
+		}
+	}
+}
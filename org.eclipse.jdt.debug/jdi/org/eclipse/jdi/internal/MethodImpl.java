@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,8 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -24,8 +26,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
 import org.eclipse.jdi.internal.jdwp.JdwpMethodID;
@@ -52,6 +53,9 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 	/** Map with Strings for flag bits. */
 	private static String[] fgInvokeOptions = null;
 
+	/** Marks a code index without an entry in the line table. */
+	private static final int NO_LINE = Integer.MIN_VALUE;
+
 	/** MethodTypeID that corresponds to this reference. */
 	private JdwpMethodID fMethodID;
 
@@ -59,8 +63,8 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 	private List<LocalVariable> fVariables = null;
 	private long fLowestValidCodeIndex = -1;
 	private long fHighestValidCodeIndex = -1;
-	private Map<Long, Integer> fCodeIndexToLine = null;
-	private Map<Integer, List<Long>> fLineToCodeIndexes = null;
+	private LongIntMap fCodeIndexToLine = null;
+	private IntObjectMap<long[]> fLineToCodeIndexes = null;
 	private Map<String, Map<String, List<Location>>> fStratumAllLineLocations = null;
 	private int fArgumentSlotsCount = -1;
 	private List<LocalVariable> fArguments = null;
@@ -115,25 +119,26 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 	/**
 	 * @return Returns map of location to line number.
 	 */
-	protected Map<Long, Integer> javaStratumCodeIndexToLine()
+	protected LongIntMap javaStratumCodeIndexToLine()
 			throws AbsentInformationException {
 		if (isAbstract()) {
-			return Collections.EMPTY_MAP;
+			return new LongIntMap(0);
 		}
 		getLineTable();
 		return fCodeIndexToLine;
 	}
 
 	/**
-	 * @return Returns map of line number to locations.
+	 * @return Returns the code indexes of the given line, or <code>null</code>
+	 *         if there are none.
 	 */
-	protected List<Long> javaStratumLineToCodeIndexes(int line) throws AbsentInformationException {
+	protected long[] javaStratumLineToCodeIndexes(int line) throws AbsentInformationException {
 		if (isAbstract() || isNative()) {
 			return null;
 		}
 		getLineTable();
 
-		return fLineToCodeIndexes.get(new Integer(line));
+		return fLineToCodeIndexes.get(line);
 	}
 
 	/**
@@ -153,53 +158,139 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 
 		initJdwpRequest();
 		try {
-			ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
-			DataOutputStream outData = new DataOutputStream(outBytes);
-			writeWithReferenceType(this, outData);
+			readLineTable(requestVM(JdwpCommandPacket.M_LINE_TABLE,
+					lineTableCommandData()));
+		} catch (IOException e) {
+			fCodeIndexToLine = null;
+			fLineToCodeIndexes = null;
+			defaultIOExceptionHandler(e);
+		} finally {
+			handledJdwpRequest();
+		}
+	}
 
-			JdwpReplyPacket replyPacket = requestVM(
-					JdwpCommandPacket.M_LINE_TABLE, outBytes);
-			switch (replyPacket.errorCode()) {
-			case JdwpReplyPacket.ABSENT_INFORMATION:
-				throw new AbsentInformationException(
-						JDIMessages.MethodImpl_No_line_number_information_available_2);
-			case JdwpReplyPacket.NATIVE_METHOD:
-				throw new AbsentInformationException(
-						JDIMessages.MethodImpl_No_line_number_information_available_2);
-			}
-			defaultReplyErrorHandler(replyPacket.errorCode());
+	/**
+	 * @return Returns the data of the Method.LineTable command for this
+	 *         method.
+	 */
+	private byte[] lineTableCommandData() throws IOException {
+		ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+		DataOutputStream outData = new DataOutputStream(outBytes);
+		writeWithReferenceType(this, outData);
+		return outBytes.toByteArray();
+	}
 
-			DataInputStream replyData = replyPacket.dataInStream();
-			fLowestValidCodeIndex = readLong("lowest index", replyData); //$NON-NLS-1$
-			fHighestValidCodeIndex = readLong("highest index", replyData); //$NON-NLS-1$
-			int nrOfElements = readInt("elements", replyData); //$NON-NLS-1$
-			fCodeIndexToLine = new HashMap<>();
-			fLineToCodeIndexes = new HashMap<>();
-			if (nrOfElements == 0) {
-				throw new AbsentInformationException(
-						JDIMessages.MethodImpl_Got_empty_line_number_table_for_this_method_3);
+	/**
+	 * Reads the line table of this method from the reply to the
+	 * Method.LineTable command.
+	 */
+	private void readLineTable(JdwpReplyPacket replyPacket)
+			throws AbsentInformationException, IOException {
+		switch (replyPacket.errorCode()) {
+		case JdwpReplyPacket.ABSENT_INFORMATION:
+			throw new AbsentInformationException(
+					JDIMessages.MethodImpl_No_line_number_information_available_2);
+		case JdwpReplyPacket.NATIVE_METHOD:
+			throw new AbsentInformationException(
+					JDIMessages.MethodImpl_No_line_number_information_available_2);
+		}
+		defaultReplyErrorHandler(replyPacket.errorCode());
+
+		DataInputStream replyData = replyPacket.dataInStream();
+		fLowestValidCodeIndex = readLong("lowest index", replyData); //$NON-NLS-1$
+		fHighestValidCodeIndex = readLong("highest index", replyData); //$NON-NLS-1$
+		int nrOfElements = readInt("elements", replyData); //$NON-NLS-1$
+		fCodeIndexToLine = new LongIntMap(nrOfElements);
+		fLineToCodeIndexes = new IntObjectMap<>(nrOfElements);
+		if (nrOfElements == 0) {
+			throw new AbsentInformationException(
+					JDIMessages.MethodImpl_Got_empty_line_number_table_for_this_method_3);
+		}
+		fCodeIndexTable = new long[nrOfElements];
+		fJavaStratumLineNumberTable = new int[nrOfElements];
+		LongIntMap lineCodeIndexCounts = new LongIntMap(nrOfElements);
+		for (int i = 0; i < nrOfElements; i++) {
+			long lineCodeIndex = readLong("code index", replyData); //$NON-NLS-1$
+			int lineNr = readInt("line nr", replyData); //$NON-NLS-1$
+
+			// Add entry to code-index to line mapping.
+			fCodeIndexToLine.put(lineCodeIndex, lineNr);
+
+			fCodeIndexTable[i] = lineCodeIndex;
+			fJavaStratumLineNumberTable[i] = lineNr;
+
+			// Add entry to line to code-indexes mapping, growing the array
+			// of the line geometrically.
+			long[] lineNrEntry = fLineToCodeIndexes.get(lineNr);
+			int count = lineCodeIndexCounts.get(lineNr, 0);
+			if (lineNrEntry == null) {
+				lineNrEntry = new long[1];
+				fLineToCodeIndexes.put(lineNr, lineNrEntry);
+			} else if (count == lineNrEntry.length) {
+				lineNrEntry = Arrays.copyOf(lineNrEntry, count * 2);
+				fLineToCodeIndexes.put(lineNr, lineNrEntry);
 			}
-			fCodeIndexTable = new long[nrOfElements];
-			fJavaStratumLineNumberTable = new int[nrOfElements];
-			for (int i = 0; i < nrOfElements; i++) {
-				long lineCodeIndex = readLong("code index", replyData); //$NON-NLS-1$
-				Long lineCodeIndexLong = new Long(lineCodeIndex);
-				int lineNr = readInt("line nr", replyData); //$NON-NLS-1$
-				Integer lineNrInt = new Integer(lineNr);
-
-				// Add entry to code-index to line mapping.
-				fCodeIndexToLine.put(lineCodeIndexLong, lineNrInt);
-
-				fCodeIndexTable[i] = lineCodeIndex;
-				fJavaStratumLineNumberTable[i] = lineNr;
+			lineNrEntry[count] = lineCodeIndex;
+			lineCodeIndexCounts.put(lineNr, count + 1);
+		}
+		// Trim the arrays of the lines to their number of code indexes.
+		for (int i = 0; i < nrOfElements; i++) {
+			int lineNr = fJavaStratumLineNumberTable[i];
+			long[] lineNrEntry = fLineToCodeIndexes.get(lineNr);
+			int count = lineCodeIndexCounts.get(lineNr, 0);
+			if (lineNrEntry.length > count) {
+				fLineToCodeIndexes.put(lineNr, Arrays.copyOf(lineNrEntry, count));
+			}
+		}
+	}
 
-				List<Long> lineNrEntry = fLineToCodeIndexes.get(lineNrInt);
-				if (lineNrEntry == null) {
-					lineNrEntry = new ArrayList<>();
-					fLineToCodeIndexes.put(lineNrInt, lineNrEntry);
-				}
-				lineNrEntry.add(lineCodeIndexLong);
+	/**
+	 * Retrieves the line tables of the given methods that have not been
+	 * retrieved yet. Up to <code>pipelineDepth</code> Method.LineTable
+	 * commands are outstanding at any time, so the round trips overlap
+	 * instead of running one after the other.
+	 * <p>
+	 * Methods without line number information are skipped, they report it
+	 * when their line table is asked for.
+	 * </p>
+	 */
+	static void getLineTables(List<MethodImpl> methods, int pipelineDepth) {
+		if (pipelineDepth < 1) {
+			pipelineDepth = 1;
+		}
+		ArrayDeque<MethodImpl> inFlight = new ArrayDeque<>(pipelineDepth);
+		ArrayDeque<CompletableFuture<JdwpReplyPacket>> replies = new ArrayDeque<>(pipelineDepth);
+		for (MethodImpl method : methods) {
+			if (method.fCodeIndexToLine != null || method.isAbstract()
+					|| method.isNative() || method.isObsolete()) {
+				continue;
+			}
+			if (inFlight.size() >= pipelineDepth) {
+				inFlight.removeFirst().receiveLineTable(replies.removeFirst());
 			}
+			method.initJdwpRequest();
+			try {
+				replies.addLast(method.requestVMAsync(
+						JdwpCommandPacket.M_LINE_TABLE,
+						method.lineTableCommandData()));
+				inFlight.addLast(method);
+			} catch (IOException e) {
+				method.defaultIOExceptionHandler(e);
+			} finally {
+				method.handledJdwpRequest();
+			}
+		}
+		while (!inFlight.isEmpty()) {
+			inFlight.removeFirst().receiveLineTable(replies.removeFirst());
+		}
+	}
+
+	private void receiveLineTable(CompletableFuture<JdwpReplyPacket> reply) {
+		initJdwpRequest();
+		try {
+			readLineTable(waitForReply(reply));
+		} catch (AbsentInformationException e) {
+			// reported when the line table is asked for
 		} catch (IOException e) {
 			fCodeIndexToLine = null;
 			fLineToCodeIndexes = null;
@@ -223,28 +314,26 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 			throw new AbsentInformationException(JDIMessages.MethodImpl_Invalid_code_index_of_a_location_given_4);
 		}
 
-		Long lineCodeIndexObj;
-		Integer lineNrObj;
+		LongIntMap codeIndexToLine = javaStratumCodeIndexToLine();
+		int lineNr;
 		long index = lineCodeIndex;
 		// Search for the line where this code index is located.
 		do {
-			lineCodeIndexObj = new Long(index);
-			lineNrObj = javaStratumCodeIndexToLine().get(lineCodeIndexObj);
-		} while (lineNrObj == null && --index >= fLowestValidCodeIndex);
-		if (lineNrObj == null) {
+			lineNr = codeIndexToLine.get(index, NO_LINE);
+		} while (lineNr == NO_LINE && --index >= fLowestValidCodeIndex);
+		if (lineNr == NO_LINE) {
 			if (lineCodeIndex >= fLowestValidCodeIndex) {
 				index = lineCodeIndex;
 				do {
-					lineCodeIndexObj = new Long(index);
-					lineNrObj = javaStratumCodeIndexToLine().get(lineCodeIndexObj);
-				} while (lineNrObj == null && ++index <= fHighestValidCodeIndex);
-				if (lineNrObj != null) {
-					return lineNrObj.intValue();
+					lineNr = codeIndexToLine.get(index, NO_LINE);
+				} while (lineNr == NO_LINE && ++index <= fHighestValidCodeIndex);
+				if (lineNr != NO_LINE) {
+					return lineNr;
 				}
 			}
 			throw new AbsentInformationException(JDIMessages.MethodImpl_Invalid_code_index_of_a_location_given_4);
 		}
-		return lineNrObj.intValue();
+		return lineNr;
 	}
 
 	/* (non-Javadoc)
@@ -462,8 +551,7 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 			return null;
 		}
 		try {
-			Integer lineNrInt = javaStratumCodeIndexToLine().get(new Long(index));
-			if (lineNrInt == null) {
+			if (!javaStratumCodeIndexToLine().containsKey(index)) {
 				throw new AbsentInformationException(MessageFormat.format(JDIMessages.MethodImpl_No_valid_location_at_the_specified_code_index__0__2, new Object[] { Long.toString(index) }));
 			}
 		} catch (AbsentInformationException e) {
@@ -718,6 +806,37 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 		return (MethodImpl) method;
 	}
 
+	/**
+	 * @return Reads JDWP representation and returns new instance.
+	 */
+	protected static MethodImpl readWithReferenceTypeWithTag(MirrorImpl target,
+			ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		// See Location.
+		ReferenceTypeImpl referenceType = ReferenceTypeImpl.readWithTypeTag(
+				target, in);
+		if (referenceType == null)
+			return null;
+
+		JdwpMethodID ID = new JdwpMethodID(vmImpl);
+		if (target.fVerboseWriter != null) {
+			target.fVerboseWriter.println("method", ID.value()); //$NON-NLS-1$
+		}
+
+		ID.read(in);
+		if (ID.isNull()) {
+			return null;
+		}
+
+		// The method must be part of a known reference type.
+		Method method = referenceType.findMethod(ID);
+		if (method == null) {
+			throw new InternalError(
+					JDIMessages.MethodImpl_Got_MethodID_of_ReferenceType_that_is_not_a_member_of_the_ReferenceType_10);
+		}
+		return (MethodImpl) method;
+	}
+
 	/**
 	 * @return Reads JDWP representation and returns new instance.
 	 */
@@ -873,17 +992,26 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 	 * the specified lines.
 	 */
 	protected List<Location> javaStratumLocationsOfLines(List<Integer> javaLines)	throws AbsentInformationException {
-		Set<Long> tmpLocations = new TreeSet<>();
+		long[] tmpLocations = new long[0];
+		int count = 0;
 		for (Iterator<Integer> iter = javaLines.iterator(); iter.hasNext();) {
 			Integer key = iter.next();
-			List<Long> indexes = javaStratumLineToCodeIndexes(key.intValue());
+			long[] indexes = javaStratumLineToCodeIndexes(key.intValue());
 			if (indexes != null) {
-				tmpLocations.addAll(indexes);
+				if (count + indexes.length > tmpLocations.length) {
+					tmpLocations = Arrays.copyOf(tmpLocations, Math.max(count + indexes.length, tmpLocations.length * 2));
+				}
+				System.arraycopy(indexes, 0, tmpLocations, count, indexes.length);
+				count += indexes.length;
 			}
 		}
+		Arrays.sort(tmpLocations, 0, count);
 		List<Location> locations = new ArrayList<>();
-		for (Iterator<Long> iter = tmpLocations.iterator(); iter.hasNext();) {
-			long index = iter.next().longValue();
+		for (int i = 0; i < count; i++) {
+			long index = tmpLocations[i];
+			if (i > 0 && tmpLocations[i - 1] == index) {
+				continue;
+			}
 			int position = Arrays.binarySearch(fCodeIndexTable, index);
 			if(position < 0) {
 				//https://bugs.eclipse.org/bugs/show_bug.cgi?id=388172
@@ -892,7 +1020,7 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 				//See http://docs.oracle.com/javase/6/docs/platform/jpda/jdwp/jdwp-protocol.html#JDWP_Method_LineTable for more information
 				continue;
 			}
-			if (position == 0 || !tmpLocations.contains(new Long(fCodeIndexTable[position - 1]))) {
+			if (position == 0 || Arrays.binarySearch(tmpLocations, 0, count, fCodeIndexTable[position - 1]) < 0) {
 				locations.add(new LocationImpl(virtualMachineImpl(), this, index));
 			}
 		}
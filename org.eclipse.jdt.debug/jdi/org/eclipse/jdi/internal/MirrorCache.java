@@ -0,0 +1,296 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of mirrors keyed by the <code>long</code> value of their JDWP ID.
+ * Values are held through soft references, so a mirror that is no longer used
+ * elsewhere may be garbage collected.
+ * <p>
+ * The table is split into independently locked segments, so lookups from the
+ * event dispatcher and from the UI do not contend on a single lock. Entries
+ * whose values were garbage collected are removed on <code>put</code> and on
+ * every {@link #CLEANUP_INTERVAL}th lookup, rather than on every access.
+ * </p>
+ *
+ * @param <V>
+ *            the type of the cached mirrors
+ */
+public class MirrorCache<V> {
+
+	/**
+	 * Number of segments, must be a power of two.
+	 */
+	private static final int SEGMENT_COUNT = 16;
+
+	/**
+	 * Number of lookups between two polls of the reference queue.
+	 */
+	private static final int CLEANUP_INTERVAL = 64;
+
+	/**
+	 * Soft reference to a cached value that also records its key and chains
+	 * the entries of a bucket. Being the reference itself, an entry that is
+	 * enqueued by the garbage collector directly tells which key to remove.
+	 */
+	private static final class Entry<V> extends SoftReference<V> {
+		final long fKey;
+		Entry<V> fNext;
+
+		Entry(long key, V value, Entry<V> next, ReferenceQueue<V> queue) {
+			super(value, queue);
+			fKey = key;
+			fNext = next;
+		}
+	}
+
+	/**
+	 * Chained hash table guarded by its own monitor.
+	 */
+	private static final class Segment<V> {
+		private static final int INITIAL_CAPACITY = 16;
+
+		private Entry<V>[] fTable = newTable(INITIAL_CAPACITY);
+		private int fCount;
+
+		@SuppressWarnings("unchecked")
+		private static <V> Entry<V>[] newTable(int capacity) {
+			return (Entry<V>[]) new Entry<?>[capacity];
+		}
+
+		synchronized V get(long key, int hash) {
+			Entry<V>[] table = fTable;
+			for (Entry<V> e = table[hash & (table.length - 1)]; e != null; e = e.fNext) {
+				if (e.fKey == key) {
+					return e.get();
+				}
+			}
+			return null;
+		}
+
+		synchronized void put(long key, int hash, V value,
+				ReferenceQueue<V> queue) {
+			removeEntry(key, hash, null);
+			if (fCount >= fTable.length - (fTable.length >>> 2)) {
+				rehash();
+			}
+			int index = hash & (fTable.length - 1);
+			fTable[index] = new Entry<>(key, value, fTable[index], queue);
+			fCount++;
+		}
+
+		synchronized V remove(long key, int hash) {
+			Entry<V> removed = removeEntry(key, hash, null);
+			return removed == null ? null : removed.get();
+		}
+
+		/**
+		 * Removes the given garbage collected entry, if it is still in the
+		 * table.
+		 *
+		 * @return Returns whether the entry was removed.
+		 */
+		synchronized boolean expunge(Entry<V> entry, int hash) {
+			return removeEntry(entry.fKey, hash, entry) != null;
+		}
+
+		synchronized int size() {
+			return fCount;
+		}
+
+		synchronized void collectValues(List<V> values) {
+			for (Entry<V> head : fTable) {
+				for (Entry<V> e = head; e != null; e = e.fNext) {
+					V value = e.get();
+					if (value != null) {
+						values.add(value);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Unlinks the entry for the given key. If <code>expected</code> is not
+		 * null, only that exact entry is unlinked.
+		 */
+		private Entry<V> removeEntry(long key, int hash, Entry<V> expected) {
+			int index = hash & (fTable.length - 1);
+			Entry<V> previous = null;
+			for (Entry<V> e = fTable[index]; e != null; e = e.fNext) {
+				if (e.fKey == key && (expected == null || e == expected)) {
+					if (previous == null) {
+						fTable[index] = e.fNext;
+					} else {
+						previous.fNext = e.fNext;
+					}
+					fCount--;
+					return e;
+				}
+				previous = e;
+			}
+			return null;
+		}
+
+		private void rehash() {
+			Entry<V>[] oldTable = fTable;
+			Entry<V>[] newTable = newTable(oldTable.length << 1);
+			for (Entry<V> head : oldTable) {
+				Entry<V> e = head;
+				while (e != null) {
+					Entry<V> next = e.fNext;
+					int index = hash(e.fKey) & (newTable.length - 1);
+					e.fNext = newTable[index];
+					newTable[index] = e;
+					e = next;
+				}
+			}
+			fTable = newTable;
+		}
+	}
+
+	private final Segment<V>[] fSegments;
+	private final ReferenceQueue<V> fRefQueue = new ReferenceQueue<>();
+	private final AtomicInteger fLookupsSinceCleanup = new AtomicInteger();
+
+	private final LongAdder fHitCount = new LongAdder();
+	private final LongAdder fMissCount = new LongAdder();
+	private final LongAdder fEvictionCount = new LongAdder();
+
+	@SuppressWarnings("unchecked")
+	public MirrorCache() {
+		fSegments = (Segment<V>[]) new Segment<?>[SEGMENT_COUNT];
+		for (int i = 0; i < SEGMENT_COUNT; i++) {
+			fSegments[i] = new Segment<>();
+		}
+	}
+
+	/**
+	 * Spreads the bits of a JDWP ID, which are often sequential or aligned
+	 * addresses.
+	 */
+	static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private Segment<V> segmentFor(int hash) {
+		return fSegments[(hash >>> 28) & (SEGMENT_COUNT - 1)];
+	}
+
+	/**
+	 * Get entry from the cache.
+	 *
+	 * @return Returns value that is cached under the given key, or null if the
+	 *         value has not been cached or has been garbage collected.
+	 */
+	public V get(long key) {
+		if (fLookupsSinceCleanup.incrementAndGet() >= CLEANUP_INTERVAL) {
+			fLookupsSinceCleanup.set(0);
+			cleanup();
+		}
+		int hash = hash(key);
+		V value = segmentFor(hash).get(key, hash);
+		if (value == null) {
+			fMissCount.increment();
+		} else {
+			fHitCount.increment();
+		}
+		return value;
+	}
+
+	/**
+	 * Put a new entry in the cache under the given key.
+	 */
+	public void put(long key, V value) {
+		cleanup();
+		int hash = hash(key);
+		segmentFor(hash).put(key, hash, value, fRefQueue);
+	}
+
+	/**
+	 * Removes the key and its corresponding value from this cache.
+	 *
+	 * @return Returns the value to which the key had been mapped, or null if
+	 *         the key did not have a mapping.
+	 */
+	public V remove(long key) {
+		int hash = hash(key);
+		return segmentFor(hash).remove(key, hash);
+	}
+
+	/**
+	 * Returns a snapshot of the values contained in this cache. Segments are
+	 * copied one at a time, so the snapshot is not atomic.
+	 */
+	public List<V> values() {
+		cleanup();
+		List<V> values = new ArrayList<>(size());
+		for (Segment<V> segment : fSegments) {
+			segment.collectValues(values);
+		}
+		return values;
+	}
+
+	/**
+	 * @return Returns the number of entries, including entries whose values
+	 *         were garbage collected but not yet removed.
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment<V> segment : fSegments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * @return Returns the number of lookups that found a value.
+	 */
+	public long getHitCount() {
+		return fHitCount.sum();
+	}
+
+	/**
+	 * @return Returns the number of lookups that did not find a value.
+	 */
+	public long getMissCount() {
+		return fMissCount.sum();
+	}
+
+	/**
+	 * @return Returns the number of entries removed because their values were
+	 *         garbage collected.
+	 */
+	public long getEvictionCount() {
+		return fEvictionCount.sum();
+	}
+
+	/**
+	 * Removes the entries whose values were garbage collected.
+	 */
+	@SuppressWarnings("unchecked")
+	private void cleanup() {
+		Entry<V> entry;
+		while ((entry = (Entry<V>) fRefQueue.poll()) != null) {
+			int hash = hash(entry.fKey);
+			if (segmentFor(hash).expunge(entry, hash)) {
+				fEvictionCount.increment();
+			}
+		}
+	}
+}
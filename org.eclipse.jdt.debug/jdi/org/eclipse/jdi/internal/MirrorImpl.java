@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,8 +15,10 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.jdi.Bootstrap;
 import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
@@ -190,18 +192,8 @@ public class MirrorImpl implements Mirror {
 
 		JdwpReplyPacket reply = fVirtualMachineImpl.packetReceiveManager()
 				.getReply(commandPacket);
-		long recieved = System.currentTimeMillis();
 		if (JDIDebugOptions.DEBUG_JDI_REQUEST_TIMES) {
-			StringBuffer buf = new StringBuffer();
-			buf.append(JDIDebugOptions.FORMAT.format(new Date(sent)));
-			buf.append(" JDI Request: "); //$NON-NLS-1$
-			buf.append(commandPacket.toString());
-			buf.append("\n\tResponse Time: "); //$NON-NLS-1$
-			buf.append(recieved - sent);
-			buf.append("ms"); //$NON-NLS-1$
-			buf.append(" length: "); //$NON-NLS-1$
-			buf.append(reply.getLength());
-			JDIDebugOptions.trace(buf.toString());
+			traceRequestTime(commandPacket, sent, reply);
 		}
 		if (fVerboseWriter != null) {
 			fVerboseWriter.println();
@@ -218,6 +210,113 @@ public class MirrorImpl implements Mirror {
 		return reply;
 	}
 
+	/**
+	 * Performs a VM request without waiting for the reply. The command is sent
+	 * right away, so that several requests can be on the wire before the first
+	 * reply is consumed with {@link #waitForReply(CompletableFuture)}.
+	 *
+	 * @return Returns a future that is completed with the reply data.
+	 */
+	public CompletableFuture<JdwpReplyPacket> requestVMAsync(int command, byte[] outData) {
+		JdwpCommandPacket commandPacket = new JdwpCommandPacket(command);
+		commandPacket.setData(outData);
+		// Register for the reply before sending, it may arrive at any time.
+		CompletableFuture<JdwpReplyPacket> reply = fVirtualMachineImpl
+				.packetReceiveManager().getReplyAsync(commandPacket);
+		long sent = System.currentTimeMillis();
+		fVirtualMachineImpl.packetSendManager().sendPacket(commandPacket);
+		fPendingJdwpRequest = true;
+		writeVerboseCommandPacketHeader(commandPacket);
+		if (JDIDebugOptions.DEBUG_JDI_REQUEST_TIMES) {
+			reply.thenAccept(packet -> traceRequestTime(commandPacket, sent, packet));
+		}
+		return reply;
+	}
+
+	/**
+	 * Traces the time the VM took to reply to the given command packet.
+	 */
+	private static void traceRequestTime(JdwpCommandPacket commandPacket, long sent, JdwpReplyPacket reply) {
+		long recieved = System.currentTimeMillis();
+		StringBuffer buf = new StringBuffer();
+		buf.append(JDIDebugOptions.FORMAT.format(new Date(sent)));
+		buf.append(" JDI Request: "); //$NON-NLS-1$
+		buf.append(commandPacket.toString());
+		buf.append("\n\tResponse Time: "); //$NON-NLS-1$
+		buf.append(recieved - sent);
+		buf.append("ms"); //$NON-NLS-1$
+		buf.append(" length: "); //$NON-NLS-1$
+		buf.append(reply.getLength());
+		JDIDebugOptions.trace(buf.toString());
+	}
+
+	/**
+	 * Performs a VM request without waiting for the reply.
+	 *
+	 * @return Returns a future that is completed with the reply data.
+	 */
+	public CompletableFuture<JdwpReplyPacket> requestVMAsync(int command, ByteArrayOutputStream outData) {
+		return requestVMAsync(command, outData.toByteArray());
+	}
+
+	/**
+	 * Performs a VM request for a specified object without waiting for the
+	 * reply.
+	 *
+	 * @return Returns a future that is completed with the reply data.
+	 */
+	public CompletableFuture<JdwpReplyPacket> requestVMAsync(int command, ObjectReferenceImpl object) {
+		ByteArrayOutputStream byteOutStream = new ByteArrayOutputStream();
+		DataOutputStream dataOutStream = new DataOutputStream(byteOutStream);
+		try {
+			object.write(this, dataOutStream);
+		} catch (IOException e) {
+			defaultIOExceptionHandler(e);
+		}
+		return requestVMAsync(command, byteOutStream);
+	}
+
+	/**
+	 * Performs a VM request for a specified reference type without waiting for
+	 * the reply.
+	 *
+	 * @return Returns a future that is completed with the reply data.
+	 */
+	public CompletableFuture<JdwpReplyPacket> requestVMAsync(int command, ReferenceTypeImpl refType) {
+		ByteArrayOutputStream byteOutStream = new ByteArrayOutputStream();
+		DataOutputStream dataOutStream = new DataOutputStream(byteOutStream);
+		try {
+			refType.write(this, dataOutStream);
+		} catch (IOException e) {
+			defaultIOExceptionHandler(e);
+		}
+		return requestVMAsync(command, byteOutStream);
+	}
+
+	/**
+	 * Waits for the reply of a request made with one of the
+	 * <code>requestVMAsync</code> methods, using the request timeout of the
+	 * Virtual Machine.
+	 *
+	 * @return Returns reply data.
+	 */
+	public JdwpReplyPacket waitForReply(CompletableFuture<JdwpReplyPacket> request) {
+		JdwpReplyPacket reply = fVirtualMachineImpl.packetReceiveManager()
+				.getReply(request, fVirtualMachineImpl.getRequestTimeout());
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println();
+			fVerboseWriter.println("Received reply"); //$NON-NLS-1$
+			fVerboseWriter.println("length", reply.getLength()); //$NON-NLS-1$
+			fVerboseWriter.println("id", reply.getId()); //$NON-NLS-1$
+			fVerboseWriter.println(
+					"flags", reply.getFlags(), JdwpPacket.getFlagMap()); //$NON-NLS-1$
+			fVerboseWriter
+					.println(
+							"error code", reply.errorCode(), JdwpReplyPacket.errorMap()); //$NON-NLS-1$
+		}
+		return reply;
+	}
+
 	/**
 	 * Performs a VM request.
 	 *
@@ -358,6 +457,19 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public byte readByte(String description, ByteBuffer in) {
+		byte result = in.get();
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
 	 *
@@ -372,6 +484,19 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public short readShort(String description, ByteBuffer in) {
+		short result = in.getShort();
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
 	 *
@@ -386,6 +511,19 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public int readInt(String description, ByteBuffer in) {
+		int result = in.getInt();
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
 	 *
@@ -400,6 +538,19 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public long readLong(String description, ByteBuffer in) {
+		long result = in.getLong();
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
 	 *
@@ -414,6 +565,20 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public byte readByte(String description, Map<Integer, String> valueToString,
+			ByteBuffer in) {
+		byte result = in.get();
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result, valueToString);
+		}
+		return result;
+	}
+
 	/**
 	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
 	 *
@@ -428,6 +593,20 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public short readShort(String description, Map<Integer, String> valueToString,
+			ByteBuffer in) {
+		short result = in.getShort();
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result, valueToString);
+		}
+		return result;
+	}
+
 	/**
 	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
 	 *
@@ -442,6 +621,19 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public int readInt(String description, Map<Integer, String> valueToString, ByteBuffer in) {
+		int result = in.getInt();
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result, valueToString);
+		}
+		return result;
+	}
+
 	/**
 	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
 	 *
@@ -456,6 +648,20 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public String readString(String description, ByteBuffer in)
+			throws IOException {
+		String result = JdwpString.read(in);
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
 	 *
@@ -470,6 +676,19 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public boolean readBoolean(String description, ByteBuffer in) {
+		boolean result = in.get() != 0;
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
 	 *
@@ -484,6 +703,19 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public char readChar(String description, ByteBuffer in) {
+		char result = in.getChar();
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
 	 *
@@ -498,6 +730,19 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public double readDouble(String description, ByteBuffer in) {
+		double result = in.getDouble();
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
 	 *
@@ -512,6 +757,19 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public float readFloat(String description, ByteBuffer in) {
+		float result = in.getFloat();
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
 	 *
@@ -527,6 +785,21 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public byte[] readByteArray(int length, String description,
+			ByteBuffer in) {
+		byte[] result = new byte[length];
+		in.get(result);
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Writes Jdwp data and, if verbose is on, outputs verbose info.
 	 */
@@ -695,6 +968,20 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public byte readByte(String description, String[] bitNames,
+			ByteBuffer in) {
+		byte result = in.get();
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result, bitNames);
+		}
+		return result;
+	}
+
 	/**
 	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
 	 *
@@ -709,6 +996,20 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public short readShort(String description, String[] bitNames,
+			ByteBuffer in) {
+		short result = in.getShort();
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result, bitNames);
+		}
+		return result;
+	}
+
 	/**
 	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
 	 *
@@ -723,6 +1024,19 @@ public class MirrorImpl implements Mirror {
 		return result;
 	}
 
+	/**
+	 * Reads Jdwp data and, if verbose is on, outputs verbose info.
+	 *
+	 * @return Returns value that has been read.
+	 */
+	public int readInt(String description, String[] bitNames, ByteBuffer in) {
+		int result = in.getInt();
+		if (fVerboseWriter != null) {
+			fVerboseWriter.println(description, result, bitNames);
+		}
+		return result;
+	}
+
 	/**
 	 * Writes Jdwp data and, if verbose is on, outputs verbose info.
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,11 +14,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
 import org.eclipse.jdi.internal.jdwp.JdwpID;
@@ -342,6 +346,196 @@ public class ObjectReferenceImpl extends ValueImpl implements ObjectReference {
 		}
 	}
 
+	/**
+	 * A GetValues command of a batch: either ObjectReference.GetValues for the
+	 * instance fields of one object, or ReferenceType.GetValues for the static
+	 * fields of one type.
+	 */
+	private static class ValuesRequest {
+		final ObjectReferenceImpl fObject;
+		final ReferenceTypeImpl fType;
+		final List<FieldImpl> fFields;
+		CompletableFuture<JdwpReplyPacket> fReply;
+
+		ValuesRequest(ObjectReferenceImpl object, ReferenceTypeImpl type,
+				List<FieldImpl> fields) {
+			fObject = object;
+			fType = type;
+			fFields = fields;
+		}
+
+		void send() throws IOException {
+			ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+			DataOutputStream outData = new DataOutputStream(outBytes);
+			MirrorImpl target = fObject != null ? fObject : fType;
+			target.initJdwpRequest();
+			try {
+				int fieldsSize = fFields.size();
+				if (fObject != null) {
+					fObject.write(fObject, outData);
+					fObject.writeInt(fieldsSize, "size", outData); //$NON-NLS-1$
+					for (int i = 0; i < fieldsSize; i++) {
+						fFields.get(i).write(fObject, outData);
+					}
+					fReply = fObject.requestVMAsync(
+							JdwpCommandPacket.OR_GET_VALUES, outBytes);
+				} else {
+					fType.write(fType, outData);
+					fType.writeInt(fieldsSize, "size", outData); //$NON-NLS-1$
+					for (int i = 0; i < fieldsSize; i++) {
+						fFields.get(i).getFieldID().write(outData);
+					}
+					fReply = fType.requestVMAsync(
+							JdwpCommandPacket.RT_GET_VALUES, outBytes);
+				}
+			} finally {
+				target.handledJdwpRequest();
+			}
+		}
+
+		/**
+		 * Waits for the reply and puts the values in the given map.
+		 *
+		 * @return Returns <code>false</code> if the object has been garbage
+		 *         collected.
+		 */
+		boolean receive(Map<Field, Value> values) {
+			MirrorImpl target = fObject != null ? fObject : fType;
+			target.initJdwpRequest();
+			try {
+				JdwpReplyPacket replyPacket = target.waitForReply(fReply);
+				if (fObject != null
+						&& replyPacket.errorCode() == JdwpReplyPacket.INVALID_OBJECT) {
+					return false;
+				}
+				target.defaultReplyErrorHandler(replyPacket.errorCode());
+
+				ByteBuffer replyData = replyPacket.dataBuffer();
+				int nrOfElements = target.readInt("elements", replyData); //$NON-NLS-1$
+				if (nrOfElements != fFields.size()) {
+					throw new InternalError(
+							JDIMessages.ObjectReferenceImpl_Retrieved_a_different_number_of_values_from_the_VM_than_requested_1);
+				}
+				for (int i = 0; i < nrOfElements; i++) {
+					values.put(fFields.get(i),
+							ValueImpl.readWithTag(target, replyData));
+				}
+				return true;
+			} finally {
+				target.handledJdwpRequest();
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the values of fields of many objects at once. One GetValues
+	 * command is sent per object, plus one per type declaring requested static
+	 * fields. Up to <code>pipelineDepth</code> commands are outstanding at any
+	 * time, so the round trips overlap instead of running one after the other.
+	 * <p>
+	 * Objects that turn out to be garbage collected are left out of the
+	 * result.
+	 * </p>
+	 *
+	 * @param requests
+	 *            the fields to retrieve, per object
+	 * @param pipelineDepth
+	 *            the maximum number of commands waiting for a reply
+	 * @return Returns the values of the requested fields, per object
+	 */
+	public static Map<ObjectReference, Map<Field, Value>> getValues(
+			Map<? extends ObjectReference, ? extends List<? extends Field>> requests,
+			int pipelineDepth) {
+		Map<ObjectReference, Map<Field, Value>> result = new HashMap<>(requests.size() * 4 / 3 + 1);
+		if (requests.isEmpty()) {
+			return result;
+		}
+		if (pipelineDepth < 1) {
+			pipelineDepth = 1;
+		}
+
+		// Static fields are retrieved once per declaring type, however many
+		// objects ask for them.
+		Map<ReferenceTypeImpl, List<FieldImpl>> staticFields = new LinkedHashMap<>();
+		List<ValuesRequest> commands = new ArrayList<>(requests.size());
+		for (Map.Entry<? extends ObjectReference, ? extends List<? extends Field>> entry : requests.entrySet()) {
+			ObjectReferenceImpl object = (ObjectReferenceImpl) entry.getKey();
+			List<FieldImpl> nonStaticFields = new ArrayList<>(entry.getValue().size());
+			for (Field f : entry.getValue()) {
+				FieldImpl field = (FieldImpl) f;
+				object.checkVM(field);
+				if (field.isStatic()) {
+					ReferenceTypeImpl type = (ReferenceTypeImpl) field.declaringType();
+					List<FieldImpl> fields = staticFields.get(type);
+					if (fields == null) {
+						fields = new ArrayList<>();
+						staticFields.put(type, fields);
+					}
+					if (!fields.contains(field)) {
+						fields.add(field);
+					}
+				} else {
+					nonStaticFields.add(field);
+				}
+			}
+			result.put(object, new HashMap<Field, Value>());
+			if (!nonStaticFields.isEmpty()) {
+				commands.add(new ValuesRequest(object, null, nonStaticFields));
+			}
+		}
+		List<ValuesRequest> staticCommands = new ArrayList<>(staticFields.size());
+		for (Map.Entry<ReferenceTypeImpl, List<FieldImpl>> entry : staticFields.entrySet()) {
+			staticCommands.add(new ValuesRequest(null, entry.getKey(), entry.getValue()));
+		}
+		commands.addAll(0, staticCommands);
+
+		Map<Field, Value> staticValues = new HashMap<>();
+		ArrayDeque<ValuesRequest> inFlight = new ArrayDeque<>(pipelineDepth);
+		try {
+			for (ValuesRequest command : commands) {
+				if (inFlight.size() >= pipelineDepth) {
+					receive(inFlight.removeFirst(), staticValues, result);
+				}
+				command.send();
+				inFlight.addLast(command);
+			}
+			while (!inFlight.isEmpty()) {
+				receive(inFlight.removeFirst(), staticValues, result);
+			}
+		} catch (IOException e) {
+			ObjectReferenceImpl object = (ObjectReferenceImpl) requests.keySet().iterator().next();
+			object.defaultIOExceptionHandler(e);
+			return null;
+		}
+
+		if (!staticValues.isEmpty()) {
+			for (Map.Entry<? extends ObjectReference, ? extends List<? extends Field>> entry : requests.entrySet()) {
+				Map<Field, Value> values = result.get(entry.getKey());
+				if (values != null) {
+					for (Field field : entry.getValue()) {
+						if (field.isStatic()) {
+							values.put(field, staticValues.get(field));
+						}
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private static void receive(ValuesRequest command,
+			Map<Field, Value> staticValues,
+			Map<ObjectReference, Map<Field, Value>> result) {
+		if (command.fObject == null) {
+			command.receive(staticValues);
+		} else {
+			Map<Field, Value> values = result.get(command.fObject);
+			if (!command.receive(values)) {
+				result.remove(command.fObject);
+			}
+		}
+	}
+
 	/**
 	 * @return Returns the hash code value.
 	 */
@@ -636,6 +830,24 @@ public class ObjectReferenceImpl extends ValueImpl implements ObjectReference {
 		return mirror;
 	}
 
+	/**
+	 * @return Reads JDWP representation and returns new instance.
+	 */
+	public static ObjectReferenceImpl readObjectRefWithoutTag(
+			MirrorImpl target, ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		JdwpObjectID ID = new JdwpObjectID(vmImpl);
+		ID.read(in);
+		if (target.fVerboseWriter != null)
+			target.fVerboseWriter.println("objectReference", ID.value()); //$NON-NLS-1$
+
+		if (ID.isNull())
+			return null;
+
+		ObjectReferenceImpl mirror = new ObjectReferenceImpl(vmImpl, ID);
+		return mirror;
+	}
+
 	/**
 	 * @return Reads JDWP representation and returns new instance.
 	 */
@@ -665,6 +877,35 @@ public class ObjectReferenceImpl extends ValueImpl implements ObjectReference {
 						+ objectTag);
 	}
 
+	/**
+	 * @return Reads JDWP representation and returns new instance.
+	 */
+	public static ObjectReferenceImpl readObjectRefWithTag(MirrorImpl target,
+			ByteBuffer in) {
+		byte objectTag = target.readByte("object tag", JdwpID.tagMap(), in); //$NON-NLS-1$
+		switch (objectTag) {
+		case 0:
+			return null;
+		case ObjectReferenceImpl.tag:
+			return ObjectReferenceImpl.readObjectRefWithoutTag(target, in);
+		case ArrayReferenceImpl.tag:
+			return ArrayReferenceImpl.read(target, in);
+		case ClassLoaderReferenceImpl.tag:
+			return ClassLoaderReferenceImpl.read(target, in);
+		case ClassObjectReferenceImpl.tag:
+			return ClassObjectReferenceImpl.read(target, in);
+		case StringReferenceImpl.tag:
+			return StringReferenceImpl.read(target, in);
+		case ThreadGroupReferenceImpl.tag:
+			return ThreadGroupReferenceImpl.read(target, in);
+		case ThreadReferenceImpl.tag:
+			return ThreadReferenceImpl.read(target, in);
+		}
+		throw new InternalException(
+				JDIMessages.ObjectReferenceImpl_Invalid_ObjectID_tag_encountered___9
+						+ objectTag);
+	}
+
 	/**
 	 * Writes JDWP representation without tag.
 	 */
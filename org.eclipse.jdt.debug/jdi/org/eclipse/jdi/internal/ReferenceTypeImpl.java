@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,7 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -25,6 +26,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
 import org.eclipse.jdi.internal.jdwp.JdwpFieldID;
@@ -99,7 +101,7 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 		 * the output source file, range in the output source file]. (Integer ->
 		 * List of int[2]).
 		 */
-		private HashMap<Integer, List<int[]>> fLineInfo;
+		private IntObjectMap<List<int[]>> fLineInfo;
 
 		/**
 		 * FileInfo constructor.
@@ -115,7 +117,7 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 			fFileId = fileId;
 			fFileName = fileName;
 			fAbsoluteFileName = absoluteFileName;
-			fLineInfo = new HashMap<>();
+			fLineInfo = new IntObjectMap<>();
 		}
 
 		/**
@@ -133,11 +135,10 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 		 */
 		public void addLineInfo(int inputLine, int outputStartLine,
 				int outputLineRange) {
-			Integer key = new Integer(inputLine);
-			List<int[]> outputLines = fLineInfo.get(key);
+			List<int[]> outputLines = fLineInfo.get(inputLine);
 			if (outputLines == null) {
 				outputLines = new ArrayList<>();
-				fLineInfo.put(key, outputLines);
+				fLineInfo.put(inputLine, outputLines);
 			}
 			outputLines.add(new int[] { outputStartLine, outputLineRange });
 		}
@@ -152,7 +153,7 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 		 */
 		public List<Integer> getOutputLinesForLine(int lineNumber) {
 			List<Integer> list = new ArrayList<>();
-			List<int[]> outputLines = fLineInfo.get(new Integer(lineNumber));
+			List<int[]> outputLines = fLineInfo.get(lineNumber);
 			if (outputLines != null) {
 				for (Iterator<int[]> iter = outputLines.iterator(); iter.hasNext();) {
 					int[] info = iter.next();
@@ -206,7 +207,7 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 		 * Map line number in the output source file -> list of line numbers in
 		 * the input source file. (Integer -> List of Integer)
 		 */
-		private HashMap<Integer, List<int[]>> fOutputLineToInputLine;
+		private IntObjectMap<List<int[]>> fOutputLineToInputLine;
 
 		/**
 		 * Stratum constructor.
@@ -217,7 +218,7 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 		public Stratum(String id) {
 			fId = id;
 			fFileInfos = new ArrayList<>();
-			fOutputLineToInputLine = new HashMap<>();
+			fOutputLineToInputLine = new IntObjectMap<>();
 			fPrimaryFileId = -1;
 		}
 
@@ -311,11 +312,10 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 		 */
 		private void addLineInfoToMap(int inputStartLine, int lineFileId,
 				int outputStartLine) {
-			Integer key = new Integer(outputStartLine);
-			List<int[]> inputLines = fOutputLineToInputLine.get(key);
+			List<int[]> inputLines = fOutputLineToInputLine.get(outputStartLine);
 			if (inputLines == null) {
 				inputLines = new ArrayList<>();
-				fOutputLineToInputLine.put(key, inputLines);
+				fOutputLineToInputLine.put(outputStartLine, inputLines);
 			}
 			inputLines.add(new int[] { lineFileId, inputStartLine });
 		}
@@ -343,8 +343,7 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 		 * @return
 		 */
 		public List<int[]> getInputLineInfos(int outputLineNumber) {
-			return fOutputLineToInputLine.get(new Integer(
-					outputLineNumber));
+			return fOutputLineToInputLine.get(outputLineNumber);
 		}
 
 	}
@@ -355,7 +354,7 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 	/** The following are the stored results of JDWP calls. */
 	protected List<InterfaceType> fInterfaces = null;
 	private List<Method> fMethods = null;
-	private Map<JdwpMethodID, Method> fMethodTable = null;
+	private volatile LongObjectMap<Method> fMethodTable = null;
 	private List<Field> fFields = null;
 	private List<Method> fAllMethods = null;
 	private List<Method> fVisibleMethods = null;
@@ -772,6 +771,22 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 		// fields that have been inherited double.
 		HashSet<Field> resultSet = new HashSet<>();
 
+		// Request the declared fields of the whole hierarchy at once, so that
+		// the recursion below is served from the caches.
+		List<ReferenceTypeImpl> hierarchy = new ArrayList<>();
+		hierarchy.add(this);
+		for (InterfaceType inter : allInterfaces()) {
+			hierarchy.add((ReferenceTypeImpl) inter);
+		}
+		if (this instanceof ClassType) {
+			ClassType superclass = ((ClassType) this).superclass();
+			while (superclass != null) {
+				hierarchy.add((ReferenceTypeImpl) superclass);
+				superclass = superclass.superclass();
+			}
+		}
+		prefetchFields(hierarchy);
+
 		// The fields of its own (own fields() command).
 		resultSet.addAll(fields());
 
@@ -928,12 +943,63 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 		// therefore their
 		// order in this list can be used for comparisons.
 		initJdwpRequest();
+		try {
+			return readFields(requestVM(fieldsCommand(), this));
+		} finally {
+			handledJdwpRequest();
+		}
+	}
+
+	/**
+	 * Retrieves the declared fields of all given types that are not known
+	 * yet. The requests are all sent before the first reply is read.
+	 *
+	 * @param types
+	 *            the types to retrieve the fields of
+	 */
+	static void prefetchFields(List<ReferenceTypeImpl> types) {
+		List<ReferenceTypeImpl> pending = new ArrayList<>(types.size());
+		List<CompletableFuture<JdwpReplyPacket>> requests = new ArrayList<>(types.size());
+		for (ReferenceTypeImpl type : types) {
+			if (type.fFields == null) {
+				type.initJdwpRequest();
+				try {
+					requests.add(type.requestVMAsync(type.fieldsCommand(), type));
+					pending.add(type);
+				} finally {
+					type.handledJdwpRequest();
+				}
+			}
+		}
+		for (int i = 0; i < pending.size(); i++) {
+			ReferenceTypeImpl type = pending.get(i);
+			type.initJdwpRequest();
+			try {
+				type.readFields(type.waitForReply(requests.get(i)));
+			} finally {
+				type.handledJdwpRequest();
+			}
+		}
+	}
+
+	/**
+	 * @return Returns the JDWP command used to retrieve the declared fields.
+	 */
+	private int fieldsCommand() {
+		return virtualMachineImpl().isJdwpVersionGreaterOrEqual(1, 5) ? JdwpCommandPacket.RT_FIELDS_WITH_GENERIC
+				: JdwpCommandPacket.RT_FIELDS;
+	}
+
+	/**
+	 * Reads and caches the declared fields from a reply to
+	 * {@link #fieldsCommand()}.
+	 *
+	 * @return Returns the declared fields.
+	 */
+	private List<Field> readFields(JdwpReplyPacket replyPacket) {
 		try {
 			boolean withGenericSignature = virtualMachineImpl()
 					.isJdwpVersionGreaterOrEqual(1, 5);
-			int jdwpCommand = withGenericSignature ? JdwpCommandPacket.RT_FIELDS_WITH_GENERIC
-					: JdwpCommandPacket.RT_FIELDS;
-			JdwpReplyPacket replyPacket = requestVM(jdwpCommand, this);
 			defaultReplyErrorHandler(replyPacket.errorCode());
 			DataInputStream replyData = replyPacket.dataInStream();
 			List<Field> elements = new ArrayList<>();
@@ -951,8 +1017,6 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 		} catch (IOException e) {
 			defaultIOExceptionHandler(e);
 			return null;
-		} finally {
-			handledJdwpRequest();
 		}
 	}
 
@@ -981,17 +1045,19 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 					JDIMessages.ReferenceTypeImpl_Obsolete_method_1,
 					"", null, -1); //$NON-NLS-1$
 		}
-		if (fMethodTable == null) {
+		LongObjectMap<Method> methodTable = fMethodTable;
+		if (methodTable == null) {
 			// 509259 use temporary variable to workaround fMethodTable lazy initialization race
-			Map<JdwpMethodID, Method> methodTable = new HashMap<>();
-			Iterator<Method> iter = methods().iterator();
+			List<Method> methods = methods();
+			methodTable = new LongObjectMap<>(methods.size());
+			Iterator<Method> iter = methods.iterator();
 			while (iter.hasNext()) {
 				MethodImpl method = (MethodImpl) iter.next();
-				methodTable.put(method.getMethodID(), method);
+				methodTable.put(method.getMethodID().value(), method);
 			}
-			fMethodTable = Collections.unmodifiableMap(methodTable);
+			fMethodTable = methodTable;
 		}
-		return fMethodTable.get(methodID);
+		return methodTable.get(methodID.value());
 	}
 
 	/**
@@ -1379,6 +1445,27 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 						+ typeTag);
 	}
 
+	/**
+	 * @return Reads JDWP representation and returns new or cached instance.
+	 */
+	public static ReferenceTypeImpl readWithTypeTag(MirrorImpl target,
+			ByteBuffer in) {
+		byte typeTag = target.readByte("type tag", JdwpID.typeTagMap(), in); //$NON-NLS-1$
+		switch (typeTag) {
+		case 0:
+			return null;
+		case ArrayTypeImpl.typeTag:
+			return ArrayTypeImpl.read(target, in);
+		case ClassTypeImpl.typeTag:
+			return ClassTypeImpl.read(target, in);
+		case InterfaceTypeImpl.typeTag:
+			return InterfaceTypeImpl.read(target, in);
+		}
+		throw new InternalException(
+				JDIMessages.ReferenceTypeImpl_Invalid_ReferenceTypeID_tag_encountered___8
+						+ typeTag);
+	}
+
 	/* (non-Javadoc)
 	 * @see com.sun.jdi.ReferenceType#allLineLocations()
 	 */
@@ -1412,6 +1499,31 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 						+ typeTag);
 	}
 
+	/**
+	 * @return Reads JDWP representation and returns new or cached instance.
+	 */
+	public static ReferenceTypeImpl readWithTypeTagAndSignature(
+			MirrorImpl target, boolean withGenericSignature, ByteBuffer in)
+			throws IOException {
+		byte typeTag = target.readByte("type tag", JdwpID.typeTagMap(), in); //$NON-NLS-1$
+		switch (typeTag) {
+		case 0:
+			return null;
+		case ArrayTypeImpl.typeTag:
+			return ArrayTypeImpl.readWithSignature(target,
+					withGenericSignature, in);
+		case ClassTypeImpl.typeTag:
+			return ClassTypeImpl.readWithSignature(target,
+					withGenericSignature, in);
+		case InterfaceTypeImpl.typeTag:
+			return InterfaceTypeImpl.readWithSignature(target,
+					withGenericSignature, in);
+		}
+		throw new InternalException(
+				JDIMessages.ReferenceTypeImpl_Invalid_ReferenceTypeID_tag_encountered___8
+						+ typeTag);
+	}
+
 	/**
 	 * @return Returns new instance based on signature and classLoader.
 	 * @throws ClassNotLoadedException
@@ -1592,6 +1704,22 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 		throw new AbsentInformationException();
 	}
 
+	/**
+	 * Retrieves the line tables of all methods of this type that have not been
+	 * retrieved yet, with pipelined requests.
+	 *
+	 * @see VirtualMachineImpl#getPipelineDepth()
+	 */
+	private void getLineTables() {
+		List<Method> methods = methods();
+		List<MethodImpl> methodImpls = new ArrayList<>(methods.size());
+		for (Method method : methods) {
+			methodImpls.add((MethodImpl) method);
+		}
+		MethodImpl.getLineTables(methodImpls,
+				virtualMachineImpl().getPipelineDepth());
+	}
+
 	/* (non-Javadoc)
 	 * @see com.sun.jdi.ReferenceType#allLineLocations(java.lang.String, java.lang.String)
 	 */
@@ -1619,6 +1747,7 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 			allLineLocations = sourceNameAllLineLocations.get(sourceName);
 		}
 		if (allLineLocations == null) { // the line locations are not known, compute and store them
+			getLineTables();
 			allLineLocations = new ArrayList<>();
 			boolean hasLineInformation = false;
 			AbsentInformationException exception = null;
@@ -1647,6 +1776,7 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 	 */
 	@Override
 	public List<Location> locationsOfLine(String stratum, String sourceName, int lineNumber) throws AbsentInformationException {
+		getLineTables();
 		Iterator<Method> allMethods = methods().iterator();
 		List<Location> locations = new ArrayList<>();
 		boolean hasLineInformation = false;
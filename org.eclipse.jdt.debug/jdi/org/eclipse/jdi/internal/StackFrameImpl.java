@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,6 +19,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
 import org.eclipse.jdi.internal.jdwp.JdwpFrameID;
@@ -104,6 +105,35 @@ public class StackFrameImpl extends MirrorImpl implements StackFrame, Locatable
 		}
 		int sizeNotThis = sizeAll - sizeThis;
 
+		// Request values for local variables other than 'this' first, so that
+		// the request for 'this' is on the wire while we wait for the reply.
+		CompletableFuture<JdwpReplyPacket> valuesRequest = null;
+		if (sizeNotThis > 0) {
+			initJdwpRequest();
+			try {
+				ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+				DataOutputStream outData = new DataOutputStream(outBytes);
+				writeWithThread(this, outData);
+				writeInt(sizeNotThis, "size", outData); //$NON-NLS-1$
+				for (int i = 0; i < sizeAll; i++) {
+					if (!isThisValue[i]) {
+						LocalVariableImpl var = (LocalVariableImpl) variables
+								.get(i);
+						checkVM(var);
+						writeInt(var.slot(), "slot", outData); //$NON-NLS-1$
+						writeByte(var.tag(), "tag", JdwpID.tagMap(), outData); //$NON-NLS-1$
+					}
+				}
+				valuesRequest = requestVMAsync(JdwpCommandPacket.SF_GET_VALUES,
+						outBytes);
+			} catch (IOException e) {
+				defaultIOExceptionHandler(e);
+				return null;
+			} finally {
+				handledJdwpRequest();
+			}
+		}
+
 		if (sizeThis > 0) {
 			Value thisValue = thisObject();
 			for (int i = 0; i < sizeAll; i++) {
@@ -114,28 +144,13 @@ public class StackFrameImpl extends MirrorImpl implements StackFrame, Locatable
 		}
 
 		// If only 'this' was requested, we're finished.
-		if (sizeNotThis == 0) {
+		if (valuesRequest == null) {
 			return map;
 		}
 
-		// Request values for local variables other than 'this'.
 		initJdwpRequest();
 		try {
-			ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
-			DataOutputStream outData = new DataOutputStream(outBytes);
-			writeWithThread(this, outData);
-			writeInt(sizeNotThis, "size", outData); //$NON-NLS-1$
-			for (int i = 0; i < sizeAll; i++) {
-				if (!isThisValue[i]) {
-					LocalVariableImpl var = (LocalVariableImpl) variables
-							.get(i);
-					checkVM(var);
-					writeInt(var.slot(), "slot", outData); //$NON-NLS-1$
-					writeByte(var.tag(), "tag", JdwpID.tagMap(), outData); //$NON-NLS-1$
-				}
-			}
-			JdwpReplyPacket replyPacket = requestVM(
-					JdwpCommandPacket.SF_GET_VALUES, outBytes);
+			JdwpReplyPacket replyPacket = waitForReply(valuesRequest);
 			defaultReplyErrorHandler(replyPacket.errorCode());
 
 			DataInputStream replyData = replyPacket.dataInStream();
@@ -144,9 +159,9 @@ public class StackFrameImpl extends MirrorImpl implements StackFrame, Locatable
 				throw new InternalError(
 						JDIMessages.StackFrameImpl_Retrieved_a_different_number_of_values_from_the_VM_than_requested_1);
 
-			for (int i = 0, j = 0; i < sizeAll; i++) {
+			for (int i = 0; i < sizeAll; i++) {
 				if (!isThisValue[i])
-					map.put(variables.get(j++),
+					map.put(variables.get(i),
 							ValueImpl.readWithTag(this, replyData));
 			}
 			return map;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ package org.eclipse.jdi.internal;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
 import org.eclipse.jdi.internal.jdwp.JdwpID;
@@ -87,6 +88,23 @@ public class StringReferenceImpl extends ObjectReferenceImpl implements
 		return mirror;
 	}
 
+	/**
+	 * @return Reads JDWP representation and returns new instance.
+	 */
+	public static StringReferenceImpl read(MirrorImpl target, ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		JdwpStringID ID = new JdwpStringID(vmImpl);
+		ID.read(in);
+		if (target.fVerboseWriter != null)
+			target.fVerboseWriter.println("stringReference", ID.value()); //$NON-NLS-1$
+
+		if (ID.isNull())
+			return null;
+
+		StringReferenceImpl mirror = new StringReferenceImpl(vmImpl, ID);
+		return mirror;
+	}
+
 	/**
 	 * @return Returns description of Mirror object.
 	 */
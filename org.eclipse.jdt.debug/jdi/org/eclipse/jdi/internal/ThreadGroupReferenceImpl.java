@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ package org.eclipse.jdi.internal;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -239,4 +240,27 @@ public class ThreadGroupReferenceImpl extends ObjectReferenceImpl implements
 		}
 		return mirror;
 	}
+
+	/**
+	 * @return Reads JDWP representation and returns new instance.
+	 */
+	public static ThreadGroupReferenceImpl read(MirrorImpl target,
+			ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		JdwpThreadGroupID ID = new JdwpThreadGroupID(vmImpl);
+		ID.read(in);
+		if (target.fVerboseWriter != null)
+			target.fVerboseWriter.println("threadGroupReference", ID.value()); //$NON-NLS-1$
+
+		if (ID.isNull())
+			return null;
+
+		ThreadGroupReferenceImpl mirror = (ThreadGroupReferenceImpl) vmImpl
+				.getCachedMirror(ID);
+		if (mirror == null) {
+			mirror = new ThreadGroupReferenceImpl(vmImpl, ID);
+			vmImpl.addCachedMirror(mirror);
+		}
+		return mirror;
+	}
 }
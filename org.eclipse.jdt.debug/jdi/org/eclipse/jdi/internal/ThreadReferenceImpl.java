@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,10 +16,12 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
 import org.eclipse.jdi.internal.jdwp.JdwpID;
@@ -251,6 +253,21 @@ public class ThreadReferenceImpl extends ObjectReferenceImpl implements	ThreadRe
 	@Override
 	public List<StackFrame> frames(int start, int length) throws IndexOutOfBoundsException,
 			IncompatibleThreadStateException {
+		return frames(requestFrames(start, length));
+	}
+
+	/**
+	 * Requests stack frames of this thread without waiting for the reply, so
+	 * that the frames of several threads can be requested at once.
+	 *
+	 * @param start
+	 *            index of the first frame
+	 * @param length
+	 *            number of frames, or -1 for all remaining frames
+	 * @return Returns the pending request, to be read with
+	 *         {@link #frames(CompletableFuture)}.
+	 */
+	public CompletableFuture<JdwpReplyPacket> requestFrames(int start, int length) {
 		// Note that this information should not be cached.
 		initJdwpRequest();
 		try {
@@ -259,9 +276,25 @@ public class ThreadReferenceImpl extends ObjectReferenceImpl implements	ThreadRe
 			write(this, outData);
 			writeInt(start, "start", outData); //$NON-NLS-1$
 			writeInt(length, "length", outData); //$NON-NLS-1$
+			return requestVMAsync(JdwpCommandPacket.TR_FRAMES, outBytes);
+		} catch (IOException e) {
+			defaultIOExceptionHandler(e);
+			return null;
+		} finally {
+			handledJdwpRequest();
+		}
+	}
 
-			JdwpReplyPacket replyPacket = requestVM(
-					JdwpCommandPacket.TR_FRAMES, outBytes);
+	/**
+	 * Waits for a request made with {@link #requestFrames(int, int)}.
+	 *
+	 * @return Returns the requested stack frames.
+	 */
+	public List<StackFrame> frames(CompletableFuture<JdwpReplyPacket> request) throws IndexOutOfBoundsException,
+			IncompatibleThreadStateException {
+		initJdwpRequest();
+		try {
+			JdwpReplyPacket replyPacket = waitForReply(request);
 			switch (replyPacket.errorCode()) {
 			case JdwpReplyPacket.INVALID_THREAD:
 				throw new ObjectCollectedException();
@@ -726,6 +759,28 @@ public class ThreadReferenceImpl extends ObjectReferenceImpl implements	ThreadRe
 		return mirror;
 	}
 
+	/**
+	 * @return Reads JDWP representation and returns new instance.
+	 */
+	public static ThreadReferenceImpl read(MirrorImpl target, ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		JdwpThreadID ID = new JdwpThreadID(vmImpl);
+		ID.read(in);
+		if (target.fVerboseWriter != null)
+			target.fVerboseWriter.println("threadReference", ID.value()); //$NON-NLS-1$
+
+		if (ID.isNull())
+			return null;
+
+		ThreadReferenceImpl mirror = (ThreadReferenceImpl) vmImpl
+				.getCachedMirror(ID);
+		if (mirror == null) {
+			mirror = new ThreadReferenceImpl(vmImpl, ID);
+			vmImpl.addCachedMirror(mirror);
+		}
+		return mirror;
+	}
+
 	/**
 	 * Retrieves constant mappings.
 	 */
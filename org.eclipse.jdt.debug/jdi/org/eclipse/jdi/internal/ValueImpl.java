@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.jdi.internal;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -66,6 +67,14 @@ public abstract class ValueImpl extends MirrorImpl implements Value {
 		return readWithoutTag(target, tag, in);
 	}
 
+	/**
+	 * @return Reads JDWP representation and returns new instance.
+	 */
+	public static ValueImpl readWithTag(MirrorImpl target, ByteBuffer in) {
+		byte tag = target.readByte("object tag", JdwpID.tagMap(), in); //$NON-NLS-1$
+		return readWithoutTag(target, tag, in);
+	}
+
 	/**
 	 * @return Reads JDWP representation and returns new instance.
 	 */
@@ -115,6 +124,55 @@ public abstract class ValueImpl extends MirrorImpl implements Value {
 		}
 	}
 
+	/**
+	 * @return Reads JDWP representation and returns new instance.
+	 */
+	public static ValueImpl readWithoutTag(MirrorImpl target, int type,
+			ByteBuffer in) {
+		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
+		// See also ArrayReference Impl.
+		switch (type) {
+		case ArrayReferenceImpl.tag:
+			return ArrayReferenceImpl.read(target, in);
+		case ClassLoaderReferenceImpl.tag:
+			return ClassLoaderReferenceImpl.read(target, in);
+		case ClassObjectReferenceImpl.tag:
+			return ClassObjectReferenceImpl.read(target, in);
+		case StringReferenceImpl.tag:
+			return StringReferenceImpl.read(target, in);
+		case ObjectReferenceImpl.tag:
+			return ObjectReferenceImpl.readObjectRefWithoutTag(target, in);
+		case ThreadGroupReferenceImpl.tag:
+			return ThreadGroupReferenceImpl.read(target, in);
+		case ThreadReferenceImpl.tag:
+			return ThreadReferenceImpl.read(target, in);
+		case BooleanValueImpl.tag:
+			return BooleanValueImpl.read(target, in);
+		case ByteValueImpl.tag:
+			return ByteValueImpl.read(target, in);
+		case CharValueImpl.tag:
+			return CharValueImpl.read(target, in);
+		case DoubleValueImpl.tag:
+			return DoubleValueImpl.read(target, in);
+		case FloatValueImpl.tag:
+			return FloatValueImpl.read(target, in);
+		case IntegerValueImpl.tag:
+			return IntegerValueImpl.read(target, in);
+		case LongValueImpl.tag:
+			return LongValueImpl.read(target, in);
+		case ShortValueImpl.tag:
+			return ShortValueImpl.read(target, in);
+		case VoidValueImpl.tag:
+			return new VoidValueImpl(vmImpl);
+		case 0:
+			return null;
+		default:
+			throw new InternalException(
+					JDIMessages.ValueImpl_Invalid_Value_tag_encountered___1
+							+ type);
+		}
+	}
+
 	/**
 	 * Writes value with value tag.
 	 */
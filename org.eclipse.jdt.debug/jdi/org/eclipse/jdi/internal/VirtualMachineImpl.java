@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,12 +16,15 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.jdi.Bootstrap;
 import org.eclipse.jdi.internal.connect.PacketReceiveManager;
@@ -76,6 +79,17 @@ public class VirtualMachineImpl extends MirrorImpl implements VirtualMachine,
 
 	/** Timeout value for requests to VM if not overridden for a particular VM. */
 	private int fRequestTimeout;
+
+	/**
+	 * Default maximum number of pipelined requests that may be waiting for a
+	 * reply.
+	 */
+	public static final int DEFAULT_PIPELINE_DEPTH = 16;
+
+	/**
+	 * Maximum number of pipelined requests that may be waiting for a reply.
+	 */
+	private volatile int fPipelineDepth = DEFAULT_PIPELINE_DEPTH;
 	/** Mapping of command codes to strings. */
 
 	private static Map<Integer, String> fgHCRResultMap = null;
@@ -93,8 +107,17 @@ public class VirtualMachineImpl extends MirrorImpl implements VirtualMachine,
 	 * optional: their only purpose is to speed up the debugger by being able to
 	 * use the stored results of JDWP calls.
 	 */
-	private ValueCache fCachedReftypes = new ValueCache();
-	private ValueCache fCachedObjects = new ValueCache();
+	private final MirrorCache<ReferenceTypeImpl> fCachedReftypes = new MirrorCache<>();
+	private final MirrorCache<ObjectReferenceImpl> fCachedObjects = new MirrorCache<>();
+
+	/**
+	 * Index of the loaded reference types by signature, or <code>null</code>
+	 * if the class table has not been hydrated. The arrays are replaced, never
+	 * modified.
+	 *
+	 * @see #hydrateClasses()
+	 */
+	private volatile Map<String, ReferenceTypeImpl[]> fRefTypesBySignature = null;
 
 	/** The following are the stored results of JDWP calls. */
 	private String fVersionDescription = null; // Text information on the VM
@@ -223,21 +246,21 @@ public class VirtualMachineImpl extends MirrorImpl implements VirtualMachine,
 	 * @return Returns cached mirror object, or null if method is not in cache.
 	 */
 	public ReferenceTypeImpl getCachedMirror(JdwpReferenceTypeID ID) {
-		return (ReferenceTypeImpl) fCachedReftypes.get(ID);
+		return fCachedReftypes.get(ID.value());
 	}
 
 	/**
 	 * @return Returns cached mirror object, or null if method is not in cache.
 	 */
 	public ObjectReferenceImpl getCachedMirror(JdwpObjectID ID) {
-		return (ObjectReferenceImpl) fCachedObjects.get(ID);
+		return fCachedObjects.get(ID.value());
 	}
 
 	/**
 	 * Adds mirror object to cache.
 	 */
 	public void addCachedMirror(ReferenceTypeImpl mirror) {
-		fCachedReftypes.put(mirror.getRefTypeID(), mirror);
+		fCachedReftypes.put(mirror.getRefTypeID().value(), mirror);
 		// TBD: It is now yet possible to only ask for unload events for
 		// classes that we know of due to a limitation in the J9 VM.
 		// eventRequestManagerImpl().enableInternalClasUnloadEvent(mirror);
@@ -247,7 +270,7 @@ public class VirtualMachineImpl extends MirrorImpl implements VirtualMachine,
 	 * Adds mirror object to cache.
 	 */
 	public void addCachedMirror(ObjectReferenceImpl mirror) {
-		fCachedObjects.put(mirror.getObjectID(), mirror);
+		fCachedObjects.put(mirror.getObjectID().value(), mirror);
 	}
 
 	/**
@@ -255,9 +278,7 @@ public class VirtualMachineImpl extends MirrorImpl implements VirtualMachine,
 	 */
 	public void flushStoredJdwpResults() {
 		// All known classes also become invalid.
-		Iterator<Object> iter = fCachedReftypes.values().iterator();
-		while (iter.hasNext()) {
-			ReferenceTypeImpl refType = (ReferenceTypeImpl) iter.next();
+		for (ReferenceTypeImpl refType : fCachedReftypes.values()) {
 			refType.flushStoredJdwpResults();
 		}
 
@@ -282,7 +303,8 @@ public class VirtualMachineImpl extends MirrorImpl implements VirtualMachine,
 		if (refTypeList.size() == 1) {
 			ReferenceTypeImpl refType = (ReferenceTypeImpl) refTypeList.get(0);
 			refType.flushStoredJdwpResults();
-			fCachedReftypes.remove(refType.getRefTypeID());
+			fCachedReftypes.remove(refType.getRefTypeID().value());
+			unindexRefType(signature, refType);
 			return;
 		}
 
@@ -300,9 +322,113 @@ public class VirtualMachineImpl extends MirrorImpl implements VirtualMachine,
 			if (!prepared) {
 				refType.flushStoredJdwpResults();
 				iter.remove();
-				fCachedReftypes.remove(refType.getRefTypeID());
+				fCachedReftypes.remove(refType.getRefTypeID().value());
+				unindexRefType(signature, refType);
+			}
+		}
+	}
+
+	/**
+	 * Fetches the whole class table with one AllClasses (or
+	 * AllClassesWithGeneric) request and indexes the resulting mirrors by
+	 * signature, so that {@link #classesBySignature(String)} and
+	 * {@link #classesByName(String)} no longer need a request for types that
+	 * are known.
+	 * <p>
+	 * The index is kept up to date by an internal class prepare request and
+	 * the internal class unload request. A signature that is not in the index
+	 * is still looked up in the VM.
+	 * </p>
+	 */
+	public void hydrateClasses() {
+		if (fRefTypesBySignature != null) {
+			return;
+		}
+		synchronized (this) {
+			if (fRefTypesBySignature != null) {
+				return;
+			}
+			// Publish the index and listen to class prepare events before the
+			// class table is requested, so that no class prepared in between
+			// is missed.
+			fRefTypesBySignature = new ConcurrentHashMap<>();
+			eventRequestManagerImpl().enableInternalClassPrepareEvent();
+		}
+
+		initJdwpRequest();
+		try {
+			boolean withGenericSignature = virtualMachineImpl()
+					.isJdwpVersionGreaterOrEqual(1, 5);
+			int jdwpCommand = withGenericSignature ? JdwpCommandPacket.VM_ALL_CLASSES_WITH_GENERIC
+					: JdwpCommandPacket.VM_ALL_CLASSES;
+			JdwpReplyPacket replyPacket = requestVM(jdwpCommand);
+			defaultReplyErrorHandler(replyPacket.errorCode());
+			ByteBuffer replyData = replyPacket.dataBuffer();
+			int nrOfElements = readInt("elements", replyData); //$NON-NLS-1$
+			Map<String, List<ReferenceTypeImpl>> bySignature = new HashMap<>(nrOfElements * 4 / 3 + 1);
+			for (int i = 0; i < nrOfElements; i++) {
+				ReferenceTypeImpl elt = ReferenceTypeImpl
+						.readWithTypeTagAndSignature(this,
+								withGenericSignature, replyData);
+				readInt("status", ReferenceTypeImpl.classStatusStrings(), replyData); //$NON-NLS-1$
+				if (elt == null) {
+					continue;
+				}
+				String signature = elt.signature();
+				List<ReferenceTypeImpl> types = bySignature.get(signature);
+				if (types == null) {
+					types = new ArrayList<>(1);
+					bySignature.put(signature, types);
+				}
+				types.add(elt);
+			}
+			Map<String, ReferenceTypeImpl[]> index = fRefTypesBySignature;
+			for (Map.Entry<String, List<ReferenceTypeImpl>> entry : bySignature.entrySet()) {
+				List<ReferenceTypeImpl> types = entry.getValue();
+				index.merge(entry.getKey(), types.toArray(new ReferenceTypeImpl[types.size()]), VirtualMachineImpl::union);
+			}
+		} catch (IOException e) {
+			defaultIOExceptionHandler(e);
+		} finally {
+			handledJdwpRequest();
+		}
+	}
+
+	/**
+	 * Adds a reference type to the signature index, if there is one.
+	 */
+	public void indexRefType(ReferenceTypeImpl refType) {
+		Map<String, ReferenceTypeImpl[]> index = fRefTypesBySignature;
+		if (index != null && refType != null) {
+			index.merge(refType.signature(), new ReferenceTypeImpl[] { refType }, VirtualMachineImpl::union);
+		}
+	}
+
+	/**
+	 * Removes a reference type from the signature index, if there is one.
+	 */
+	private void unindexRefType(String signature, ReferenceTypeImpl refType) {
+		Map<String, ReferenceTypeImpl[]> index = fRefTypesBySignature;
+		if (index != null) {
+			index.computeIfPresent(signature, (key, types) -> {
+				List<ReferenceTypeImpl> remaining = new ArrayList<>(Arrays.asList(types));
+				remaining.remove(refType);
+				return remaining.isEmpty() ? null : remaining.toArray(new ReferenceTypeImpl[remaining.size()]);
+			});
+		}
+	}
+
+	/**
+	 * @return Returns the types of both arrays, without duplicates.
+	 */
+	private static ReferenceTypeImpl[] union(ReferenceTypeImpl[] types, ReferenceTypeImpl[] added) {
+		List<ReferenceTypeImpl> result = new ArrayList<>(Arrays.asList(types));
+		for (ReferenceTypeImpl type : added) {
+			if (!result.contains(type)) {
+				result.add(type);
 			}
 		}
+		return result.size() == types.length ? types : result.toArray(new ReferenceTypeImpl[result.size()]);
 	}
 
 	/*
@@ -405,10 +531,26 @@ public class VirtualMachineImpl extends MirrorImpl implements VirtualMachine,
 	/**
 	 * @return Returns an iterator over all cached classes.
 	 */
-	protected final Iterator<Object> allCachedRefTypes() {
+	protected final Iterator<ReferenceTypeImpl> allCachedRefTypes() {
 		return fCachedReftypes.values().iterator();
 	}
 
+	/**
+	 * @return Returns the cache of reference type mirrors, e.g. to read its
+	 *         hit, miss and eviction counters.
+	 */
+	public final MirrorCache<ReferenceTypeImpl> refTypeCache() {
+		return fCachedReftypes;
+	}
+
+	/**
+	 * @return Returns the cache of object reference mirrors, e.g. to read its
+	 *         hit, miss and eviction counters.
+	 */
+	public final MirrorCache<ObjectReferenceImpl> objectCache() {
+		return fCachedObjects;
+	}
+
 	/**
 	 * Returns a list of the currently running threads. For each running thread
 	 * in the target VM, a ThreadReference that mirrors it is placed in the
@@ -642,7 +784,15 @@ public class VirtualMachineImpl extends MirrorImpl implements VirtualMachine,
 	 * @return Returns the loaded reference types that match a given signature.
 	 */
 	public List<ReferenceType> classesBySignature(String signature) {
-		// Note that this information should not be cached.
+		Map<String, ReferenceTypeImpl[]> index = fRefTypesBySignature;
+		if (index != null) {
+			ReferenceTypeImpl[] types = index.get(signature);
+			if (types != null) {
+				return new ArrayList<>(Arrays.asList(types));
+			}
+		}
+		// Note that this information should not be cached, unless the class
+		// table has been hydrated.
 		initJdwpRequest();
 		try {
 			ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
@@ -662,6 +812,10 @@ public class VirtualMachineImpl extends MirrorImpl implements VirtualMachine,
 				if (elt == null) {
 					continue;
 				}
+				if (index != null) {
+					elt.setSignature(signature);
+					indexRefType(elt);
+				}
 				elements.add(elt);
 			}
 			return elements;
@@ -1233,6 +1387,23 @@ public class VirtualMachineImpl extends MirrorImpl implements VirtualMachine,
 		return fRequestTimeout;
 	}
 
+	/**
+	 * Sets the maximum number of requests that may be waiting for a reply
+	 * when the mirrors retrieve data in a batch, such as the line tables of
+	 * all methods of a type. A value of 1 disables pipelining.
+	 */
+	public void setPipelineDepth(int depth) {
+		fPipelineDepth = Math.max(1, depth);
+	}
+
+	/**
+	 * @return Returns the maximum number of requests that may be waiting for
+	 *         a reply when the mirrors retrieve data in a batch.
+	 */
+	public int getPipelineDepth() {
+		return fPipelineDepth;
+	}
+
 	/**
 	 * Returns whether the JDWP version is greater than or equal to the
 	 * specified major/minor version numbers.
@@ -1268,7 +1439,7 @@ public class VirtualMachineImpl extends MirrorImpl implements VirtualMachine,
 				for (byte b : bytes) {
 					writeByte(b, "classByte", outData); //$NON-NLS-1$
 				}
-				fCachedReftypes.remove(type.getRefTypeID()); // flush local
+				fCachedReftypes.remove(type.getRefTypeID().value()); // flush local
 																// cache of
 																// redefined
 																// types
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal.connect;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.sun.jdi.connect.spi.ClosedConnectionException;
+import com.sun.jdi.connect.spi.Connection;
+import com.sun.jdi.connect.spi.TransportService;
+
+/**
+ * Common part of the socket transport services: the JDWP handshake, the
+ * capabilities, the listen key and the parsing of addresses of the form
+ * <code>[host:]port</code>.
+ */
+public abstract class AbstractSocketTransportService extends TransportService {
+	/** Handshake bytes used just after connecting VM. */
+	static final byte[] handshakeBytes = "JDWP-Handshake".getBytes(); //$NON-NLS-1$
+
+	private Capabilities fCapabilities = new Capabilities() {
+		@Override
+		public boolean supportsAcceptTimeout() {
+			return true;
+		}
+
+		@Override
+		public boolean supportsAttachTimeout() {
+			return true;
+		}
+
+		@Override
+		public boolean supportsHandshakeTimeout() {
+			return true;
+		}
+
+		@Override
+		public boolean supportsMultipleConnections() {
+			return false;
+		}
+	};
+
+	private class SocketListenKey extends ListenKey {
+		private String fAddress;
+
+		SocketListenKey(String address) {
+			fAddress = address;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see com.sun.jdi.connect.spi.TransportService.ListenKey#address()
+		 */
+		@Override
+		public String address() {
+			return fAddress;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.sun.jdi.connect.spi.TransportService#attach(java.lang.String,
+	 * long, long)
+	 */
+	@Override
+	public Connection attach(String address, long attachTimeout,
+			long handshakeTimeout) throws IOException {
+		String[] strings = address.split(":"); //$NON-NLS-1$
+		String host = "localhost"; //$NON-NLS-1$
+		int port = 0;
+		if (strings.length == 2) {
+			host = strings[0];
+			port = Integer.parseInt(strings[1]);
+		} else {
+			port = Integer.parseInt(strings[0]);
+		}
+
+		return attach(host, port, attachTimeout, handshakeTimeout);
+	}
+
+	/**
+	 * Attaches to a Virtual Machine listening on the given host and port, and
+	 * performs the handshake.
+	 *
+	 * @return Returns the connection to the Virtual Machine.
+	 */
+	public abstract Connection attach(String host, int port,
+			long attachTimeout, long handshakeTimeout) throws IOException;
+
+	/**
+	 * Reads the handshake of the Virtual Machine from the given stream.
+	 */
+	void readHandshake(InputStream input) throws IOException {
+		try {
+			DataInputStream in = new DataInputStream(input);
+			byte[] handshakeInput = new byte[handshakeBytes.length];
+			in.readFully(handshakeInput);
+			if (!Arrays.equals(handshakeInput, handshakeBytes)) {
+				throw new IOException("Received invalid handshake"); //$NON-NLS-1$
+			}
+		} catch (EOFException e) {
+			throw new ClosedConnectionException();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.sun.jdi.connect.spi.TransportService#capabilities()
+	 */
+	@Override
+	public Capabilities capabilities() {
+		return fCapabilities;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.sun.jdi.connect.spi.TransportService#startListening()
+	 */
+	@Override
+	public ListenKey startListening() throws IOException {
+		// not used by jdt debug.
+		return startListening(null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.sun.jdi.connect.spi.TransportService#startListening(java.lang.String)
+	 */
+	@Override
+	public ListenKey startListening(String address) throws IOException {
+		String host = null;
+		int port = -1;
+		if (address != null) {
+			// jdt debugger will always specify an address in
+			// the form localhost:port
+			String[] strings = address.split(":"); //$NON-NLS-1$
+			host = "localhost"; //$NON-NLS-1$
+			if (strings.length == 2) {
+				host = strings[0];
+				port = Integer.parseInt(strings[1]);
+			} else {
+				port = Integer.parseInt(strings[0]);
+			}
+		}
+		if (port == -1) {
+			throw new IOException("Unable to decode port from address: " + address); //$NON-NLS-1$
+		}
+		if (host == null) {
+			host = "localhost"; //$NON-NLS-1$
+		}
+
+		port = bind(port);
+		ListenKey listenKey = new SocketListenKey(host + ":" + port); //$NON-NLS-1$
+		return listenKey;
+	}
+
+	/**
+	 * Opens the server socket connections are accepted from.
+	 *
+	 * @param port
+	 *            the port to listen on, or <code>0</code> for any free port
+	 * @return Returns the port listened on.
+	 */
+	abstract int bind(int port) throws IOException;
+}
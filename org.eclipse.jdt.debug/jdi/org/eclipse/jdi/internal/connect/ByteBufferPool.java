@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal.connect;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of direct buffers shared by all channel connections. Direct buffers
+ * are expensive to allocate and are not reclaimed promptly by the garbage
+ * collector, so the buffers of a closed connection are kept for the next one.
+ */
+final class ByteBufferPool {
+
+	/** Size of the pooled buffers. */
+	static final int BUFFER_SIZE = 64 * 1024;
+
+	/** Maximum number of idle buffers kept in the pool. */
+	private static final int MAX_POOLED_BUFFERS = 8;
+
+	private static final ArrayDeque<ByteBuffer> fgBuffers = new ArrayDeque<>(MAX_POOLED_BUFFERS);
+
+	private ByteBufferPool() {
+	}
+
+	/**
+	 * @return Returns a cleared direct buffer of {@link #BUFFER_SIZE} bytes.
+	 */
+	static ByteBuffer acquire() {
+		ByteBuffer buffer;
+		synchronized (fgBuffers) {
+			buffer = fgBuffers.poll();
+		}
+		if (buffer == null) {
+			return ByteBuffer.allocateDirect(BUFFER_SIZE);
+		}
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Returns a buffer obtained from {@link #acquire()} to the pool. The
+	 * buffer must not be used afterwards.
+	 */
+	static void release(ByteBuffer buffer) {
+		synchronized (fgBuffers) {
+			if (fgBuffers.size() < MAX_POOLED_BUFFERS) {
+				fgBuffers.push(buffer);
+			}
+		}
+	}
+}
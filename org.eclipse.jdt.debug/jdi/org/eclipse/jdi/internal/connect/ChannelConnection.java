@@ -0,0 +1,304 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal.connect;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+import org.eclipse.jdi.internal.jdwp.JdwpPacket;
+
+import com.sun.jdi.connect.spi.ClosedConnectionException;
+import com.sun.jdi.connect.spi.Connection;
+
+/**
+ * Connection to a Virtual Machine over a {@link SocketChannel}.
+ * <p>
+ * Incoming data is read in large chunks into a pooled direct buffer, and
+ * packets are decoded straight from that buffer by
+ * {@link #readJdwpPacket()}: apart from the data array of the packet itself,
+ * which the packet keeps, no memory is allocated per packet.
+ * {@link #readPacket()} allocates the single array the {@link Connection} API
+ * returns. Outgoing packets are copied once, straight into a second pooled
+ * direct buffer.
+ * </p>
+ */
+public class ChannelConnection extends Connection {
+
+	private SocketChannel fChannel;
+
+	/**
+	 * Buffer incoming data is read into, in read mode: the bytes between its
+	 * position and limit are received but not consumed yet.
+	 */
+	private ByteBuffer fReadBuffer;
+
+	/** Buffer outgoing data is written from. */
+	private ByteBuffer fWriteBuffer;
+
+	/** Header of the packet being read. */
+	private final byte[] fHeader = new byte[JdwpPacket.MIN_PACKET_LENGTH];
+
+	/** Header of the packet being written. */
+	private final byte[] fOutHeader = new byte[JdwpPacket.MIN_PACKET_LENGTH];
+
+	private final Object fReadLock = new Object();
+
+	private final Object fWriteLock = new Object();
+
+	ChannelConnection(SocketChannel channel) {
+		fChannel = channel;
+		fReadBuffer = ByteBufferPool.acquire();
+		fReadBuffer.flip();
+		fWriteBuffer = ByteBufferPool.acquire();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.sun.jdi.connect.spi.Connection#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (fChannel == null) {
+				return;
+			}
+			fChannel.close();
+			fChannel = null;
+		}
+		// Closing the channel aborts pending reads and writes, after which the
+		// buffers can be handed back.
+		synchronized (fReadLock) {
+			ByteBufferPool.release(fReadBuffer);
+			fReadBuffer = null;
+		}
+		synchronized (fWriteLock) {
+			ByteBufferPool.release(fWriteBuffer);
+			fWriteBuffer = null;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.sun.jdi.connect.spi.Connection#isOpen()
+	 */
+	@Override
+	public synchronized boolean isOpen() {
+		return fChannel != null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.sun.jdi.connect.spi.Connection#readPacket()
+	 */
+	@Override
+	public byte[] readPacket() throws IOException {
+		SocketChannel channel = openChannel();
+		synchronized (fReadLock) {
+			if (fReadBuffer == null) {
+				throw new ClosedConnectionException();
+			}
+			try {
+				fill(channel, JdwpPacket.MIN_PACKET_LENGTH);
+			} catch (IOException e) {
+				throw new ClosedConnectionException();
+			}
+			int packetLength = fReadBuffer.getInt(fReadBuffer.position());
+			if (packetLength < JdwpPacket.MIN_PACKET_LENGTH) {
+				throw new IOException("JDWP Packet under 11 bytes"); //$NON-NLS-1$
+			}
+			byte[] packet = new byte[packetLength];
+			read(channel, packet);
+			return packet;
+		}
+	}
+
+	/**
+	 * Reads the next packet from the Virtual Machine.
+	 *
+	 * @return Returns the packet read.
+	 * @throws IOException
+	 *             if the connection is closed or the packet is malformed
+	 */
+	public JdwpPacket readJdwpPacket() throws IOException {
+		SocketChannel channel = openChannel();
+		synchronized (fReadLock) {
+			if (fReadBuffer == null) {
+				throw new ClosedConnectionException();
+			}
+			try {
+				fill(channel, fHeader.length);
+			} catch (IOException e) {
+				throw new ClosedConnectionException();
+			}
+			fReadBuffer.get(fHeader);
+			JdwpPacket packet = JdwpPacket.buildFromHeader(fHeader);
+			byte[] data = packet.data();
+			if (data != null) {
+				read(channel, data);
+			}
+			return packet;
+		}
+	}
+
+	/**
+	 * Fills the given array with the next bytes received.
+	 */
+	private void read(SocketChannel channel, byte[] bytes) throws IOException {
+		int offset = 0;
+		while (offset < bytes.length) {
+			fill(channel, 1);
+			int count = Math.min(fReadBuffer.remaining(), bytes.length - offset);
+			fReadBuffer.get(bytes, offset, count);
+			offset += count;
+		}
+	}
+
+	/**
+	 * Makes sure at least the given number of bytes is available in the read
+	 * buffer, reading as much as the channel delivers.
+	 */
+	private void fill(SocketChannel channel, int count) throws IOException {
+		if (fReadBuffer.remaining() >= count) {
+			return;
+		}
+		fReadBuffer.compact();
+		try {
+			while (fReadBuffer.position() < count) {
+				if (channel.read(fReadBuffer) < 0) {
+					throw new ClosedConnectionException();
+				}
+			}
+		} finally {
+			fReadBuffer.flip();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.sun.jdi.connect.spi.Connection#writePacket(byte[])
+	 */
+	@Override
+	public void writePacket(byte[] packet) throws IOException {
+		if (packet == null) {
+			throw new IllegalArgumentException(
+					"Invalid JDWP Packet, packet cannot be null"); //$NON-NLS-1$
+		}
+		if (packet.length < JdwpPacket.MIN_PACKET_LENGTH) {
+			throw new IllegalArgumentException(
+					"Invalid JDWP Packet, must be at least 11 bytes. PacketSize:" + packet.length); //$NON-NLS-1$
+		}
+		int packetSize = ((packet[0] & 0xFF) << 24) + ((packet[1] & 0xFF) << 16)
+				+ ((packet[2] & 0xFF) << 8) + ((packet[3] & 0xFF) << 0);
+		if (packetSize < JdwpPacket.MIN_PACKET_LENGTH) {
+			throw new IllegalArgumentException(
+					"Invalid JDWP Packet, must be at least 11 bytes. PacketSize:" + packetSize); //$NON-NLS-1$
+		}
+		if (packetSize > packet.length) {
+			throw new IllegalArgumentException(
+					"Invalid JDWP packet: Specified length is greater than actual length"); //$NON-NLS-1$
+		}
+		// packet.length can be > packetSize. Sending too much will cause
+		// errors on the other side
+		writePackets(packet, packetSize);
+	}
+
+	/**
+	 * Writes a run of complete JDWP packets, laid out back to back in the
+	 * given buffer.
+	 *
+	 * @param packets
+	 *            buffer holding the packets
+	 * @param length
+	 *            number of bytes to write from the start of the buffer
+	 * @throws IOException
+	 *             if the connection is closed or the write fails
+	 */
+	void writePackets(byte[] packets, int length) throws IOException {
+		SocketChannel channel = openChannel();
+		synchronized (fWriteLock) {
+			if (fWriteBuffer == null) {
+				throw new ClosedConnectionException();
+			}
+			fWriteBuffer.clear();
+			put(channel, packets, length);
+			flush(channel);
+		}
+	}
+
+	/**
+	 * Writes the given packets. Each packet is copied once, straight into the
+	 * write buffer, without first laying the packets out in a byte array.
+	 *
+	 * @param packets
+	 *            the packets to write, in order
+	 * @throws IOException
+	 *             if the connection is closed or the write fails
+	 */
+	void writePackets(List<JdwpPacket> packets) throws IOException {
+		SocketChannel channel = openChannel();
+		synchronized (fWriteLock) {
+			if (fWriteBuffer == null) {
+				throw new ClosedConnectionException();
+			}
+			fWriteBuffer.clear();
+			for (JdwpPacket packet : packets) {
+				int headerLength = packet.writeHeaderBytes(fOutHeader, 0);
+				put(channel, fOutHeader, headerLength);
+				byte[] data = packet.data();
+				if (data != null) {
+					put(channel, data, data.length);
+				}
+			}
+			flush(channel);
+		}
+	}
+
+	/**
+	 * Appends the given bytes to the write buffer, writing out the buffer
+	 * whenever it is full.
+	 */
+	private void put(SocketChannel channel, byte[] bytes, int length)
+			throws IOException {
+		int offset = 0;
+		while (offset < length) {
+			if (!fWriteBuffer.hasRemaining()) {
+				flush(channel);
+			}
+			int count = Math.min(fWriteBuffer.remaining(), length - offset);
+			fWriteBuffer.put(bytes, offset, count);
+			offset += count;
+		}
+	}
+
+	/**
+	 * Writes out the content of the write buffer and clears it.
+	 */
+	private void flush(SocketChannel channel) throws IOException {
+		fWriteBuffer.flip();
+		while (fWriteBuffer.hasRemaining()) {
+			channel.write(fWriteBuffer);
+		}
+		fWriteBuffer.clear();
+	}
+
+	private synchronized SocketChannel openChannel() throws ClosedConnectionException {
+		if (fChannel == null) {
+			throw new ClosedConnectionException();
+		}
+		return fChannel;
+	}
+}
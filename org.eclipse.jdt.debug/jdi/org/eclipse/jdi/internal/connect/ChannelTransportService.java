@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal.connect;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import org.eclipse.jdi.TimeoutException;
+
+import com.sun.jdi.connect.TransportTimeoutException;
+import com.sun.jdi.connect.spi.Connection;
+
+/**
+ * Socket transport service based on {@link SocketChannel}s, creating
+ * {@link ChannelConnection}s.
+ */
+public class ChannelTransportService extends AbstractSocketTransportService {
+	// for listening or accepting connectors
+	private ServerSocketChannel fServerChannel;
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.sun.jdi.connect.spi.TransportService#accept(com.sun.jdi.connect.spi
+	 * .TransportService.ListenKey, long, long)
+	 */
+	@Override
+	public Connection accept(ListenKey listenKey, long attachTimeout,
+			long handshakeTimeout) throws IOException {
+		if (attachTimeout > 0) {
+			if (attachTimeout > Integer.MAX_VALUE) {
+				attachTimeout = Integer.MAX_VALUE; // approx 25 days!
+			}
+			fServerChannel.socket().setSoTimeout((int) attachTimeout);
+		}
+		Socket socket;
+		try {
+			// the socket adaptor honours the accept timeout
+			socket = fServerChannel.socket().accept();
+		} catch (SocketTimeoutException e) {
+			throw new TransportTimeoutException();
+		}
+		SocketChannel channel = socket.getChannel();
+		performHandshake(channel, handshakeTimeout);
+		return new ChannelConnection(channel);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.eclipse.jdi.internal.connect.AbstractSocketTransportService#attach
+	 * (java.lang.String, int, long, long)
+	 */
+	@Override
+	public Connection attach(String host, int port, long attachTimeout,
+			long handshakeTimeout) throws IOException {
+		if (attachTimeout > Integer.MAX_VALUE) {
+			attachTimeout = Integer.MAX_VALUE; // approx 25 days!
+		}
+		SocketChannel channel = SocketChannel.open();
+		boolean connected = false;
+		try {
+			// the socket adaptor honours the connect timeout
+			channel.socket().connect(new InetSocketAddress(host, port),
+					(int) Math.max(attachTimeout, 0));
+			performHandshake(channel, handshakeTimeout);
+			connected = true;
+			return new ChannelConnection(channel);
+		} catch (SocketTimeoutException e) {
+			throw new TimeoutException();
+		} finally {
+			if (!connected) {
+				closeQuietly(channel);
+			}
+		}
+	}
+
+	void performHandshake(SocketChannel channel, long timeout)
+			throws IOException {
+		try {
+			writeHandshake(channel);
+			// read through the socket adaptor, which honours the timeout
+			Socket socket = channel.socket();
+			socket.setSoTimeout((int) Math.min(Math.max(timeout, 0),
+					Integer.MAX_VALUE));
+			readHandshake(socket.getInputStream());
+			socket.setSoTimeout(0);
+		} catch (SocketTimeoutException e) {
+			closeQuietly(channel);
+			throw new TransportTimeoutException();
+		} catch (IOException e) {
+			closeQuietly(channel);
+			throw e;
+		}
+	}
+
+	private void closeQuietly(SocketChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+		}
+	}
+
+	private void writeHandshake(SocketChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(handshakeBytes);
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.sun.jdi.connect.spi.TransportService#description()
+	 */
+	@Override
+	public String description() {
+		return "org.eclipse.jdt.debug: Socket Channel Implementation of TransportService"; //$NON-NLS-1$
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.sun.jdi.connect.spi.TransportService#name()
+	 */
+	@Override
+	public String name() {
+		return "org.eclipse.jdt.debug_ChannelTransportService"; //$NON-NLS-1$
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.jdi.internal.connect.AbstractSocketTransportService#bind(int)
+	 */
+	@Override
+	int bind(int port) throws IOException {
+		fServerChannel = ServerSocketChannel.open();
+		fServerChannel.socket().bind(new InetSocketAddress(port));
+		return fServerChannel.socket().getLocalPort();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.sun.jdi.connect.spi.TransportService#stopListening(com.sun.jdi.connect
+	 * .spi.TransportService.ListenKey)
+	 */
+	@Override
+	public void stopListening(ListenKey arg1) throws IOException {
+		if (fServerChannel != null) {
+			try {
+				fServerChannel.close();
+			} catch (IOException e) {
+			}
+		}
+		fServerChannel = null;
+	}
+}
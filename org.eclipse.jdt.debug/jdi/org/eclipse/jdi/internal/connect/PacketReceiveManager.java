@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,9 +12,13 @@ package org.eclipse.jdi.internal.connect;
 
 import java.io.IOException;
 import java.io.InterruptedIOException;
-import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.ListIterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdi.TimeoutException;
 import org.eclipse.jdi.internal.VirtualMachineImpl;
@@ -43,14 +47,16 @@ public class PacketReceiveManager extends PacketManager {
 	/** List of Command packets received from Virtual Machine. */
 	private LinkedList<JdwpCommandPacket> fCommandPackets;
 
-	/** List of Reply packets received from Virtual Machine. */
-	private LinkedList<JdwpReplyPacket> fReplyPackets;
-
 	/**
-	 * List of Packets that have timed out already. Maintained so that responses
-	 * can be discarded if/when they are received.
+	 * Reply correlation table, keyed by packet id. Each outstanding request
+	 * owns one slot which is completed by the receiving thread when the reply
+	 * arrives, so that only the thread waiting for that reply is woken up.
+	 * <p>
+	 * A slot that has been cancelled marks a request that has already timed
+	 * out (or a disconnect); the reply is discarded if/when it is received.
+	 * </p>
 	 */
-	private ArrayList<Integer> fTimedOutPackets;
+	private ConcurrentHashMap<Integer, CompletableFuture<JdwpReplyPacket>> fReplySlots;
 
 	private VirtualMachineImpl fVM;
 
@@ -61,8 +67,7 @@ public class PacketReceiveManager extends PacketManager {
 		super(connection);
 		fVM = vmImpl;
 		fCommandPackets = new LinkedList<>();
-		fReplyPackets = new LinkedList<>();
-		fTimedOutPackets = new ArrayList<>();
+		fReplySlots = new ConcurrentHashMap<>();
 	}
 
 	@Override
@@ -71,8 +76,8 @@ public class PacketReceiveManager extends PacketManager {
 		synchronized (fCommandPackets) {
 			fCommandPackets.notifyAll();
 		}
-		synchronized (fReplyPackets) {
-			fReplyPackets.notifyAll();
+		for (CompletableFuture<JdwpReplyPacket> slot : fReplySlots.values()) {
+			slot.cancel(false);
 		}
 	}
 
@@ -139,7 +144,9 @@ public class PacketReceiveManager extends PacketManager {
 		}
 		// Check for a timeout.
 		if (packet == null) {
-			throw new TimeoutException();
+			throw new TimeoutException(NLS.bind(
+					ConnectMessages.PacketReceiveManager_0, new String[] { command
+							+ "" })); //$NON-NLS-1$
 		}
 		return packet;
 	}
@@ -148,48 +155,96 @@ public class PacketReceiveManager extends PacketManager {
 	 * @return Returns a specified Reply Packet from the Virtual Machine.
 	 */
 	public JdwpReplyPacket getReply(int id, long timeToWait) {
-		JdwpReplyPacket packet = null;
-		long remainingTime = timeToWait;
-		synchronized (fReplyPackets) {
-			final long timeBeforeWait = System.currentTimeMillis();
-			// Wait until reply is available.
-			while (!VMIsDisconnected() && remainingTime > 0) {
-				packet = removeReplyPacket(id);
-				if (packet != null) {
-					break;
-				}
-				try {
-					waitForPacketAvailable(remainingTime, fReplyPackets);
-				}
-				// if the remote VM is interrupted DO NOT drop the connection -
-				// see bug 171075
-				// just stop waiting for the reply and treat it as a timeout
-				catch (InterruptedException e) {
-					if (JDIDebugOptions.DEBUG) {
-						JDIDebugOptions.trace(null, "Interrupt observed while waiting for packet: " + id, e); //$NON-NLS-1$
-					}
-					// Do not stop waiting on interrupt, this causes
-					// sporadic TimeoutException's without timeout
-					// break;
-				}
-				long waitedTime = System.currentTimeMillis() - timeBeforeWait;
-				remainingTime = timeToWait - waitedTime;
-			}
+		CompletableFuture<JdwpReplyPacket> slot = replySlot(id);
+		JdwpReplyPacket packet = waitForReply(id, slot, timeToWait);
+		// Check for an IO Exception.
+		if (VMIsDisconnected()) {
+			fReplySlots.remove(Integer.valueOf(id), slot);
+			throw new VMDisconnectedException(
+					ConnectMessages.PacketReceiveManager_Got_IOException_from_Virtual_Machine_2);
+		}
+		// Check for a timeout. Cancelling the slot leaves it in the table as a
+		// marker so that a late reply is discarded. If the cancellation fails
+		// the reply arrived in the meantime.
+		if (packet == null && !slot.cancel(false)) {
+			packet = completedReply(slot);
 		}
 		if (packet == null) {
-			synchronized (fReplyPackets) {
-				packet = removeReplyPacket(id);
+			throw new TimeoutException(NLS.bind(
+					ConnectMessages.PacketReceiveManager_0, new String[] { id
+							+ "" })); //$NON-NLS-1$
+		}
+		fReplySlots.remove(Integer.valueOf(id), slot);
+		return packet;
+	}
+
+	/**
+	 * Returns a future that is completed with the reply to the given command
+	 * packet, without blocking the caller. This method must be called before
+	 * the command packet is sent to the Virtual Machine.
+	 *
+	 * @param commandPacket
+	 *            the command packet about to be sent
+	 * @return a future that is completed with the reply, or cancelled if the
+	 *         Virtual Machine disconnects
+	 * @see #getReply(CompletableFuture, long)
+	 */
+	public CompletableFuture<JdwpReplyPacket> getReplyAsync(JdwpCommandPacket commandPacket) {
+		final Integer id = Integer.valueOf(commandPacket.getId());
+		final CompletableFuture<JdwpReplyPacket> slot = replySlot(commandPacket.getId());
+		// The returned future is independent from the slot: a caller giving
+		// up on it leaves the slot in place to discard the late reply.
+		final PendingReply pending = new PendingReply(commandPacket.getId());
+		slot.whenComplete((reply, e) -> {
+			fReplySlots.remove(id, slot);
+			if (e != null) {
+				pending.completeExceptionally(e);
+			} else {
+				pending.complete(reply);
 			}
+		});
+		return pending;
+	}
+
+	/**
+	 * The reply to a command packet, as returned by
+	 * {@link PacketReceiveManager#getReplyAsync(JdwpCommandPacket)}
+	 */
+	private static class PendingReply extends CompletableFuture<JdwpReplyPacket> {
+
+		/**
+		 * The id of the command packet
+		 */
+		final int fId;
+
+		PendingReply(int id) {
+			fId = id;
 		}
+	}
+
+	/**
+	 * Waits for a reply requested through
+	 * {@link #getReplyAsync(JdwpCommandPacket)}.
+	 *
+	 * @param reply
+	 *            the future returned by {@link #getReplyAsync(JdwpCommandPacket)}
+	 * @param timeToWait
+	 *            time to wait in milliseconds
+	 * @return Returns the Reply Packet from the Virtual Machine.
+	 */
+	public JdwpReplyPacket getReply(CompletableFuture<JdwpReplyPacket> reply, long timeToWait) {
+		int id = reply instanceof PendingReply ? ((PendingReply) reply).fId : -1;
+		JdwpReplyPacket packet = waitForReply(id, reply, timeToWait);
 		// Check for an IO Exception.
-		if (VMIsDisconnected())
+		if (VMIsDisconnected()) {
 			throw new VMDisconnectedException(
 					ConnectMessages.PacketReceiveManager_Got_IOException_from_Virtual_Machine_2);
+		}
 		// Check for a timeout.
+		if (packet == null && !reply.cancel(false)) {
+			packet = completedReply(reply);
+		}
 		if (packet == null) {
-			synchronized (fTimedOutPackets) {
-				fTimedOutPackets.add(new Integer(id));
-			}
 			throw new TimeoutException(NLS.bind(
 					ConnectMessages.PacketReceiveManager_0, new String[] { id
 							+ "" })); //$NON-NLS-1$
@@ -197,6 +252,45 @@ public class PacketReceiveManager extends PacketManager {
 		return packet;
 	}
 
+	/**
+	 * Waits at most the given time for a reply to be available.
+	 *
+	 * @return Returns the Reply Packet, or <code>null</code> if it did not
+	 *         arrive in time.
+	 */
+	private JdwpReplyPacket waitForReply(int id, CompletableFuture<JdwpReplyPacket> reply, long timeToWait) {
+		long remainingTime = timeToWait;
+		final long timeBeforeWait = System.currentTimeMillis();
+		// Wait until reply is available.
+		while (!VMIsDisconnected() && remainingTime > 0) {
+			try {
+				return reply.get(remainingTime, TimeUnit.MILLISECONDS);
+			}
+			// if the remote VM is interrupted DO NOT drop the connection -
+			// see bug 171075
+			// just stop waiting for the reply and treat it as a timeout
+			catch (InterruptedException e) {
+				if (JDIDebugOptions.DEBUG) {
+					JDIDebugOptions.trace(null, "Interrupt observed while waiting for packet: " + id, e); //$NON-NLS-1$
+				}
+				// Do not stop waiting on interrupt, this causes
+				// sporadic TimeoutException's without timeout
+				// break;
+			} catch (java.util.concurrent.TimeoutException e) {
+				break;
+			} catch (ExecutionException e) {
+				// the slot was cancelled on disconnect
+				break;
+			} catch (CancellationException e) {
+				// cancelled on disconnect
+				break;
+			}
+			long waitedTime = System.currentTimeMillis() - timeBeforeWait;
+			remainingTime = timeToWait - waitedTime;
+		}
+		return completedReply(reply);
+	}
+
 	/**
 	 * @return Returns a specified Reply Packet from the Virtual Machine.
 	 */
@@ -234,16 +328,24 @@ public class PacketReceiveManager extends PacketManager {
 	}
 
 	/**
-	 * @return Returns a specified reply packet from the reply packet list.
+	 * Returns the reply slot for the given packet id, creating it if the reply
+	 * is neither received nor waited for yet.
+	 *
+	 * @param id
+	 *            packet id
+	 * @return the reply slot for the given id
 	 */
-	private JdwpReplyPacket removeReplyPacket(int id) {
-		ListIterator<JdwpReplyPacket> iter = fReplyPackets.listIterator();
-		while (iter.hasNext()) {
-			JdwpReplyPacket packet = iter.next();
-			if (packet.getId() == id) {
-				iter.remove();
-				return packet;
-			}
+	private CompletableFuture<JdwpReplyPacket> replySlot(int id) {
+		return fReplySlots.computeIfAbsent(Integer.valueOf(id), key -> new CompletableFuture<>());
+	}
+
+	/**
+	 * @return Returns the reply a slot has been completed with, or
+	 *         <code>null</code> if the slot is not completed or was cancelled.
+	 */
+	private JdwpReplyPacket completedReply(CompletableFuture<JdwpReplyPacket> slot) {
+		if (slot.isDone() && !slot.isCompletedExceptionally()) {
+			return slot.getNow(null);
 		}
 		return null;
 	}
@@ -252,9 +354,6 @@ public class PacketReceiveManager extends PacketManager {
 	 * Add a command packet to the command packet list.
 	 */
 	private void addCommandPacket(JdwpCommandPacket packet) {
-		if (isTimedOut(packet)) {
-			return; // already timed out. No need to keep this one
-		}
 		synchronized (fCommandPackets) {
 			fCommandPackets.add(packet);
 			fCommandPackets.notifyAll();
@@ -262,32 +361,13 @@ public class PacketReceiveManager extends PacketManager {
 	}
 
 	/**
-	 * Returns whether the request for the given packet has already timed out.
-	 *
-	 * @param packet
-	 *            response packet
-	 * @return whether the request for the given packet has already timed out
-	 */
-	private boolean isTimedOut(JdwpPacket packet) {
-		synchronized (fTimedOutPackets) {
-			if (fTimedOutPackets.isEmpty()) {
-				return false;
-			}
-			Integer id = new Integer(packet.getId());
-			return fTimedOutPackets.remove(id);
-		}
-	}
-
-	/**
-	 * Add a reply packet to the reply packet list.
+	 * Hands a reply packet to the thread waiting for it.
 	 */
 	private void addReplyPacket(JdwpReplyPacket packet) {
-		if (isTimedOut(packet)) {
-			return; // already timed out. No need to keep this one
-		}
-		synchronized (fReplyPackets) {
-			fReplyPackets.add(packet);
-			fReplyPackets.notifyAll();
+		CompletableFuture<JdwpReplyPacket> slot = replySlot(packet.getId());
+		if (!slot.complete(packet)) {
+			// already timed out. No need to keep this one
+			fReplySlots.remove(Integer.valueOf(packet.getId()), slot);
 		}
 	}
 
@@ -297,8 +377,13 @@ public class PacketReceiveManager extends PacketManager {
 	 */
 	private void readAvailablePacket() throws IOException {
 		// Read a packet from the Input Stream.
-		byte[] bytes = getConnection().readPacket();
-		JdwpPacket packet = JdwpPacket.build(bytes);
+		Connection connection = getConnection();
+		JdwpPacket packet;
+		if (connection instanceof ChannelConnection) {
+			packet = ((ChannelConnection) connection).readJdwpPacket();
+		} else {
+			packet = JdwpPacket.build(connection.readPacket());
+		}
 		// Add packet to command or reply queue.
 		if (packet instanceof JdwpCommandPacket)
 			addCommandPacket((JdwpCommandPacket) packet);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ package org.eclipse.jdi.internal.connect;
 
 import java.io.IOException;
 import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.LinkedList;
 
 import org.eclipse.jdi.internal.jdwp.JdwpPacket;
@@ -26,15 +27,37 @@ import com.sun.jdi.connect.spi.Connection;
  *
  */
 public class PacketSendManager extends PacketManager {
+	/** Initial size of the buffer packets are written to before a flush. */
+	private static final int INITIAL_SEND_BUFFER_SIZE = 8192;
+
+	/**
+	 * Largest send buffer kept between flushes, larger ones are only allocated
+	 * for the burst that needs them.
+	 */
+	private static final int MAX_RETAINED_SEND_BUFFER_SIZE = 65536;
+
 	/** List of packets to be sent to Virtual Machine */
 	private LinkedList<JdwpPacket> fOutgoingPackets;
 
+	/** Packets taken from the queue for the current flush. */
+	private ArrayList<JdwpPacket> fPacketsToSend;
+
+	/** Buffer the packets of one flush are laid out in, reused between flushes. */
+	private byte[] fSendBuffer;
+
+	/** Number of flushes performed so far. */
+	private volatile long fFlushCount;
+
+	/** Number of packets sent so far. */
+	private volatile long fSentPacketCount;
+
 	/**
 	 * Create a new thread that send packets to the Virtual Machine.
 	 */
 	public PacketSendManager(Connection connection) {
 		super(connection);
 		fOutgoingPackets = new LinkedList<>();
+		fPacketsToSend = new ArrayList<>();
 	}
 
 	@Override
@@ -98,27 +121,81 @@ public class PacketSendManager extends PacketManager {
 		}
 	}
 
+	/**
+	 * @return Returns the number of flushes performed so far. Each flush sends
+	 *         all packets that were queued when it started.
+	 */
+	public long getFlushCount() {
+		return fFlushCount;
+	}
+
+	/**
+	 * @return Returns the number of packets sent so far. Divided by
+	 *         {@link #getFlushCount()} this is the average number of packets
+	 *         per flush.
+	 */
+	public long getSentPacketCount() {
+		return fSentPacketCount;
+	}
+
 	/**
 	 * Send available packets to the Virtual Machine.
 	 */
 	private void sendAvailablePackets() throws InterruptedException,
 			IOException {
-		LinkedList<JdwpPacket> packetsToSend = new LinkedList<>();
 		synchronized (fOutgoingPackets) {
 			while (fOutgoingPackets.size() == 0) {
 				fOutgoingPackets.wait();
 			}
-			packetsToSend.addAll(fOutgoingPackets);
+			fPacketsToSend.addAll(fOutgoingPackets);
 			fOutgoingPackets.clear();
 		}
 
-		// Put available packets on Output Stream.
-		while (packetsToSend.size() > 0) {
-			// Note that only JdwpPackets are added to the list, so a
-			// ClassCastException can't occur.
-			JdwpPacket packet = packetsToSend.removeFirst();
-			byte[] bytes = packet.getPacketAsBytes();
-			getConnection().writePacket(bytes);
+		try {
+			// counted before they are written, so that a packet is counted by
+			// the time its reply is received
+			fSentPacketCount += fPacketsToSend.size();
+			fFlushCount++;
+			// Put available packets on Output Stream.
+			Connection connection = getConnection();
+			if (connection instanceof SocketConnection) {
+				int length = layOutAvailablePackets();
+				((SocketConnection) connection).writePackets(fSendBuffer, length);
+			} else if (connection instanceof ChannelConnection) {
+				// laid out straight into the connection's direct buffer
+				((ChannelConnection) connection).writePackets(fPacketsToSend);
+			} else {
+				for (JdwpPacket packet : fPacketsToSend) {
+					connection.writePacket(packet.getPacketAsBytes());
+				}
+			}
+		} finally {
+			fPacketsToSend.clear();
+			// Do not hold on to a buffer grown for an exceptionally large burst.
+			if (fSendBuffer != null && fSendBuffer.length > MAX_RETAINED_SEND_BUFFER_SIZE) {
+				fSendBuffer = null;
+			}
+		}
+	}
+
+	/**
+	 * Lays out all packets to send back to back in the send buffer, growing it
+	 * as needed.
+	 *
+	 * @return Returns the number of bytes to write from the send buffer.
+	 */
+	private int layOutAvailablePackets() throws IOException {
+		int length = 0;
+		for (JdwpPacket packet : fPacketsToSend) {
+			length += packet.getLength();
+		}
+		if (fSendBuffer == null || fSendBuffer.length < length) {
+			fSendBuffer = new byte[Math.max(length, INITIAL_SEND_BUFFER_SIZE)];
+		}
+		int offset = 0;
+		for (JdwpPacket packet : fPacketsToSend) {
+			offset += packet.writePacketBytes(fSendBuffer, offset);
 		}
+		return offset;
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -31,6 +31,8 @@ public class SocketAttachingConnectorImpl extends ConnectorImpl implements
 	/** Port to which is attached. */
 	private int fPort;
 	private int fTimeout;
+	/** Whether to connect with the NIO channel transport. */
+	private boolean fUseChannels;
 
 	/**
 	 * Creates new SocketAttachingConnectorImpl.
@@ -49,7 +51,7 @@ public class SocketAttachingConnectorImpl extends ConnectorImpl implements
 	 */
 	@Override
 	public Map<String, Connector.Argument> defaultArguments() {
-		HashMap<String, Connector.Argument> arguments = new HashMap<>(2);
+		HashMap<String, Connector.Argument> arguments = new HashMap<>(4);
 
 		// Host name
 		StringArgumentImpl strArg = new StringArgumentImpl(
@@ -68,6 +70,12 @@ public class SocketAttachingConnectorImpl extends ConnectorImpl implements
 		timeoutArg.setValue(0); // by default wait forever
 		arguments.put(timeoutArg.name(), timeoutArg);
 
+		// NIO transport
+		BooleanArgumentImpl nioArg = new BooleanArgumentImpl(
+				SocketTransportImpl.NIO_ARGUMENT, ConnectMessages.SocketTransportImpl_Use_NIO_transport_description, ConnectMessages.SocketTransportImpl_Use_NIO_transport_label, false);
+		nioArg.setValue(false);
+		arguments.put(nioArg.name(), nioArg);
+
 		return arguments;
 	}
 
@@ -109,6 +117,15 @@ public class SocketAttachingConnectorImpl extends ConnectorImpl implements
 					fTimeout = timeoutArg.intValue();
 				}
 			}
+			attribute = SocketTransportImpl.NIO_ARGUMENT;
+			object = connectionArgs.get(attribute);
+			fUseChannels = false;
+			if (object != null) {
+				Connector.BooleanArgument nioArg = (BooleanArgument) object;
+				if (nioArg.value() != null) {
+					fUseChannels = nioArg.booleanValue();
+				}
+			}
 		} catch (ClassCastException e) {
 			throw new IllegalConnectorArgumentsException(
 					ConnectMessages.SocketAttachingConnectorImpl_Connection_argument_is_not_of_the_right_type_6,
@@ -134,7 +151,7 @@ public class SocketAttachingConnectorImpl extends ConnectorImpl implements
 		Connection connection = null;
 		try {
 			connection = ((SocketTransportImpl) fTransport).attach(fHostname,
-					fPort, fTimeout, 0);
+					fPort, fTimeout, 0, fUseChannels);
 		} catch (IllegalArgumentException e) {
 			List<String> args = new ArrayList<>();
 			args.add("hostname"); //$NON-NLS-1$
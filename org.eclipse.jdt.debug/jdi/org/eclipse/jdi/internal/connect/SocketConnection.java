@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -141,6 +141,32 @@ public class SocketConnection extends Connection {
 		}
 	}
 
+	/**
+	 * Writes a run of complete JDWP packets, laid out back to back in the
+	 * given buffer, with a single write and flush on the socket.
+	 *
+	 * @param packets
+	 *            buffer holding the packets
+	 * @param length
+	 *            number of bytes to write from the start of the buffer
+	 * @throws IOException
+	 *             if the connection is closed or the write fails
+	 */
+	void writePackets(byte[] packets, int length) throws IOException {
+		OutputStream stream = null;
+		synchronized (this) {
+			if (!isOpen()) {
+				throw new ClosedConnectionException();
+			}
+			stream = fOutput;
+		}
+
+		synchronized (stream) {
+			stream.write(packets, 0, length);
+			stream.flush();
+		}
+	}
+
 	private int getPacketLength(byte[] packet) {
 		int len = 0;
 		if (packet.length >= 4) {
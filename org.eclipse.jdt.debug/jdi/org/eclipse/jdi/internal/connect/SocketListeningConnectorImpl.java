@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,12 +23,15 @@ import com.sun.jdi.VirtualMachine;
 import com.sun.jdi.connect.Connector;
 import com.sun.jdi.connect.IllegalConnectorArgumentsException;
 import com.sun.jdi.connect.ListeningConnector;
+import com.sun.jdi.connect.spi.Connection;
 
 public class SocketListeningConnectorImpl extends ConnectorImpl implements ListeningConnector {
 	/** Port to which is attached. */
 	private int fPort;
 	/** Timeout before accept returns. */
 	private int fTimeout;
+	/** Whether to accept connections with the NIO channel transport. */
+	private boolean fUseChannels;
 
 	/**
 	 * Creates new SocketAttachingConnectorImpl.
@@ -47,7 +50,7 @@ public class SocketListeningConnectorImpl extends ConnectorImpl implements Liste
 	 */
 	@Override
 	public Map<String, Connector.Argument> defaultArguments() {
-		HashMap<String, Connector.Argument> arguments = new HashMap<>(1);
+		HashMap<String, Connector.Argument> arguments = new HashMap<>(4);
 
 		// Port
 		IntegerArgumentImpl intArg = new IntegerArgumentImpl(
@@ -65,6 +68,12 @@ public class SocketListeningConnectorImpl extends ConnectorImpl implements Liste
 		intArg.setValue(1);  // mimics previous behaviour, allowing a single connection
 		arguments.put(intArg.name(), intArg);
 
+		// NIO transport
+		BooleanArgumentImpl nioArg = new BooleanArgumentImpl(
+				SocketTransportImpl.NIO_ARGUMENT, ConnectMessages.SocketTransportImpl_Use_NIO_transport_description, ConnectMessages.SocketTransportImpl_Use_NIO_transport_label, false);
+		nioArg.setValue(false);
+		arguments.put(nioArg.name(), nioArg);
+
 		return arguments;
 	}
 
@@ -109,6 +118,9 @@ public class SocketListeningConnectorImpl extends ConnectorImpl implements Liste
 			} else {
 				fTimeout = 0;
 			}
+			attribute = SocketTransportImpl.NIO_ARGUMENT;
+			BooleanArgument nioArg = (BooleanArgument) connectionArgs.get(attribute);
+			fUseChannels = nioArg != null && nioArg.value() != null && nioArg.booleanValue();
 		} catch (ClassCastException e) {
 			throw new IllegalConnectorArgumentsException(
 					ConnectMessages.SocketListeningConnectorImpl_Connection_argument_is_not_of_the_right_type_6,
@@ -135,7 +147,7 @@ public class SocketListeningConnectorImpl extends ConnectorImpl implements Liste
 		getConnectionArguments(connectionArgs);
 		String result = null;
 		try {
-			result = ((SocketTransportImpl) fTransport).startListening(fPort);
+			result = ((SocketTransportImpl) fTransport).startListening(fPort, fUseChannels);
 		} catch (IllegalArgumentException e) {
 			throw new IllegalConnectorArgumentsException(
 					ConnectMessages.SocketListeningConnectorImpl_ListeningConnector_Socket_Port,
@@ -160,8 +172,8 @@ public class SocketListeningConnectorImpl extends ConnectorImpl implements Liste
 	@Override
 	public VirtualMachine accept(Map<String, ? extends Connector.Argument> connectionArgs) throws IOException, IllegalConnectorArgumentsException {
 		getConnectionArguments(connectionArgs);
-		SocketConnection connection = (SocketConnection) ((SocketTransportImpl) fTransport)
-				.accept(fTimeout, 0);
+		Connection connection = ((SocketTransportImpl) fTransport).accept(
+				fTimeout, 0);
 		return establishedConnection(connection);
 	}
 
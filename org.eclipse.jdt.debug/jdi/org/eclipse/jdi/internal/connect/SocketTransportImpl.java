@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,17 +11,26 @@
 package org.eclipse.jdi.internal.connect;
 
 import java.io.IOException;
+import java.nio.channels.SocketChannel;
 
 import com.sun.jdi.connect.Transport;
 import com.sun.jdi.connect.spi.Connection;
+import com.sun.jdi.connect.spi.TransportService;
 import com.sun.jdi.connect.spi.TransportService.ListenKey;
 
 public class SocketTransportImpl implements Transport {
 	public static final String TRANSPORT_NAME = "dt_socket"; //$NON-NLS-1$
 	public static final int MIN_PORTNR = 0;
 	public static final int MAX_PORTNR = 65535;
+	/**
+	 * Name of the connector argument selecting the {@link SocketChannel} based
+	 * transport.
+	 */
+	public static final String NIO_ARGUMENT = "nio"; //$NON-NLS-1$
 
 	SocketTransportService service;
+	private ChannelTransportService fChannelService;
+	private TransportService fListeningService;
 	private ListenKey fListenKey;
 
 	/**
@@ -41,23 +50,61 @@ public class SocketTransportImpl implements Transport {
 		return TRANSPORT_NAME;
 	}
 
+	private synchronized ChannelTransportService channelService() {
+		if (fChannelService == null) {
+			fChannelService = new ChannelTransportService();
+		}
+		return fChannelService;
+	}
+
 	public Connection attach(String hostname, int port, long attachTimeout,
 			long handshakeTimeout) throws IOException {
+		return attach(hostname, port, attachTimeout, handshakeTimeout, false);
+	}
+
+	/**
+	 * Attaches to a Virtual Machine.
+	 *
+	 * @param useChannels
+	 *            whether to connect with the {@link SocketChannel} based
+	 *            transport service instead of the stream based one
+	 */
+	public Connection attach(String hostname, int port, long attachTimeout,
+			long handshakeTimeout, boolean useChannels) throws IOException {
+		if (useChannels) {
+			return channelService().attach(hostname, port, attachTimeout, handshakeTimeout);
+		}
 		return service.attach(hostname, port, attachTimeout, handshakeTimeout);
 	}
 
 	public String startListening(int port) throws IOException {
-		fListenKey = service.startListening(port + ""); //$NON-NLS-1$
+		return startListening(port, false);
+	}
+
+	/**
+	 * Starts listening for a Virtual Machine to connect.
+	 *
+	 * @param useChannels
+	 *            whether to accept the connection with the
+	 *            {@link SocketChannel} based transport service instead of the
+	 *            stream based one
+	 */
+	public String startListening(int port, boolean useChannels) throws IOException {
+		fListeningService = useChannels ? channelService() : service;
+		fListenKey = fListeningService.startListening(port + ""); //$NON-NLS-1$
 		return fListenKey.address();
 	}
 
 	public void stopListening() throws IOException {
-		service.stopListening(fListenKey);
+		if (fListeningService != null) {
+			fListeningService.stopListening(fListenKey);
+		}
 	}
 
 	public Connection accept(long attachTimeout, long handshakeTimeout)
 			throws IOException {
-		return service.accept(fListenKey, attachTimeout, handshakeTimeout);
+		TransportService listeningService = fListeningService != null ? fListeningService : service;
+		return listeningService.accept(fListenKey, attachTimeout, handshakeTimeout);
 	}
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,67 +13,19 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.connect;
 
-import java.io.DataInputStream;
-import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
-import java.util.Arrays;
 
 import org.eclipse.jdi.TimeoutException;
 
 import com.sun.jdi.connect.TransportTimeoutException;
-import com.sun.jdi.connect.spi.ClosedConnectionException;
 import com.sun.jdi.connect.spi.Connection;
-import com.sun.jdi.connect.spi.TransportService;
-
-public class SocketTransportService extends TransportService {
-	/** Handshake bytes used just after connecting VM. */
-	private static final byte[] handshakeBytes = "JDWP-Handshake".getBytes(); //$NON-NLS-1$
-
-	private Capabilities fCapabilities = new Capabilities() {
-		@Override
-		public boolean supportsAcceptTimeout() {
-			return true;
-		}
-
-		@Override
-		public boolean supportsAttachTimeout() {
-			return true;
-		}
-
-		@Override
-		public boolean supportsHandshakeTimeout() {
-			return true;
-		}
-
-		@Override
-		public boolean supportsMultipleConnections() {
-			return false;
-		}
-	};
-
-	private class SocketListenKey extends ListenKey {
-		private String fAddress;
-
-		SocketListenKey(String address) {
-			fAddress = address;
-		}
-
-		/*
-		 * (non-Javadoc)
-		 *
-		 * @see com.sun.jdi.connect.spi.TransportService.ListenKey#address()
-		 */
-		@Override
-		public String address() {
-			return fAddress;
-		}
-	}
 
+public class SocketTransportService extends AbstractSocketTransportService {
 	// for listening or accepting connectors
 	private ServerSocket fServerSocket;
 
@@ -108,25 +60,11 @@ public class SocketTransportService extends TransportService {
 	/*
 	 * (non-Javadoc)
 	 *
-	 * @see com.sun.jdi.connect.spi.TransportService#attach(java.lang.String,
-	 * long, long)
+	 * @see
+	 * org.eclipse.jdi.internal.connect.AbstractSocketTransportService#attach
+	 * (java.lang.String, int, long, long)
 	 */
 	@Override
-	public Connection attach(String address, long attachTimeout,
-			long handshakeTimeout) throws IOException {
-		String[] strings = address.split(":"); //$NON-NLS-1$
-		String host = "localhost"; //$NON-NLS-1$
-		int port = 0;
-		if (strings.length == 2) {
-			host = strings[0];
-			port = Integer.parseInt(strings[1]);
-		} else {
-			port = Integer.parseInt(strings[0]);
-		}
-
-		return attach(host, port, attachTimeout, handshakeTimeout);
-	}
-
 	public Connection attach(final String host, final int port,
 			long attachTimeout, final long handshakeTimeout) throws IOException {
 		if (attachTimeout > 0) {
@@ -210,33 +148,10 @@ public class SocketTransportService extends TransportService {
 		throw new TransportTimeoutException();
 	}
 
-	private void readHandshake(InputStream input) throws IOException {
-		try {
-			DataInputStream in = new DataInputStream(input);
-			byte[] handshakeInput = new byte[handshakeBytes.length];
-			in.readFully(handshakeInput);
-			if (!Arrays.equals(handshakeInput, handshakeBytes)) {
-				throw new IOException("Received invalid handshake"); //$NON-NLS-1$
-			}
-		} catch (EOFException e) {
-			throw new ClosedConnectionException();
-		}
-	}
-
 	private void writeHandshake(OutputStream out) throws IOException {
 		out.write(handshakeBytes);
 	}
 
-	/*
-	 * (non-Javadoc)
-	 *
-	 * @see com.sun.jdi.connect.spi.TransportService#capabilities()
-	 */
-	@Override
-	public Capabilities capabilities() {
-		return fCapabilities;
-	}
-
 	/*
 	 * (non-Javadoc)
 	 *
@@ -260,47 +175,12 @@ public class SocketTransportService extends TransportService {
 	/*
 	 * (non-Javadoc)
 	 *
-	 * @see com.sun.jdi.connect.spi.TransportService#startListening()
+	 * @see org.eclipse.jdi.internal.connect.AbstractSocketTransportService#bind(int)
 	 */
 	@Override
-	public ListenKey startListening() throws IOException {
-		// not used by jdt debug.
-		return startListening(null);
-	}
-
-	/*
-	 * (non-Javadoc)
-	 *
-	 * @see
-	 * com.sun.jdi.connect.spi.TransportService#startListening(java.lang.String)
-	 */
-	@Override
-	public ListenKey startListening(String address) throws IOException {
-		String host = null;
-		int port = -1;
-		if (address != null) {
-			// jdt debugger will always specify an address in
-			// the form localhost:port
-			String[] strings = address.split(":"); //$NON-NLS-1$
-			host = "localhost"; //$NON-NLS-1$
-			if (strings.length == 2) {
-				host = strings[0];
-				port = Integer.parseInt(strings[1]);
-			} else {
-				port = Integer.parseInt(strings[0]);
-			}
-		}
-		if (port == -1) {
-			throw new IOException("Unable to decode port from address: " + address); //$NON-NLS-1$
-		}
-		if (host == null) {
-			host = "localhost"; //$NON-NLS-1$
-		}
-
+	int bind(int port) throws IOException {
 		fServerSocket = new ServerSocket(port);
-		port = fServerSocket.getLocalPort();
-		ListenKey listenKey = new SocketListenKey(host + ":" + port); //$NON-NLS-1$
-		return listenKey;
+		return fServerSocket.getLocalPort();
 	}
 
 	/*
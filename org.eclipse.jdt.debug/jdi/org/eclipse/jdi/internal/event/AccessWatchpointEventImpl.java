@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.event;
 
-import java.io.DataInputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.MirrorImpl;
 import org.eclipse.jdi.internal.VirtualMachineImpl;
@@ -42,18 +41,16 @@ public class AccessWatchpointEventImpl extends WatchpointEventImpl implements
 	/**
 	 * @param target the target
 	 * @param requestID the request ID
-	 * @param dataInStream the stream
+	 * @param dataBuffer the stream
 	 * @return Creates, reads and returns new EventImpl, of which requestID has
 	 *         already been read.
-	 * @throws IOException if the read fails
 	 */
 	public static WatchpointEventImpl read(MirrorImpl target,
-			RequestID requestID, DataInputStream dataInStream)
-			throws IOException {
+			RequestID requestID, ByteBuffer dataBuffer) {
 		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
 		AccessWatchpointEventImpl event = new AccessWatchpointEventImpl(vmImpl,
 				requestID);
-		event.readWatchpointEventFields(target, dataInStream);
+		event.readWatchpointEventFields(target, dataBuffer);
 		return event;
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,8 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.event;
 
-import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.MirrorImpl;
 import org.eclipse.jdi.internal.ReferenceTypeImpl;
@@ -47,16 +47,18 @@ public class ClassPrepareEventImpl extends EventImpl implements
 	 *         already been read.
 	 */
 	public static ClassPrepareEventImpl read(MirrorImpl target,
-			RequestID requestID, DataInputStream dataInStream)
+			RequestID requestID, ByteBuffer dataBuffer)
 			throws IOException {
 		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
 		ClassPrepareEventImpl event = new ClassPrepareEventImpl(vmImpl,
 				requestID);
-		event.fThreadRef = ThreadReferenceImpl.read(target, dataInStream);
+		event.fThreadRef = ThreadReferenceImpl.read(target, dataBuffer);
 		event.fReferenceType = ReferenceTypeImpl.readWithTypeTagAndSignature(
-				target, false, dataInStream);
+				target, false, dataBuffer);
 		target.readInt(
-				"class status", ReferenceTypeImpl.classStatusStrings(), dataInStream); //$NON-NLS-1$
+				"class status", ReferenceTypeImpl.classStatusStrings(), dataBuffer); //$NON-NLS-1$
+		// Add the class to the classes that are known to be loaded in the VM.
+		vmImpl.indexRefType(event.fReferenceType);
 		return event;
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,8 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.event;
 
-import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.MirrorImpl;
 import org.eclipse.jdi.internal.TypeImpl;
@@ -44,11 +44,11 @@ public class ClassUnloadEventImpl extends EventImpl implements ClassUnloadEvent
 	 *         already been read.
 	 */
 	public static ClassUnloadEventImpl read(MirrorImpl target,
-			RequestID requestID, DataInputStream dataInStream)
+			RequestID requestID, ByteBuffer dataBuffer)
 			throws IOException {
 		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
 		ClassUnloadEventImpl event = new ClassUnloadEventImpl(vmImpl, requestID);
-		event.fSignature = target.readString("signature", dataInStream); //$NON-NLS-1$
+		event.fSignature = target.readString("signature", dataBuffer); //$NON-NLS-1$
 		// Remove the class from classes that are known by the application to be
 		// loaded in the VM.
 		vmImpl.removeKnownRefType(event.fSignature);
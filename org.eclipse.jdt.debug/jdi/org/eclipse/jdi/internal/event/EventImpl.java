@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,9 +10,9 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.event;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -105,11 +105,11 @@ public abstract class EventImpl extends MirrorImpl implements Event {
 	/**
 	 * @return Creates, reads and returns new EventImpl.
 	 */
-	public static EventImpl read(MirrorImpl target, DataInputStream dataInStream)
+	public static EventImpl read(MirrorImpl target, ByteBuffer dataBuffer)
 			throws IOException {
 		byte eventKind = target.readByte(
-				"event kind", eventKindMap(), dataInStream); //$NON-NLS-1$
-		RequestID requestID = RequestID.read(target, dataInStream);
+				"event kind", eventKindMap(), dataBuffer); //$NON-NLS-1$
+		RequestID requestID = RequestID.read(target, dataBuffer);
 
 		// Create, read and return Event of eventKind.
 		EventImpl result;
@@ -118,68 +118,68 @@ public abstract class EventImpl extends MirrorImpl implements Event {
 			return null;
 		case AccessWatchpointEventImpl.EVENT_KIND:
 			result = AccessWatchpointEventImpl.read(target, requestID,
-					dataInStream);
+					dataBuffer);
 			break;
 		case BreakpointEventImpl.EVENT_KIND:
-			result = BreakpointEventImpl.read(target, requestID, dataInStream);
+			result = BreakpointEventImpl.read(target, requestID, dataBuffer);
 			break;
 		case ClassPrepareEventImpl.EVENT_KIND:
 			result = ClassPrepareEventImpl
-					.read(target, requestID, dataInStream);
+					.read(target, requestID, dataBuffer);
 			break;
 		case ClassUnloadEventImpl.EVENT_KIND:
-			result = ClassUnloadEventImpl.read(target, requestID, dataInStream);
+			result = ClassUnloadEventImpl.read(target, requestID, dataBuffer);
 			break;
 		case ExceptionEventImpl.EVENT_KIND:
-			result = ExceptionEventImpl.read(target, requestID, dataInStream);
+			result = ExceptionEventImpl.read(target, requestID, dataBuffer);
 			break;
 		case MethodEntryEventImpl.EVENT_KIND:
-			result = MethodEntryEventImpl.read(target, requestID, dataInStream);
+			result = MethodEntryEventImpl.read(target, requestID, dataBuffer);
 			break;
 		case MethodExitEventImpl.EVENT_KIND:
-			result = MethodExitEventImpl.read(target, requestID, dataInStream);
+			result = MethodExitEventImpl.read(target, requestID, dataBuffer);
 			break;
 		case EVENT_METHOD_EXIT_WITH_RETURN_VALUE:
 			result = MethodExitEventImpl.readWithReturnValue(target, requestID,
-					dataInStream);
+					dataBuffer);
 			break;
 		case MonitorContendedEnteredEventImpl.EVENT_KIND:
 			result = MonitorContendedEnteredEventImpl.read(target, requestID,
-					dataInStream);
+					dataBuffer);
 			break;
 		case MonitorContendedEnterEventImpl.EVENT_KIND:
 			result = MonitorContendedEnterEventImpl.read(target, requestID,
-					dataInStream);
+					dataBuffer);
 			break;
 		case MonitorWaitedEventImpl.EVENT_KIND:
 			result = MonitorWaitedEventImpl.read(target, requestID,
-					dataInStream);
+					dataBuffer);
 			break;
 		case MonitorWaitEventImpl.EVENT_KIND:
-			result = MonitorWaitEventImpl.read(target, requestID, dataInStream);
+			result = MonitorWaitEventImpl.read(target, requestID, dataBuffer);
 			break;
 		case ModificationWatchpointEventImpl.EVENT_KIND:
 			result = ModificationWatchpointEventImpl.read(target, requestID,
-					dataInStream);
+					dataBuffer);
 			break;
 		case StepEventImpl.EVENT_KIND:
-			result = StepEventImpl.read(target, requestID, dataInStream);
+			result = StepEventImpl.read(target, requestID, dataBuffer);
 			break;
 		case ThreadDeathEventImpl.EVENT_KIND:
-			result = ThreadDeathEventImpl.read(target, requestID, dataInStream);
+			result = ThreadDeathEventImpl.read(target, requestID, dataBuffer);
 			break;
 		case ThreadStartEventImpl.EVENT_KIND:
-			result = ThreadStartEventImpl.read(target, requestID, dataInStream);
+			result = ThreadStartEventImpl.read(target, requestID, dataBuffer);
 			break;
 		case VMDeathEventImpl.EVENT_KIND:
-			result = VMDeathEventImpl.read(target, requestID, dataInStream);
+			result = VMDeathEventImpl.read(target, requestID, dataBuffer);
 			break;
 		case VMDisconnectEventImpl.EVENT_KIND:
 			result = VMDisconnectEventImpl
-					.read(target, requestID, dataInStream);
+					.read(target, requestID, dataBuffer);
 			break;
 		case VMStartEventImpl.EVENT_KIND:
-			result = VMStartEventImpl.read(target, requestID, dataInStream);
+			result = VMStartEventImpl.read(target, requestID, dataBuffer);
 			break;
 		default:
 			throw new IOException(
@@ -189,7 +189,7 @@ public abstract class EventImpl extends MirrorImpl implements Event {
 
 		// Find and store original request.
 		if (!requestID.isNull())
-			result.fRequest = target.virtualMachineImpl().eventRequestManagerImpl().findRequest(result);
+			result.fRequest = target.virtualMachineImpl().eventRequestManagerImpl().findRequest(eventKind, requestID.value());
 
 		return result;
 	}
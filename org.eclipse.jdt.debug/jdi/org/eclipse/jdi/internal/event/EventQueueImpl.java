@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -68,7 +68,7 @@ public class EventQueueImpl extends MirrorImpl implements EventQueue {
 				JdwpCommandPacket packet = getCommandVM(
 						JdwpCommandPacket.E_COMPOSITE, timeout);
 				initJdwpEventSet(packet);
-				set = EventSetImpl.read(this, packet.dataInStream());
+				set = EventSetImpl.read(this, packet.dataBuffer());
 				handledJdwpEventSet();
 			} while (set.isEmpty());
 			return set;
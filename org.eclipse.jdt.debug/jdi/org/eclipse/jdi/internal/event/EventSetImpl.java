@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,10 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.event;
 
-import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -148,9 +150,19 @@ public class EventSetImpl extends MirrorImpl implements EventSet {
 	}
 
 	/**
-	 * @return Returns EventSetImpl that was read from InputStream.
+	 * @return Returns EventSetImpl that was read from the packet data buffer.
 	 */
-	public static EventSetImpl read(MirrorImpl target, DataInputStream in)
+	public static EventSetImpl read(MirrorImpl target, ByteBuffer in)
+			throws IOException {
+		try {
+			return readEventSet(target, in);
+		} catch (BufferUnderflowException e) {
+			// Report truncated data the same way a DataInputStream would.
+			throw new EOFException();
+		}
+	}
+
+	private static EventSetImpl readEventSet(MirrorImpl target, ByteBuffer in)
 			throws IOException {
 		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
 		EventSetImpl eventSet = new EventSetImpl(vmImpl);
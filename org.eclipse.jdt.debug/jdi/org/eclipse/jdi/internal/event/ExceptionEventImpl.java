@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.event;
 
-import java.io.DataInputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.LocationImpl;
 import org.eclipse.jdi.internal.MirrorImpl;
@@ -50,14 +49,13 @@ public class ExceptionEventImpl extends LocatableEventImpl implements
 	 *         already been read.
 	 */
 	public static ExceptionEventImpl read(MirrorImpl target,
-			RequestID requestID, DataInputStream dataInStream)
-			throws IOException {
+			RequestID requestID, ByteBuffer dataBuffer) {
 		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
 		ExceptionEventImpl event = new ExceptionEventImpl(vmImpl, requestID);
-		event.readThreadAndLocation(target, dataInStream);
+		event.readThreadAndLocation(target, dataBuffer);
 		event.fException = ObjectReferenceImpl.readObjectRefWithTag(target,
-				dataInStream);
-		event.fCatchLocation = LocationImpl.read(target, dataInStream);
+				dataBuffer);
+		event.fCatchLocation = LocationImpl.read(target, dataBuffer);
 		return event;
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.event;
 
-import java.io.DataInputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.LocationImpl;
 import org.eclipse.jdi.internal.MirrorImpl;
@@ -43,9 +42,9 @@ public abstract class LocatableEventImpl extends EventImpl implements Locatable
 	 * Reads Thread and Location.
 	 */
 	public void readThreadAndLocation(MirrorImpl target,
-			DataInputStream dataInStream) throws IOException {
-		fThreadRef = ThreadReferenceImpl.read(target, dataInStream);
-		fLocation = LocationImpl.read(target, dataInStream);
+			ByteBuffer dataBuffer) {
+		fThreadRef = ThreadReferenceImpl.read(target, dataBuffer);
+		fLocation = LocationImpl.read(target, dataBuffer);
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.event;
 
-import java.io.DataInputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.MirrorImpl;
 import org.eclipse.jdi.internal.VirtualMachineImpl;
@@ -42,11 +41,10 @@ public class MethodEntryEventImpl extends LocatableEventImpl implements
 	 *         already been read.
 	 */
 	public static MethodEntryEventImpl read(MirrorImpl target,
-			RequestID requestID, DataInputStream dataInStream)
-			throws IOException {
+			RequestID requestID, ByteBuffer dataBuffer) {
 		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
 		MethodEntryEventImpl event = new MethodEntryEventImpl(vmImpl, requestID);
-		event.readThreadAndLocation(target, dataInStream);
+		event.readThreadAndLocation(target, dataBuffer);
 		return event;
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.event;
 
-import java.io.DataInputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.MirrorImpl;
 import org.eclipse.jdi.internal.ValueImpl;
@@ -47,11 +46,10 @@ public class MethodExitEventImpl extends LocatableEventImpl implements
 	 *         already been read.
 	 */
 	public static MethodExitEventImpl read(MirrorImpl target,
-			RequestID requestID, DataInputStream dataInStream)
-			throws IOException {
+			RequestID requestID, ByteBuffer dataBuffer) {
 		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
 		MethodExitEventImpl event = new MethodExitEventImpl(vmImpl, requestID);
-		event.readThreadAndLocation(target, dataInStream);
+		event.readThreadAndLocation(target, dataBuffer);
 		return event;
 	}
 
@@ -60,12 +58,11 @@ public class MethodExitEventImpl extends LocatableEventImpl implements
 	 *         already been read.
 	 */
 	public static MethodExitEventImpl readWithReturnValue(MirrorImpl target,
-			RequestID requestID, DataInputStream dataInStream)
-			throws IOException {
+			RequestID requestID, ByteBuffer dataBuffer) {
 		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
 		MethodExitEventImpl event = new MethodExitEventImpl(vmImpl, requestID);
-		event.readThreadAndLocation(target, dataInStream);
-		event.fReturnValue = ValueImpl.readWithTag(target, dataInStream);
+		event.readThreadAndLocation(target, dataBuffer);
+		event.fReturnValue = ValueImpl.readWithTag(target, dataBuffer);
 		return event;
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.event;
 
-import java.io.DataInputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.MirrorImpl;
 import org.eclipse.jdi.internal.ValueImpl;
@@ -47,13 +46,12 @@ public class ModificationWatchpointEventImpl extends WatchpointEventImpl
 	 *         already been read.
 	 */
 	public static WatchpointEventImpl read(MirrorImpl target,
-			RequestID requestID, DataInputStream dataInStream)
-			throws IOException {
+			RequestID requestID, ByteBuffer dataBuffer) {
 		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
 		ModificationWatchpointEventImpl event = new ModificationWatchpointEventImpl(
 				vmImpl, requestID);
-		event.readWatchpointEventFields(target, dataInStream);
-		event.fValueToBe = ValueImpl.readWithTag(target, dataInStream);
+		event.readWatchpointEventFields(target, dataBuffer);
+		event.fValueToBe = ValueImpl.readWithTag(target, dataBuffer);
 		return event;
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.event;
 
-import java.io.DataInputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.LocationImpl;
 import org.eclipse.jdi.internal.MirrorImpl;
@@ -49,15 +48,14 @@ public class MonitorContendedEnterEventImpl extends LocatableEventImpl
 	 *         already been read.
 	 */
 	public static MonitorContendedEnterEventImpl read(MirrorImpl target,
-			RequestID requestID, DataInputStream dataInStream)
-			throws IOException {
+			RequestID requestID, ByteBuffer dataBuffer) {
 		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
 		MonitorContendedEnterEventImpl event = new MonitorContendedEnterEventImpl(
 				vmImpl, requestID);
-		event.fThreadRef = ThreadReferenceImpl.read(target, dataInStream);
+		event.fThreadRef = ThreadReferenceImpl.read(target, dataBuffer);
 		event.fMonitor = ObjectReferenceImpl.readObjectRefWithTag(target,
-				dataInStream);
-		event.fLocation = LocationImpl.read(target, dataInStream);
+				dataBuffer);
+		event.fLocation = LocationImpl.read(target, dataBuffer);
 		return event;
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.event;
 
-import java.io.DataInputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.MirrorImpl;
 import org.eclipse.jdi.internal.VirtualMachineImpl;
@@ -40,10 +39,10 @@ public class StepEventImpl extends LocatableEventImpl implements StepEvent {
 	 *         already been read.
 	 */
 	public static StepEventImpl read(MirrorImpl target, RequestID requestID,
-			DataInputStream dataInStream) throws IOException {
+			ByteBuffer dataBuffer) {
 		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
 		StepEventImpl event = new StepEventImpl(vmImpl, requestID);
-		event.readThreadAndLocation(target, dataInStream);
+		event.readThreadAndLocation(target, dataBuffer);
 		return event;
 	}
 }
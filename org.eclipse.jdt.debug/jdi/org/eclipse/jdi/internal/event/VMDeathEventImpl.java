@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.event;
 
-import java.io.DataInputStream;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.MirrorImpl;
 import org.eclipse.jdi.internal.VirtualMachineImpl;
@@ -39,11 +39,11 @@ public class VMDeathEventImpl extends EventImpl implements VMDeathEvent {
 	 *         already been read.
 	 * @param target
 	 * @param requestID
-	 * @param dataInStream
+	 * @param dataBuffer
 	 * @return
 	 */
 	public static VMDeathEventImpl read(MirrorImpl target, RequestID requestID,
-			DataInputStream dataInStream) {
+			ByteBuffer dataBuffer) {
 		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
 		VMDeathEventImpl event = new VMDeathEventImpl(vmImpl, requestID);
 		return event;
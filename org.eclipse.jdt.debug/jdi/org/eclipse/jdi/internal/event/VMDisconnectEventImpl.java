@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.event;
 
-import java.io.DataInputStream;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.MirrorImpl;
 import org.eclipse.jdi.internal.VirtualMachineImpl;
@@ -40,11 +40,11 @@ public class VMDisconnectEventImpl extends EventImpl implements
 	 *         already been read.
 	 * @param target
 	 * @param requestID
-	 * @param dataInStream
+	 * @param dataBuffer
 	 * @return the new event
 	 */
 	public static VMDisconnectEventImpl read(MirrorImpl target,
-			RequestID requestID, DataInputStream dataInStream) {
+			RequestID requestID, ByteBuffer dataBuffer) {
 		VirtualMachineImpl vmImpl = target.virtualMachineImpl();
 		VMDisconnectEventImpl event = new VMDisconnectEventImpl(vmImpl,
 				requestID);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal.event;
 
-import java.io.DataInputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.FieldImpl;
 import org.eclipse.jdi.internal.MirrorImpl;
@@ -49,11 +48,11 @@ public abstract class WatchpointEventImpl extends LocatableEventImpl implements
 	 *         already been read.
 	 */
 	public void readWatchpointEventFields(MirrorImpl target,
-			DataInputStream dataInStream) throws IOException {
-		readThreadAndLocation(target, dataInStream);
-		fField = FieldImpl.readWithReferenceTypeWithTag(target, dataInStream);
+			ByteBuffer dataBuffer) {
+		readThreadAndLocation(target, dataBuffer);
+		fField = FieldImpl.readWithReferenceTypeWithTag(target, dataBuffer);
 		fObjectReference = ObjectReferenceImpl.readObjectRefWithTag(target,
-				dataInStream);
+				dataBuffer);
 	}
 
 	/**
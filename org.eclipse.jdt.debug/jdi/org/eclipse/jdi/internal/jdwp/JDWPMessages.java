@@ -1,5 +1,5 @@
 /**********************************************************************
- * Copyright (c) 2000, 2005 IBM Corporation and others. All rights reserved.   This
+ * Copyright (c) 2000, 2018 IBM Corporation and others. All rights reserved.   This
  * program and the accompanying materials are made available under the terms of
  * the Eclipse Public License v1.0 which accompanies this distribution, and is
  * available at http://www.eclipse.org/legal/epl-v10.html
@@ -18,6 +18,7 @@ public class JDWPMessages extends NLS {
 	public static String JdwpString_Second_or_third_byte_input_does_not_mach_UTF_Specification_2;
 	public static String JdwpString_Input_does_not_match_UTF_Specification_3;
 	public static String JdwpString_str_is_null_4;
+	public static String JdwpString_Input_ends_within_a_character_5;
 
 	static {
 		// load message values from bundle file
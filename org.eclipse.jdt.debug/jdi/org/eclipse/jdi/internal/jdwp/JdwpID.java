@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -140,6 +141,19 @@ public abstract class JdwpID {
 		}
 	}
 
+	/**
+	 * Reads ID from a packet buffer.
+	 */
+	public void read(ByteBuffer in) {
+		fValue = 0;
+		int size = getSize();
+		for (int i = 0; i < size; i++) {
+			int b = in.get() & 0xFF; // Note that the byte must be treated as
+										// unsigned.
+			fValue = fValue << 8 | b;
+		}
+	}
+
 	/**
 	 * Writes ID.
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ import java.io.DataInputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
 
 /**
  * This class implements the corresponding Java Debug Wire Protocol (JDWP)
@@ -24,7 +25,7 @@ import java.lang.reflect.Modifier;
 public abstract class JdwpPacket {
 	/** General JDWP constants. */
 	public static final byte FLAG_REPLY_PACKET = (byte) 0x80;
-	protected static final int MIN_PACKET_LENGTH = 11;
+	public static final int MIN_PACKET_LENGTH = 11;
 
 	/** Map with Strings for flag bits. */
 	private static String[] fgFlagStrings = null;
@@ -95,6 +96,19 @@ public abstract class JdwpPacket {
 		return new DataInputStream(new ByteArrayInputStream(new byte[0]));
 	}
 
+	/**
+	 * @return Returns a big-endian buffer positioned at the start of the
+	 *         packet data, or an empty buffer if there is none. The buffer
+	 *         wraps the packet data rather than copying it.
+	 */
+	public ByteBuffer dataBuffer() {
+		if (fDataBuf != null) {
+			return ByteBuffer.wrap(fDataBuf);
+		}
+
+		return ByteBuffer.wrap(new byte[0]);
+	}
+
 	/**
 	 * Assigns data to packet.
 	 */
@@ -118,12 +132,33 @@ public abstract class JdwpPacket {
 	 * Constructs a JdwpPacket from a byte[].
 	 */
 	public static JdwpPacket build(byte[] bytes) throws IOException {
+		JdwpPacket packet = buildFromHeader(bytes);
+		if (packet.fDataBuf != null) {
+			System.arraycopy(bytes, MIN_PACKET_LENGTH, packet.fDataBuf, 0,
+					packet.fDataBuf.length);
+		}
+		return packet;
+	}
+
+	/**
+	 * Constructs a JdwpPacket from its header only. The data buffer of the
+	 * returned packet is allocated with the size given in the header, but is
+	 * left for the caller to fill in.
+	 *
+	 * @param bytes
+	 *            buffer starting with the header of the packet
+	 * @return Returns the packet, see {@link #data()} for the buffer to fill.
+	 */
+	public static JdwpPacket buildFromHeader(byte[] bytes) throws IOException {
 		// length (int)
 		int a = (bytes[0] & 0xff) << 24;
 		int b = (bytes[1] & 0xff) << 16;
 		int c = (bytes[2] & 0xff) << 8;
 		int d = (bytes[3] & 0xff) << 0;
 		int packetLength = a + b + c + d;
+		if (packetLength < MIN_PACKET_LENGTH) {
+			throw new IOException("JDWP Packet under 11 bytes"); //$NON-NLS-1$
+		}
 
 		// id (int)
 		a = (bytes[4] & 0xff) << 24;
@@ -146,47 +181,74 @@ public abstract class JdwpPacket {
 		packet.setId(id);
 		packet.setFlags(flags);
 
-		// Read specific header fields and data.
-		int index = 9;
-		index += packet.readSpecificHeaderFields(bytes, 9);
+		// Read specific header fields and allocate data.
+		packet.readSpecificHeaderFields(bytes, 9);
 		if (packetLength - MIN_PACKET_LENGTH > 0) {
 			packet.fDataBuf = new byte[packetLength - MIN_PACKET_LENGTH];
-			System.arraycopy(bytes, index, packet.fDataBuf, 0,
-					packet.fDataBuf.length);
 		}
 
 		return packet;
 	}
 
 	public byte[] getPacketAsBytes() throws IOException {
+		byte[] bytes = new byte[getLength()];
+		writePacketBytes(bytes, 0);
+		return bytes;
+	}
+
+	/**
+	 * Writes the complete packet, header included, into the given buffer.
+	 *
+	 * @param bytes
+	 *            the buffer, at least {@link #getLength()} bytes long from
+	 *            <code>offset</code>
+	 * @param offset
+	 *            index of the first byte of the packet in <code>bytes</code>
+	 * @return Returns the number of bytes written.
+	 */
+	public int writePacketBytes(byte[] bytes, int offset) throws IOException {
+		int len = getLength();
+		int index = offset + writeHeaderBytes(bytes, offset);
+		if (index < offset + len && fDataBuf != null) {
+			// copy data
+			System.arraycopy(fDataBuf, 0, bytes, index, fDataBuf.length);
+		}
+		return len;
+	}
+
+	/**
+	 * Writes the header of the packet into the given buffer.
+	 *
+	 * @param bytes
+	 *            the buffer, at least {@link #MIN_PACKET_LENGTH} bytes long
+	 *            from <code>offset</code>
+	 * @param offset
+	 *            index of the first byte of the header in <code>bytes</code>
+	 * @return Returns the number of bytes written.
+	 */
+	public int writeHeaderBytes(byte[] bytes, int offset) throws IOException {
 		int len = getLength();
-		byte[] bytes = new byte[len];
 
 		// convert len to bytes
-		bytes[0] = (byte) (len >>> 24);
-		bytes[1] = (byte) (len >>> 16);
-		bytes[2] = (byte) (len >>> 8);
-		bytes[3] = (byte) (len >>> 0);
+		bytes[offset] = (byte) (len >>> 24);
+		bytes[offset + 1] = (byte) (len >>> 16);
+		bytes[offset + 2] = (byte) (len >>> 8);
+		bytes[offset + 3] = (byte) (len >>> 0);
 
 		// convert id to bytes
 		int id = getId();
-		bytes[4] = (byte) (id >>> 24);
-		bytes[5] = (byte) (id >>> 16);
-		bytes[6] = (byte) (id >>> 8);
-		bytes[7] = (byte) (id >>> 0);
+		bytes[offset + 4] = (byte) (id >>> 24);
+		bytes[offset + 5] = (byte) (id >>> 16);
+		bytes[offset + 6] = (byte) (id >>> 8);
+		bytes[offset + 7] = (byte) (id >>> 0);
 
 		// flags
-		bytes[8] = getFlags();
+		bytes[offset + 8] = getFlags();
 
 		// convert specific header fields
-		int index = 9;
+		int index = offset + 9;
 		index += writeSpecificHeaderFields(bytes, index);
-
-		if (index < len && fDataBuf != null) {
-			// copy data
-			System.arraycopy(fDataBuf, 0, bytes, index, fDataBuf.length);
-		}
-		return bytes;
+		return index - offset;
 	}
 
 	/**
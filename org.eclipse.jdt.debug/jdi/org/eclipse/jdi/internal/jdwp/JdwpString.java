@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,8 +12,10 @@ package org.eclipse.jdi.internal.jdwp;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
 
 /**
  * This class implements the corresponding Java Debug Wire Protocol (JDWP) ID
@@ -29,37 +31,76 @@ public class JdwpString {
 		int utfSize = in.readInt();
 		byte utfBytes[] = new byte[utfSize];
 		in.readFully(utfBytes);
+		return decode(utfBytes, 0, utfSize);
+	}
+
+	/**
+	 * Reads String from a Jdwp packet buffer. When the buffer is backed by an
+	 * array the UTF bytes are decoded in place, without an intermediate copy.
+	 */
+	public static String read(ByteBuffer in) throws IOException {
+		int utfSize = in.getInt();
+		if (utfSize < 0 || utfSize > in.remaining()) {
+			throw new EOFException();
+		}
+		String result;
+		if (in.hasArray()) {
+			result = decode(in.array(), in.arrayOffset() + in.position(),
+					utfSize);
+			in.position(in.position() + utfSize);
+		} else {
+			byte utfBytes[] = new byte[utfSize];
+			in.get(utfBytes);
+			result = decode(utfBytes, 0, utfSize);
+		}
+		return result;
+	}
+
+	/**
+	 * Decodes <code>utfSize</code> bytes of modified UTF-8 starting at
+	 * <code>offset</code>.
+	 */
+	private static String decode(byte[] utfBytes, int offset, int utfSize)
+			throws UTFDataFormatException {
 		/* Guess at buffer size */
-		StringBuffer strBuffer = new StringBuffer(utfSize / 3 * 2);
-		for (int i = 0; i < utfSize;) {
+		StringBuilder strBuffer = new StringBuilder(utfSize / 3 * 2);
+		int end = offset + utfSize;
+		for (int i = offset; i < end;) {
 			int a = utfBytes[i] & 0xFF;
-			if ((a >> 4) < 12) {
+			if ((a >> 4) < 8) {
 				strBuffer.append((char) a);
 				i++;
-			} else {
+			} else if ((a >> 4) == 12 || (a >> 4) == 13) {
+				if (i + 1 >= end) {
+					throw new UTFDataFormatException(
+							JDWPMessages.JdwpString_Input_ends_within_a_character_5);
+				}
 				int b = utfBytes[i + 1] & 0xFF;
-				if ((a >> 4) < 14) {
-					if ((b & 0xBF) == 0) {
-						throw new UTFDataFormatException(
-								JDWPMessages.JdwpString_Second_byte_input_does_not_match_UTF_Specification_1);
-					}
-					strBuffer.append((char) (((a & 0x1F) << 6) | (b & 0x3F)));
-					i += 2;
-				} else {
-					int c = utfBytes[i + 2] & 0xFF;
-					if ((a & 0xEF) > 0) {
-						if (((b & 0xBF) == 0) || ((c & 0xBF) == 0)) {
-							throw new UTFDataFormatException(
-									JDWPMessages.JdwpString_Second_or_third_byte_input_does_not_mach_UTF_Specification_2);
-						}
-						strBuffer.append((char) (((a & 0x0F) << 12)
-								| ((b & 0x3F) << 6) | (c & 0x3F)));
-						i += 3;
-					} else {
-						throw new UTFDataFormatException(
-								JDWPMessages.JdwpString_Input_does_not_match_UTF_Specification_3);
-					}
+				if ((b & 0xC0) != 0x80) {
+					throw new UTFDataFormatException(
+							JDWPMessages.JdwpString_Second_byte_input_does_not_match_UTF_Specification_1);
 				}
+				strBuffer.append((char) (((a & 0x1F) << 6) | (b & 0x3F)));
+				i += 2;
+			} else if ((a >> 4) == 14) {
+				if (i + 2 >= end) {
+					throw new UTFDataFormatException(
+							JDWPMessages.JdwpString_Input_ends_within_a_character_5);
+				}
+				int b = utfBytes[i + 1] & 0xFF;
+				int c = utfBytes[i + 2] & 0xFF;
+				if ((b & 0xC0) != 0x80 || (c & 0xC0) != 0x80) {
+					throw new UTFDataFormatException(
+							JDWPMessages.JdwpString_Second_or_third_byte_input_does_not_mach_UTF_Specification_2);
+				}
+				strBuffer.append((char) (((a & 0x0F) << 12)
+						| ((b & 0x3F) << 6) | (c & 0x3F)));
+				i += 3;
+			} else {
+				// a continuation byte, or the four byte form, which modified
+				// UTF-8 does not use
+				throw new UTFDataFormatException(
+						JDWPMessages.JdwpString_Input_does_not_match_UTF_Specification_3);
 			}
 		}
 		return strBuffer.toString();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,7 @@ import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.jdi.internal.FieldImpl;
 import org.eclipse.jdi.internal.LocationImpl;
@@ -245,22 +246,9 @@ public abstract class EventRequestImpl extends MirrorImpl implements
 
 		initJdwpRequest();
 		try {
-			ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
-			DataOutputStream outData = new DataOutputStream(outBytes);
-			writeByte(eventKind(),
-					"event kind", EventImpl.eventKindMap(), outData); //$NON-NLS-1$
-			writeByte(
-					suspendPolicyJDWP(),
-					"suspend policy", EventRequestImpl.suspendPolicyMap(), outData); //$NON-NLS-1$
-			writeInt(modifierCount(), "modifiers", outData); //$NON-NLS-1$
-			writeModifiers(outData);
-
 			JdwpReplyPacket replyPacket = requestVM(JdwpCommandPacket.ER_SET,
-					outBytes);
-			defaultReplyErrorHandler(replyPacket.errorCode());
-			DataInputStream replyData = replyPacket.dataInStream();
-			fRequestID = RequestID.read(this, replyData);
-			virtualMachineImpl().eventRequestManagerImpl().addRequestIDMapping(this);
+					setCommandData());
+			readSetReply(replyPacket);
 		} catch (IOException e) {
 			defaultIOExceptionHandler(e);
 		} finally {
@@ -268,6 +256,67 @@ public abstract class EventRequestImpl extends MirrorImpl implements
 		}
 	}
 
+	/**
+	 * Sends the EventRequest.Set command that enables this request, without
+	 * waiting for the reply. The request is enabled once the reply has been
+	 * handled with {@link #enabled(CompletableFuture)}.
+	 *
+	 * @return Returns a future that is completed with the reply, or
+	 *         <code>null</code> if the request is already enabled.
+	 */
+	synchronized CompletableFuture<JdwpReplyPacket> enableAsync() throws IOException {
+		if (isEnabled())
+			return null;
+
+		initJdwpRequest();
+		try {
+			return requestVMAsync(JdwpCommandPacket.ER_SET, setCommandData());
+		} finally {
+			handledJdwpRequest();
+		}
+	}
+
+	/**
+	 * Waits for the reply to a command sent by {@link #enableAsync()} and
+	 * enables this request.
+	 */
+	synchronized void enabled(CompletableFuture<JdwpReplyPacket> reply) throws IOException {
+		initJdwpRequest();
+		try {
+			readSetReply(waitForReply(reply));
+		} finally {
+			handledJdwpRequest();
+		}
+	}
+
+	/**
+	 * @return Returns the data of the EventRequest.Set command for this
+	 *         request.
+	 */
+	private byte[] setCommandData() throws IOException {
+		ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+		DataOutputStream outData = new DataOutputStream(outBytes);
+		writeByte(eventKind(),
+				"event kind", EventImpl.eventKindMap(), outData); //$NON-NLS-1$
+		writeByte(
+				suspendPolicyJDWP(),
+				"suspend policy", EventRequestImpl.suspendPolicyMap(), outData); //$NON-NLS-1$
+		writeInt(modifierCount(), "modifiers", outData); //$NON-NLS-1$
+		writeModifiers(outData);
+		return outBytes.toByteArray();
+	}
+
+	/**
+	 * Reads the ID of this request from the reply to the EventRequest.Set
+	 * command.
+	 */
+	private void readSetReply(JdwpReplyPacket replyPacket) throws IOException {
+		defaultReplyErrorHandler(replyPacket.errorCode());
+		DataInputStream replyData = replyPacket.dataInStream();
+		fRequestID = RequestID.read(this, replyData);
+		virtualMachineImpl().eventRequestManagerImpl().addRequestIDMapping(this);
+	}
+
 	/**
 	 * Clear all breakpoints (used by EventRequestManager).
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,36 +11,25 @@
 package org.eclipse.jdi.internal.request;
 
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Enumeration;
-import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.jdi.internal.FieldImpl;
+import org.eclipse.jdi.internal.IntObjectMap;
 import org.eclipse.jdi.internal.LocationImpl;
 import org.eclipse.jdi.internal.MirrorImpl;
 import org.eclipse.jdi.internal.ReferenceTypeImpl;
 import org.eclipse.jdi.internal.ThreadReferenceImpl;
 import org.eclipse.jdi.internal.VirtualMachineImpl;
-import org.eclipse.jdi.internal.event.AccessWatchpointEventImpl;
-import org.eclipse.jdi.internal.event.BreakpointEventImpl;
-import org.eclipse.jdi.internal.event.ClassPrepareEventImpl;
-import org.eclipse.jdi.internal.event.ClassUnloadEventImpl;
 import org.eclipse.jdi.internal.event.EventImpl;
-import org.eclipse.jdi.internal.event.ExceptionEventImpl;
-import org.eclipse.jdi.internal.event.MethodEntryEventImpl;
-import org.eclipse.jdi.internal.event.MethodExitEventImpl;
-import org.eclipse.jdi.internal.event.ModificationWatchpointEventImpl;
-import org.eclipse.jdi.internal.event.MonitorContendedEnterEventImpl;
-import org.eclipse.jdi.internal.event.MonitorContendedEnteredEventImpl;
-import org.eclipse.jdi.internal.event.MonitorWaitEventImpl;
-import org.eclipse.jdi.internal.event.MonitorWaitedEventImpl;
-import org.eclipse.jdi.internal.event.StepEventImpl;
-import org.eclipse.jdi.internal.event.ThreadDeathEventImpl;
-import org.eclipse.jdi.internal.event.ThreadStartEventImpl;
-import org.eclipse.jdi.internal.event.VMDeathEventImpl;
+import org.eclipse.jdi.internal.jdwp.JdwpReplyPacket;
 import org.eclipse.osgi.util.NLS;
 
 import com.sun.jdi.Field;
@@ -48,6 +37,7 @@ import com.sun.jdi.Location;
 import com.sun.jdi.ObjectCollectedException;
 import com.sun.jdi.ReferenceType;
 import com.sun.jdi.ThreadReference;
+import com.sun.jdi.VMDisconnectedException;
 import com.sun.jdi.VMMismatchException;
 import com.sun.jdi.request.AccessWatchpointRequest;
 import com.sun.jdi.request.BreakpointRequest;
@@ -80,20 +70,46 @@ public class EventRequestManagerImpl extends MirrorImpl implements EventRequestM
 	private static class EventRequestType<RT extends EventRequest> {
 
 		private ArrayList<RT> requests;
-		private Hashtable<RequestID, RT> enabledrequests;
+		/**
+		 * Enabled requests by request ID. The map is replaced rather than
+		 * modified, so that events are matched with their requests without
+		 * locking.
+		 */
+		private volatile IntObjectMap<RT> enabledrequests;
 
 		private EventRequestType() {
 			requests= new ArrayList<>();
-			enabledrequests= new Hashtable<>();
+			enabledrequests= new IntObjectMap<>();
 		}
 
 		public List<RT> getUnmodifiableList() {
 			return Collections.unmodifiableList(requests);
 		}
 
+		@SuppressWarnings("unchecked")
+		public synchronized void putEnabled(int requestID, EventRequest req) {
+			IntObjectMap<RT> enabled= enabledrequests.copy();
+			enabled.put(requestID, (RT) req);
+			enabledrequests= enabled;
+		}
+
+		public synchronized void removeEnabled(int requestID) {
+			if (enabledrequests.containsKey(requestID)) {
+				IntObjectMap<RT> enabled= enabledrequests.copy();
+				enabled.remove(requestID);
+				enabledrequests= enabled;
+			}
+		}
+
+		public RT getEnabled(int requestID) {
+			return enabledrequests.get(requestID);
+		}
+
 		public void clear() {
 			requests.clear();
-			enabledrequests.clear();
+			synchronized (this) {
+				enabledrequests= new IntObjectMap<>();
+			}
 		}
 	}
 
@@ -114,11 +130,34 @@ public class EventRequestManagerImpl extends MirrorImpl implements EventRequestM
 	private EventRequestType<MonitorWaitedRequest> MONITOR_WAITED_TYPE= new EventRequestType<>();
 	private EventRequestType<MonitorWaitRequest> MONITOR_WAIT_TYPE= new EventRequestType<>();
 
+	/** Request types indexed by the JDWP event kind of their requests and events. */
+	private EventRequestType<?>[] fTypesByEventKind= new EventRequestType<?>[128];
+
+	/** Whether the internal class prepare request has been created. */
+	private boolean fInternalClassPrepareEnabled = false;
+
 	/**
 	 * Creates new EventRequestManager.
 	 */
 	public EventRequestManagerImpl(VirtualMachineImpl vmImpl) {
 		super("EventRequestManager", vmImpl); //$NON-NLS-1$
+		fTypesByEventKind[EventImpl.EVENT_FIELD_ACCESS]= ACCESS_WATCHPOINT_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_BREAKPOINT]= BREAKPOINT_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_CLASS_PREPARE]= CLASS_PREPARE_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_CLASS_UNLOAD]= CLASS_UNLOAD_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_EXCEPTION]= EXCEPTION_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_METHOD_ENTRY]= METHOD_ENTRY_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_METHOD_EXIT]= METHOD_EXIT_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_METHOD_EXIT_WITH_RETURN_VALUE]= METHOD_EXIT_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_FIELD_MODIFICATION]= MODIFICATION_WATCHPOINT_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_SINGLE_STEP]= STEP_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_THREAD_DEATH]= THREAD_DEATH_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_THREAD_START]= THREAD_START_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_VM_DEATH]= VM_DEATH_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_MONITOR_CONTENDED_ENTERED]= MONITOR_CONTENDED_ENTERED_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_MONITOR_CONTENDED_ENTER]= MONITOR_CONTENDED_ENTER_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_MONITOR_WAITED]= MONITOR_WAITED_TYPE;
+		fTypesByEventKind[EventImpl.EVENT_MONITOR_WAIT]= MONITOR_WAIT_TYPE;
 	}
 
 	/* (non-Javadoc)
@@ -309,11 +348,15 @@ public class EventRequestManagerImpl extends MirrorImpl implements EventRequestM
 
 	/**
 	 * Enables class prepare requests for all loaded classes.  This is
-	 * necessary for current versions of the KVM to function correctly.
-	 * This method is only called when the remote VM is determined to be
-	 * the KVM.
+	 * necessary for current versions of the KVM to function correctly,
+	 * and keeps the class index of the virtual machine up to date once
+	 * the class table has been hydrated. The request is only created once.
 	 */
-	public void enableInternalClassPrepareEvent() {
+	public synchronized void enableInternalClassPrepareEvent() {
+		if (fInternalClassPrepareEnabled) {
+			return;
+		}
+		fInternalClassPrepareEnabled = true;
 		// Note that these requests are not stored in the set of outstanding requests because
 		// they must be invisible from outside.
 		ClassPrepareRequestImpl requestPrepare =
@@ -344,11 +387,8 @@ public class EventRequestManagerImpl extends MirrorImpl implements EventRequestM
 	 * Checks if a steprequest is for the given thread is already enabled.
 	 */
 	boolean existsEnabledStepRequest(ThreadReferenceImpl threadImpl) {
-		Enumeration<StepRequest> enumeration = STEP_TYPE.enabledrequests.elements();
-		StepRequestImpl step;
-		while (enumeration.hasMoreElements()) {
-			step = (StepRequestImpl)enumeration.nextElement();
-			if (step.thread() == threadImpl)
+		for (StepRequest step : STEP_TYPE.enabledrequests.values()) {
+			if (((StepRequestImpl) step).thread() == threadImpl)
 				return true;
 		}
 		return false;
@@ -372,7 +412,7 @@ public class EventRequestManagerImpl extends MirrorImpl implements EventRequestM
 		type.requests.remove(req);
 		RequestID id = req.requestID();
 		if(id != null) {
-			type.enabledrequests.remove(id);
+			type.removeEnabled(id.value());
 		}
 	}
 
@@ -434,6 +474,66 @@ public class EventRequestManagerImpl extends MirrorImpl implements EventRequestM
 		}
 	}
 
+	/**
+	 * Enables many event requests at once. The EventRequest.Set commands are
+	 * sent without waiting for the replies of the previous ones, up to
+	 * <code>pipelineDepth</code> commands are outstanding at any time. The
+	 * requests must be configured, and must not be enabled or disabled by
+	 * other threads while this method runs.
+	 * <p>
+	 * A request that the VM rejects does not prevent the others from being
+	 * enabled.
+	 * </p>
+	 *
+	 * @param requests
+	 *            the requests to enable, requests that are already enabled
+	 *            are skipped
+	 * @param pipelineDepth
+	 *            the maximum number of commands waiting for a reply
+	 * @return Returns the requests that could not be enabled, with the
+	 *         exception that enabling them caused.
+	 */
+	public Map<EventRequest, RuntimeException> enable(List<? extends EventRequest> requests, int pipelineDepth) throws VMMismatchException {
+		Map<EventRequest, RuntimeException> failures = new LinkedHashMap<>();
+		if (pipelineDepth < 1) {
+			pipelineDepth = 1;
+		}
+		ArrayDeque<EventRequestImpl> inFlight = new ArrayDeque<>(pipelineDepth);
+		ArrayDeque<CompletableFuture<JdwpReplyPacket>> replies = new ArrayDeque<>(pipelineDepth);
+		try {
+			for (EventRequest request : requests) {
+				EventRequestImpl requestImpl = (EventRequestImpl) request;
+				checkVM(requestImpl);
+				if (inFlight.size() >= pipelineDepth) {
+					enabled(inFlight.removeFirst(), replies.removeFirst(), failures);
+				}
+				CompletableFuture<JdwpReplyPacket> reply = requestImpl.enableAsync();
+				if (reply != null) {
+					inFlight.addLast(requestImpl);
+					replies.addLast(reply);
+				}
+			}
+			while (!inFlight.isEmpty()) {
+				enabled(inFlight.removeFirst(), replies.removeFirst(), failures);
+			}
+		} catch (IOException e) {
+			defaultIOExceptionHandler(e);
+		}
+		return failures;
+	}
+
+	private static void enabled(EventRequestImpl request,
+			CompletableFuture<JdwpReplyPacket> reply,
+			Map<EventRequest, RuntimeException> failures) throws IOException {
+		try {
+			request.enabled(reply);
+		} catch (VMDisconnectedException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			failures.put(request, e);
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see com.sun.jdi.request.EventRequestManager#accessWatchpointRequests()
 	 */
@@ -562,39 +662,24 @@ public class EventRequestManagerImpl extends MirrorImpl implements EventRequestM
     	return MONITOR_WAITED_TYPE.getUnmodifiableList();
     }
 
+	/**
+	 * @return Returns the request type of the given JDWP event kind, or
+	 *         <code>null</code> if there are no requests of that kind.
+	 */
+	private EventRequestType<?> typeOf(byte eventKind) {
+		if (eventKind < 0 || eventKind >= fTypesByEventKind.length) {
+			return null;
+		}
+		return fTypesByEventKind[eventKind];
+	}
+
+	/**
+	 * Removes the mapping of the request ID of the given request.
+	 */
 	public void removeRequestIDMapping(EventRequestImpl req) {
-		if (req instanceof AccessWatchpointRequestImpl) {
-			ACCESS_WATCHPOINT_TYPE.enabledrequests.remove(req.requestID());
-		} else if (req instanceof BreakpointRequestImpl) {
-			BREAKPOINT_TYPE.enabledrequests.remove(req.requestID());
-		} else if (req instanceof ClassPrepareRequestImpl) {
-			CLASS_PREPARE_TYPE.enabledrequests.remove(req.requestID());
-		} else if (req instanceof ClassUnloadRequestImpl) {
-			CLASS_UNLOAD_TYPE.enabledrequests.remove(req.requestID());
-		} else if (req instanceof ExceptionRequestImpl) {
-			EXCEPTION_TYPE.enabledrequests.remove(req.requestID());
-		} else if (req instanceof MethodEntryRequestImpl) {
-			METHOD_ENTRY_TYPE.enabledrequests.remove(req.requestID());
-		} else if (req instanceof MethodExitRequestImpl) {
-			METHOD_EXIT_TYPE.enabledrequests.remove(req.requestID());
-		} else if (req instanceof ModificationWatchpointRequestImpl) {
-			MODIFICATION_WATCHPOINT_TYPE.enabledrequests.remove(req.requestID());
-		} else if (req instanceof StepRequestImpl) {
-			STEP_TYPE.enabledrequests.remove(req.requestID());
-		} else if (req instanceof ThreadDeathRequestImpl) {
-			THREAD_DEATH_TYPE.enabledrequests.remove(req.requestID());
-		} else if (req instanceof ThreadStartRequestImpl) {
-			THREAD_START_TYPE.enabledrequests.remove(req.requestID());
-		} else if(req instanceof MonitorContendedEnterRequestImpl) {
-			MONITOR_CONTENDED_ENTER_TYPE.enabledrequests.remove(req.requestID());
-		} else if(req instanceof MonitorContendedEnteredRequestImpl) {
-			MONITOR_CONTENDED_ENTERED_TYPE.enabledrequests.remove(req.requestID());
-		} else if(req instanceof MonitorWaitRequestImpl) {
-			MONITOR_WAIT_TYPE.enabledrequests.remove(req.requestID());
-		} else if(req instanceof MonitorWaitedRequestImpl) {
-			MONITOR_WAITED_TYPE.enabledrequests.remove(req.requestID());
-		} else if(req instanceof VMDeathRequestImpl) {
-			VM_DEATH_TYPE.enabledrequests.remove(req.requestID());
+		EventRequestType<?> type = typeOf(req.eventKind());
+		if (type != null) {
+			type.removeEnabled(req.requestID().value());
 		}
 	}
 
@@ -602,78 +687,24 @@ public class EventRequestManagerImpl extends MirrorImpl implements EventRequestM
 	 * Maps a request ID to requests.
 	 */
 	public void addRequestIDMapping(EventRequestImpl req) {
-		if (req instanceof AccessWatchpointRequestImpl) {
-			ACCESS_WATCHPOINT_TYPE.enabledrequests.put(req.requestID(), (AccessWatchpointRequestImpl) req);
-		} else if (req instanceof BreakpointRequestImpl) {
-			BREAKPOINT_TYPE.enabledrequests.put(req.requestID(), (BreakpointRequestImpl)req);
-		} else if (req instanceof ClassPrepareRequestImpl) {
-			CLASS_PREPARE_TYPE.enabledrequests.put(req.requestID(), (ClassPrepareRequestImpl)req);
-		} else if (req instanceof ClassUnloadRequestImpl) {
-			CLASS_UNLOAD_TYPE.enabledrequests.put(req.requestID(), (ClassUnloadRequestImpl)req);
-		} else if (req instanceof ExceptionRequestImpl) {
-			EXCEPTION_TYPE.enabledrequests.put(req.requestID(), (ExceptionRequestImpl)req);
-		} else if (req instanceof MethodEntryRequestImpl) {
-			METHOD_ENTRY_TYPE.enabledrequests.put(req.requestID(), (MethodEntryRequestImpl)req);
-		} else if (req instanceof MethodExitRequestImpl) {
-			METHOD_EXIT_TYPE.enabledrequests.put(req.requestID(), (MethodExitRequestImpl)req);
-		} else if (req instanceof ModificationWatchpointRequestImpl) {
-			MODIFICATION_WATCHPOINT_TYPE.enabledrequests.put(req.requestID(), (ModificationWatchpointRequestImpl)req);
-		} else if (req instanceof StepRequestImpl) {
-			STEP_TYPE.enabledrequests.put(req.requestID(), (StepRequestImpl)req);
-		} else if (req instanceof ThreadDeathRequestImpl) {
-			THREAD_DEATH_TYPE.enabledrequests.put(req.requestID(), (ThreadDeathRequestImpl)req);
-		} else if (req instanceof ThreadStartRequestImpl) {
-			THREAD_START_TYPE.enabledrequests.put(req.requestID(), (ThreadStartRequestImpl)req);
-		} else if(req instanceof MonitorWaitRequestImpl) {
-			MONITOR_WAIT_TYPE.enabledrequests.put(req.requestID(), (MonitorWaitRequestImpl)req);
-		} else if(req instanceof MonitorWaitedRequestImpl) {
-			MONITOR_WAITED_TYPE.enabledrequests.put(req.requestID(), (MonitorWaitedRequestImpl)req);
-		} else if(req instanceof MonitorContendedEnterRequestImpl) {
-			MONITOR_CONTENDED_ENTER_TYPE.enabledrequests.put(req.requestID(), (MonitorContendedEnterRequestImpl)req);
-		} else if(req instanceof MonitorContendedEnteredRequestImpl) {
-			MONITOR_CONTENDED_ENTERED_TYPE.enabledrequests.put(req.requestID(), (MonitorContendedEnteredRequestImpl)req);
-		} else if(req instanceof VMDeathRequestImpl) {
-			VM_DEATH_TYPE.enabledrequests.put(req.requestID(), (VMDeathRequest) req);
+		EventRequestType<?> type = typeOf(req.eventKind());
+		if (type != null) {
+			type.putEnabled(req.requestID().value(), req);
 		}
 	}
 
 	/**
-	 * Find Request that matches event.
-	 */
-	public EventRequest findRequest(EventImpl event) {
-		if (event instanceof AccessWatchpointEventImpl) {
-			return ACCESS_WATCHPOINT_TYPE.enabledrequests.get(event.requestID());
-		} else if (event instanceof BreakpointEventImpl) {
-			return BREAKPOINT_TYPE.enabledrequests.get(event.requestID());
-		} else if (event instanceof ClassPrepareEventImpl) {
-			return CLASS_PREPARE_TYPE.enabledrequests.get(event.requestID());
-		} else if (event instanceof ClassUnloadEventImpl) {
-			return CLASS_UNLOAD_TYPE.enabledrequests.get(event.requestID());
-		} else if (event instanceof ExceptionEventImpl) {
-			return EXCEPTION_TYPE.enabledrequests.get(event.requestID());
-		} else if (event instanceof MethodEntryEventImpl) {
-			return METHOD_ENTRY_TYPE.enabledrequests.get(event.requestID());
-		} else if (event instanceof MethodExitEventImpl) {
-			return METHOD_EXIT_TYPE.enabledrequests.get(event.requestID());
-		} else if (event instanceof ModificationWatchpointEventImpl) {
-			return MODIFICATION_WATCHPOINT_TYPE.enabledrequests.get(event.requestID());
-		} else if (event instanceof StepEventImpl) {
-			return STEP_TYPE.enabledrequests.get(event.requestID());
-		} else if (event instanceof ThreadDeathEventImpl) {
-			return THREAD_DEATH_TYPE.enabledrequests.get(event.requestID());
-		} else if (event instanceof ThreadStartEventImpl) {
-			return THREAD_START_TYPE.enabledrequests.get(event.requestID());
-		} else if (event instanceof VMDeathEventImpl) {
-			return VM_DEATH_TYPE.enabledrequests.get(event.requestID());
-		} else if(event instanceof MonitorWaitEventImpl) {
-			return MONITOR_WAIT_TYPE.enabledrequests.get(event.requestID());
-		} else if(event instanceof MonitorWaitedEventImpl) {
-			return MONITOR_WAITED_TYPE.enabledrequests.get(event.requestID());
-		} else if(event instanceof MonitorContendedEnterEventImpl) {
-			return MONITOR_CONTENDED_ENTER_TYPE.enabledrequests.get(event.requestID());
-		} else if(event instanceof MonitorContendedEnteredEventImpl) {
-			return MONITOR_CONTENDED_ENTERED_TYPE.enabledrequests.get(event.requestID());
+	 * Finds the request of an event, given the JDWP event kind and request ID
+	 * read from the event. Does not lock.
+	 *
+	 * @return Returns the enabled request with the given ID, or
+	 *         <code>null</code> if there is none.
+	 */
+	public EventRequest findRequest(byte eventKind, int requestID) {
+		EventRequestType<?> type = typeOf(eventKind);
+		if (type == null) {
+			throw new InternalError(RequestMessages.EventRequestManagerImpl_Got_event_of_unknown_type_2);
 		}
-		throw new InternalError(RequestMessages.EventRequestManagerImpl_Got_event_of_unknown_type_2);
+		return type.getEnabled(requestID);
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.jdi.internal.request;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdi.internal.MirrorImpl;
 
@@ -42,6 +43,13 @@ public class RequestID {
 		return fRequestID == NULL_REQUEST_ID;
 	}
 
+	/**
+	 * @return Returns the integer representation of this request ID.
+	 */
+	public int value() {
+		return fRequestID;
+	}
+
 	/**
 	 * @return Returns true if two RequestIDs are the same.
 	 * @see java.lang.Object#equals(Object)
@@ -85,4 +93,12 @@ public class RequestID {
 		int result = target.readInt("request ID", in); //$NON-NLS-1$
 		return new RequestID(result);
 	}
+
+	/**
+	 * @return Returns a new request ID read from stream.
+	 */
+	public static RequestID read(MirrorImpl target, ByteBuffer in) {
+		int result = target.readInt("request ID", in); //$NON-NLS-1$
+		return new RequestID(result);
+	}
 }
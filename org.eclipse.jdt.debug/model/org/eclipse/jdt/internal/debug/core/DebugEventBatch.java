@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.debug.core.DebugEvent;
+import org.eclipse.debug.core.DebugPlugin;
+
+/**
+ * Collects the debug events that the current thread fires, and fires them as
+ * one event set once it is done, rather than one event set per event. When
+ * all threads of a target suspend, their suspend events reach debug event
+ * listeners together instead of one at a time.
+ * <p>
+ * Only the last state of each element is kept: a suspend or resume event
+ * replaces an earlier suspend or resume event of the same element in the
+ * batch, and a change event is dropped if the batch already has one with the
+ * same element and detail.
+ * </p>
+ * <p>
+ * A batch is begun and ended by the same thread:
+ *
+ * <pre>
+ * DebugEventBatch batch = DebugEventBatch.begin();
+ * try {
+ * 	thread.fireSuspendEvent(DebugEvent.CLIENT_REQUEST);
+ * } finally {
+ * 	batch.end();
+ * }
+ * </pre>
+ *
+ * Beginning a batch while one is in progress joins the batch in progress,
+ * which is fired when the outermost caller ends it.
+ * </p>
+ */
+public class DebugEventBatch {
+
+	/**
+	 * The batch in progress in each thread
+	 */
+	private static final ThreadLocal<DebugEventBatch> fgCurrentBatch = new ThreadLocal<>();
+
+	/**
+	 * Identifies the events that replace each other in a batch
+	 */
+	private static final class Key {
+
+		private final Object fSource;
+
+		private final int fKind;
+
+		private final int fDetail;
+
+		Key(Object source, int kind, int detail) {
+			fSource = source;
+			fKind = kind;
+			fDetail = detail;
+		}
+
+		@Override
+		public int hashCode() {
+			return (System.identityHashCode(fSource) * 31 + fKind) * 31 + fDetail;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) obj;
+			return fSource == key.fSource && fKind == key.fKind
+					&& fDetail == key.fDetail;
+		}
+	}
+
+	/**
+	 * Events in the order they were fired, by the key of the events they
+	 * replace, or by themselves if they replace none
+	 */
+	private final Map<Object, DebugEvent> fEvents = new LinkedHashMap<>();
+
+	/**
+	 * Number of callers that have begun and not yet ended this batch
+	 */
+	private int fDepth = 1;
+
+	private DebugEventBatch() {
+	}
+
+	/**
+	 * Begins a batch of debug events in the current thread, or joins the
+	 * batch in progress.
+	 *
+	 * @return the batch to end
+	 */
+	public static DebugEventBatch begin() {
+		DebugEventBatch current = fgCurrentBatch.get();
+		if (current != null) {
+			current.fDepth++;
+			return current;
+		}
+		DebugEventBatch batch = new DebugEventBatch();
+		fgCurrentBatch.set(batch);
+		return batch;
+	}
+
+	/**
+	 * Adds the given event to the batch in progress in the current thread, if
+	 * there is one.
+	 *
+	 * @return whether the event will be fired when the batch ends, or
+	 *         <code>false</code> if it must be fired by the caller
+	 */
+	public static boolean add(DebugEvent event) {
+		DebugEventBatch current = fgCurrentBatch.get();
+		if (current == null) {
+			return false;
+		}
+		current.addEvent(event);
+		return true;
+	}
+
+	/**
+	 * Fires the given events, with the events collected so far by the batch
+	 * in progress in the current thread, if there is one. The batch remains in
+	 * progress.
+	 *
+	 * @param events
+	 *            the events to fire
+	 */
+	public static void fire(Collection<DebugEvent> events) {
+		DebugEventBatch current = fgCurrentBatch.get();
+		if (current == null) {
+			fireEventSet(events);
+			return;
+		}
+		for (DebugEvent event : events) {
+			current.addEvent(event);
+		}
+		current.flush();
+	}
+
+	private void addEvent(DebugEvent event) {
+		Object key;
+		switch (event.getKind()) {
+			case DebugEvent.SUSPEND:
+			case DebugEvent.RESUME:
+				key = new Key(event.getSource(), DebugEvent.SUSPEND, 0);
+				break;
+			case DebugEvent.CHANGE:
+				if (event.getData() != null) {
+					key = event;
+					break;
+				}
+				key = new Key(event.getSource(), DebugEvent.CHANGE, event.getDetail());
+				if (fEvents.containsKey(key)) {
+					return;
+				}
+				break;
+			default:
+				key = event;
+		}
+		// the last state of the element is fired after the events before it
+		fEvents.remove(key);
+		fEvents.put(key, event);
+	}
+
+	/**
+	 * Fires the events of this batch, unless an outer caller has joined it
+	 * and will fire them.
+	 */
+	public void end() {
+		if (--fDepth > 0) {
+			return;
+		}
+		fgCurrentBatch.remove();
+		flush();
+	}
+
+	private void flush() {
+		if (fEvents.isEmpty()) {
+			return;
+		}
+		// listeners may fire events of their own
+		List<DebugEvent> events = new ArrayList<>(fEvents.values());
+		fEvents.clear();
+		fireEventSet(events);
+	}
+
+	private static void fireEventSet(Collection<DebugEvent> events) {
+		DebugPlugin plugin = DebugPlugin.getDefault();
+		if (plugin != null && !events.isEmpty()) { // check that not in the process of shutting down
+			plugin.fireDebugEventSet(events.toArray(new DebugEvent[events.size()]));
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,29 +10,43 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.debug.core;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.debug.core.DebugEvent;
 import org.eclipse.debug.core.DebugException;
-import org.eclipse.debug.core.DebugPlugin;
 import org.eclipse.jdt.debug.core.IJavaLineBreakpoint;
+import org.eclipse.jdt.internal.debug.core.breakpoints.JavaBreakpoint;
 import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
 
+import com.sun.jdi.ThreadReference;
 import com.sun.jdi.VMDisconnectedException;
 import com.sun.jdi.VirtualMachine;
+import com.sun.jdi.event.ClassPrepareEvent;
 import com.sun.jdi.event.Event;
 import com.sun.jdi.event.EventIterator;
 import com.sun.jdi.event.EventQueue;
 import com.sun.jdi.event.EventSet;
+import com.sun.jdi.event.LocatableEvent;
+import com.sun.jdi.event.ThreadDeathEvent;
+import com.sun.jdi.event.ThreadStartEvent;
 import com.sun.jdi.event.VMDeathEvent;
 import com.sun.jdi.event.VMDisconnectEvent;
 import com.sun.jdi.event.VMStartEvent;
@@ -55,6 +69,19 @@ import com.sun.jdi.request.EventRequest;
  * only resumed in if all event handlers agree that the thread should be
  * resumed.
  * </p>
+ * <p>
+ * Event sets are dispatched one at a time, unless the
+ * {@link JDIDebugPlugin#PREF_EVENT_DISPATCH_THREADS} preference allows more
+ * than one dispatch thread. Event sets that occurred in a single thread and
+ * suspend at most that thread are then dispatched by a pool of worker threads,
+ * in the order they occurred in each thread. Other event sets, such as VM
+ * death and class prepare events, are dispatched once all event sets received
+ * before them have been dispatched, and before any received after them. They
+ * are queued behind the workers rather than waited for, so that events keep
+ * being read while the workers dispatch. An event set that occurred in a thread
+ * the workers are dispatching the events of, such as a class prepare event
+ * caused by a method invoked by a listener, is dispatched right away.
+ * </p>
  */
 
 public class EventDispatcher implements Runnable {
@@ -70,7 +97,33 @@ public class EventDispatcher implements Runnable {
 	 * Table of event listeners. Table is a mapping of <code>EventRequest</code>
 	 * to <code>IJDIEventListener</code>.
 	 */
-	private HashMap<EventRequest, IJDIEventListener> fEventHandlers;
+	private Map<EventRequest, IJDIEventListener> fEventHandlers;
+
+	/**
+	 * Workers dispatching event sets of different threads in parallel, or
+	 * <code>null</code> if event sets are dispatched one at a time.
+	 */
+	private ExecutorService fWorkers;
+
+	/**
+	 * Event sets waiting to be dispatched by a worker, by the thread they
+	 * occurred in. A thread has an entry while a worker dispatches its event
+	 * sets.
+	 */
+	private final Map<ThreadReference, ArrayDeque<EventSet>> fPendingByThread = new HashMap<>();
+
+	/**
+	 * Event sets that must be dispatched on their own, waiting for the workers
+	 * to finish, followed by the event sets received after them, in the order
+	 * they were received. Guarded by <code>fPendingByThread</code>.
+	 */
+	private final ArrayDeque<EventSet> fBlocked = new ArrayDeque<>();
+
+	/**
+	 * Whether the event sets in <code>fBlocked</code> are being released.
+	 * Guarded by <code>fPendingByThread</code>.
+	 */
+	private boolean fReleasing;
 
 	/**
 	 * Queue of debug model events to fire, created when processing events on
@@ -86,13 +139,43 @@ public class EventDispatcher implements Runnable {
 	 *            the target this event dispatcher belongs to
 	 */
 	public EventDispatcher(JDIDebugTarget target) {
-		fEventHandlers = new HashMap<>(10);
+		fEventHandlers = new ConcurrentHashMap<>(10);
 		fTarget = target;
 		fShutdown = false;
+		int threads = Platform.getPreferencesService().getInt(
+				JDIDebugPlugin.getUniqueIdentifier(),
+				JDIDebugPlugin.PREF_EVENT_DISPATCH_THREADS,
+				JDIDebugPlugin.DEF_EVENT_DISPATCH_THREADS, null);
+		if (threads > 1) {
+			fWorkers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				private final AtomicInteger fCount = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "JDI Event Dispatch Worker " + fCount.incrementAndGet()); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
 	}
 
 	/**
-	 * Dispatch the given event set.
+	 * Returns the listener registered for the request of the given event, or
+	 * <code>null</code> if none.
+	 */
+	private IJDIEventListener getListener(Event event) {
+		EventRequest request = event.request();
+		if (request == null) {
+			// VM start, death and disconnect events
+			return null;
+		}
+		return fEventHandlers.get(request);
+	}
+
+	/**
+	 * Dispatch the given event set. Debug events fired while it is dispatched
+	 * are fired as one event set.
 	 *
 	 * @param eventSet
 	 *            events to dispatch
@@ -101,6 +184,15 @@ public class EventDispatcher implements Runnable {
 		if (isShutdown()) {
 			return;
 		}
+		DebugEventBatch batch = DebugEventBatch.begin();
+		try {
+			dispatchEvents(eventSet);
+		} finally {
+			batch.end();
+		}
+	}
+
+	private void dispatchEvents(EventSet eventSet) {
 		if (JDIDebugOptions.DEBUG_JDI_EVENTS) {
 			EventIterator eventIter = eventSet.eventIterator();
 			StringBuffer buf = new StringBuffer("JDI Event Set: {\n"); //$NON-NLS-1$
@@ -129,7 +221,7 @@ public class EventDispatcher implements Runnable {
 				continue;
 			}
 			// Dispatch events to registered listeners, if any
-			IJDIEventListener listener = fEventHandlers.get(event.request());
+			IJDIEventListener listener = getListener(event);
 			listeners[index] = listener;
 			if (listener != null) {
 				if (listener instanceof IJavaLineBreakpoint) {
@@ -137,7 +229,7 @@ public class EventDispatcher implements Runnable {
 					// until after
 					// other listeners vote.
 					try {
-						if (((IJavaLineBreakpoint) listener).isConditionEnabled()) {
+						if (isConditionEnabled((IJavaLineBreakpoint) listener)) {
 							if (deferredEvents == null) {
 								deferredEvents = new ArrayList<>(5);
 							}
@@ -179,8 +271,7 @@ public class EventDispatcher implements Runnable {
 					continue;
 				}
 				// Dispatch events to registered listeners, if any
-				IJDIEventListener listener = fEventHandlers
-						.get(event.request());
+				IJDIEventListener listener = getListener(event);
 				if (listener != null) {
 					vote = true;
 					resume = listener.handleEvent(event, fTarget, !resume, eventSet) && resume;
@@ -220,6 +311,19 @@ public class EventDispatcher implements Runnable {
 		}
 	}
 
+	/**
+	 * Returns whether the given breakpoint has an enabled condition, reading
+	 * the attribute snapshot of Java breakpoints rather than their marker.
+	 */
+	private static boolean isConditionEnabled(IJavaLineBreakpoint breakpoint)
+			throws CoreException {
+		if (breakpoint instanceof JavaBreakpoint) {
+			return ((JavaBreakpoint) breakpoint).getAttributeSnapshot()
+					.isConditionEnabled();
+		}
+		return breakpoint.isConditionEnabled();
+	}
+
 	private boolean requiresExpressionEvaluation(EventSet eventSet) {
 		EventIterator iter = eventSet.eventIterator();
 		while (iter.hasNext()) {
@@ -227,10 +331,10 @@ public class EventDispatcher implements Runnable {
 			if (event == null) {
 				continue;
 			}
-			IJDIEventListener listener = fEventHandlers.get(event.request());
+			IJDIEventListener listener = getListener(event);
 			if (listener instanceof IJavaLineBreakpoint) {
 				try {
-					if (((IJavaLineBreakpoint) listener).isConditionEnabled()) {
+					if (isConditionEnabled((IJavaLineBreakpoint) listener)) {
 						return true;
 					}
 				}
@@ -242,6 +346,195 @@ public class EventDispatcher implements Runnable {
 		return false;
 	}
 
+	/**
+	 * Returns the thread the given event set occurred in, if the event set may
+	 * be dispatched in parallel with those of other threads, or
+	 * <code>null</code> if it must be dispatched on its own: when it suspends
+	 * all threads, or contains events that are not specific to a single
+	 * thread.
+	 */
+	private ThreadReference getDispatchThread(EventSet eventSet) {
+		if (eventSet.suspendPolicy() == EventRequest.SUSPEND_ALL) {
+			return null;
+		}
+		ThreadReference thread = null;
+		EventIterator iter = eventSet.eventIterator();
+		while (iter.hasNext()) {
+			Event event = iter.nextEvent();
+			if (event instanceof ClassPrepareEvent) {
+				return null;
+			}
+			ThreadReference eventThread = getThread(event);
+			if (eventThread == null || (thread != null && !thread.equals(eventThread))) {
+				return null;
+			}
+			thread = eventThread;
+		}
+		return thread;
+	}
+
+	/**
+	 * Returns the thread the given event occurred in, or <code>null</code> if
+	 * none.
+	 */
+	private static ThreadReference getThread(Event event) {
+		if (event instanceof LocatableEvent) {
+			return ((LocatableEvent) event).thread();
+		} else if (event instanceof ThreadStartEvent) {
+			return ((ThreadStartEvent) event).thread();
+		} else if (event instanceof ThreadDeathEvent) {
+			return ((ThreadDeathEvent) event).thread();
+		} else if (event instanceof ClassPrepareEvent) {
+			return ((ClassPrepareEvent) event).thread();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns whether an event of the given event set occurred in a thread
+	 * the workers are dispatching the events of. The thread then runs a method
+	 * invoked while its events are dispatched, which cannot return until the
+	 * event set is dispatched. Must be called holding
+	 * <code>fPendingByThread</code>.
+	 */
+	private boolean occurredInDispatchedThread(EventSet eventSet) {
+		EventIterator iter = eventSet.eventIterator();
+		while (iter.hasNext()) {
+			ThreadReference thread = getThread(iter.nextEvent());
+			if (thread != null && fPendingByThread.containsKey(thread)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Dispatches the given event set read from the event queue. Does not wait
+	 * for the workers: an event set that must be dispatched on its own while
+	 * they are busy is queued, with the event sets received after it, until
+	 * they are done.
+	 */
+	private void schedule(EventSet eventSet) {
+		ThreadReference thread = getDispatchThread(eventSet);
+		synchronized (fPendingByThread) {
+			boolean wait = fReleasing || !fBlocked.isEmpty() || (thread == null && !fPendingByThread.isEmpty());
+			// a worker waiting for the event set would never finish
+			if (wait && !(thread == null && occurredInDispatchedThread(eventSet))) {
+				fBlocked.add(eventSet);
+				return;
+			}
+		}
+		if (thread != null) {
+			dispatchByWorker(thread, eventSet);
+		} else {
+			dispatchOrEvaluate(eventSet);
+		}
+	}
+
+	/**
+	 * Dispatches the queued event sets in the order they were received, until
+	 * one must wait for the workers again. Called by the last worker to finish.
+	 */
+	private void releaseBlocked() {
+		while (true) {
+			EventSet eventSet;
+			ThreadReference thread;
+			synchronized (fPendingByThread) {
+				eventSet = fBlocked.peek();
+				thread = eventSet == null ? null : getDispatchThread(eventSet);
+				if (eventSet == null || (thread == null && !fPendingByThread.isEmpty())) {
+					// the last worker to finish releases the rest
+					fReleasing = false;
+					return;
+				}
+				fBlocked.poll();
+				fReleasing = true;
+			}
+			if (thread != null) {
+				dispatchByWorker(thread, eventSet);
+			} else {
+				dispatchOrEvaluate(eventSet);
+			}
+		}
+	}
+
+	/**
+	 * Dispatches the given event set, in a job if conditions have to be
+	 * evaluated.
+	 */
+	private void dispatchOrEvaluate(final EventSet eventSet) {
+		if (!requiresExpressionEvaluation(eventSet)) {
+			dispatch(eventSet);
+		} else {
+			// 269231 always evaluate expressions in a separate job to avoid deadlocks
+			Job job = new AbstractDispatchJob("JDI Expression Evaluation Event Dispatch") { //$NON-NLS-1$
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					dispatch(eventSet);
+					return Status.OK_STATUS;
+				}
+			};
+			job.setSystem(true);
+			job.schedule();
+		}
+	}
+
+	/**
+	 * Dispatches the given event set by a worker, after the event sets of the
+	 * same thread received before it.
+	 */
+	private void dispatchByWorker(final ThreadReference thread, final EventSet eventSet) {
+		synchronized (fPendingByThread) {
+			ArrayDeque<EventSet> pending = fPendingByThread.get(thread);
+			if (pending != null) {
+				pending.add(eventSet);
+				return;
+			}
+			fPendingByThread.put(thread, new ArrayDeque<EventSet>(2));
+		}
+		try {
+			fWorkers.execute(new Runnable() {
+				@Override
+				public void run() {
+					dispatchPending(thread, eventSet);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// shut down
+			dispatchPending(thread, eventSet);
+		}
+	}
+
+	/**
+	 * Dispatches the given event set, and those of the same thread received
+	 * while it is dispatched.
+	 */
+	private void dispatchPending(ThreadReference thread, EventSet eventSet) {
+		EventSet next = eventSet;
+		boolean release = false;
+		while (next != null) {
+			try {
+				dispatchOrEvaluate(next);
+			} catch (RuntimeException e) {
+				JDIDebugPlugin.log(e);
+			} finally {
+				synchronized (fPendingByThread) {
+					next = fPendingByThread.get(thread).poll();
+					if (next == null) {
+						fPendingByThread.remove(thread);
+						if (fPendingByThread.isEmpty() && !fBlocked.isEmpty() && !fReleasing) {
+							fReleasing = true;
+							release = true;
+						}
+					}
+				}
+			}
+		}
+		if (release) {
+			releaseBlocked();
+		}
+	}
+
 	/** @noreference public for test purposes */
 	public abstract class AbstractDispatchJob extends Job {
 		protected AbstractDispatchJob(String name) {
@@ -287,19 +580,10 @@ public class EventDispatcher implements Runnable {
 					}
 
 					if (eventSet != null) {
-						if (!requiresExpressionEvaluation(eventSet)) {
-							dispatch(eventSet);
+						if (fWorkers != null) {
+							schedule(eventSet);
 						} else {
-							// 269231 always evaluate expressions in a separate job to avoid deadlocks
-							Job job = new AbstractDispatchJob("JDI Expression Evaluation Event Dispatch") { //$NON-NLS-1$
-								@Override
-								protected IStatus run(IProgressMonitor monitor) {
-									dispatch(eventSet);
-									return Status.OK_STATUS;
-								}
-							};
-							job.setSystem(true);
-							job.schedule();
+							dispatchOrEvaluate(eventSet);
 						}
 					}
 				} catch (InterruptedException e) {
@@ -307,6 +591,9 @@ public class EventDispatcher implements Runnable {
 				}
 			}
 		}
+		if (fWorkers != null) {
+			fWorkers.shutdown();
+		}
 	}
 
 	/**
@@ -317,6 +604,9 @@ public class EventDispatcher implements Runnable {
 	public void shutdown() {
 		fShutdown = true;
 		Job.getJobManager().cancel(this);
+		if (fWorkers != null) {
+			fWorkers.shutdown();
+		}
 	}
 
 	/**
@@ -380,21 +670,19 @@ public class EventDispatcher implements Runnable {
 
 	/**
 	 * Fires debug events in the event queue associated with the given event
-	 * set, and clears the queue.
+	 * set, with the debug events fired so far while dispatching it, and clears
+	 * the queue.
 	 * @param set the set to fire events for
 	 */
 	private void fireEvents(EventSet set) {
-		DebugPlugin plugin = DebugPlugin.getDefault();
-		if (plugin != null) { // check that not in the process of shutting down
-			List<DebugEvent> list = null;
-			synchronized (fSetToQueue) {
-				list = fSetToQueue.remove(set);
-			}
-			if (list != null) {
-				DebugEvent[] events = list.toArray(new DebugEvent[list.size()]);
-				plugin.fireDebugEventSet(events);
-			}
+		List<DebugEvent> list = null;
+		synchronized (fSetToQueue) {
+			list = fSetToQueue.remove(set);
+		}
+		if (list == null) {
+			list = Collections.emptyList();
 		}
+		DebugEventBatch.fire(list);
 	}
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -41,6 +41,7 @@ import org.eclipse.jdt.debug.core.IJavaType;
 import org.eclipse.jdt.debug.core.JDIDebugModel;
 import org.eclipse.jdt.debug.eval.IAstEvaluationEngine;
 import org.eclipse.jdt.internal.debug.core.breakpoints.BreakpointListenerManager;
+import org.eclipse.jdt.internal.debug.core.breakpoints.JavaBreakpoint;
 import org.eclipse.jdt.internal.debug.core.hcr.JavaHotCodeReplaceManager;
 import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
 import org.eclipse.jdt.internal.debug.core.model.JDIThread;
@@ -115,6 +116,126 @@ public class JDIDebugPlugin extends Plugin implements IEclipsePreferences.IPrefe
 	public static final String PREF_ENABLE_ADVANCED_SOURCELOOKUP = JDIDebugPlugin
 			.getUniqueIdentifier() + ".enable_advanced_sourcelookup"; //$NON-NLS-1$
 
+	/**
+	 * Boolean preference controlling whether the class table of a target VM is
+	 * fetched in bulk when the debug target is created, so that types can be
+	 * looked up by name without a request to the VM.
+	 *
+	 * @since 3.11
+	 */
+	public static final String PREF_HYDRATE_CLASSES = JDIDebugPlugin
+			.getUniqueIdentifier() + ".hydrate_classes"; //$NON-NLS-1$
+
+	/**
+	 * Integer preference for the maximum number of field value and line table
+	 * requests that may be waiting for a reply from the VM when the values of
+	 * many fields or the line tables of all methods of a type are retrieved in
+	 * a batch. A value of 1 disables pipelining.
+	 *
+	 * @since 3.11
+	 */
+	public static final String PREF_VALUE_FETCH_PIPELINE_DEPTH = JDIDebugPlugin
+			.getUniqueIdentifier() + ".value_fetch_pipeline_depth"; //$NON-NLS-1$
+
+	/**
+	 * Integer preference for the maximum number of breakpoint requests that
+	 * may be waiting for a reply from the VM when the breakpoints of a debug
+	 * target or of a newly loaded class are installed. A value of 1 disables
+	 * pipelining.
+	 *
+	 * @since 3.11
+	 */
+	public static final String PREF_BREAKPOINT_INSTALL_PIPELINE_DEPTH = JDIDebugPlugin
+			.getUniqueIdentifier() + ".breakpoint_install_pipeline_depth"; //$NON-NLS-1$
+
+	/**
+	 * Default value of the pipeline depth preferences
+	 * {@link #PREF_VALUE_FETCH_PIPELINE_DEPTH} and
+	 * {@link #PREF_BREAKPOINT_INSTALL_PIPELINE_DEPTH}.
+	 *
+	 * @since 3.11
+	 */
+	public static final int DEF_PIPELINE_DEPTH = 16;
+
+	/**
+	 * Integer preference for the maximum number of compiled breakpoint
+	 * conditions that are kept for reuse by the threads and debug targets in
+	 * which the breakpoints are hit.
+	 *
+	 * @since 3.11
+	 */
+	public static final String PREF_COMPILED_CONDITION_CACHE_SIZE = JDIDebugPlugin
+			.getUniqueIdentifier() + ".compiled_condition_cache_size"; //$NON-NLS-1$
+
+	/**
+	 * Default value of {@link #PREF_COMPILED_CONDITION_CACHE_SIZE}.
+	 *
+	 * @since 3.11
+	 */
+	public static final int DEF_COMPILED_CONDITION_CACHE_SIZE = 100;
+
+	/**
+	 * Integer preference for the time in milliseconds a breakpoint condition
+	 * may take to evaluate, unless the breakpoint specifies its own, or 0 for
+	 * no limit. The event dispatch thread of the target waits for the
+	 * evaluation in the meantime.
+	 *
+	 * @since 3.11
+	 */
+	public static final String PREF_CONDITION_EVALUATION_TIMEOUT = JDIDebugPlugin
+			.getUniqueIdentifier() + ".condition_evaluation_timeout"; //$NON-NLS-1$
+
+	/**
+	 * Default value of {@link #PREF_CONDITION_EVALUATION_TIMEOUT}.
+	 *
+	 * @since 3.11
+	 */
+	public static final int DEF_CONDITION_EVALUATION_TIMEOUT = 10000;
+
+	/**
+	 * Boolean preference controlling whether a thread suspends at a
+	 * conditional breakpoint whose condition did not evaluate in time, or
+	 * resumes.
+	 *
+	 * @since 3.11
+	 */
+	public static final String PREF_SUSPEND_ON_CONDITION_TIMEOUT = JDIDebugPlugin
+			.getUniqueIdentifier() + ".suspend_on_condition_timeout"; //$NON-NLS-1$
+
+	/**
+	 * Integer preference for the number of threads dispatching the JDI event
+	 * sets of a debug target. Event sets of different threads of the target
+	 * are dispatched in parallel when greater than 1.
+	 *
+	 * @since 3.11
+	 */
+	public static final String PREF_EVENT_DISPATCH_THREADS = JDIDebugPlugin
+			.getUniqueIdentifier() + ".event_dispatch_threads"; //$NON-NLS-1$
+
+	/**
+	 * Default value of {@link #PREF_EVENT_DISPATCH_THREADS}.
+	 *
+	 * @since 3.11
+	 */
+	public static final int DEF_EVENT_DISPATCH_THREADS = 1;
+
+	/**
+	 * Integer preference for the number of stack frames retrieved when a
+	 * thread suspends, or 0 to retrieve all frames. Further frames are
+	 * retrieved when they are accessed.
+	 *
+	 * @since 3.11
+	 */
+	public static final String PREF_STACK_FRAME_PAGE_SIZE = JDIDebugPlugin
+			.getUniqueIdentifier() + ".stack_frame_page_size"; //$NON-NLS-1$
+
+	/**
+	 * Default value of {@link #PREF_STACK_FRAME_PAGE_SIZE}.
+	 *
+	 * @since 3.11
+	 */
+	public static final int DEF_STACK_FRAME_PAGE_SIZE = 32;
+
 	/**
 	 * Extension point for java logical structures.
 	 *
@@ -390,6 +511,18 @@ public class JDIDebugPlugin extends Plugin implements IEclipsePreferences.IPrefe
 					((IJavaDebugTarget) target).setRequestTimeout(value);
 				}
 			}
+		} else if (event.getKey().equals(PREF_VALUE_FETCH_PIPELINE_DEPTH)) {
+			int value = Platform.getPreferencesService().getInt(
+					JDIDebugPlugin.getUniqueIdentifier(),
+					PREF_VALUE_FETCH_PIPELINE_DEPTH,
+					DEF_PIPELINE_DEPTH,
+					null);
+			IDebugTarget[] targets = DebugPlugin.getDefault().getLaunchManager().getDebugTargets();
+			for (IDebugTarget target : targets) {
+				if (target instanceof JDIDebugTarget) {
+					((JDIDebugTarget) target).setPipelineDepth(value);
+				}
+			}
 		}
 	}
 
@@ -548,10 +681,21 @@ public class JDIDebugPlugin extends Plugin implements IEclipsePreferences.IPrefe
 		protected void notifyListeners(IJavaBreakpoint breakpoint) {
 			fBreakpoint = breakpoint;
 			String[] ids = null;
-			try {
-				ids = breakpoint.getBreakpointListeners();
-			} catch (CoreException e) {
-				JDIDebugPlugin.log(e);
+			if (breakpoint instanceof JavaBreakpoint) {
+				// the snapshot spares reading the marker on every hit
+				try {
+					ids = ((JavaBreakpoint) breakpoint).getAttributeSnapshot()
+							.getBreakpointListeners();
+				} catch (CoreException e) {
+					// the marker may have been deleted, use the breakpoint's copy
+				}
+			}
+			if (ids == null) {
+				try {
+					ids = breakpoint.getBreakpointListeners();
+				} catch (CoreException e) {
+					JDIDebugPlugin.log(e);
+				}
 			}
 			// breakpoint specific listener extensions
 			if (ids != null && ids.length > 0) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2016 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -45,5 +45,13 @@ public class JDIDebugPluginPreferenceInitializer extends
 		node.putBoolean(JDIDebugModel.PREF_FILTER_BREAKPOINTS_FROM_UNRELATED_SOURCES, true);
 		node.putBoolean(JDIDebugModel.PREF_SHOW_STEP_RESULT, true);
 		node.putBoolean(JDIDebugPlugin.PREF_ENABLE_ADVANCED_SOURCELOOKUP, true);
+		node.putBoolean(JDIDebugPlugin.PREF_HYDRATE_CLASSES, false);
+		node.putInt(JDIDebugPlugin.PREF_VALUE_FETCH_PIPELINE_DEPTH, JDIDebugPlugin.DEF_PIPELINE_DEPTH);
+		node.putInt(JDIDebugPlugin.PREF_BREAKPOINT_INSTALL_PIPELINE_DEPTH, JDIDebugPlugin.DEF_PIPELINE_DEPTH);
+		node.putInt(JDIDebugPlugin.PREF_COMPILED_CONDITION_CACHE_SIZE, JDIDebugPlugin.DEF_COMPILED_CONDITION_CACHE_SIZE);
+		node.putInt(JDIDebugPlugin.PREF_CONDITION_EVALUATION_TIMEOUT, JDIDebugPlugin.DEF_CONDITION_EVALUATION_TIMEOUT);
+		node.putBoolean(JDIDebugPlugin.PREF_SUSPEND_ON_CONDITION_TIMEOUT, true);
+		node.putInt(JDIDebugPlugin.PREF_EVENT_DISPATCH_THREADS, JDIDebugPlugin.DEF_EVENT_DISPATCH_THREADS);
+		node.putInt(JDIDebugPlugin.PREF_STACK_FRAME_PAGE_SIZE, JDIDebugPlugin.DEF_STACK_FRAME_PAGE_SIZE);
 	}
 }
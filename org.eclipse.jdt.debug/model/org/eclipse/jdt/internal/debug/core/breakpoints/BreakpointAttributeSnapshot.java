@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.breakpoints;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.debug.core.model.IBreakpoint;
+import org.eclipse.debug.core.model.ITriggerPoint;
+import org.eclipse.jdt.debug.core.IJavaBreakpoint;
+
+/**
+ * An immutable copy of the marker attributes of a Java breakpoint, read by the
+ * event dispatch thread instead of the marker itself. Reading a marker
+ * attribute goes through the workspace, which is costly when a breakpoint is
+ * hit many times.
+ * <p>
+ * A snapshot is tagged with the version of the breakpoint's attributes it was
+ * copied from. The breakpoint takes a new snapshot when the attributes have
+ * changed since, see {@link JavaBreakpoint#getAttributeSnapshot()}.
+ * </p>
+ * <p>
+ * Accessors answer as the corresponding marker accessors would: the default
+ * value is returned when an attribute is not set or has an unexpected type.
+ * </p>
+ */
+public final class BreakpointAttributeSnapshot {
+
+	private final Map<String, Object> fAttributes;
+
+	private final int fVersion;
+
+	BreakpointAttributeSnapshot(Map<String, Object> attributes, int version) {
+		if (attributes == null || attributes.isEmpty()) {
+			fAttributes = Collections.emptyMap();
+		} else {
+			fAttributes = new HashMap<>(attributes);
+		}
+		fVersion = version;
+	}
+
+	/**
+	 * @return the version of the breakpoint attributes this snapshot was
+	 *         copied from
+	 */
+	int getVersion() {
+		return fVersion;
+	}
+
+	/**
+	 * Returns the value of the given attribute, or <code>null</code> if it is
+	 * not set.
+	 */
+	public Object getAttribute(String attributeName) {
+		return fAttributes.get(attributeName);
+	}
+
+	public boolean getAttribute(String attributeName, boolean defaultValue) {
+		Object value = fAttributes.get(attributeName);
+		if (value instanceof Boolean) {
+			return ((Boolean) value).booleanValue();
+		}
+		return defaultValue;
+	}
+
+	public int getAttribute(String attributeName, int defaultValue) {
+		Object value = fAttributes.get(attributeName);
+		if (value instanceof Integer) {
+			return ((Integer) value).intValue();
+		}
+		return defaultValue;
+	}
+
+	public String getAttribute(String attributeName, String defaultValue) {
+		Object value = fAttributes.get(attributeName);
+		if (value instanceof String) {
+			return (String) value;
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * @see IBreakpoint#isEnabled()
+	 */
+	public boolean isEnabled() {
+		return getAttribute(IBreakpoint.ENABLED, false);
+	}
+
+	/**
+	 * @see ITriggerPoint#isTriggerPoint()
+	 */
+	public boolean isTriggerPoint() {
+		return getAttribute(ITriggerPoint.TRIGGERPOINT, false);
+	}
+
+	/**
+	 * @see IJavaBreakpoint#getBreakpointListeners()
+	 */
+	public String[] getBreakpointListeners() {
+		String value = getAttribute(JavaBreakpoint.BREAKPOINT_LISTENERS,
+				(String) null);
+		if (value == null || value.length() == 0) {
+			return new String[0];
+		}
+		return value.split(","); //$NON-NLS-1$
+	}
+
+	/**
+	 * @see IJavaBreakpoint#getSuspendPolicy()
+	 */
+	public int getSuspendPolicy() {
+		return getAttribute(JavaBreakpoint.SUSPEND_POLICY,
+				IJavaBreakpoint.SUSPEND_THREAD);
+	}
+
+	/**
+	 * @see IJavaBreakpoint#getHitCount()
+	 */
+	public int getHitCount() {
+		return getAttribute(JavaBreakpoint.HIT_COUNT, -1);
+	}
+
+	/**
+	 * @see JavaBreakpoint#isExpired()
+	 */
+	public boolean isExpired() {
+		return getAttribute(JavaBreakpoint.EXPIRED, false);
+	}
+
+	/**
+	 * @see IJavaBreakpoint#getTypeName()
+	 */
+	public String getTypeName() {
+		return getAttribute(JavaBreakpoint.TYPE_NAME, (String) null);
+	}
+
+	/**
+	 * @see JavaLineBreakpoint#getCondition()
+	 */
+	public String getCondition() {
+		return getAttribute(JavaLineBreakpoint.CONDITION, (String) null);
+	}
+
+	/**
+	 * @see JavaLineBreakpoint#isConditionEnabled()
+	 */
+	public boolean isConditionEnabled() {
+		return getAttribute(JavaLineBreakpoint.CONDITION_ENABLED, false);
+	}
+
+	/**
+	 * @see JavaLineBreakpoint#isConditionSuspendOnTrue()
+	 */
+	public boolean isConditionSuspendOnTrue() {
+		return getAttribute(JavaLineBreakpoint.CONDITION_SUSPEND_ON_TRUE, true);
+	}
+
+	/**
+	 * @see JavaLineBreakpoint#getConditionTimeout()
+	 */
+	public int getConditionTimeout() {
+		return getAttribute(JavaLineBreakpoint.CONDITION_TIMEOUT, -1);
+	}
+
+	/**
+	 * @return whether the breakpoint has an enabled, non-empty condition
+	 * @see JavaLineBreakpoint#hasCondition()
+	 */
+	public boolean hasCondition() {
+		String condition = getCondition();
+		return isConditionEnabled() && condition != null
+				&& (condition.length() > 0);
+	}
+}
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.breakpoints;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.jdi.internal.request.EventRequestManagerImpl;
+import org.eclipse.jdt.internal.debug.core.JDIDebugOptions;
+import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
+import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
+
+import com.sun.jdi.VMDisconnectedException;
+import com.sun.jdi.request.EventRequest;
+import com.sun.jdi.request.EventRequestManager;
+
+/**
+ * Collects the breakpoint requests that the current thread creates in a debug
+ * target, and enables them together once all of them are configured. The
+ * EventRequest.Set commands are then sent without waiting for each reply, up
+ * to {@link JDIDebugPlugin#PREF_BREAKPOINT_INSTALL_PIPELINE_DEPTH} at a
+ * time, rather than with a round trip to the VM per request.
+ * <p>
+ * A batch is begun and installed by the same thread:
+ *
+ * <pre>
+ * BreakpointInstallBatch batch = BreakpointInstallBatch.begin(target);
+ * try {
+ * 	breakpoint.addToTarget(target);
+ * } finally {
+ * 	batch.install();
+ * }
+ * </pre>
+ *
+ * Beginning a batch while one is in progress for the same target joins the
+ * batch in progress, which is installed when the outermost caller installs
+ * it.
+ * </p>
+ */
+public class BreakpointInstallBatch {
+
+	/**
+	 * The batch in progress in each thread
+	 */
+	private static final ThreadLocal<BreakpointInstallBatch> fgCurrentBatch = new ThreadLocal<>();
+
+	private final JDIDebugTarget fTarget;
+
+	/**
+	 * The batch that was in progress when this one began, for another target
+	 */
+	private final BreakpointInstallBatch fOuterBatch;
+
+	private final List<EventRequest> fRequests = new ArrayList<>();
+
+	/**
+	 * Number of callers that have begun and not yet installed this batch
+	 */
+	private int fDepth = 1;
+
+	private BreakpointInstallBatch(JDIDebugTarget target,
+			BreakpointInstallBatch outerBatch) {
+		fTarget = target;
+		fOuterBatch = outerBatch;
+	}
+
+	/**
+	 * Begins a batch of breakpoint requests in the given target in the
+	 * current thread, or joins the batch in progress.
+	 *
+	 * @param target
+	 *            the target the breakpoints are installed in
+	 * @return the batch to install
+	 */
+	public static BreakpointInstallBatch begin(JDIDebugTarget target) {
+		BreakpointInstallBatch current = fgCurrentBatch.get();
+		if (current != null && current.fTarget == target) {
+			current.fDepth++;
+			return current;
+		}
+		BreakpointInstallBatch batch = new BreakpointInstallBatch(target, current);
+		fgCurrentBatch.set(batch);
+		return batch;
+	}
+
+	/**
+	 * Adds the given configured request to the batch in progress for the
+	 * given target in the current thread, if there is one.
+	 *
+	 * @return whether the request will be enabled when the batch is
+	 *         installed, or <code>false</code> if it must be enabled by the
+	 *         caller
+	 */
+	static boolean enableLater(EventRequest request, JDIDebugTarget target) {
+		BreakpointInstallBatch current = fgCurrentBatch.get();
+		if (current == null || current.fTarget != target) {
+			return false;
+		}
+		current.fRequests.add(request);
+		return true;
+	}
+
+	/**
+	 * Enables the requests of this batch, unless an outer caller has joined
+	 * it and will install it.
+	 */
+	public void install() {
+		if (--fDepth > 0) {
+			return;
+		}
+		if (fOuterBatch == null) {
+			fgCurrentBatch.remove();
+		} else {
+			fgCurrentBatch.set(fOuterBatch);
+		}
+		if (fRequests.isEmpty()) {
+			return;
+		}
+		long start = System.currentTimeMillis();
+		int failed = 0;
+		try {
+			EventRequestManager manager = fTarget.getEventRequestManager();
+			if (manager instanceof EventRequestManagerImpl) {
+				int depth = Platform.getPreferencesService().getInt(
+						JDIDebugPlugin.getUniqueIdentifier(),
+						JDIDebugPlugin.PREF_BREAKPOINT_INSTALL_PIPELINE_DEPTH,
+						JDIDebugPlugin.DEF_PIPELINE_DEPTH, null);
+				Map<EventRequest, RuntimeException> failures = ((EventRequestManagerImpl) manager)
+						.enable(fRequests, depth);
+				failed = failures.size();
+				for (RuntimeException e : failures.values()) {
+					fTarget.internalError(e);
+				}
+			} else if (manager != null) {
+				for (EventRequest request : fRequests) {
+					try {
+						request.enable();
+					} catch (VMDisconnectedException e) {
+						throw e;
+					} catch (RuntimeException e) {
+						failed++;
+						fTarget.internalError(e);
+					}
+				}
+			}
+		} catch (VMDisconnectedException e) {
+			return;
+		} catch (RuntimeException e) {
+			fTarget.internalError(e);
+		}
+		if (JDIDebugOptions.DEBUG_BREAKPOINT_INSTALL) {
+			StringBuffer buf = new StringBuffer();
+			buf.append(JDIDebugOptions.FORMAT.format(new Date(start)));
+			buf.append(" Breakpoint requests installed: "); //$NON-NLS-1$
+			buf.append(fRequests.size());
+			buf.append(" in "); //$NON-NLS-1$
+			buf.append(System.currentTimeMillis() - start);
+			buf.append("ms"); //$NON-NLS-1$
+			if (failed > 0) {
+				buf.append(" failed: "); //$NON-NLS-1$
+				buf.append(failed);
+			}
+			JDIDebugOptions.trace(buf.toString());
+		}
+	}
+}
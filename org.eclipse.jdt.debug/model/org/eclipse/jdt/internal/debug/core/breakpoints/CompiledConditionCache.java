@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.breakpoints;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.debug.core.IJavaBreakpoint;
+import org.eclipse.jdt.debug.core.IJavaStackFrame;
+import org.eclipse.jdt.debug.core.IJavaVariable;
+import org.eclipse.jdt.debug.eval.IAstEvaluationEngine;
+import org.eclipse.jdt.debug.eval.ICompiledExpression;
+import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
+
+/**
+ * Compiled breakpoint conditions, shared by all threads and debug targets in
+ * which a conditional breakpoint is hit. Compiling a condition generates the
+ * source of a class and runs the compiler on it, so a condition that is hit
+ * in many threads is compiled once for each place it is evaluated in, rather
+ * than once per thread.
+ * <p>
+ * A compiled condition is only valid in the context it was compiled in. It is
+ * cached by breakpoint, condition, project, and location: the declaring and
+ * receiving types, the method, the line, and the names and types of the
+ * visible local variables. The least recently used conditions are discarded
+ * when there are more than {@link JDIDebugPlugin#PREF_COMPILED_CONDITION_CACHE_SIZE}.
+ * Conditions that failed to compile are not cached.
+ * </p>
+ */
+public class CompiledConditionCache {
+
+	private static CompiledConditionCache fgDefault = null;
+
+	/**
+	 * The context a condition was compiled in
+	 */
+	private static final class Key {
+
+		private final IJavaBreakpoint fBreakpoint;
+
+		private final String[] fContext;
+
+		private final int fLineNumber;
+
+		private final boolean fStatic;
+
+		private final int fHashCode;
+
+		Key(IJavaBreakpoint breakpoint, String[] context, int lineNumber,
+				boolean isStatic) {
+			fBreakpoint = breakpoint;
+			fContext = context;
+			fLineNumber = lineNumber;
+			fStatic = isStatic;
+			fHashCode = (breakpoint.hashCode() * 31 + Arrays.hashCode(context))
+					* 31 + lineNumber;
+		}
+
+		@Override
+		public int hashCode() {
+			return fHashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) obj;
+			return fBreakpoint == key.fBreakpoint
+					&& fLineNumber == key.fLineNumber
+					&& fStatic == key.fStatic
+					&& Arrays.equals(fContext, key.fContext);
+		}
+	}
+
+	private final Map<Key, ICompiledExpression> fExpressions;
+
+	/**
+	 * Constructs a cache of at most the given number of compiled conditions.
+	 *
+	 * @param maxSize
+	 *            the maximum number of compiled conditions
+	 * @noreference public for test purposes
+	 */
+	public CompiledConditionCache(final int maxSize) {
+		fExpressions = new LinkedHashMap<Key, ICompiledExpression>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<Key, ICompiledExpression> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the compiled condition cache, sized by
+	 * {@link JDIDebugPlugin#PREF_COMPILED_CONDITION_CACHE_SIZE} when it is
+	 * first accessed.
+	 *
+	 * @return the compiled condition cache
+	 */
+	public static synchronized CompiledConditionCache getDefault() {
+		if (fgDefault == null) {
+			int maxSize = Platform.getPreferencesService().getInt(
+					JDIDebugPlugin.getUniqueIdentifier(),
+					JDIDebugPlugin.PREF_COMPILED_CONDITION_CACHE_SIZE,
+					JDIDebugPlugin.DEF_COMPILED_CONDITION_CACHE_SIZE, null);
+			fgDefault = new CompiledConditionCache(Math.max(maxSize, 1));
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Returns the given condition of the given breakpoint compiled in the
+	 * context of the given stack frame, compiling it with the given engine if
+	 * it has not been compiled in that context yet.
+	 *
+	 * @param breakpoint
+	 *            the breakpoint that was hit
+	 * @param condition
+	 *            the condition of the breakpoint
+	 * @param project
+	 *            the project the condition is compiled in
+	 * @param frame
+	 *            the stack frame the breakpoint was hit in
+	 * @param engine
+	 *            the engine to compile the condition with
+	 * @return the compiled condition
+	 * @throws DebugException
+	 *             if the engine is unable to compile the condition
+	 */
+	public ICompiledExpression getCompiledExpression(
+			IJavaBreakpoint breakpoint, String condition,
+			IJavaProject project, IJavaStackFrame frame,
+			IAstEvaluationEngine engine) throws DebugException {
+		Key key = null;
+		try {
+			key = createKey(breakpoint, condition, project, frame);
+		} catch (DebugException e) {
+			// compile without caching
+		}
+		if (key != null) {
+			ICompiledExpression expression;
+			synchronized (fExpressions) {
+				expression = fExpressions.get(key);
+			}
+			if (expression != null) {
+				return expression;
+			}
+		}
+		// compile outside of the lock, other threads may hit other conditions
+		ICompiledExpression expression = engine.getCompiledExpression(
+				condition, frame);
+		if (key != null && !expression.hasErrors()) {
+			synchronized (fExpressions) {
+				fExpressions.put(key, expression);
+			}
+		}
+		return expression;
+	}
+
+	private static Key createKey(IJavaBreakpoint breakpoint, String condition,
+			IJavaProject project, IJavaStackFrame frame) throws DebugException {
+		IJavaVariable[] locals = frame.getLocalVariables();
+		String[] context = new String[6 + locals.length * 2];
+		context[0] = condition;
+		context[1] = project.getElementName();
+		context[2] = frame.getDeclaringTypeName();
+		context[3] = frame.isStatic() ? null : frame.getReceivingTypeName();
+		context[4] = frame.getMethodName();
+		context[5] = frame.getSignature();
+		for (int i = 0, j = 6; i < locals.length; i++) {
+			context[j++] = locals[i].getName();
+			context[j++] = locals[i].getGenericSignature();
+		}
+		return new Key(breakpoint, context, frame.getLineNumber(),
+				frame.isStatic());
+	}
+
+	/**
+	 * Discards the compiled conditions of the given breakpoint, when its
+	 * condition changes.
+	 *
+	 * @param breakpoint
+	 *            the breakpoint
+	 */
+	public void remove(IJavaBreakpoint breakpoint) {
+		synchronized (fExpressions) {
+			Iterator<Key> keys = fExpressions.keySet().iterator();
+			while (keys.hasNext()) {
+				if (keys.next().fBreakpoint == breakpoint) {
+					keys.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Discards all compiled conditions, when classes are redefined by a hot
+	 * code replace.
+	 */
+	public void clear() {
+		synchronized (fExpressions) {
+			fExpressions.clear();
+		}
+	}
+}
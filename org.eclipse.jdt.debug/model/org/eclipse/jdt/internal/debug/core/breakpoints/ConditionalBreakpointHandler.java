@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2017 IBM Corporation and others.
+ * Copyright (c) 2009, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ package org.eclipse.jdt.internal.debug.core.breakpoints;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.debug.core.DebugEvent;
 import org.eclipse.debug.core.DebugException;
@@ -28,6 +29,7 @@ import org.eclipse.jdt.debug.core.IJavaPrimitiveValue;
 import org.eclipse.jdt.debug.core.IJavaStackFrame;
 import org.eclipse.jdt.debug.core.IJavaThread;
 import org.eclipse.jdt.debug.core.IJavaType;
+import org.eclipse.jdt.debug.core.JDIDebugModel;
 import org.eclipse.jdt.debug.eval.IAstEvaluationEngine;
 import org.eclipse.jdt.debug.eval.ICompiledExpression;
 import org.eclipse.jdt.debug.eval.IEvaluationListener;
@@ -76,18 +78,71 @@ public class ConditionalBreakpointHandler implements IJavaBreakpointListener {
 		 */
 		private int fVote;
 
+		/**
+		 * Whether the evaluation has completed
+		 */
+		private boolean fComplete = false;
+
+		/**
+		 * Whether the breakpoint no longer waits for the result of the
+		 * evaluation, as it did not complete in time
+		 */
+		private boolean fAbandoned = false;
+
 		EvaluationListener(JavaLineBreakpoint breakpoint) {
 			fBreakpoint = breakpoint;
 		}
 
 		@Override
 		public void evaluationComplete(IEvaluationResult result) {
-			fVote = determineVote(result);
+			boolean abandoned;
+			synchronized (fLock) {
+				abandoned = fAbandoned;
+			}
+			// the result of an abandoned evaluation is not reported
+			int vote = abandoned ? SUSPEND : determineVote(result);
 			synchronized (fLock) {
+				fVote = vote;
+				fComplete = true;
 				fLock.notifyAll();
 			}
 		}
 
+		/**
+		 * Waits for the evaluation to complete. Must be called holding the
+		 * lock.
+		 *
+		 * @param timeout
+		 *            the time to wait in milliseconds, or 0 to wait until
+		 *            the evaluation completes
+		 * @return whether the evaluation completed
+		 */
+		boolean waitForCompletion(long timeout) throws InterruptedException {
+			if (timeout <= 0) {
+				while (!fComplete) {
+					fLock.wait();
+				}
+				return true;
+			}
+			long deadline = System.currentTimeMillis() + timeout;
+			while (!fComplete) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return false;
+				}
+				fLock.wait(remaining);
+			}
+			return true;
+		}
+
+		/**
+		 * Stops waiting for the result of the evaluation. Must be called
+		 * holding the lock.
+		 */
+		void abandon() {
+			fAbandoned = true;
+		}
+
 		/**
 		 * Processes the result to determine whether to suspend or resume.
 		 *
@@ -114,7 +169,7 @@ public class ConditionalBreakpointHandler implements IJavaBreakpointListener {
 			}
 			try {
 				IValue value = result.getValue();
-				if (fBreakpoint.isConditionSuspendOnTrue()) {
+				if (fBreakpoint.getAttributeSnapshot().isConditionSuspendOnTrue()) {
 					if (value instanceof IJavaPrimitiveValue) {
 						// Suspend when the condition evaluates true
 						IJavaPrimitiveValue javaValue = (IJavaPrimitiveValue) value;
@@ -153,7 +208,7 @@ public class ConditionalBreakpointHandler implements IJavaBreakpointListener {
 					return SUSPEND;
 				}
 				return DONT_SUSPEND;
-			} catch (DebugException e) {
+			} catch (CoreException e) {
 				// Suspend when an error occurs
 				JDIDebugPlugin.log(e);
 				return SUSPEND;
@@ -200,7 +255,9 @@ public class ConditionalBreakpointHandler implements IJavaBreakpointListener {
 		if (breakpoint instanceof IJavaLineBreakpoint) {
 			JavaLineBreakpoint lineBreakpoint = (JavaLineBreakpoint) breakpoint;
 			try {
-				final String condition = lineBreakpoint.getCondition();
+				BreakpointAttributeSnapshot attributes = lineBreakpoint
+						.getAttributeSnapshot();
+				final String condition = attributes.getCondition();
 				if (condition == null) {
 					return SUSPEND;
 				}
@@ -209,6 +266,18 @@ public class ConditionalBreakpointHandler implements IJavaBreakpointListener {
 				IJavaStackFrame frame = (IJavaStackFrame) thread
 						.getTopStackFrame();
 				IJavaProject project = lineBreakpoint.getJavaProject(frame);
+				if (project != null && attributes.isConditionSuspendOnTrue()) {
+					// evaluate simple conditions in place, rather than in an
+					// evaluation thread
+					SimpleCondition simple = SimpleCondition
+							.forCondition(condition);
+					if (simple != null) {
+						Boolean value = simple.evaluate(frame, project);
+						if (value != null) {
+							return value.booleanValue() ? SUSPEND : DONT_SUSPEND;
+						}
+					}
+				}
 				if (project == null) {
 					fireConditionHasErrors(
 							lineBreakpoint,
@@ -228,7 +297,9 @@ public class ConditionalBreakpointHandler implements IJavaBreakpointListener {
 				ICompiledExpression expression = lineBreakpoint
 						.getExpression(thread);
 				if (expression == null) {
-					expression = engine.getCompiledExpression(condition, frame);
+					expression = CompiledConditionCache.getDefault()
+							.getCompiledExpression(lineBreakpoint, condition,
+									project, frame, engine);
 					lineBreakpoint.setExpression(thread, expression);
 				}
 				if (expression.hasErrors()) {
@@ -236,13 +307,22 @@ public class ConditionalBreakpointHandler implements IJavaBreakpointListener {
 							getMessages(expression));
 					return SUSPEND;
 				}
+				int timeout = attributes.getConditionTimeout();
+				if (timeout < 0) {
+					timeout = Platform.getPreferencesService().getInt(
+							JDIDebugPlugin.getUniqueIdentifier(),
+							JDIDebugPlugin.PREF_CONDITION_EVALUATION_TIMEOUT,
+							JDIDebugPlugin.DEF_CONDITION_EVALUATION_TIMEOUT, null);
+				}
 				Object lock = listener.getLock();
 				synchronized (lock) {
 					engine.evaluateExpression(expression, frame, listener,
 							DebugEvent.EVALUATION_IMPLICIT, false);
-					// TODO: timeout?
 					try {
-						lock.wait();
+						if (!listener.waitForCompletion(timeout)) {
+							return conditionTimedOut(listener, lineBreakpoint,
+									thread, timeout);
+						}
 					} catch (InterruptedException e) {
 						fireConditionHasRuntimeErrors(
 								lineBreakpoint,
@@ -270,6 +350,50 @@ public class ConditionalBreakpointHandler implements IJavaBreakpointListener {
 		return SUSPEND;
 	}
 
+	/**
+	 * Aborts an evaluation of a breakpoint condition that did not complete in
+	 * time, and returns the vote to apply in place of its result. Must be
+	 * called holding the evaluation listener's lock.
+	 * <p>
+	 * The timeout is counted by the breakpoint. The thread is suspended if the
+	 * {@link JDIDebugPlugin#PREF_SUSPEND_ON_CONDITION_TIMEOUT} preference is
+	 * set, or if the evaluation does not stop within the request timeout once
+	 * aborted, for instance because it invokes a method in the thread that
+	 * does not return: the thread cannot be resumed before the invocation
+	 * returns. Otherwise the timeout is logged and the thread resumed.
+	 * </p>
+	 */
+	private int conditionTimedOut(EvaluationListener listener,
+			JavaLineBreakpoint breakpoint, IJavaThread thread, int timeout)
+			throws InterruptedException {
+		listener.abandon();
+		breakpoint.conditionTimedOut();
+		try {
+			thread.terminateEvaluation();
+		} catch (DebugException e) {
+			JDIDebugPlugin.log(e);
+		}
+		// wait for the evaluation to stop, which it does once the method it
+		// invokes returns
+		int requestTimeout = Platform.getPreferencesService().getInt(
+				JDIDebugPlugin.getUniqueIdentifier(),
+				JDIDebugModel.PREF_REQUEST_TIMEOUT,
+				JDIDebugModel.DEF_REQUEST_TIMEOUT, null);
+		boolean stopped = listener.waitForCompletion(requestTimeout);
+		IStatus status = new Status(IStatus.ERROR,
+				JDIDebugPlugin.getUniqueIdentifier(), MessageFormat.format(
+						JDIDebugBreakpointMessages.ConditionalBreakpointHandler_2,
+						Integer.toString(timeout)));
+		if (stopped && !Platform.getPreferencesService().getBoolean(
+				JDIDebugPlugin.getUniqueIdentifier(),
+				JDIDebugPlugin.PREF_SUSPEND_ON_CONDITION_TIMEOUT, true, null)) {
+			JDIDebugPlugin.log(status);
+			return DONT_SUSPEND;
+		}
+		fireConditionHasRuntimeErrors(breakpoint, new DebugException(status));
+		return SUSPEND;
+	}
+
 	@Override
 	public void breakpointInstalled(IJavaDebugTarget target,
 			IJavaBreakpoint breakpoint) {
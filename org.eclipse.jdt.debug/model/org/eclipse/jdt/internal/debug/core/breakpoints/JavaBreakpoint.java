@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.runtime.CoreException;
@@ -158,6 +159,18 @@ public abstract class JavaBreakpoint extends Breakpoint implements IJavaBreakpoi
 	 */
 	private List<String> fBreakpointListenerIds = null;
 
+	/**
+	 * Version of this breakpoint's marker attributes, incremented each time
+	 * they change.
+	 */
+	private final AtomicInteger fAttributesVersion = new AtomicInteger();
+
+	/**
+	 * Copy of this breakpoint's marker attributes read on the event dispatch
+	 * path, or <code>null</code> if none has been taken yet.
+	 */
+	private volatile BreakpointAttributeSnapshot fAttributeSnapshot = null;
+
 	/**
 	 * Empty instance filters array.
 	 */
@@ -199,9 +212,105 @@ public abstract class JavaBreakpoint extends Breakpoint implements IJavaBreakpoi
 	@Override
 	public void setMarker(IMarker marker) throws CoreException {
 		super.setMarker(marker);
+		attributesChanged();
 		configureAtStartup();
 	}
 
+	/**
+	 * Returns a copy of this breakpoint's marker attributes that is current
+	 * with the last change made to them. Event handlers read attributes from
+	 * the snapshot rather than from the marker.
+	 *
+	 * @return a snapshot of this breakpoint's attributes
+	 * @exception CoreException
+	 *                if unable to access this breakpoint's marker
+	 */
+	public BreakpointAttributeSnapshot getAttributeSnapshot()
+			throws CoreException {
+		// read the version first: a change made while the marker is read
+		// leaves the snapshot out of date, and it is taken again next time
+		int version = fAttributesVersion.get();
+		BreakpointAttributeSnapshot snapshot = fAttributeSnapshot;
+		if (snapshot == null || snapshot.getVersion() != version) {
+			snapshot = new BreakpointAttributeSnapshot(ensureMarker()
+					.getAttributes(), version);
+			fAttributeSnapshot = snapshot;
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Notes that this breakpoint's marker attributes have changed, such that
+	 * the next {@link #getAttributeSnapshot()} reads them again.
+	 */
+	public void attributesChanged() {
+		fAttributesVersion.incrementAndGet();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.debug.core.model.Breakpoint#setAttribute(java.lang.String,
+	 * boolean)
+	 */
+	@Override
+	protected void setAttribute(String attributeName, boolean value)
+			throws CoreException {
+		super.setAttribute(attributeName, value);
+		attributesChanged();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.debug.core.model.Breakpoint#setAttribute(java.lang.String,
+	 * int)
+	 */
+	@Override
+	protected void setAttribute(String attributeName, int value)
+			throws CoreException {
+		super.setAttribute(attributeName, value);
+		attributesChanged();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.debug.core.model.Breakpoint#setAttribute(java.lang.String,
+	 * java.lang.Object)
+	 */
+	@Override
+	protected void setAttribute(String attributeName, Object value)
+			throws CoreException {
+		super.setAttribute(attributeName, value);
+		attributesChanged();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.debug.core.model.Breakpoint#setAttributes(java.lang.String[],
+	 * java.lang.Object[])
+	 */
+	@Override
+	protected void setAttributes(String[] attributeNames, Object[] values)
+			throws CoreException {
+		super.setAttributes(attributeNames, values);
+		attributesChanged();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.debug.core.model.Breakpoint#setAttributes(java.util.Map)
+	 */
+	@Override
+	protected void setAttributes(Map<String, ? extends Object> attributes)
+			throws CoreException {
+		super.setAttributes(attributes);
+		attributesChanged();
+	}
+
 	/**
 	 * Add this breakpoint to the breakpoint manager, or sets it as
 	 * unregistered.
@@ -470,7 +579,8 @@ public abstract class JavaBreakpoint extends Breakpoint implements IJavaBreakpoi
 
 	protected void disableTriggerPoint(Event event) {
 		try{
-			if (isTriggerPoint() && isEnabled()) {
+			BreakpointAttributeSnapshot attributes = getAttributeSnapshot();
+			if (attributes.isTriggerPoint() && attributes.isEnabled()) {
 					DebugPlugin.getDefault().getBreakpointManager().enableTriggerPoints(null, false);
 					// make a note that we auto-disabled the trigger point for this breakpoint.
 					// we re enable it at cleanup of JDITarget
@@ -602,6 +712,8 @@ public abstract class JavaBreakpoint extends Breakpoint implements IJavaBreakpoi
 	 * appropriate.
 	 */
 	public void addToTarget(JDIDebugTarget target) throws CoreException {
+		// the marker may have been written to directly since it was created
+		attributesChanged();
 		fireAdding(target);
 		createRequests(target);
 	}
@@ -618,20 +730,21 @@ public abstract class JavaBreakpoint extends Breakpoint implements IJavaBreakpoi
 		if (referenceTypeName == null || enclosingTypeName == null) {
 			return;
 		}
-		// create request to listen to class loads
+		// create request to listen to class loads, shared with the other
+		// breakpoints in the same types
 		if (referenceTypeName.indexOf('$') == -1) {
 			registerRequest(
-					target.createClassPrepareRequest(enclosingTypeName), target);
+					target.acquireClassPrepareRequest(enclosingTypeName, null), target);
 			// register to ensure we hear about local and anonymous inner
 			// classes
 			registerRequest(
-					target.createClassPrepareRequest(enclosingTypeName + "$*"), target); //$NON-NLS-1$
+					target.acquireClassPrepareRequest(enclosingTypeName + "$*", null), target); //$NON-NLS-1$
 		} else {
 			registerRequest(
-					target.createClassPrepareRequest(referenceTypeName), target);
+					target.acquireClassPrepareRequest(referenceTypeName, null), target);
 			// register to ensure we hear about local and anonymous inner
 			// classes
-			registerRequest(target.createClassPrepareRequest(enclosingTypeName
+			registerRequest(target.acquireClassPrepareRequest(enclosingTypeName
 					+ "$*", referenceTypeName), target); //$NON-NLS-1$
 		}
 
@@ -779,6 +892,12 @@ public abstract class JavaBreakpoint extends Breakpoint implements IJavaBreakpoi
 		EventRequest req;
 		while (iter.hasNext()) {
 			req = iter.next();
+			if (target.isSharedRequest(req)) {
+				// other breakpoints may still listen to the request
+				deregisterRequest(req, target);
+				target.releaseClassPrepareRequest(req);
+				continue;
+			}
 			try {
 				if (target.isAvailable() && !isExpired(req)) {
 					EventRequestManager manager = target
@@ -822,6 +941,12 @@ public abstract class JavaBreakpoint extends Breakpoint implements IJavaBreakpoi
 				// if the request has expired, do not disable.
 				// BreakpointRequests that have expired cannot be deleted.
 				if (!isExpired(request)) {
+					// new requests are enabled together when installed in a
+					// batch
+					if (enabled
+							&& BreakpointInstallBatch.enableLater(request, target)) {
+						return;
+					}
 					request.setEnabled(enabled);
 				}
 			} catch (VMDisconnectedException e) {
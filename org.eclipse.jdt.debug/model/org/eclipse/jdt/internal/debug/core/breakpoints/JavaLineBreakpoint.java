@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,11 +13,12 @@
 package org.eclipse.jdt.internal.debug.core.breakpoints;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
@@ -83,6 +84,15 @@ public class JavaLineBreakpoint extends JavaBreakpoint implements
 	 */
 	protected static final String CONDITION_SUSPEND_ON_TRUE = "org.eclipse.jdt.debug.core.conditionSuspendOnTrue"; //$NON-NLS-1$
 
+	/**
+	 * Breakpoint attribute storing the time in milliseconds a breakpoint's
+	 * condition may take to evaluate (value
+	 * <code>"org.eclipse.jdt.debug.core.conditionTimeout"</code>), or 0 for no
+	 * limit. This attribute is stored as an <code>int</code>. When it is not
+	 * set, {@link JDIDebugPlugin#PREF_CONDITION_EVALUATION_TIMEOUT} applies.
+	 */
+	protected static final String CONDITION_TIMEOUT = "org.eclipse.jdt.debug.core.conditionTimeout"; //$NON-NLS-1$
+
 	/**
 	 * Breakpoint attribute storing a breakpoint's source file name (debug
 	 * attribute) (value <code>"org.eclipse.jdt.debug.core.sourceName"</code>).
@@ -93,27 +103,35 @@ public class JavaLineBreakpoint extends JavaBreakpoint implements
 	public static final String JAVA_LINE_BREAKPOINT = "org.eclipse.jdt.debug.javaLineBreakpointMarker"; //$NON-NLS-1$
 
 	/**
-	 * Maps suspended threads to the suspend event that suspended them
+	 * Maps suspended threads to the suspend event that suspended them. The
+	 * maps of this breakpoint are concurrent, as the event sets of different
+	 * threads may be dispatched in parallel.
 	 */
-	private Map<IJavaThread, ICompiledExpression> fSuspendEvents = new HashMap<>();
+	private Map<IJavaThread, ICompiledExpression> fSuspendEvents = new ConcurrentHashMap<>();
 	/**
 	 * The map of cached compiled expressions (ICompiledExpression) for this
 	 * breakpoint, keyed by thread. This value must be cleared every time the
 	 * breakpoint is added to a target.
 	 */
-	private Map<IJavaThread, ICompiledExpression> fCompiledExpressions = new HashMap<>();
+	private Map<IJavaThread, ICompiledExpression> fCompiledExpressions = new ConcurrentHashMap<>();
+
+	/**
+	 * Number of evaluations of this breakpoint's condition that did not
+	 * complete in time
+	 */
+	private final AtomicInteger fConditionTimeouts = new AtomicInteger();
 
 	/**
 	 * Cache of projects for stack frames to avoid repetitive project resolution
 	 * on conditional breakpoints.
 	 */
-	private Map<IJavaStackFrame, IJavaProject> fProjectsByFrame = new HashMap<>();
+	private Map<IJavaStackFrame, IJavaProject> fProjectsByFrame = new ConcurrentHashMap<>();
 
 	/**
 	 * The map of the result value of the condition (IValue) for this
 	 * breakpoint, keyed by debug target.
 	 */
-	private Map<IDebugTarget, IValue> fConditionValues = new HashMap<>();
+	private Map<IDebugTarget, IValue> fConditionValues = new ConcurrentHashMap<>();
 
 	/**
 	 * Status code indicating that a request to create a breakpoint in a type
@@ -497,6 +515,7 @@ public class JavaLineBreakpoint extends JavaBreakpoint implements
 	public void setCondition(String condition) throws CoreException {
 		// Clear the cached compiled expressions
 		fCompiledExpressions.clear();
+		CompiledConditionCache.getDefault().remove(this);
 		fConditionValues.clear();
 		fSuspendEvents.clear();
 		if (condition != null && condition.trim().length() == 0) {
@@ -607,6 +626,57 @@ public class JavaLineBreakpoint extends JavaBreakpoint implements
 		}
 	}
 
+	/**
+	 * Returns the time in milliseconds this breakpoint's condition may take to
+	 * evaluate, 0 for no limit, or -1 if the
+	 * {@link JDIDebugPlugin#PREF_CONDITION_EVALUATION_TIMEOUT} preference
+	 * applies.
+	 *
+	 * @return the condition evaluation timeout
+	 * @exception CoreException
+	 *                if unable to access the property on this breakpoint's
+	 *                underlying marker
+	 */
+	public int getConditionTimeout() throws CoreException {
+		return ensureMarker().getAttribute(CONDITION_TIMEOUT, -1);
+	}
+
+	/**
+	 * Sets the time in milliseconds this breakpoint's condition may take to
+	 * evaluate. When it has not completed by then, the evaluation is aborted
+	 * and the thread is suspended or resumed as specified by the
+	 * {@link JDIDebugPlugin#PREF_SUSPEND_ON_CONDITION_TIMEOUT} preference.
+	 *
+	 * @param timeout
+	 *            the timeout, 0 for no limit, or -1 for the default timeout
+	 * @exception CoreException
+	 *                if unable to set the property on this breakpoint's
+	 *                underlying marker
+	 */
+	public void setConditionTimeout(int timeout) throws CoreException {
+		if (getConditionTimeout() != timeout) {
+			setAttribute(CONDITION_TIMEOUT, timeout);
+		}
+	}
+
+	/**
+	 * Returns the number of evaluations of this breakpoint's condition that
+	 * did not complete in time, since the breakpoint was created or restored.
+	 *
+	 * @return the number of condition evaluations that timed out
+	 */
+	public int getConditionTimeoutCount() {
+		return fConditionTimeouts.get();
+	}
+
+	/**
+	 * Notes that an evaluation of this breakpoint's condition did not complete
+	 * in time.
+	 */
+	void conditionTimedOut() {
+		fConditionTimeouts.incrementAndGet();
+	}
+
 	/**
 	 * Returns existing compiled expression for the given thread or
 	 * <code>null</code>.
@@ -629,7 +699,11 @@ public class JavaLineBreakpoint extends JavaBreakpoint implements
 	 */
 	protected void setExpression(IJavaThread thread,
 			ICompiledExpression expression) {
-		fCompiledExpressions.put(thread, expression);
+		if (expression == null) {
+			fCompiledExpressions.remove(thread);
+		} else {
+			fCompiledExpressions.put(thread, expression);
+		}
 	}
 
 	/**
@@ -644,9 +718,7 @@ public class JavaLineBreakpoint extends JavaBreakpoint implements
 	 * @return previous value or <code>null</code>
 	 */
 	protected IValue setCurrentConditionValue(IDebugTarget target, IValue value) {
-		IValue prev = fConditionValues.get(target);
-		fConditionValues.put(target, value);
-		return prev;
+		return fConditionValues.put(target, value);
 	}
 
 }
@@ -0,0 +1,942 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.breakpoints;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.BooleanLiteral;
+import org.eclipse.jdt.core.dom.CharacterLiteral;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.FieldAccess;
+import org.eclipse.jdt.core.dom.InfixExpression;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.NumberLiteral;
+import org.eclipse.jdt.core.dom.ParenthesizedExpression;
+import org.eclipse.jdt.core.dom.PrefixExpression;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.StringLiteral;
+import org.eclipse.jdt.core.dom.ThisExpression;
+import org.eclipse.jdt.debug.core.IJavaArray;
+import org.eclipse.jdt.debug.core.IJavaFieldVariable;
+import org.eclipse.jdt.debug.core.IJavaObject;
+import org.eclipse.jdt.debug.core.IJavaPrimitiveValue;
+import org.eclipse.jdt.debug.core.IJavaStackFrame;
+import org.eclipse.jdt.debug.core.IJavaValue;
+import org.eclipse.jdt.debug.core.IJavaVariable;
+import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
+import org.eclipse.jdt.internal.debug.core.model.JDIObjectValue;
+import org.eclipse.jdt.internal.debug.core.model.JDIStackFrame;
+import org.eclipse.jdt.internal.debug.core.model.JDIValue;
+
+import com.sun.jdi.ClassType;
+import com.sun.jdi.Field;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.Value;
+
+/**
+ * A breakpoint condition that is simple enough to be evaluated by reading
+ * values from the target, without compiling it, running it in an evaluation
+ * thread or invoking methods in the target: comparisons, boolean and integral
+ * arithmetic operators over literals, local variables, fields, array lengths
+ * and strings, and the <code>equals</code>, <code>length</code> and
+ * <code>isEmpty</code> methods of strings.
+ * <p>
+ * Names are resolved and operators are applied according to the static types
+ * of their operands, as the compiler would: a field is looked up in the
+ * declared type of its qualifier and must be accessible from the type
+ * declaring the method of the stack frame, and an operator only accepts
+ * operands whose declared types it is defined for. A condition the compiler
+ * may reject, or that cannot be evaluated this way, for instance because a
+ * value is <code>null</code> where Java would throw an exception, is left to
+ * the evaluation engine, which reports errors as it does for any condition.
+ * </p>
+ */
+public final class SimpleCondition {
+
+	/**
+	 * Thrown when a condition cannot be evaluated by this class
+	 */
+	private static final class NotSimpleException extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		NotSimpleException() {
+			super(null, null, false, false);
+		}
+	}
+
+	private static final NotSimpleException NOT_SIMPLE = new NotSimpleException();
+
+	/**
+	 * Marks conditions that are known not to be simple in the cache
+	 */
+	private static final SimpleCondition NONE = new SimpleCondition(null);
+
+	private static final int MAX_CACHE_SIZE = 256;
+
+	/**
+	 * Parsed conditions by condition text
+	 */
+	private static final Map<String, SimpleCondition> fgConditions = new LinkedHashMap<String, SimpleCondition>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<String, SimpleCondition> eldest) {
+			return size() > MAX_CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * Value of the Java <code>null</code> literal and of <code>null</code>
+	 * references
+	 */
+	private static final Object NULL = new Object();
+
+	private static final String STRING_SIGNATURE = "Ljava/lang/String;"; //$NON-NLS-1$
+
+	/**
+	 * Signatures of primitive types by the signatures of their wrapper
+	 * classes
+	 */
+	private static final Map<String, String> fgUnboxedSignatures = new HashMap<>();
+
+	static {
+		fgUnboxedSignatures.put("Ljava/lang/Boolean;", "Z"); //$NON-NLS-1$ //$NON-NLS-2$
+		fgUnboxedSignatures.put("Ljava/lang/Byte;", "B"); //$NON-NLS-1$ //$NON-NLS-2$
+		fgUnboxedSignatures.put("Ljava/lang/Short;", "S"); //$NON-NLS-1$ //$NON-NLS-2$
+		fgUnboxedSignatures.put("Ljava/lang/Character;", "C"); //$NON-NLS-1$ //$NON-NLS-2$
+		fgUnboxedSignatures.put("Ljava/lang/Integer;", "I"); //$NON-NLS-1$ //$NON-NLS-2$
+		fgUnboxedSignatures.put("Ljava/lang/Long;", "J"); //$NON-NLS-1$ //$NON-NLS-2$
+		fgUnboxedSignatures.put("Ljava/lang/Float;", "F"); //$NON-NLS-1$ //$NON-NLS-2$
+		fgUnboxedSignatures.put("Ljava/lang/Double;", "D"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * The value of a node and the signature of its static type, which is
+	 * <code>null</code> for the <code>null</code> literal. The value is a
+	 * <code>Boolean</code>, <code>Integer</code> (also for <code>byte</code>,
+	 * <code>short</code> and <code>char</code>), <code>Long</code>,
+	 * <code>Float</code>, <code>Double</code>, <code>String</code>,
+	 * {@link IJavaObject} or {@link #NULL}.
+	 */
+	private static final class Operand {
+
+		final Object fValue;
+
+		final String fSignature;
+
+		Operand(Object value, String signature) {
+			fValue = value;
+			fSignature = signature;
+		}
+	}
+
+	/**
+	 * The stack frame a condition is evaluated in, and the language features
+	 * of the project it is compiled for.
+	 */
+	private static final class Context {
+
+		final IJavaStackFrame fFrame;
+
+		/**
+		 * Whether boxing and unboxing conversions are available
+		 */
+		final boolean fBoxing;
+
+		private ReferenceType fDeclaringType;
+
+		Context(IJavaStackFrame frame, boolean boxing) {
+			fFrame = frame;
+			fBoxing = boxing;
+		}
+
+		/**
+		 * Returns the type declaring the method of the stack frame, which
+		 * names are resolved and accessed from.
+		 */
+		ReferenceType getDeclaringType() throws NotSimpleException {
+			if (fDeclaringType == null) {
+				if (!(fFrame instanceof JDIStackFrame)) {
+					throw NOT_SIMPLE;
+				}
+				fDeclaringType = ((JDIStackFrame) fFrame)
+						.getUnderlyingMethod().declaringType();
+			}
+			return fDeclaringType;
+		}
+
+		JDIDebugTarget getDebugTarget() {
+			return (JDIDebugTarget) fFrame.getDebugTarget();
+		}
+	}
+
+	/**
+	 * A node of a simple condition
+	 */
+	private static abstract class Node {
+		abstract Operand evaluate(Context context) throws DebugException,
+				NotSimpleException;
+	}
+
+	private final Node fRoot;
+
+	private SimpleCondition(Node root) {
+		fRoot = root;
+	}
+
+	/**
+	 * Returns the given condition parsed as a simple condition, or
+	 * <code>null</code> if it is not simple.
+	 *
+	 * @param condition
+	 *            a breakpoint condition
+	 * @return the simple condition or <code>null</code>
+	 */
+	public static SimpleCondition forCondition(String condition) {
+		SimpleCondition simple;
+		synchronized (fgConditions) {
+			simple = fgConditions.get(condition);
+		}
+		if (simple == null) {
+			simple = parse(condition);
+			synchronized (fgConditions) {
+				fgConditions.put(condition, simple);
+			}
+		}
+		return simple == NONE ? null : simple;
+	}
+
+	/**
+	 * Evaluates this condition in the given stack frame.
+	 *
+	 * @param frame
+	 *            the stack frame the breakpoint was hit in
+	 * @param project
+	 *            the project the condition would be compiled in by the
+	 *            evaluation engine
+	 * @return the value of the condition, or <code>null</code> if it could not
+	 *         be evaluated, and must be evaluated by the evaluation engine
+	 */
+	public Boolean evaluate(IJavaStackFrame frame, IJavaProject project) {
+		String sourceLevel = project.getOption(JavaCore.COMPILER_SOURCE, true);
+		boolean boxing = sourceLevel != null
+				&& !(sourceLevel.startsWith("1.") && sourceLevel.compareTo(JavaCore.VERSION_1_5) < 0); //$NON-NLS-1$
+		Context context = new Context(frame, boxing);
+		try {
+			Operand result = fRoot.evaluate(context);
+			if ("Z".equals(unboxedSignature(result, context))) { //$NON-NLS-1$
+				Object value = unbox(result.fValue);
+				if (value instanceof Boolean) {
+					return (Boolean) value;
+				}
+			}
+		} catch (DebugException e) {
+			// let the evaluation engine report it
+		} catch (NotSimpleException e) {
+			// not evaluated
+		} catch (RuntimeException e) {
+			// JDI failures are reported by the evaluation engine
+		}
+		return null;
+	}
+
+	private static SimpleCondition parse(String condition) {
+		ASTParser parser = ASTParser.newParser(AST.JLS10);
+		parser.setKind(ASTParser.K_EXPRESSION);
+		parser.setSource(condition.toCharArray());
+		ASTNode node = parser.createAST(null);
+		if (!(node instanceof Expression)
+				|| (node.getFlags() & (ASTNode.MALFORMED | ASTNode.RECOVERED)) != 0) {
+			return NONE;
+		}
+		try {
+			return new SimpleCondition(toNode((Expression) node));
+		} catch (NotSimpleException e) {
+			return NONE;
+		}
+	}
+
+	private static Node toNode(Expression expression)
+			throws NotSimpleException {
+		switch (expression.getNodeType()) {
+			case ASTNode.PARENTHESIZED_EXPRESSION:
+				return toNode(((ParenthesizedExpression) expression)
+						.getExpression());
+			case ASTNode.NULL_LITERAL:
+				return constant(NULL, null);
+			case ASTNode.BOOLEAN_LITERAL:
+				return constant(Boolean.valueOf(((BooleanLiteral) expression)
+						.booleanValue()), "Z"); //$NON-NLS-1$
+			case ASTNode.CHARACTER_LITERAL:
+				try {
+					return constant(Integer.valueOf(((CharacterLiteral) expression)
+							.charValue()), "C"); //$NON-NLS-1$
+				} catch (IllegalArgumentException e) {
+					throw NOT_SIMPLE;
+				}
+			case ASTNode.STRING_LITERAL:
+				try {
+					return constant(((StringLiteral) expression)
+							.getLiteralValue(), STRING_SIGNATURE);
+				} catch (IllegalArgumentException e) {
+					throw NOT_SIMPLE;
+				}
+			case ASTNode.NUMBER_LITERAL: {
+				Object number = parseNumber(((NumberLiteral) expression)
+						.getToken());
+				return constant(number, primitiveSignature(number));
+			}
+			case ASTNode.SIMPLE_NAME:
+				return variable(((SimpleName) expression).getIdentifier());
+			case ASTNode.THIS_EXPRESSION:
+				if (((ThisExpression) expression).getQualifier() != null) {
+					throw NOT_SIMPLE;
+				}
+				return new Node() {
+					@Override
+					Operand evaluate(Context context) throws DebugException,
+							NotSimpleException {
+						IJavaObject receiver = context.fFrame.getThis();
+						if (receiver == null) {
+							throw NOT_SIMPLE;
+						}
+						return new Operand(receiver, context.getDeclaringType()
+								.signature());
+					}
+				};
+			case ASTNode.QUALIFIED_NAME: {
+				// the qualifier may also be a type or a package, which is only
+				// known when it is not a variable
+				QualifiedName name = (QualifiedName) expression;
+				return field(toNode(name.getQualifier()), name.getName()
+						.getIdentifier());
+			}
+			case ASTNode.FIELD_ACCESS: {
+				FieldAccess access = (FieldAccess) expression;
+				return field(toNode(access.getExpression()), access.getName()
+						.getIdentifier());
+			}
+			case ASTNode.METHOD_INVOCATION:
+				return stringMethod((MethodInvocation) expression);
+			case ASTNode.PREFIX_EXPRESSION:
+				return prefix((PrefixExpression) expression);
+			case ASTNode.INFIX_EXPRESSION:
+				return infix((InfixExpression) expression);
+			default:
+				throw NOT_SIMPLE;
+		}
+	}
+
+	private static Node constant(Object value, String signature) {
+		final Operand operand = new Operand(value, signature);
+		return new Node() {
+			@Override
+			Operand evaluate(Context context) {
+				return operand;
+			}
+		};
+	}
+
+	private static Object parseNumber(String token) throws NotSimpleException {
+		try {
+			char last = Character.toLowerCase(token.charAt(token.length() - 1));
+			boolean hex = token.startsWith("0x") || token.startsWith("0X"); //$NON-NLS-1$ //$NON-NLS-2$
+			if (hex || token.startsWith("0b") || token.startsWith("0B") //$NON-NLS-1$ //$NON-NLS-2$
+					|| (token.length() > 1 && token.charAt(0) == '0' && Character.isDigit(token.charAt(1)))
+					|| token.indexOf('_') >= 0) {
+				// leave radix literals, their overflow rules and the
+				// underscores of newer source levels to the compiler
+				throw NOT_SIMPLE;
+			}
+			if (last == 'l') {
+				return Long.valueOf(token.substring(0, token.length() - 1));
+			}
+			if (last == 'f') {
+				return Float.valueOf(token);
+			}
+			if (last == 'd' || token.indexOf('.') >= 0
+					|| token.indexOf('e') >= 0 || token.indexOf('E') >= 0) {
+				return Double.valueOf(token);
+			}
+			return Integer.valueOf(token);
+		} catch (NumberFormatException e) {
+			throw NOT_SIMPLE;
+		}
+	}
+
+	/**
+	 * Returns the signature of the primitive type of the given number
+	 */
+	private static String primitiveSignature(Object number) {
+		if (number instanceof Long) {
+			return "J"; //$NON-NLS-1$
+		}
+		if (number instanceof Float) {
+			return "F"; //$NON-NLS-1$
+		}
+		if (number instanceof Double) {
+			return "D"; //$NON-NLS-1$
+		}
+		return "I"; //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns a node reading a local variable or, if there is none with the
+	 * given name, a field of the type declaring the method of the frame.
+	 */
+	private static Node variable(final String name) {
+		return new Node() {
+			@Override
+			Operand evaluate(Context context) throws DebugException,
+					NotSimpleException {
+				for (IJavaVariable local : context.fFrame.getLocalVariables()) {
+					if (name.equals(local.getName())) {
+						return new Operand(toObject((IJavaValue) local.getValue()),
+								local.getSignature());
+					}
+				}
+				if (!context.fFrame.wereLocalsAvailable()) {
+					// the name may be a local variable without debug attributes
+					throw NOT_SIMPLE;
+				}
+				ReferenceType type = context.getDeclaringType();
+				Field field = accessibleField(type, name, context);
+				ObjectReference receiver = null;
+				if (!field.isStatic()) {
+					IJavaObject object = context.fFrame.getThis();
+					if (!(object instanceof JDIObjectValue)) {
+						throw NOT_SIMPLE;
+					}
+					receiver = ((JDIObjectValue) object).getUnderlyingObject();
+				}
+				return fieldValue(field, receiver, context);
+			}
+		};
+	}
+
+	private static Node field(final Node qualifier, final String name) {
+		return new Node() {
+			@Override
+			Operand evaluate(Context context) throws DebugException,
+					NotSimpleException {
+				Operand object = qualifier.evaluate(context);
+				String signature = object.fSignature;
+				if (signature == null) {
+					throw NOT_SIMPLE;
+				}
+				if (signature.charAt(0) == '[') {
+					if ("length".equals(name) && object.fValue instanceof IJavaArray) { //$NON-NLS-1$
+						return new Operand(Integer.valueOf(((IJavaArray) object.fValue)
+								.getLength()), "I"); //$NON-NLS-1$
+					}
+					throw NOT_SIMPLE;
+				}
+				if (!(object.fValue instanceof JDIObjectValue)) {
+					// null, or a string
+					throw NOT_SIMPLE;
+				}
+				ObjectReference receiver = ((JDIObjectValue) object.fValue)
+						.getUnderlyingObject();
+				// the field is looked up in the declared type of the qualifier,
+				// rather than in the type of the object, which may hide it
+				ReferenceType type = receiver.referenceType();
+				while (!type.signature().equals(signature)) {
+					if (!(type instanceof ClassType)) {
+						throw NOT_SIMPLE;
+					}
+					type = ((ClassType) type).superclass();
+					if (type == null) {
+						// declared as an interface
+						throw NOT_SIMPLE;
+					}
+				}
+				Field field = accessibleField(type, name, context);
+				return fieldValue(field, field.isStatic() ? null : receiver,
+						context);
+			}
+		};
+	}
+
+	/**
+	 * Returns the field with the given name that is visible in the given
+	 * type, if it can be accessed from the type declaring the method of the
+	 * frame.
+	 */
+	private static Field accessibleField(ReferenceType type, String name,
+			Context context) throws NotSimpleException {
+		Field field = type.fieldByName(name);
+		if (field == null) {
+			throw NOT_SIMPLE;
+		}
+		ReferenceType from = context.getDeclaringType();
+		ReferenceType declaringType = field.declaringType();
+		if (field.isPrivate()) {
+			// private fields are not inherited, and nested types accessing
+			// private fields of each other are left to the compiler
+			if (declaringType.equals(from) && type.equals(from)) {
+				return field;
+			}
+			throw NOT_SIMPLE;
+		}
+		String fromPackage = packageOf(from);
+		if (packageOf(declaringType).equals(fromPackage)
+				&& packageOf(type).equals(fromPackage)) {
+			return field;
+		}
+		if (field.isPublic() && declaringType.isPublic() && type.isPublic()) {
+			return field;
+		}
+		// protected access from subclasses in other packages is left to the
+		// compiler
+		throw NOT_SIMPLE;
+	}
+
+	private static String packageOf(ReferenceType type) {
+		String name = type.name();
+		int index = name.lastIndexOf('.');
+		return index < 0 ? "" : name.substring(0, index); //$NON-NLS-1$
+	}
+
+	private static Operand fieldValue(Field field, ObjectReference receiver,
+			Context context) throws DebugException, NotSimpleException {
+		Value value = receiver == null ? field.declaringType().getValue(field)
+				: receiver.getValue(field);
+		return new Operand(toObject(JDIValue.createValue(
+				context.getDebugTarget(), value)), field.signature());
+	}
+
+	private static Node stringMethod(MethodInvocation invocation)
+			throws NotSimpleException {
+		if (invocation.getExpression() == null
+				|| !invocation.typeArguments().isEmpty()) {
+			throw NOT_SIMPLE;
+		}
+		final Node receiver = toNode(invocation.getExpression());
+		final String method = invocation.getName().getIdentifier();
+		List<?> arguments = invocation.arguments();
+		if (arguments.isEmpty()
+				&& ("length".equals(method) || "isEmpty".equals(method))) { //$NON-NLS-1$ //$NON-NLS-2$
+			return new Node() {
+				@Override
+				Operand evaluate(Context context) throws DebugException,
+						NotSimpleException {
+					String string = string(receiver.evaluate(context));
+					if ("length".equals(method)) { //$NON-NLS-1$
+						return new Operand(Integer.valueOf(string.length()), "I"); //$NON-NLS-1$
+					}
+					return new Operand(Boolean.valueOf(string.isEmpty()), "Z"); //$NON-NLS-1$
+				}
+			};
+		}
+		if (arguments.size() == 1 && "equals".equals(method)) { //$NON-NLS-1$
+			final Node argument = toNode((Expression) arguments.get(0));
+			return new Node() {
+				@Override
+				Operand evaluate(Context context) throws DebugException,
+						NotSimpleException {
+					String string = string(receiver.evaluate(context));
+					Operand other = argument.evaluate(context);
+					if (other.fSignature != null
+							&& other.fSignature.length() == 1) {
+						// boxing a primitive argument is left to the engine
+						throw NOT_SIMPLE;
+					}
+					if (other.fValue == NULL) {
+						return new Operand(Boolean.FALSE, "Z"); //$NON-NLS-1$
+					}
+					if (other.fValue instanceof String) {
+						return new Operand(Boolean.valueOf(string
+								.equals(other.fValue)), "Z"); //$NON-NLS-1$
+					}
+					// equals(Object) of a string is false for any other type
+					if (other.fValue instanceof IJavaObject) {
+						return new Operand(Boolean.FALSE, "Z"); //$NON-NLS-1$
+					}
+					throw NOT_SIMPLE;
+				}
+			};
+		}
+		throw NOT_SIMPLE;
+	}
+
+	private static Node prefix(PrefixExpression expression)
+			throws NotSimpleException {
+		final Node operand = toNode(expression.getOperand());
+		PrefixExpression.Operator operator = expression.getOperator();
+		if (operator == PrefixExpression.Operator.NOT) {
+			return new Node() {
+				@Override
+				Operand evaluate(Context context) throws DebugException,
+						NotSimpleException {
+					return new Operand(Boolean.valueOf(!bool(
+							operand.evaluate(context), context)), "Z"); //$NON-NLS-1$
+				}
+			};
+		}
+		if (operator == PrefixExpression.Operator.MINUS) {
+			return new Node() {
+				@Override
+				Operand evaluate(Context context) throws DebugException,
+						NotSimpleException {
+					Object value = number(operand.evaluate(context), context);
+					if (value instanceof Integer) {
+						return new Operand(Integer.valueOf(-((Integer) value).intValue()), "I"); //$NON-NLS-1$
+					}
+					if (value instanceof Long) {
+						return new Operand(Long.valueOf(-((Long) value).longValue()), "J"); //$NON-NLS-1$
+					}
+					if (value instanceof Float) {
+						return new Operand(Float.valueOf(-((Float) value).floatValue()), "F"); //$NON-NLS-1$
+					}
+					return new Operand(Double.valueOf(-((Double) value).doubleValue()), "D"); //$NON-NLS-1$
+				}
+			};
+		}
+		throw NOT_SIMPLE;
+	}
+
+	private static Node infix(InfixExpression expression)
+			throws NotSimpleException {
+		InfixExpression.Operator operator = expression.getOperator();
+		Node node = toNode(expression.getLeftOperand());
+		node = binary(operator, node, toNode(expression.getRightOperand()));
+		// a + b + c is left associative
+		for (Object operand : expression.extendedOperands()) {
+			node = binary(operator, node, toNode((Expression) operand));
+		}
+		return node;
+	}
+
+	private static Node binary(final InfixExpression.Operator operator,
+			final Node left, final Node right) throws NotSimpleException {
+		if (operator == InfixExpression.Operator.CONDITIONAL_AND) {
+			return new Node() {
+				@Override
+				Operand evaluate(Context context) throws DebugException,
+						NotSimpleException {
+					return new Operand(Boolean.valueOf(bool(left.evaluate(context), context)
+							&& bool(right.evaluate(context), context)), "Z"); //$NON-NLS-1$
+				}
+			};
+		}
+		if (operator == InfixExpression.Operator.CONDITIONAL_OR) {
+			return new Node() {
+				@Override
+				Operand evaluate(Context context) throws DebugException,
+						NotSimpleException {
+					return new Operand(Boolean.valueOf(bool(left.evaluate(context), context)
+							|| bool(right.evaluate(context), context)), "Z"); //$NON-NLS-1$
+				}
+			};
+		}
+		if (operator == InfixExpression.Operator.EQUALS
+				|| operator == InfixExpression.Operator.NOT_EQUALS) {
+			final boolean equals = operator == InfixExpression.Operator.EQUALS;
+			return new Node() {
+				@Override
+				Operand evaluate(Context context) throws DebugException,
+						NotSimpleException {
+					return new Operand(Boolean.valueOf(equal(left.evaluate(context),
+							right.evaluate(context), context) == equals), "Z"); //$NON-NLS-1$
+				}
+			};
+		}
+		if (operator == InfixExpression.Operator.LESS
+				|| operator == InfixExpression.Operator.LESS_EQUALS
+				|| operator == InfixExpression.Operator.GREATER
+				|| operator == InfixExpression.Operator.GREATER_EQUALS) {
+			return new Node() {
+				@Override
+				Operand evaluate(Context context) throws DebugException,
+						NotSimpleException {
+					int comparison = compare(number(left.evaluate(context), context),
+							number(right.evaluate(context), context));
+					boolean result;
+					if (comparison == Integer.MIN_VALUE) {
+						// NaN
+						result = false;
+					} else if (operator == InfixExpression.Operator.LESS) {
+						result = comparison < 0;
+					} else if (operator == InfixExpression.Operator.LESS_EQUALS) {
+						result = comparison <= 0;
+					} else if (operator == InfixExpression.Operator.GREATER) {
+						result = comparison > 0;
+					} else {
+						result = comparison >= 0;
+					}
+					return new Operand(Boolean.valueOf(result), "Z"); //$NON-NLS-1$
+				}
+			};
+		}
+		if (operator == InfixExpression.Operator.PLUS
+				|| operator == InfixExpression.Operator.MINUS
+				|| operator == InfixExpression.Operator.TIMES
+				|| operator == InfixExpression.Operator.DIVIDE
+				|| operator == InfixExpression.Operator.REMAINDER) {
+			return new Node() {
+				@Override
+				Operand evaluate(Context context) throws DebugException,
+						NotSimpleException {
+					Operand l = left.evaluate(context);
+					Operand r = right.evaluate(context);
+					if (STRING_SIGNATURE.equals(l.fSignature)
+							|| STRING_SIGNATURE.equals(r.fSignature)) {
+						// string concatenation
+						throw NOT_SIMPLE;
+					}
+					Object result = arithmetic(operator, number(l, context),
+							number(r, context));
+					return new Operand(result, primitiveSignature(result));
+				}
+			};
+		}
+		throw NOT_SIMPLE;
+	}
+
+	/**
+	 * Returns the given value as one of the types of {@link Operand} values.
+	 */
+	private static Object toObject(IJavaValue value) throws DebugException,
+			NotSimpleException {
+		if (value == null || value.isNull()) {
+			return NULL;
+		}
+		if (value instanceof IJavaPrimitiveValue) {
+			IJavaPrimitiveValue primitive = (IJavaPrimitiveValue) value;
+			switch (primitive.getSignature().charAt(0)) {
+				case 'Z':
+					return Boolean.valueOf(primitive.getBooleanValue());
+				case 'B':
+				case 'S':
+				case 'C':
+				case 'I':
+					return Integer.valueOf(primitive.getIntValue());
+				case 'J':
+					return Long.valueOf(primitive.getLongValue());
+				case 'F':
+					return Float.valueOf(primitive.getFloatValue());
+				case 'D':
+					return Double.valueOf(primitive.getDoubleValue());
+				default:
+					throw NOT_SIMPLE;
+			}
+		}
+		if (value instanceof IJavaObject) {
+			if (STRING_SIGNATURE.equals(value.getSignature())) {
+				return value.getValueString();
+			}
+			return value;
+		}
+		throw NOT_SIMPLE;
+	}
+
+	/**
+	 * Returns the signature of the primitive type of the given operand, after
+	 * an unboxing conversion if its static type is a wrapper class and the
+	 * conversion is available, or <code>null</code> if it has no primitive
+	 * type.
+	 */
+	private static String unboxedSignature(Operand operand, Context context) {
+		String signature = operand.fSignature;
+		if (signature == null || signature.length() == 1) {
+			return signature;
+		}
+		return context.fBoxing ? fgUnboxedSignatures.get(signature) : null;
+	}
+
+	/**
+	 * Returns the primitive value of a boxed primitive, or the given value.
+	 */
+	private static Object unbox(Object value) throws DebugException,
+			NotSimpleException {
+		if (!(value instanceof IJavaObject)) {
+			return value;
+		}
+		IJavaObject object = (IJavaObject) value;
+		if (fgUnboxedSignatures.containsKey(object.getSignature())) {
+			IJavaFieldVariable field = object.getField("value", false); //$NON-NLS-1$
+			if (field == null) {
+				throw NOT_SIMPLE;
+			}
+			return toObject((IJavaValue) field.getValue());
+		}
+		return value;
+	}
+
+	private static boolean bool(Operand operand, Context context)
+			throws DebugException, NotSimpleException {
+		if (!"Z".equals(unboxedSignature(operand, context))) { //$NON-NLS-1$
+			throw NOT_SIMPLE;
+		}
+		Object unboxed = unbox(operand.fValue);
+		if (unboxed instanceof Boolean) {
+			return ((Boolean) unboxed).booleanValue();
+		}
+		// unboxing null
+		throw NOT_SIMPLE;
+	}
+
+	/**
+	 * Returns the value of an operand of a numeric type, after an unboxing
+	 * conversion.
+	 */
+	private static Number number(Operand operand, Context context)
+			throws DebugException, NotSimpleException {
+		String signature = unboxedSignature(operand, context);
+		if (signature == null || "BSCIJFD".indexOf(signature.charAt(0)) < 0) { //$NON-NLS-1$
+			throw NOT_SIMPLE;
+		}
+		Object unboxed = unbox(operand.fValue);
+		if (unboxed instanceof Number) {
+			return (Number) unboxed;
+		}
+		// unboxing null
+		throw NOT_SIMPLE;
+	}
+
+	private static String string(Operand operand) throws NotSimpleException {
+		if (STRING_SIGNATURE.equals(operand.fSignature)
+				&& operand.fValue instanceof String) {
+			return (String) operand.fValue;
+		}
+		throw NOT_SIMPLE;
+	}
+
+	/**
+	 * Compares two values as Java's <code>==</code> operator does, if the
+	 * static types of the operands can be compared.
+	 */
+	private static boolean equal(Operand left, Operand right, Context context)
+			throws DebugException, NotSimpleException {
+		if ((left.fSignature != null && left.fSignature.length() == 1)
+				|| (right.fSignature != null && right.fSignature.length() == 1)) {
+			// numerical or boolean equality, unboxing the other operand
+			String l = unboxedSignature(left, context);
+			String r = unboxedSignature(right, context);
+			if (l == null || r == null) {
+				throw NOT_SIMPLE;
+			}
+			if ("Z".equals(l) || "Z".equals(r)) { //$NON-NLS-1$ //$NON-NLS-2$
+				if (!l.equals(r)) {
+					throw NOT_SIMPLE;
+				}
+				return bool(left, context) == bool(right, context);
+			}
+			return compare(number(left, context), number(right, context)) == 0;
+		}
+		// reference equality, of operands of the same type or null
+		if (left.fSignature != null && right.fSignature != null
+				&& !left.fSignature.equals(right.fSignature)) {
+			// the compiler decides whether either type can be cast to the
+			// other
+			throw NOT_SIMPLE;
+		}
+		if (left.fValue == NULL || right.fValue == NULL) {
+			return left.fValue == right.fValue;
+		}
+		if (left.fValue instanceof IJavaObject
+				&& right.fValue instanceof IJavaObject) {
+			return ((IJavaObject) left.fValue).getUniqueId() == ((IJavaObject) right.fValue)
+					.getUniqueId();
+		}
+		// the identity of string literals and of strings read from the
+		// target is only known in the target
+		throw NOT_SIMPLE;
+	}
+
+	/**
+	 * Compares two numeric values after binary numeric promotion.
+	 *
+	 * @return a negative number, zero or a positive number, or
+	 *         <code>Integer.MIN_VALUE</code> if either value is NaN
+	 */
+	private static int compare(Number left, Number right) {
+		if (left instanceof Double || right instanceof Double) {
+			double ld = left.doubleValue();
+			double rd = right.doubleValue();
+			if (Double.isNaN(ld) || Double.isNaN(rd)) {
+				return Integer.MIN_VALUE;
+			}
+			return ld < rd ? -1 : (ld == rd ? 0 : 1);
+		}
+		if (left instanceof Float || right instanceof Float) {
+			float lf = left.floatValue();
+			float rf = right.floatValue();
+			if (Float.isNaN(lf) || Float.isNaN(rf)) {
+				return Integer.MIN_VALUE;
+			}
+			return lf < rf ? -1 : (lf == rf ? 0 : 1);
+		}
+		return Long.compare(left.longValue(), right.longValue());
+	}
+
+	/**
+	 * Applies an arithmetic operator to integral values. Floating point
+	 * arithmetic is left to the evaluation engine.
+	 */
+	private static Object arithmetic(InfixExpression.Operator operator,
+			Number l, Number r) throws NotSimpleException {
+		boolean ints = l instanceof Integer && r instanceof Integer;
+		if (!ints && !((l instanceof Integer || l instanceof Long)
+				&& (r instanceof Integer || r instanceof Long))) {
+			throw NOT_SIMPLE;
+		}
+		long ll = l.longValue();
+		long rl = r.longValue();
+		if ((operator == InfixExpression.Operator.DIVIDE || operator == InfixExpression.Operator.REMAINDER)
+				&& rl == 0) {
+			// ArithmeticException
+			throw NOT_SIMPLE;
+		}
+		if (ints) {
+			int li = (int) ll;
+			int ri = (int) rl;
+			if (operator == InfixExpression.Operator.PLUS) {
+				return Integer.valueOf(li + ri);
+			}
+			if (operator == InfixExpression.Operator.MINUS) {
+				return Integer.valueOf(li - ri);
+			}
+			if (operator == InfixExpression.Operator.TIMES) {
+				return Integer.valueOf(li * ri);
+			}
+			if (operator == InfixExpression.Operator.DIVIDE) {
+				return Integer.valueOf(li / ri);
+			}
+			return Integer.valueOf(li % ri);
+		}
+		if (operator == InfixExpression.Operator.PLUS) {
+			return Long.valueOf(ll + rl);
+		}
+		if (operator == InfixExpression.Operator.MINUS) {
+			return Long.valueOf(ll - rl);
+		}
+		if (operator == InfixExpression.Operator.TIMES) {
+			return Long.valueOf(ll * rl);
+		}
+		if (operator == InfixExpression.Operator.DIVIDE) {
+			return Long.valueOf(ll / rl);
+		}
+		return Long.valueOf(ll % rl);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -48,6 +48,7 @@ import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.ILaunchListener;
 import org.eclipse.debug.core.ILaunchManager;
 import org.eclipse.debug.core.model.IDebugTarget;
+import org.eclipse.debug.core.model.IStackFrame;
 import org.eclipse.debug.core.model.IThread;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
@@ -69,6 +70,7 @@ import org.eclipse.jdt.debug.core.JDIDebugModel;
 import org.eclipse.jdt.internal.core.util.Util;
 import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
 import org.eclipse.jdt.internal.debug.core.JavaDebugUtils;
+import org.eclipse.jdt.internal.debug.core.breakpoints.CompiledConditionCache;
 import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
 import org.eclipse.jdt.internal.debug.core.model.JDIStackFrame;
 import org.eclipse.jdt.internal.debug.core.model.JDIThread;
@@ -476,6 +478,10 @@ public class JavaHotCodeReplaceManager implements IResourceChangeListener,
 				} else if (target.supportsJ9HotCodeReplace()) {
 					redefineTypesJ9(target, qualifiedNamesToReplace);
 				}
+				// conditions may have been compiled against the old types
+				CompiledConditionCache.getDefault().clear();
+				// getters and setters are recognized by their bytecodes
+				target.stepFiltersChanged();
 				if (containsObsoleteMethods(target)) {
 					fireObsoleteMethods(target);
 				}
@@ -789,9 +795,7 @@ public class JavaHotCodeReplaceManager implements IResourceChangeListener,
 				dropFrame = iter.next();
 				dropFrame.dropToFrame();
 			} catch (DebugException de) {
-				notifyFailedDrop(
-						((JDIThread) dropFrame.getThread())
-								.computeStackFrames(),
+				notifyFailedDrop((JDIThread) dropFrame.getThread(),
 						replacedClassNames);
 			}
 		}
@@ -825,8 +829,7 @@ public class JavaHotCodeReplaceManager implements IResourceChangeListener,
 				poppedThreads.add(popFrame.getThread());
 			} catch (DebugException de) {
 				poppedThreads.remove(popFrame.getThread());
-				notifyFailedDrop(
-						((JDIThread) popFrame.getThread()).computeStackFrames(),
+				notifyFailedDrop((JDIThread) popFrame.getThread(),
 						replacedClassNames);
 			}
 		}
@@ -839,11 +842,10 @@ public class JavaHotCodeReplaceManager implements IResourceChangeListener,
 	protected boolean containsObsoleteMethods(JDIDebugTarget target)
 			throws DebugException {
 		IThread[] threads = target.getThreads();
-		List<IJavaStackFrame> frames = null;
 		for (IThread thread : threads) {
-			frames = ((JDIThread) thread).computeNewStackFrames();
-			for(IJavaStackFrame frame : frames) {
-				if(frame.isObsolete()) {
+			((JDIThread) thread).computeNewStackFrames();
+			for (IStackFrame frame : thread.getStackFrames()) {
+				if (((IJavaStackFrame) frame).isObsolete()) {
 					return true;
 				}
 			}
@@ -876,8 +878,7 @@ public class JavaHotCodeReplaceManager implements IResourceChangeListener,
 					// if any thread that should drop does not support the drop,
 					// do not drop in any threads.
 					for (int j = 0; j < numThreads; j++) {
-						notifyFailedDrop(
-								((JDIThread) threads[i]).computeStackFrames(),
+						notifyFailedDrop((JDIThread) threads[i],
 								replacedClassNames);
 					}
 					throw new DebugException(
@@ -909,7 +910,7 @@ public class JavaHotCodeReplaceManager implements IResourceChangeListener,
 		CompilationUnitDelta delta = null;
 		IProject project = null;
 		for (int j = 0; j < frames.size(); j++) {
-			frame = (JDIStackFrame) frames.get(j);
+			frame = (JDIStackFrame) thread.getStackFrame(j);
 			if (containsChangedType(frame, replacedClassNames)) {
 				// smart drop to frame support
 				compilationUnit = getCompilationUnit(frame);
@@ -942,7 +943,7 @@ public class JavaHotCodeReplaceManager implements IResourceChangeListener,
 				// frame on the stack.
 				while (j > 0) {
 					j--;
-					frame = (JDIStackFrame) frames.get(j);
+					frame = (JDIStackFrame) thread.getStackFrame(j);
 					if (frame.supportsDropToFrame()) {
 						affectedFrame = frame;
 						break;
@@ -1087,13 +1088,13 @@ public class JavaHotCodeReplaceManager implements IResourceChangeListener,
 	}
 
 	/**
-	 * Notify the given frames that a drop to frame has failed after an HCR with
-	 * the given class names.
+	 * Notify the frames of the given thread that a drop to frame has failed
+	 * after an HCR with the given class names.
 	 */
-	private void notifyFailedDrop(List<IJavaStackFrame> frames, List<String> replacedClassNames)
+	private void notifyFailedDrop(JDIThread thread, List<String> replacedClassNames)
 			throws DebugException {
-		for(IJavaStackFrame frame : frames) {
-			if (replacedClassNames.contains(frame.getDeclaringTypeName())) {
+		for (IStackFrame frame : thread.getStackFrames()) {
+			if (replacedClassNames.contains(((IJavaStackFrame) frame).getDeclaringTypeName())) {
 				((JDIStackFrame)frame).setOutOfSynch(true);
 			}
 		}
@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.internal.debug.core.EventDispatcher;
+import org.eclipse.jdt.internal.debug.core.IJDIEventListener;
+import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
+import org.eclipse.jdt.internal.debug.core.breakpoints.BreakpointInstallBatch;
+
+import com.sun.jdi.VMDisconnectedException;
+import com.sun.jdi.event.Event;
+import com.sun.jdi.event.EventSet;
+import com.sun.jdi.request.ClassPrepareRequest;
+import com.sun.jdi.request.EventRequest;
+
+/**
+ * Shares class prepare requests between the event listeners of a debug target.
+ * Each distinct pair of class pattern and class exclusion pattern is installed
+ * in the VM once, and its events are dispatched to every listener registered
+ * for the shared request. A shared request is deleted from the VM when the
+ * last reference to it is released.
+ * <p>
+ * Listeners vote on resuming the event thread as they would for a request of
+ * their own: the event thread is resumed only if all listeners agree. A
+ * listener that throws an exception is logged and does not vote, and the
+ * event still reaches the other listeners.
+ * </p>
+ *
+ * @see JDIDebugTarget#acquireClassPrepareRequest(String, String)
+ * @see JDIDebugTarget#releaseClassPrepareRequest(EventRequest)
+ */
+class ClassPrepareRequestMultiplexer implements IJDIEventListener {
+
+	/**
+	 * A class prepare request installed in the VM, the number of references
+	 * to it and the listeners registered for it.
+	 */
+	private static class SharedRequest {
+
+		final String fKey;
+
+		final ClassPrepareRequest fRequest;
+
+		int fReferenceCount;
+
+		/**
+		 * Copy-on-write, as events are dispatched while breakpoints are
+		 * added and removed.
+		 */
+		volatile List<IJDIEventListener> fListeners = new ArrayList<>(1);
+
+		SharedRequest(String key, ClassPrepareRequest request) {
+			fKey = key;
+			fRequest = request;
+		}
+	}
+
+	private final JDIDebugTarget fTarget;
+
+	/**
+	 * Shared requests by class pattern and class exclusion pattern
+	 */
+	private final Map<String, SharedRequest> fRequestsByPattern = new HashMap<>();
+
+	/**
+	 * Shared requests by event request
+	 */
+	private final Map<EventRequest, SharedRequest> fRequests = new HashMap<>();
+
+	ClassPrepareRequestMultiplexer(JDIDebugTarget target) {
+		fTarget = target;
+	}
+
+	private static String keyOf(String classPattern, String classExclusionPattern) {
+		if (classExclusionPattern == null) {
+			return classPattern;
+		}
+		// class names cannot contain a '/'
+		return classPattern + '/' + classExclusionPattern;
+	}
+
+	/**
+	 * Returns a class prepare request for the given patterns, creating and
+	 * registering it with the target's event dispatcher if there is none, and
+	 * adds a reference to it.
+	 *
+	 * @exception CoreException
+	 *                if unable to create the request
+	 */
+	synchronized ClassPrepareRequest acquire(String classPattern,
+			String classExclusionPattern) throws CoreException {
+		String key = keyOf(classPattern, classExclusionPattern);
+		SharedRequest shared = fRequestsByPattern.get(key);
+		if (shared == null) {
+			ClassPrepareRequest request = fTarget.createClassPrepareRequest(
+					classPattern, classExclusionPattern);
+			shared = new SharedRequest(key, request);
+			fRequestsByPattern.put(key, shared);
+			fRequests.put(request, shared);
+			EventDispatcher dispatcher = fTarget.getEventDispatcher();
+			if (dispatcher != null) {
+				dispatcher.addJDIEventListener(this, request);
+			}
+		}
+		shared.fReferenceCount++;
+		return shared.fRequest;
+	}
+
+	/**
+	 * Removes a reference to the given shared request. When no references
+	 * remain, the request is deregistered and deleted from the VM.
+	 *
+	 * @return whether the request was a shared request
+	 */
+	boolean release(EventRequest request) {
+		synchronized (this) {
+			SharedRequest shared = fRequests.get(request);
+			if (shared == null) {
+				return false;
+			}
+			if (--shared.fReferenceCount > 0) {
+				return true;
+			}
+			fRequests.remove(request);
+			fRequestsByPattern.remove(shared.fKey);
+		}
+		EventDispatcher dispatcher = fTarget.getEventDispatcher();
+		if (dispatcher != null) {
+			dispatcher.removeJDIEventListener(this, request);
+		}
+		if (fTarget.isAvailable()) {
+			try {
+				fTarget.getEventRequestManager().deleteEventRequest(request);
+			} catch (RuntimeException e) {
+				// the request is removed from the VM when it disconnects
+				if (fTarget.isAvailable()) {
+					JDIDebugPlugin.log(e);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return whether the given request is a shared request
+	 */
+	synchronized boolean isShared(EventRequest request) {
+		return fRequests.containsKey(request);
+	}
+
+	/**
+	 * Registers the given listener for the given shared request.
+	 */
+	synchronized void addListener(IJDIEventListener listener, EventRequest request) {
+		SharedRequest shared = fRequests.get(request);
+		if (shared != null) {
+			List<IJDIEventListener> listeners = new ArrayList<>(shared.fListeners);
+			listeners.add(listener);
+			shared.fListeners = listeners;
+		}
+	}
+
+	/**
+	 * Deregisters the given listener from the given shared request.
+	 */
+	synchronized void removeListener(IJDIEventListener listener, EventRequest request) {
+		SharedRequest shared = fRequests.get(request);
+		if (shared != null) {
+			List<IJDIEventListener> listeners = new ArrayList<>(shared.fListeners);
+			listeners.remove(listener);
+			shared.fListeners = listeners;
+		}
+	}
+
+	/**
+	 * Forgets all shared requests, when the target disconnects.
+	 */
+	synchronized void clear() {
+		fRequests.clear();
+		fRequestsByPattern.clear();
+	}
+
+	private List<IJDIEventListener> getListeners(Event event) {
+		SharedRequest shared;
+		synchronized (this) {
+			shared = fRequests.get(event.request());
+		}
+		if (shared == null) {
+			return null;
+		}
+		return shared.fListeners;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jdt.internal.debug.core.IJDIEventListener#handleEvent(com.sun.jdi.event.Event, org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget, boolean, com.sun.jdi.event.EventSet)
+	 */
+	@Override
+	public boolean handleEvent(Event event, JDIDebugTarget target,
+			boolean suspendVote, EventSet eventSet) {
+		List<IJDIEventListener> listeners = getListeners(event);
+		if (listeners == null) {
+			return true;
+		}
+		// the breakpoints of the class are installed before its thread
+		// resumes, with the requests of all of them enabled together
+		boolean resume = true;
+		BreakpointInstallBatch batch = BreakpointInstallBatch.begin(target);
+		try {
+			for (IJDIEventListener listener : listeners) {
+				try {
+					resume = listener.handleEvent(event, target, suspendVote || !resume, eventSet) && resume;
+				} catch (VMDisconnectedException e) {
+					throw e;
+				} catch (RuntimeException e) {
+					JDIDebugPlugin.log(e);
+				}
+			}
+		} finally {
+			batch.install();
+		}
+		return resume;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jdt.internal.debug.core.IJDIEventListener#eventSetComplete(com.sun.jdi.event.Event, org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget, boolean, com.sun.jdi.event.EventSet)
+	 */
+	@Override
+	public void eventSetComplete(Event event, JDIDebugTarget target,
+			boolean suspend, EventSet eventSet) {
+		List<IJDIEventListener> listeners = getListeners(event);
+		if (listeners == null) {
+			return;
+		}
+		for (IJDIEventListener listener : listeners) {
+			try {
+				listener.eventSetComplete(event, target, suspend, eventSet);
+			} catch (VMDisconnectedException e) {
+				throw e;
+			} catch (RuntimeException e) {
+				JDIDebugPlugin.log(e);
+			}
+		}
+	}
+}
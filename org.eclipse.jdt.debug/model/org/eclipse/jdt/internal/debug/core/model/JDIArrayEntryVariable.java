@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -42,6 +42,13 @@ public class JDIArrayEntryVariable extends JDIModificationVariable {
 	 */
 	private ArrayReference fArray;
 
+	/**
+	 * The array value the entry was created by, or <code>null</code>. The
+	 * value of the entry is retrieved through it, with the page of components
+	 * it is in.
+	 */
+	private JDIArrayValue fArrayValue;
+
 	/**
 	 * The reference type name of this variable. Cached lazily.
 	 */
@@ -77,11 +84,33 @@ public class JDIArrayEntryVariable extends JDIModificationVariable {
 		fLogicalParent = logicalParent;
 	}
 
+	/**
+	 * Constructs an array entry at the given index in an array value.
+	 *
+	 * @param target
+	 *            debug target containing the array entry
+	 * @param array
+	 *            array value containing the entry
+	 * @param index
+	 *            index into the array
+	 * @param logicalParent
+	 *            original logical parent value, or <code>null</code> if not a
+	 *            child of a logical structure
+	 */
+	JDIArrayEntryVariable(JDIDebugTarget target, JDIArrayValue array,
+			int index, IJavaValue logicalParent) {
+		this(target, array.getArrayReference(), index, logicalParent);
+		fArrayValue = array;
+	}
+
 	/**
 	 * Returns this variable's current underlying value.
 	 */
 	@Override
-	protected Value retrieveValue() {
+	protected Value retrieveValue() throws DebugException {
+		if (fArrayValue != null) {
+			return fArrayValue.getUnderlyingValue(getIndex());
+		}
 		ArrayReference ar = getArrayReference();
 		if (ar != null) {
 			return ar.getValue(getIndex());
@@ -107,6 +136,9 @@ public class JDIArrayEntryVariable extends JDIModificationVariable {
 		}
 		try {
 			ar.setValue(getIndex(), value);
+			if (fArrayValue != null) {
+				fArrayValue.valuesChanged();
+			}
 			fireChangeEvent(DebugEvent.CONTENT);
 		} catch (ClassNotLoadedException e) {
 			targetRequestFailed(
@@ -0,0 +1,316 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.model;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdi.internal.ArrayReferenceImpl;
+
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.Value;
+import com.sun.jdi.VirtualMachine;
+
+/**
+ * The components of an array, retrieved from the VM in pages of
+ * {@link #PAGE_SIZE} components when they are first accessed, rather than all
+ * at once or one at a time. Only the {@link #MAX_PAGES} pages accessed last
+ * are kept, so that inspecting a huge array does not hold a copy of it.
+ * <p>
+ * A page of primitives is kept as an array of the primitive type, and a
+ * {@link Value} is only created for a component when it is asked for. A page
+ * of references is kept as a list of values.
+ * </p>
+ * <p>
+ * Pages are only valid as long as the values of the target have not changed,
+ * they are discarded when the target has resumed since, or when an implicit
+ * evaluation or a method invocation has run code in it.
+ * </p>
+ */
+class JDIArrayPages {
+
+	/**
+	 * Number of components in a page
+	 */
+	static final int PAGE_SIZE = 1024;
+
+	/**
+	 * Number of pages kept
+	 */
+	static final int MAX_PAGES = 64;
+
+	private final JDIDebugTarget fTarget;
+
+	private final ArrayReference fArray;
+
+	/**
+	 * Pages by index, least recently accessed first
+	 */
+	private final Map<Integer, Object> fPages = new LinkedHashMap<Integer, Object>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, Object> eldest) {
+			return size() > MAX_PAGES;
+		}
+	};
+
+	/**
+	 * The state change count of the target the pages were retrieved at
+	 */
+	private int fStateChangeCount = -1;
+
+	JDIArrayPages(JDIDebugTarget target, ArrayReference array) {
+		fTarget = target;
+		fArray = array;
+	}
+
+	/**
+	 * Returns the component at the given index, retrieving its page if
+	 * needed.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             if the index is outside the bounds of the array
+	 */
+	synchronized Value getValue(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || index >= fArray.length()) {
+			throw new IndexOutOfBoundsException();
+		}
+		Object page = getPage(index / PAGE_SIZE);
+		return getValue(page, index % PAGE_SIZE);
+	}
+
+	/**
+	 * Retrieves the pages holding the components in the given range that are
+	 * not retrieved yet, with a request per run of consecutive pages.
+	 */
+	synchronized void load(int offset, int length) {
+		validate();
+		int arrayLength = fArray.length();
+		int end = Math.min(offset + length, arrayLength);
+		if (offset < 0 || offset >= end) {
+			return;
+		}
+		int firstPage = offset / PAGE_SIZE;
+		// do not evict the pages retrieved in this call
+		int lastPage = Math.min((end - 1) / PAGE_SIZE, firstPage + MAX_PAGES - 1);
+		int page = firstPage;
+		while (page <= lastPage) {
+			if (fPages.containsKey(Integer.valueOf(page))) {
+				page++;
+				continue;
+			}
+			int runEnd = page + 1;
+			while (runEnd <= lastPage && !fPages.containsKey(Integer.valueOf(runEnd))) {
+				runEnd++;
+			}
+			retrieve(page, runEnd, arrayLength);
+			page = runEnd;
+		}
+	}
+
+	/**
+	 * Appends the components in the given range to the given buffer,
+	 * separated by <code>", "</code>. A component of a page of primitives is
+	 * appended as its value would render it, without creating the value.
+	 * When <code>maxLength</code> is positive, no more components are
+	 * appended once the buffer is longer than <code>maxLength</code>.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             if the range is outside the bounds of the array
+	 */
+	synchronized void appendValues(StringBuffer buffer, int offset, int length, int maxLength)
+			throws IndexOutOfBoundsException {
+		int end = offset + length;
+		if (offset < 0 || length < 0 || end > fArray.length()) {
+			throw new IndexOutOfBoundsException();
+		}
+		int index = offset;
+		while (index < end) {
+			int pageIndex = index / PAGE_SIZE;
+			validate();
+			if (!fPages.containsKey(Integer.valueOf(pageIndex))) {
+				// retrieve the rest of the range in as few requests as possible
+				load(index, end - index);
+			}
+			Object page = getPage(pageIndex);
+			int from = index % PAGE_SIZE;
+			int to = Math.min(PAGE_SIZE, from + end - index);
+			for (int i = from; i < to; i++) {
+				appendValue(buffer, page, i);
+				index++;
+				if (index < end) {
+					buffer.append(", "); //$NON-NLS-1$
+				}
+				if (maxLength > 0 && buffer.length() > maxLength) {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Appends the component at the given index in the given page to the given
+	 * buffer.
+	 */
+	private void appendValue(StringBuffer buffer, Object page, int index) {
+		if (page instanceof int[]) {
+			buffer.append(((int[]) page)[index]);
+		} else if (page instanceof long[]) {
+			buffer.append(((long[]) page)[index]);
+		} else if (page instanceof byte[]) {
+			buffer.append(((byte[]) page)[index]);
+		} else if (page instanceof char[]) {
+			buffer.append(((char[]) page)[index]);
+		} else if (page instanceof short[]) {
+			buffer.append(((short[]) page)[index]);
+		} else if (page instanceof boolean[]) {
+			buffer.append(((boolean[]) page)[index]);
+		} else if (page instanceof float[]) {
+			buffer.append(((float[]) page)[index]);
+		} else if (page instanceof double[]) {
+			buffer.append(((double[]) page)[index]);
+		} else {
+			buffer.append(getValue(page, index));
+		}
+	}
+
+	/**
+	 * Discards all pages, after the components of the array have been
+	 * modified.
+	 */
+	synchronized void clear() {
+		fPages.clear();
+	}
+
+	/**
+	 * Discards the pages retrieved before the values of the target last
+	 * changed.
+	 */
+	private void validate() {
+		int stateChangeCount = fTarget.getStateChangeCount();
+		if (fStateChangeCount != stateChangeCount) {
+			fPages.clear();
+			fStateChangeCount = stateChangeCount;
+		}
+	}
+
+	private Object getPage(int index) {
+		validate();
+		Object page = fPages.get(Integer.valueOf(index));
+		if (page == null) {
+			retrieve(index, index + 1, fArray.length());
+			page = fPages.get(Integer.valueOf(index));
+		}
+		return page;
+	}
+
+	/**
+	 * Retrieves the pages from <code>firstPage</code> inclusive to
+	 * <code>endPage</code> exclusive with one request.
+	 */
+	private void retrieve(int firstPage, int endPage, int arrayLength) {
+		int first = firstPage * PAGE_SIZE;
+		int length = Math.min(endPage * PAGE_SIZE, arrayLength) - first;
+		Object values = getValues(first, length);
+		for (int page = firstPage; page < endPage; page++) {
+			int from = (page - firstPage) * PAGE_SIZE;
+			int to = Math.min(from + PAGE_SIZE, length);
+			fPages.put(Integer.valueOf(page), copyRange(values, from, to));
+		}
+	}
+
+	/**
+	 * Returns the given range of components with one request, as an array of
+	 * the primitive type of the components if the VM can provide one, or as a
+	 * list of values.
+	 */
+	private Object getValues(int first, int length) {
+		if (fArray instanceof ArrayReferenceImpl) {
+			ArrayReferenceImpl array = (ArrayReferenceImpl) fArray;
+			String signature = fArray.type().signature();
+			// a one-dimensional array of primitives, such as "[I"
+			if (signature.length() == 2) {
+				switch (signature.charAt(1)) {
+				case 'Z':
+					return array.getBooleanValues(first, length);
+				case 'B':
+					return array.getByteValues(first, length);
+				case 'C':
+					return array.getCharValues(first, length);
+				case 'S':
+					return array.getShortValues(first, length);
+				case 'I':
+					return array.getIntValues(first, length);
+				case 'J':
+					return array.getLongValues(first, length);
+				case 'F':
+					return array.getFloatValues(first, length);
+				case 'D':
+					return array.getDoubleValues(first, length);
+				}
+			}
+		}
+		return fArray.getValues(first, length);
+	}
+
+	/**
+	 * Returns the given range of the given primitive array or list of values,
+	 * as the same kind of object.
+	 */
+	private static Object copyRange(Object values, int from, int to) {
+		if (values instanceof List) {
+			return new ArrayList<>(((List<?>) values).subList(from, to));
+		}
+		if (from == 0 && to == Array.getLength(values)) {
+			return values;
+		}
+		Object range = Array.newInstance(values.getClass().getComponentType(), to - from);
+		System.arraycopy(values, from, range, 0, to - from);
+		return range;
+	}
+
+	/**
+	 * Returns the component at the given index in the given page.
+	 */
+	private Value getValue(Object page, int index) {
+		if (page instanceof List) {
+			return (Value) ((List<?>) page).get(index);
+		}
+		VirtualMachine vm = fArray.virtualMachine();
+		if (page instanceof int[]) {
+			return vm.mirrorOf(((int[]) page)[index]);
+		}
+		if (page instanceof long[]) {
+			return vm.mirrorOf(((long[]) page)[index]);
+		}
+		if (page instanceof byte[]) {
+			return vm.mirrorOf(((byte[]) page)[index]);
+		}
+		if (page instanceof char[]) {
+			return vm.mirrorOf(((char[]) page)[index]);
+		}
+		if (page instanceof short[]) {
+			return vm.mirrorOf(((short[]) page)[index]);
+		}
+		if (page instanceof boolean[]) {
+			return vm.mirrorOf(((boolean[]) page)[index]);
+		}
+		if (page instanceof float[]) {
+			return vm.mirrorOf(((float[]) page)[index]);
+		}
+		return vm.mirrorOf(((double[]) page)[index]);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.debug.core.model;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -19,11 +20,13 @@ import org.eclipse.debug.core.model.IIndexedValue;
 import org.eclipse.debug.core.model.IVariable;
 import org.eclipse.jdt.debug.core.IJavaArray;
 import org.eclipse.jdt.debug.core.IJavaValue;
+import org.eclipse.jdt.debug.core.IJavaVariable;
 
 import com.ibm.icu.text.MessageFormat;
 import com.sun.jdi.ArrayReference;
 import com.sun.jdi.ClassNotLoadedException;
 import com.sun.jdi.InvalidTypeException;
+import com.sun.jdi.ObjectCollectedException;
 import com.sun.jdi.Value;
 
 public class JDIArrayValue extends JDIObjectValue implements IJavaArray,
@@ -31,6 +34,17 @@ public class JDIArrayValue extends JDIObjectValue implements IJavaArray,
 
 	private int fLength = -1;
 
+	/**
+	 * The components of this array retrieved so far, created when first
+	 * accessed
+	 */
+	private JDIArrayPages fPages;
+
+	/**
+	 * Entry variables of this array, created when accessed
+	 */
+	private List<IJavaVariable> fEntries;
+
 	/**
 	 * Constructs a value which is a reference to an array.
 	 *
@@ -95,6 +109,7 @@ public class JDIArrayValue extends JDIObjectValue implements IJavaArray,
 		try {
 			getArrayReference().setValue(index,
 					((JDIValue) value).getUnderlyingValue());
+			valuesChanged();
 		} catch (IndexOutOfBoundsException e) {
 			throw e;
 		} catch (InvalidTypeException e) {
@@ -125,9 +140,27 @@ public class JDIArrayValue extends JDIObjectValue implements IJavaArray,
 		return (ArrayReference) getUnderlyingValue();
 	}
 
+	/**
+	 * Returns the pages of components of this array.
+	 */
+	private synchronized JDIArrayPages getPages() {
+		if (fPages == null) {
+			fPages = new JDIArrayPages(getJavaDebugTarget(), getArrayReference());
+		}
+		return fPages;
+	}
+
+	/**
+	 * Discards the components of this array retrieved so far, after they
+	 * have been modified.
+	 */
+	void valuesChanged() {
+		getPages().clear();
+	}
+
 	/**
 	 * Returns the underlying value at the given index from the underlying array
-	 * reference.
+	 * reference. The value is retrieved with the page of components it is in.
 	 *
 	 * @param index
 	 *            the index at which to retrieve a value
@@ -142,7 +175,7 @@ public class JDIArrayValue extends JDIObjectValue implements IJavaArray,
 	 */
 	protected Value getUnderlyingValue(int index) throws DebugException {
 		try {
-			return getArrayReference().getValue(index);
+			return getPages().getValue(index);
 		} catch (IndexOutOfBoundsException e) {
 			throw e;
 		} catch (RuntimeException e) {
@@ -156,6 +189,74 @@ public class JDIArrayValue extends JDIObjectValue implements IJavaArray,
 		return null;
 	}
 
+	/**
+	 * Returns whether the components of this array are primitives.
+	 *
+	 * @return whether this is an array of primitives
+	 * @exception DebugException
+	 *                if this method fails. Reasons include:
+	 *                <ul>
+	 *                <li>Failure communicating with the VM. The
+	 *                DebugException's status code contains the underlying
+	 *                exception responsible for the failure.</li>
+	 *                </ul>
+	 */
+	public boolean isPrimitiveArray() throws DebugException {
+		String signature = getSignature();
+		// a one-dimensional array of primitives, such as "[I"
+		return signature != null && signature.length() == 2;
+	}
+
+	/**
+	 * Appends the components in the given range of this array to the given
+	 * buffer, separated by <code>", "</code>, as their values would render
+	 * them. The components of an array of primitives are rendered from pages
+	 * of raw components, without creating a value per component.
+	 *
+	 * @param buffer
+	 *            the buffer to append to
+	 * @param offset
+	 *            the index of the first component to append
+	 * @param length
+	 *            the number of components to append
+	 * @param maxLength
+	 *            if positive, no more components are appended once the
+	 *            buffer is longer than this
+	 * @exception DebugException
+	 *                if this method fails. Reasons include:
+	 *                <ul>
+	 *                <li>Failure communicating with the VM. The
+	 *                DebugException's status code contains the underlying
+	 *                exception responsible for the failure.</li>
+	 *                </ul>
+	 */
+	public void appendValues(StringBuffer buffer, int offset, int length, int maxLength)
+			throws DebugException {
+		if (!isPrimitiveArray()) {
+			int end = offset + length;
+			for (int i = offset; i < end; i++) {
+				buffer.append(getValue(i).getValueString());
+				if (i < end - 1) {
+					buffer.append(", "); //$NON-NLS-1$
+				}
+				if (maxLength > 0 && buffer.length() > maxLength) {
+					return;
+				}
+			}
+			return;
+		}
+		try {
+			getPages().appendValues(buffer, offset, length, maxLength);
+		} catch (IndexOutOfBoundsException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			targetRequestFailed(
+					MessageFormat.format(
+							JDIDebugModelMessages.JDIArrayValue_exception_while_retrieving_values_from_array,
+							e.toString()), e);
+		}
+	}
+
 	/**
 	 * Returns the underlying values from the underlying array reference.
 	 *
@@ -204,8 +305,8 @@ public class JDIArrayValue extends JDIObjectValue implements IJavaArray,
 		if (offset >= getLength()) {
 			requestFailed(JDIDebugModelMessages.JDIArrayValue_6, null);
 		}
-		return new JDIArrayEntryVariable(getJavaDebugTarget(),
-				getArrayReference(), offset, fLogicalParent);
+		return new JDIArrayEntryVariable(getJavaDebugTarget(), this, offset,
+				fLogicalParent);
 	}
 
 	/*
@@ -222,16 +323,64 @@ public class JDIArrayValue extends JDIObjectValue implements IJavaArray,
 		if ((offset + length - 1) >= getLength()) {
 			requestFailed(JDIDebugModelMessages.JDIArrayValue_8, null);
 		}
+		try {
+			// retrieve the values of the entries in one go
+			getPages().load(offset, length);
+		} catch (RuntimeException e) {
+			// retrieved per page when the entries are asked for their values
+		}
 		IVariable[] variables = new IVariable[length];
 		int index = offset;
 		for (int i = 0; i < length; i++) {
 			variables[i] = new JDIArrayEntryVariable(getJavaDebugTarget(),
-					getArrayReference(), index, fLogicalParent);
+					this, index, fLogicalParent);
 			index++;
 		}
 		return variables;
 	}
 
+	/**
+	 * Returns the entry variables of this array. An entry variable is only
+	 * created when it is accessed, and its value only retrieved when it is
+	 * asked for.
+	 *
+	 * @see JDIValue#getVariablesList()
+	 */
+	@Override
+	protected synchronized List<IJavaVariable> getVariablesList()
+			throws DebugException {
+		if (getArrayReference() == null) {
+			return super.getVariablesList();
+		}
+		if (fEntries == null) {
+			final int length;
+			try {
+				length = getLength();
+			} catch (DebugException e) {
+				if (e.getCause() instanceof ObjectCollectedException) {
+					return Collections.EMPTY_LIST;
+				}
+				throw e;
+			}
+			fEntries = new AbstractList<IJavaVariable>() {
+				@Override
+				public IJavaVariable get(int index) {
+					if (index < 0 || index >= length) {
+						throw new IndexOutOfBoundsException();
+					}
+					return new JDIArrayEntryVariable(getJavaDebugTarget(),
+							JDIArrayValue.this, index, fLogicalParent);
+				}
+
+				@Override
+				public int size() {
+					return length;
+				}
+			};
+		}
+		return fEntries;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -267,6 +416,7 @@ public class JDIArrayValue extends JDIObjectValue implements IJavaArray,
 				list.add(((JDIValue) value).getUnderlyingValue());
 			}
 			getArrayReference().setValues(offset, list, startOffset, length);
+			valuesChanged();
 		} catch (IndexOutOfBoundsException e) {
 			throw e;
 		} catch (InvalidTypeException e) {
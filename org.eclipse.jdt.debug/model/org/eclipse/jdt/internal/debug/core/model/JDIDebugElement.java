@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -27,6 +27,7 @@ import org.eclipse.jdi.TimeoutException;
 import org.eclipse.jdt.debug.core.IJavaDebugTarget;
 import org.eclipse.jdt.debug.core.JDIDebugModel;
 
+import org.eclipse.jdt.internal.debug.core.DebugEventBatch;
 import org.eclipse.jdt.internal.debug.core.EventDispatcher;
 import org.eclipse.jdt.internal.debug.core.IJDIEventListener;
 import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
@@ -115,6 +116,21 @@ public abstract class JDIDebugElement extends DebugElement implements
 		}
 	}
 
+	/**
+	 * Fires the given debug event, or adds it to the batch of events in
+	 * progress in the current thread.
+	 *
+	 * @param event
+	 *            the event to fire
+	 * @see DebugEventBatch
+	 */
+	@Override
+	public void fireEvent(DebugEvent event) {
+		if (!DebugEventBatch.add(event)) {
+			super.fireEvent(event);
+		}
+	}
+
 	/**
 	 * Fires a debug event marking the SUSPEND of this element with the
 	 * associated detail.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -90,9 +90,11 @@ import org.eclipse.jdt.debug.core.IJavaVariable;
 import org.eclipse.jdt.debug.core.JDIDebugModel;
 import org.eclipse.jdt.debug.eval.EvaluationManager;
 import org.eclipse.jdt.debug.eval.IAstEvaluationEngine;
+import org.eclipse.jdt.internal.debug.core.DebugEventBatch;
 import org.eclipse.jdt.internal.debug.core.EventDispatcher;
 import org.eclipse.jdt.internal.debug.core.IJDIEventListener;
 import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
+import org.eclipse.jdt.internal.debug.core.breakpoints.BreakpointInstallBatch;
 import org.eclipse.jdt.internal.debug.core.breakpoints.JavaBreakpoint;
 import org.eclipse.jdt.internal.debug.core.breakpoints.JavaLineBreakpoint;
 
@@ -206,6 +208,11 @@ public class JDIDebugTarget extends JDIDebugElement implements
 	 */
 	private EventDispatcher fEventDispatcher = null;
 
+	/**
+	 * Class prepare requests shared between breakpoints
+	 */
+	private final ClassPrepareRequestMultiplexer fSharedClassPrepareRequests = new ClassPrepareRequestMultiplexer(this);
+
 	/**
 	 * The thread start event handler
 	 */
@@ -229,7 +236,14 @@ public class JDIDebugTarget extends JDIDebugElement implements
 	/**
 	 * Count of the number of suspend events in this target
 	 */
-	private int fSuspendCount = 0;
+	private final AtomicInteger fSuspendCount = new AtomicInteger();
+
+	/**
+	 * Count of the number of times values in this target may have changed:
+	 * suspend events of any kind, including implicit evaluations, and method
+	 * invocations
+	 */
+	private final AtomicInteger fStateChangeCount = new AtomicInteger();
 
 	/**
 	 * Evaluation engine cache by Java project. Engines are disposed when this
@@ -248,6 +262,12 @@ public class JDIDebugTarget extends JDIDebugElement implements
 	 */
 	private int fStepFilterMask = 0;
 
+	/**
+	 * Step filters compiled from the step filter settings of this target, or
+	 * <code>null</code> if they changed since they were last compiled.
+	 */
+	private volatile StepFilterMatcher fStepFilterMatcher = null;
+
 	/**
 	 * Step filter bit mask - indicates if step filters are enabled.
 	 */
@@ -540,8 +560,14 @@ public class JDIDebugTarget extends JDIDebugElement implements
 				JDIDebugModel.PREF_REQUEST_TIMEOUT,
 				JDIDebugModel.DEF_REQUEST_TIMEOUT,
 				null));
+		setPipelineDepth(Platform.getPreferencesService().getInt(
+				JDIDebugPlugin.getUniqueIdentifier(),
+				JDIDebugPlugin.PREF_VALUE_FETCH_PIPELINE_DEPTH,
+				JDIDebugPlugin.DEF_PIPELINE_DEPTH,
+				null));
 		initializeRequests();
 		initializeState();
+		initializeClasses();
 		initializeBreakpoints();
 		getLaunch().addDebugTarget(this);
 		DebugPlugin plugin = DebugPlugin.getDefault();
@@ -597,6 +623,44 @@ public class JDIDebugTarget extends JDIDebugElement implements
 		}
 	}
 
+	/**
+	 * Sets the maximum number of requests the underlying VM may have waiting
+	 * for a reply when it retrieves data in a batch, such as the line tables
+	 * of all methods of a type.
+	 *
+	 * @param depth
+	 *            maximum number of pipelined requests, 1 to disable pipelining
+	 * @see JDIDebugPlugin#PREF_VALUE_FETCH_PIPELINE_DEPTH
+	 */
+	public void setPipelineDepth(int depth) {
+		VirtualMachine vm = getVM();
+		if (vm instanceof VirtualMachineImpl) {
+			((VirtualMachineImpl) vm).setPipelineDepth(depth);
+		}
+	}
+
+	/**
+	 * Fetches the class table of the VM in bulk, if enabled, so that installing
+	 * breakpoints does not need a request per type name.
+	 */
+	protected void initializeClasses() {
+		VirtualMachine vm = getVM();
+		if (vm instanceof VirtualMachineImpl
+				&& Platform.getPreferencesService().getBoolean(
+						JDIDebugPlugin.getUniqueIdentifier(),
+						JDIDebugPlugin.PREF_HYDRATE_CLASSES, false, null)) {
+			try {
+				((VirtualMachineImpl) vm).hydrateClasses();
+			} catch (VMDisconnectedException e) {
+				if (isAvailable()) {
+					logError(e);
+				}
+			} catch (RuntimeException e) {
+				internalError(e);
+			}
+		}
+	}
+
 	/**
 	 * Registers event handlers for thread creation, thread termination.
 	 */
@@ -615,10 +679,15 @@ public class JDIDebugTarget extends JDIDebugElement implements
 		manager.addBreakpointListener(this);
 		IBreakpoint[] bps = manager.getBreakpoints(JDIDebugModel
 				.getPluginIdentifier());
-		for (IBreakpoint bp : bps) {
-			if (bp instanceof IJavaBreakpoint) {
-				breakpointAdded(bp);
+		BreakpointInstallBatch batch = BreakpointInstallBatch.begin(this);
+		try {
+			for (IBreakpoint bp : bps) {
+				if (bp instanceof IJavaBreakpoint) {
+					breakpointAdded(bp);
+				}
 			}
+		} finally {
+			batch.install();
 		}
 	}
 
@@ -1313,6 +1382,89 @@ public class JDIDebugTarget extends JDIDebugElement implements
 		return req;
 	}
 
+	/**
+	 * Returns an enabled class prepare request for the specified class name
+	 * that is shared with other requesters in this target, and adds a
+	 * reference to it. Each distinct pattern is installed in the VM once.
+	 * Listeners for the shared request are added and removed with
+	 * {@link #addJDIEventListener(IJDIEventListener, EventRequest)} and
+	 * {@link #removeJDIEventListener(IJDIEventListener, EventRequest)} as for
+	 * any other request, and all of them are notified of each event. The
+	 * request must not be deleted by the requester, but released with
+	 * {@link #releaseClassPrepareRequest(EventRequest)}.
+	 *
+	 * @param classPattern
+	 *            regular expression specifying the pattern of class names that
+	 *            will cause the event request to fire. Regular expressions may
+	 *            begin with a '*', end with a '*', or be an exact match.
+	 * @param classExclusionPattern
+	 *            regular expression specifying the pattern of class names that
+	 *            will not cause the event request to fire. Regular expressions
+	 *            may begin with a '*', end with a '*', or be an exact match.
+	 *            May be <code>null</code>.
+	 * @exception CoreException
+	 *                if unable to create the request
+	 */
+	public ClassPrepareRequest acquireClassPrepareRequest(String classPattern,
+			String classExclusionPattern) throws CoreException {
+		return fSharedClassPrepareRequests.acquire(classPattern,
+				classExclusionPattern);
+	}
+
+	/**
+	 * Removes a reference to the given shared class prepare request. The
+	 * request is deleted when no references to it remain.
+	 *
+	 * @param request
+	 *            a request returned by
+	 *            {@link #acquireClassPrepareRequest(String, String)}
+	 * @return whether the request is a shared request, <code>false</code> if
+	 *         the request was not released
+	 */
+	public boolean releaseClassPrepareRequest(EventRequest request) {
+		return fSharedClassPrepareRequests.release(request);
+	}
+
+	/**
+	 * Returns whether the given request is shared with other requesters in
+	 * this target.
+	 *
+	 * @param request
+	 *            event request
+	 * @return whether the request is shared
+	 * @see #acquireClassPrepareRequest(String, String)
+	 */
+	public boolean isSharedRequest(EventRequest request) {
+		return request instanceof ClassPrepareRequest
+				&& fSharedClassPrepareRequests.isShared(request);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jdt.internal.debug.core.model.JDIDebugElement#addJDIEventListener(org.eclipse.jdt.internal.debug.core.IJDIEventListener, com.sun.jdi.request.EventRequest)
+	 */
+	@Override
+	public void addJDIEventListener(IJDIEventListener listener,
+			EventRequest request) {
+		if (isSharedRequest(request)) {
+			fSharedClassPrepareRequests.addListener(listener, request);
+		} else {
+			super.addJDIEventListener(listener, request);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jdt.internal.debug.core.model.JDIDebugElement#removeJDIEventListener(org.eclipse.jdt.internal.debug.core.IJDIEventListener, com.sun.jdi.request.EventRequest)
+	 */
+	@Override
+	public void removeJDIEventListener(IJDIEventListener listener,
+			EventRequest request) {
+		if (isSharedRequest(request)) {
+			fSharedClassPrepareRequests.removeListener(listener, request);
+		} else {
+			super.removeJDIEventListener(listener, request);
+		}
+	}
+
 	/**
 	 * @see ISuspendResume#resume()
 	 */
@@ -1632,6 +1784,7 @@ public class JDIDebugTarget extends JDIDebugElement implements
 			return;
 		}
 		if (supportsBreakpoint(breakpoint)) {
+			BreakpointInstallBatch batch = BreakpointInstallBatch.begin(this);
 			try {
 				JavaBreakpoint javaBreakpoint = (JavaBreakpoint) breakpoint;
 				if (!getBreakpoints().contains(breakpoint)) {
@@ -1647,6 +1800,8 @@ public class JDIDebugTarget extends JDIDebugElement implements
 				}
 			} catch (CoreException e) {
 				logError(e);
+			} finally {
+				batch.install();
 			}
 		}
 	}
@@ -1662,6 +1817,10 @@ public class JDIDebugTarget extends JDIDebugElement implements
 	 */
 	@Override
 	public void breakpointChanged(IBreakpoint breakpoint, IMarkerDelta delta) {
+		// the marker may have been changed directly, bypassing the breakpoint
+		if (breakpoint instanceof JavaBreakpoint) {
+			((JavaBreakpoint) breakpoint).attributesChanged();
+		}
 	}
 
 	/**
@@ -1882,6 +2041,7 @@ public class JDIDebugTarget extends JDIDebugElement implements
 		plugin.getBreakpointManager().removeBreakpointManagerListener(this);
 		plugin.removeDebugEventListener(this);
 		removeAllBreakpoints();
+		fSharedClassPrepareRequests.clear();
 		DebugPlugin.getDefault().getBreakpointManager().enableTriggerPoints(null, true);
 		fOutOfSynchTypes.clear();
 		if (fEngines != null) {
@@ -2658,6 +2818,7 @@ public class JDIDebugTarget extends JDIDebugElement implements
 			fStepFilterMask = fStepFilterMask
 					& (FILTER_CONSTRUCTORS ^ XOR_MASK);
 		}
+		stepFiltersChanged();
 	}
 
 	/**
@@ -2671,6 +2832,7 @@ public class JDIDebugTarget extends JDIDebugElement implements
 			fStepFilterMask = fStepFilterMask
 					& (FILTER_STATIC_INITIALIZERS ^ XOR_MASK);
 		}
+		stepFiltersChanged();
 	}
 
 	/**
@@ -2683,6 +2845,7 @@ public class JDIDebugTarget extends JDIDebugElement implements
 		} else {
 			fStepFilterMask = fStepFilterMask & (FILTER_SYNTHETICS ^ XOR_MASK);
 		}
+		stepFiltersChanged();
 	}
 
 	/*
@@ -2712,6 +2875,7 @@ public class JDIDebugTarget extends JDIDebugElement implements
 		} else {
 			fStepFilterMask = fStepFilterMask & (FILTER_GETTERS ^ XOR_MASK);
 		}
+		stepFiltersChanged();
 	}
 
 	@Override
@@ -2726,6 +2890,7 @@ public class JDIDebugTarget extends JDIDebugElement implements
 		} else {
 			fStepFilterMask = fStepFilterMask & (FILTER_SETTERS ^ XOR_MASK);
 		}
+		stepFiltersChanged();
 	}
 
 	/**
@@ -2734,6 +2899,30 @@ public class JDIDebugTarget extends JDIDebugElement implements
 	@Override
 	public void setStepFilters(String[] list) {
 		fStepFilters = list;
+		stepFiltersChanged();
+	}
+
+	/**
+	 * Discards the compiled step filters of this target, when its step filter
+	 * settings change or classes are redefined.
+	 */
+	public void stepFiltersChanged() {
+		fStepFilterMatcher = null;
+	}
+
+	/**
+	 * Returns the step filters of this target, compiled from its current step
+	 * filter settings.
+	 *
+	 * @return the compiled step filters
+	 */
+	StepFilterMatcher getStepFilterMatcher() {
+		StepFilterMatcher matcher = fStepFilterMatcher;
+		if (matcher == null) {
+			matcher = new StepFilterMatcher(this);
+			fStepFilterMatcher = matcher;
+		}
+		return matcher;
 	}
 
 	/**
@@ -2781,7 +2970,7 @@ public class JDIDebugTarget extends JDIDebugElement implements
 	 * @return the number of suspend events that have occurred in this target
 	 */
 	protected int getSuspendCount() {
-		return fSuspendCount;
+		return fSuspendCount.get();
 	}
 
 	/**
@@ -2794,8 +2983,29 @@ public class JDIDebugTarget extends JDIDebugElement implements
 	 */
 	protected void incrementSuspendCount(int eventDetail) {
 		if (eventDetail != DebugEvent.EVALUATION_IMPLICIT) {
-			fSuspendCount++;
+			fSuspendCount.incrementAndGet();
 		}
+		incrementStateChangeCount();
+	}
+
+	/**
+	 * Returns a count that changes whenever values in this target may have
+	 * changed. Unlike the suspend count, it also changes when an implicit
+	 * evaluation or a method invocation completes, so values retrieved ahead
+	 * of time must be checked against it.
+	 *
+	 * @return the number of times values in this target may have changed
+	 */
+	protected int getStateChangeCount() {
+		return fStateChangeCount.get();
+	}
+
+	/**
+	 * Records that values in this target may have changed, because a thread
+	 * ran code.
+	 */
+	protected void incrementStateChangeCount() {
+		fStateChangeCount.incrementAndGet();
 	}
 
 	/**
@@ -3230,53 +3440,59 @@ public class JDIDebugTarget extends JDIDebugElement implements
 				targetLevelEvent = true;
 			}
 		}
-		if (targetLevelEvent) {
-			iterator = toSuspend.iterator();
-			while (iterator.hasNext()) {
-				JDIThread thread = iterator.next();
-				thread.suspendedByVM();
-			}
-			iterator = toResume.iterator();
-			while (iterator.hasNext()) {
-				JDIThread thread = iterator.next();
-				thread.resumedByVM();
-			}
-			iterator = toRefresh.iterator();
-			while (iterator.hasNext()) {
-				JDIThread thread = iterator.next();
-				thread.preserveStackFrames();
-			}
-			if (running == 0) {
-				synchronized (this) {
-					setSuspended(true);
+		// fire the events of all threads as one event set
+		DebugEventBatch batch = DebugEventBatch.begin();
+		try {
+			if (targetLevelEvent) {
+				iterator = toSuspend.iterator();
+				while (iterator.hasNext()) {
+					JDIThread thread = iterator.next();
+					thread.suspendedByVM();
+				}
+				iterator = toResume.iterator();
+				while (iterator.hasNext()) {
+					JDIThread thread = iterator.next();
+					thread.resumedByVM();
+				}
+				iterator = toRefresh.iterator();
+				while (iterator.hasNext()) {
+					JDIThread thread = iterator.next();
+					thread.preserveStackFrames();
+				}
+				if (running == 0) {
+					synchronized (this) {
+						setSuspended(true);
+					}
+					fireSuspendEvent(DebugEvent.CLIENT_REQUEST);
+				} else {
+					synchronized (this) {
+						setSuspended(false);
+					}
+					fireResumeEvent(DebugEvent.CLIENT_REQUEST);
 				}
-				fireSuspendEvent(DebugEvent.CLIENT_REQUEST);
 			} else {
-				synchronized (this) {
-					setSuspended(false);
+				iterator = toSuspend.iterator();
+				while (iterator.hasNext()) {
+					JDIThread thread = iterator.next();
+					thread.preserveStackFrames();
+					thread.setRunning(false);
+					thread.fireSuspendEvent(DebugEvent.CLIENT_REQUEST);
+				}
+				iterator = toResume.iterator();
+				while (iterator.hasNext()) {
+					JDIThread thread = iterator.next();
+					thread.setRunning(true);
+					thread.fireResumeEvent(DebugEvent.CLIENT_REQUEST);
+				}
+				iterator = toRefresh.iterator();
+				while (iterator.hasNext()) {
+					JDIThread thread = iterator.next();
+					thread.preserveStackFrames();
+					thread.fireSuspendEvent(DebugEvent.CLIENT_REQUEST);
 				}
-				fireResumeEvent(DebugEvent.CLIENT_REQUEST);
-			}
-		} else {
-			iterator = toSuspend.iterator();
-			while (iterator.hasNext()) {
-				JDIThread thread = iterator.next();
-				thread.preserveStackFrames();
-				thread.setRunning(false);
-				thread.fireSuspendEvent(DebugEvent.CLIENT_REQUEST);
-			}
-			iterator = toResume.iterator();
-			while (iterator.hasNext()) {
-				JDIThread thread = iterator.next();
-				thread.setRunning(true);
-				thread.fireResumeEvent(DebugEvent.CLIENT_REQUEST);
-			}
-			iterator = toRefresh.iterator();
-			while (iterator.hasNext()) {
-				JDIThread thread = iterator.next();
-				thread.preserveStackFrames();
-				thread.fireSuspendEvent(DebugEvent.CLIENT_REQUEST);
 			}
+		} finally {
+			batch.end();
 		}
 
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -59,6 +59,16 @@ public class JDIFieldVariable extends JDIModificationVariable implements
 	 */
 	private IJavaValue fLogicalParent;
 
+	/**
+	 * Value retrieved ahead of time together with the values of sibling
+	 * fields, or <code>null</code>. It is only valid as long as the state
+	 * change count of the target is {@link #fPrefetchStateChangeCount}: any
+	 * suspend, evaluation or method invocation since may have changed it.
+	 */
+	private Value fPrefetchedValue;
+	private boolean fHasPrefetchedValue;
+	private int fPrefetchStateChangeCount;
+
 	/**
 	 * Constructs a field for the given field.
 	 */
@@ -88,12 +98,39 @@ public class JDIFieldVariable extends JDIModificationVariable implements
 	 */
 	@Override
 	protected Value retrieveValue() {
+		synchronized (this) {
+			if (fHasPrefetchedValue) {
+				fHasPrefetchedValue = false;
+				Value value = fPrefetchedValue;
+				fPrefetchedValue = null;
+				if (fPrefetchStateChangeCount == getJavaDebugTarget().getStateChangeCount()) {
+					return value;
+				}
+			}
+		}
 		if (getField().isStatic()) {
 			return (getField().declaringType().getValue(getField()));
 		}
 		return getObjectReference().getValue(getField());
 	}
 
+	/**
+	 * Sets the value of this field as retrieved in a batch with other fields.
+	 * The value is used for the next retrieval of this variable's value, if
+	 * the target has not run code in the meantime.
+	 *
+	 * @param value
+	 *            the current value of this field
+	 * @param stateChangeCount
+	 *            the state change count of the target before the value was
+	 *            retrieved
+	 */
+	synchronized void setPrefetchedValue(Value value, int stateChangeCount) {
+		fPrefetchedValue = value;
+		fHasPrefetchedValue = true;
+		fPrefetchStateChangeCount = stateChangeCount;
+	}
+
 	/**
 	 * @see IJavaFieldVariable#getDeclaringType()
 	 */
@@ -123,6 +160,10 @@ public class JDIFieldVariable extends JDIModificationVariable implements
 
 	@Override
 	protected void setJDIValue(Value value) throws DebugException {
+		synchronized (this) {
+			fHasPrefetchedValue = false;
+			fPrefetchedValue = null;
+		}
 		try {
 			if (isStatic()) {
 				ReferenceType declaringType = getField().declaringType();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,6 +20,7 @@ import com.sun.jdi.ClassNotLoadedException;
 import com.sun.jdi.InvalidTypeException;
 import com.sun.jdi.LocalVariable;
 import com.sun.jdi.ReferenceType;
+import com.sun.jdi.StackFrame;
 import com.sun.jdi.Type;
 import com.sun.jdi.Value;
 
@@ -33,6 +34,21 @@ public class JDILocalVariable extends JDIModificationVariable {
 	 */
 	private LocalVariable fLocal;
 
+	/**
+	 * The binding of the stack frame in which the value of this variable was
+	 * last retrieved, or -1 if it needs to be retrieved
+	 */
+	private int fValueGeneration = -1;
+
+	/**
+	 * Value retrieved ahead of time together with the values of the other
+	 * locals of the stack frame, or <code>null</code>. It is only valid while
+	 * the stack frame is in the binding recorded in
+	 * {@link #fPrefetchGeneration}.
+	 */
+	private Value fPrefetchedValue;
+	private int fPrefetchGeneration = -1;
+
 	/**
 	 * The stack frame the local is contained in
 	 */
@@ -54,14 +70,52 @@ public class JDILocalVariable extends JDIModificationVariable {
 	protected Value retrieveValue() throws DebugException {
 		synchronized (fStackFrame.getThread()) {
 			if (getStackFrame().isSuspended()) {
-				return getStackFrame().getUnderlyingStackFrame().getValue(
-						fLocal);
+				StackFrame frame = getStackFrame().getUnderlyingStackFrame();
+				if (fValueGeneration >= getStackFrame().getChangedGeneration()) {
+					// the frame did not execute since the value was retrieved
+					return getLastKnownValue();
+				}
+				Value value;
+				if (fPrefetchGeneration == getStackFrame().getGeneration()) {
+					value = fPrefetchedValue;
+				} else {
+					value = frame.getValue(fLocal);
+				}
+				fPrefetchedValue = null;
+				fPrefetchGeneration = -1;
+				fValueGeneration = getStackFrame().getGeneration();
+				return value;
 			}
 		}
 		// bug 6518
 		return getLastKnownValue();
 	}
 
+	/**
+	 * Returns whether the value of this variable is to be retrieved from the
+	 * VM when it is next asked for. Called while holding the lock of the
+	 * stack frame's thread.
+	 */
+	boolean needsValue() {
+		int generation = getStackFrame().getGeneration();
+		return fValueGeneration < getStackFrame().getChangedGeneration()
+				&& fPrefetchGeneration != generation;
+	}
+
+	/**
+	 * Sets the value of this local as retrieved in a batch with the other
+	 * locals of the stack frame. The value is used for the next retrieval of
+	 * this variable's value, if the stack frame has not been re-bound in the
+	 * meantime. Called while holding the lock of the stack frame's thread.
+	 *
+	 * @param value
+	 *            the current value of this local
+	 */
+	void setPrefetchedValue(Value value) {
+		fPrefetchedValue = value;
+		fPrefetchGeneration = getStackFrame().getGeneration();
+	}
+
 	/**
 	 * @see IVariable#getName()
 	 */
@@ -89,6 +143,9 @@ public class JDILocalVariable extends JDIModificationVariable {
 			synchronized (getStackFrame().getThread()) {
 				getStackFrame().getUnderlyingStackFrame().setValue(getLocal(),
 						value);
+				fValueGeneration = -1;
+				fPrefetchedValue = null;
+				fPrefetchGeneration = -1;
 			}
 			fireChangeEvent(DebugEvent.CONTENT);
 		} catch (ClassNotLoadedException e) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,6 +16,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.core.runtime.IStatus;
@@ -59,6 +60,7 @@ import com.sun.jdi.ObjectReference;
 import com.sun.jdi.ReferenceType;
 import com.sun.jdi.StackFrame;
 import com.sun.jdi.Type;
+import com.sun.jdi.Value;
 import com.sun.jdi.VirtualMachine;
 
 /**
@@ -124,6 +126,22 @@ public class JDIStackFrame extends JDIDebugElement implements IJavaStackFrame {
 	 */
 	private boolean fIsTop;
 
+	/**
+	 * Number of times this frame has been bound to an underlying frame
+	 */
+	private int fGeneration = 0;
+
+	/**
+	 * The binding of this frame since which its variables and their values are
+	 * unchanged, as the frame did not execute
+	 */
+	private int fChangedGeneration = 0;
+
+	/**
+	 * The binding of this frame in which its variables were last updated
+	 */
+	private int fVariablesGeneration = 0;
+
 	/**
 	 * Creates a new stack frame in the given thread.
 	 *
@@ -154,9 +172,32 @@ public class JDIStackFrame extends JDIDebugElement implements IJavaStackFrame {
 	 * @param return a frame to refer to the given frame or <code>null</code>
 	 */
 	protected JDIStackFrame bind(StackFrame frame, int depth) {
+		return bind(frame, depth, false);
+	}
+
+	/**
+	 * Binds this frame to the given underlying frame on the target VM or
+	 * returns a new frame representing the given frame, as
+	 * {@link #bind(StackFrame, int)}. When the frame is known not to have
+	 * executed since it was last bound, and is still at the same location, its
+	 * variables are kept as they are.
+	 *
+	 * @param frame
+	 *            underlying frame, or <code>null</code>
+	 * @param depth
+	 *            depth in the call stack, or -1 to indicate the frame should
+	 *            become invalid
+	 * @param unchanged
+	 *            whether the frame at the given depth is known not to have
+	 *            executed since this frame was last bound
+	 * @return a frame to refer to the given frame or <code>null</code>
+	 */
+	JDIStackFrame bind(StackFrame frame, int depth, boolean unchanged) {
 		synchronized (fThread) {
 			if (fDepth == -2) {
 				// first initialization
+				fGeneration++;
+				fChangedGeneration = fGeneration;
 				fStackFrame = frame;
 				fDepth = depth;
 				fLocation = frame.location();
@@ -177,9 +218,14 @@ public class JDIStackFrame extends JDIDebugElement implements IJavaStackFrame {
 								equals(getSourceName(location),
 										getSourceName(fLocation))) {
 							// TODO: what about receiving type being the same?
+							fGeneration++;
+							if (!unchanged
+									|| location.codeIndex() != fLocation.codeIndex()) {
+								fChangedGeneration = fGeneration;
+								clearCachedData();
+							}
 							fStackFrame = frame;
 							fLocation = location;
-							clearCachedData();
 							return this;
 						}
 					} catch (DebugException e) {
@@ -249,16 +295,15 @@ public class JDIStackFrame extends JDIDebugElement implements IJavaStackFrame {
 			if (!exists() || isObsolete() || !getThread().canStepReturn()) {
 				return false;
 			}
-			List<IJavaStackFrame> frames = ((JDIThread) getThread())
-					.computeStackFrames();
+			JDIThread thread = (JDIThread) getThread();
+			List<IJavaStackFrame> frames = thread.computeStackFrames();
 			if (frames != null && !frames.isEmpty()) {
-				boolean bottomFrame = this
-						.equals(frames.get(frames.size() - 1));
+				int index = frames.indexOf(this);
+				boolean bottomFrame = index == frames.size() - 1;
 				boolean aboveObsoleteFrame = false;
 				if (!bottomFrame) {
-					int index = frames.indexOf(this);
 					if (index < frames.size() - 1
-							&& ((JDIStackFrame) frames.get(index + 1))
+							&& ((JDIStackFrame) thread.getStackFrame(index + 1))
 									.isObsolete()) {
 						aboveObsoleteFrame = true;
 					}
@@ -282,12 +327,20 @@ public class JDIStackFrame extends JDIDebugElement implements IJavaStackFrame {
 	}
 
 	/**
+	 * Returns the variables of this frame, for display. The values of the
+	 * variables are retrieved in batches, see {@link #prefetchVariableValues()},
+	 * whereas {@link #findVariable(String)} and {@link #hasVariables()} leave
+	 * them to be retrieved when asked for.
+	 *
 	 * @see IStackFrame#getVariables()
 	 */
 	@Override
 	public IVariable[] getVariables() throws DebugException {
-		List<IJavaVariable> list = getVariables0();
-		return list.toArray(new IVariable[list.size()]);
+		synchronized (fThread) {
+			List<IJavaVariable> list = getVariables0();
+			prefetchVariableValues();
+			return list.toArray(new IVariable[list.size()]);
+		}
 	}
 
 	protected List<IJavaVariable> getVariables0() throws DebugException {
@@ -366,13 +419,70 @@ public class JDIStackFrame extends JDIDebugElement implements IJavaStackFrame {
 					fVariables.add(new JDILocalVariable(this, var));
 				}
 			} else if (fRefreshVariables) {
-				updateVariables();
+				// bind to the current underlying frame first
+				getUnderlyingStackFrame();
+				if (fVariablesGeneration < fChangedGeneration) {
+					updateVariables();
+				}
 			}
+			fVariablesGeneration = fGeneration;
 			fRefreshVariables = false;
 			return fVariables;
 		}
 	}
 
+	/**
+	 * Retrieves the values of the locals of this frame that are not known in
+	 * its current binding with one request, and the values of the fields of
+	 * <code>this</code> with another, rather than with a request per variable
+	 * when each variable's value is first asked for. The variables view lists
+	 * the variables before it asks for their values, so their values are then
+	 * at hand.
+	 * <p>
+	 * Failures are ignored, the values are then retrieved per variable as
+	 * before. Called while holding the lock of this frame's thread.
+	 * </p>
+	 */
+	private void prefetchVariableValues() {
+		List<JDILocalVariable> locals = new ArrayList<>(fVariables.size());
+		List<LocalVariable> underlyingLocals = new ArrayList<>(fVariables.size());
+		IJavaValue thisValue = null;
+		for (IJavaVariable variable : fVariables) {
+			if (variable instanceof JDILocalVariable) {
+				JDILocalVariable local = (JDILocalVariable) variable;
+				if (local.needsValue()) {
+					locals.add(local);
+					underlyingLocals.add(local.getLocal());
+				}
+			} else if (variable instanceof JDIThisVariable) {
+				try {
+					thisValue = (IJavaValue) variable.getValue();
+				} catch (DebugException e) {
+					// retrieved per field
+				}
+			}
+		}
+		if (!locals.isEmpty()) {
+			try {
+				Map<LocalVariable, Value> values = getUnderlyingStackFrame()
+						.getValues(underlyingLocals);
+				for (JDILocalVariable local : locals) {
+					LocalVariable underlyingLocal = local.getLocal();
+					if (values.containsKey(underlyingLocal)) {
+						local.setPrefetchedValue(values.get(underlyingLocal));
+					}
+				}
+			} catch (DebugException e) {
+				// retrieved per local
+			} catch (RuntimeException e) {
+				// retrieved per local
+			}
+		}
+		if (thisValue != null) {
+			JDIValue.prefetchFieldValues(Collections.singletonList(thisValue));
+		}
+	}
+
 	/**
 	 * If there is a return value from a "step return" that belongs to this frame, insert it as first element
 	 *
@@ -530,12 +640,12 @@ public class JDIStackFrame extends JDIDebugElement implements IJavaStackFrame {
 		if (isTopStackFrame()) {
 			getThread().stepReturn();
 		} else {
-			List<IJavaStackFrame> frames = ((JDIThread) getThread())
-					.computeStackFrames();
+			JDIThread thread = (JDIThread) getThread();
+			List<IJavaStackFrame> frames = thread.computeStackFrames();
 			int index = frames.indexOf(this);
 			if (index >= 0 && index < frames.size() - 1) {
-				IStackFrame nextFrame = frames.get(index + 1);
-				((JDIThread) getThread()).stepToFrame(nextFrame);
+				IStackFrame nextFrame = thread.getStackFrame(index + 1);
+				thread.stepToFrame(nextFrame);
 			}
 		}
 	}
@@ -691,14 +801,14 @@ public class JDIStackFrame extends JDIDebugElement implements IJavaStackFrame {
 					// JDK 1.4 VMs are currently unable to pop the bottom
 					// stack frame.
 					if ((frames.size() > 0)
-							&& frames.get(frames.size() - 1) == this) {
+							&& frames.indexOf(this) == frames.size() - 1) {
 						return false;
 					}
 				}
 				int index = 0;
 				JDIStackFrame frame = null;
 				while (index < frames.size()) {
-					frame = (JDIStackFrame) frames.get(index);
+					frame = (JDIStackFrame) thread.getStackFrame(index);
 					index++;
 					if (frame.isNative()) {
 						return false;
@@ -708,7 +818,7 @@ public class JDIStackFrame extends JDIDebugElement implements IJavaStackFrame {
 							// JDK 1.4 VMs are currently unable to pop the
 							// frame directly above a native frame
 							if (index < frames.size()
-									&& ((JDIStackFrame) frames.get(index))
+									&& ((JDIStackFrame) thread.getStackFrame(index))
 											.isNative()) {
 								return false;
 							}
@@ -763,11 +873,12 @@ public class JDIStackFrame extends JDIDebugElement implements IJavaStackFrame {
 		if (isNative()) {
 			return null;
 		}
-		IVariable[] variables = getVariables();
+		// the values of the variables are not retrieved in batches
+		List<IJavaVariable> list = getVariables0();
+		IJavaVariable[] variables = list.toArray(new IJavaVariable[list.size()]);
 		List<IJavaVariable> possibleMatches = new ArrayList<>();
 		IJavaVariable thisVariable = null;
-		for (IVariable variable : variables) {
-			IJavaVariable var = (IJavaVariable) variable;
+		for (IJavaVariable var : variables) {
 			if (var.getName().equals(varName)) {
 				possibleMatches.add(var);
 			}
@@ -1186,7 +1297,7 @@ public class JDIStackFrame extends JDIDebugElement implements IJavaStackFrame {
 				}
 				if (fThread.isSuspended()) {
 					// re-index stack frames - See Bug 47198
-					fThread.computeStackFrames();
+					fThread.bindStackFrame(this);
 					if (fDepth == -1) {
 						// If depth is -1, then this is an invalid frame
 						throw new DebugException(new Status(IStatus.ERROR,
@@ -1507,8 +1618,8 @@ public class JDIStackFrame extends JDIDebugElement implements IJavaStackFrame {
 					List<IJavaStackFrame> frames = fThread.computeStackFrames();
 					int index = frames.indexOf(this);
 					if (index > 0) {
-						JDIStackFrame prev = (JDIStackFrame) frames
-								.get(index - 1);
+						JDIStackFrame prev = (JDIStackFrame) fThread
+								.getStackFrame(index - 1);
 						return prev.canDropToFrame();
 					}
 				}
@@ -1544,7 +1655,7 @@ public class JDIStackFrame extends JDIDebugElement implements IJavaStackFrame {
 			List<IJavaStackFrame> frames = fThread.computeStackFrames();
 			int index = frames.indexOf(this);
 			if (index > 0) {
-				JDIStackFrame prev = (JDIStackFrame) frames.get(index - 1);
+				JDIStackFrame prev = (JDIStackFrame) fThread.getStackFrame(index - 1);
 				fThread.popFrame(prev);
 				fThread.forceReturn(value);
 			}
@@ -1554,4 +1665,36 @@ public class JDIStackFrame extends JDIDebugElement implements IJavaStackFrame {
 	public void setIsTop(boolean isTop) {
 		this.fIsTop = isTop;
 	}
+
+	/**
+	 * @return the number of times this frame has been bound to an underlying
+	 *         frame
+	 * @noreference public for test purposes
+	 */
+	public int getGeneration() {
+		synchronized (fThread) {
+			return fGeneration;
+		}
+	}
+
+	/**
+	 * @return the binding of this frame since which the values of its
+	 *         variables are unchanged
+	 * @noreference public for test purposes
+	 */
+	public int getChangedGeneration() {
+		synchronized (fThread) {
+			return fChangedGeneration;
+		}
+	}
+
+	/**
+	 * @return depth of this frame on the stack (0 is bottom), or -1 if this
+	 *         frame is invalid
+	 */
+	int getDepth() {
+		synchronized (fThread) {
+			return fDepth;
+		}
+	}
 }
@@ -0,0 +1,325 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.debug.core.model.IStackFrame;
+import org.eclipse.jdt.debug.core.IJavaStackFrame;
+import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
+
+import com.sun.jdi.StackFrame;
+
+/**
+ * The stack frames of a suspended thread, top frame first. The list has the
+ * size of the thread's stack, but frames are only retrieved from the VM when
+ * they are accessed, by pages of {@link JDIDebugPlugin#PREF_STACK_FRAME_PAGE_SIZE}
+ * frames: the first page when the thread suspends, and the pages of the frames
+ * accessed afterwards. When the frames are accessed one at a time from the top
+ * of the stack down, at least as many frames as already retrieved are
+ * retrieved each time.
+ * <p>
+ * Frames of the previous suspend keep their identity when they are at the
+ * same depth in the same method, as they are re-bound to the underlying frame
+ * at their depth when it is retrieved. Frames that are not retrieved yet have
+ * no underlying frame.
+ * </p>
+ * <p>
+ * Only accessed while holding the lock of the thread.
+ * </p>
+ */
+class JDIStackFrameList extends AbstractList<IJavaStackFrame> {
+
+	private final JDIThread fThread;
+
+	/**
+	 * Frames by index from the top of the stack. Frames that are not in
+	 * {@link #fRetrieved} are not bound to the current underlying frames: they
+	 * are frames of the previous suspend, or <code>null</code>.
+	 */
+	private final ArrayList<JDIStackFrame> fFrames = new ArrayList<>();
+
+	/**
+	 * Indices of the frames bound to their underlying frame
+	 */
+	private final BitSet fRetrieved = new BitSet();
+
+	/**
+	 * Number of frames retrieved at once, or 0 for all frames
+	 */
+	private int fPageSize = 0;
+
+	/**
+	 * Depths of the frames that did not execute since the previous suspend,
+	 * and were bound to their underlying frame in it
+	 */
+	private final BitSet fUnchanged = new BitSet();
+
+	JDIStackFrameList(JDIThread thread) {
+		fThread = thread;
+	}
+
+	/**
+	 * Updates this list to the current stack of its thread. Frames of the
+	 * previous suspend are aligned from the bottom of the stack, and re-bound
+	 * when they are retrieved again.
+	 *
+	 * @param size
+	 *            the number of frames on the stack
+	 * @param unchanged
+	 *            the number of frames at the bottom of the stack known not to
+	 *            have executed since the previous suspend
+	 */
+	void refresh(int size, int unchanged) throws DebugException {
+		fPageSize = Platform.getPreferencesService().getInt(
+				JDIDebugPlugin.getUniqueIdentifier(),
+				JDIDebugPlugin.PREF_STACK_FRAME_PAGE_SIZE,
+				JDIDebugPlugin.DEF_STACK_FRAME_PAGE_SIZE, null);
+		if (!fFrames.isEmpty() && fFrames.get(0) != null) {
+			fFrames.get(0).setIsTop(false);
+		}
+		// frames not retrieved in the previous suspend may have executed
+		// before it, and the top frame has executed
+		int oldSize = fFrames.size();
+		int unchangedTo = Math.min(unchanged, size - 1);
+		fUnchanged.clear();
+		for (int i = fRetrieved.nextSetBit(0); i >= 0; i = fRetrieved.nextSetBit(i + 1)) {
+			int depth = oldSize - i - 1;
+			if (depth < unchangedTo) {
+				fUnchanged.set(depth);
+			}
+		}
+		resize(size);
+		preserve();
+		fRetrieved.clear();
+		if (size > 0) {
+			retrieve(0, 1, false);
+		}
+	}
+
+	/**
+	 * Adds or discards frames at the top of the stack, to the given size.
+	 */
+	private void resize(int size) {
+		int discard = fFrames.size() - size; // number of old frames to discard, if any
+		if (discard > 0) {
+			List<JDIStackFrame> invalid = fFrames.subList(0, discard);
+			for (JDIStackFrame frame : invalid) {
+				if (frame != null) {
+					frame.bind(null, -1);
+				}
+			}
+			invalid.clear();
+		} else if (discard < 0) {
+			fFrames.addAll(0, Collections.<JDIStackFrame> nCopies(-discard, null));
+		}
+	}
+
+	/**
+	 * Retrieves the frames of the pages that contain the frames from the given
+	 * index inclusive to the given index exclusive, unless they are retrieved
+	 * already.
+	 *
+	 * @param from
+	 *            index of the first frame to retrieve
+	 * @param to
+	 *            index after the last frame to retrieve
+	 * @param walk
+	 *            whether the frames are accessed one at a time from the top of
+	 *            the stack down, in which case at least as many frames are
+	 *            retrieved as already are
+	 */
+	private void retrieve(int from, int to, boolean walk) throws DebugException {
+		int size = fFrames.size();
+		int start = 0;
+		int end = size;
+		if (fPageSize > 0) {
+			start = from - from % fPageSize;
+			end = Math.min(size, to + fPageSize - 1 - (to - 1) % fPageSize);
+			int top = fRetrieved.nextClearBit(0);
+			if (walk && start <= top) {
+				start = top;
+				end = Math.min(size, Math.max(end, top + Math.max(top, fPageSize)));
+			}
+		}
+		int index = fRetrieved.nextClearBit(start);
+		while (index < end) {
+			int next = fRetrieved.nextSetBit(index);
+			int runEnd = next < 0 ? end : Math.min(next, end);
+			List<StackFrame> frames = fThread.getUnderlyingFrames(index, runEnd - index);
+			if (frames.size() != runEnd - index) {
+				// frames without a location are left out, retrieve the whole stack
+				frames = fThread.getUnderlyingFrames(0, -1);
+				resize(frames.size());
+				fUnchanged.clear();
+				fRetrieved.clear();
+				bindFrames(0, frames);
+				return;
+			}
+			bindFrames(index, frames);
+			index = fRetrieved.nextClearBit(runEnd);
+		}
+	}
+
+	/**
+	 * Binds the frames from the given index to the given underlying frames.
+	 */
+	private void bindFrames(int start, List<StackFrame> frames) {
+		int size = fFrames.size();
+		int end = start + frames.size();
+		for (int i = start; i < end; i++) {
+			StackFrame underlyingFrame = frames.get(i - start);
+			int depth = size - i - 1;
+			JDIStackFrame frame = fFrames.get(i);
+			if (frame == null) {
+				frame = new JDIStackFrame(fThread, underlyingFrame, depth);
+			} else {
+				frame = frame.bind(underlyingFrame, depth, fUnchanged.get(depth));
+			}
+			fFrames.set(i, frame);
+		}
+		fRetrieved.set(start, end);
+		if (start == 0 && end > 0) {
+			fFrames.get(0).setIsTop(true);
+		}
+	}
+
+	/**
+	 * Binds the given frame of the previous suspend to its underlying frame,
+	 * if it is still on the stack.
+	 */
+	void bind(JDIStackFrame frame) throws DebugException {
+		int index = indexOf(frame);
+		if (index >= 0 && !fRetrieved.get(index)) {
+			retrieve(index, index + 1, false);
+		}
+	}
+
+	/**
+	 * Returns the given range of frames, retrieving only the pages that
+	 * contain them. The range is truncated to the frames on the stack.
+	 *
+	 * @param offset
+	 *            index of the first frame
+	 * @param length
+	 *            number of frames
+	 * @return the frames in the range
+	 * @throws DebugException
+	 *             if the frames cannot be retrieved
+	 */
+	IStackFrame[] getFrames(int offset, int length) throws DebugException {
+		int from = Math.max(0, Math.min(offset, fFrames.size()));
+		int to = from + Math.max(0, Math.min(length, fFrames.size() - from));
+		if (from < to) {
+			retrieve(from, to, false);
+			// the stack is retrieved again when it has frames without a location
+			to = Math.min(to, fFrames.size());
+		}
+		IStackFrame[] frames = new IStackFrame[Math.max(0, to - from)];
+		for (int i = 0; i < frames.length; i++) {
+			frames[i] = fFrames.get(from + i);
+		}
+		return frames;
+	}
+
+	/**
+	 * @return the number of frames bound to their underlying frame
+	 */
+	int getRetrievedCount() {
+		return fRetrieved.cardinality();
+	}
+
+	/**
+	 * Invalidates the underlying frames of all frames, before the thread
+	 * resumes.
+	 */
+	void preserve() {
+		for (JDIStackFrame frame : fFrames) {
+			if (frame != null) {
+				frame.setUnderlyingStackFrame(null);
+			}
+		}
+	}
+
+	/**
+	 * Returns the frame at the given index, retrieving its page unless it is
+	 * retrieved already.
+	 *
+	 * @param index
+	 *            index of the frame
+	 * @return the frame
+	 * @throws DebugException
+	 *             if the frame cannot be retrieved
+	 */
+	IJavaStackFrame getFrame(int index) throws DebugException {
+		if (index >= 0 && index < fFrames.size() && !fRetrieved.get(index)) {
+			retrieve(index, index + 1, true);
+		}
+		return fFrames.get(index);
+	}
+
+	/**
+	 * Returns the frame at the given index, as {@link #getFrame(int)}. When the
+	 * frame cannot be retrieved, the failure is logged and the frame of the
+	 * previous suspend at the index is returned, which is retrieved again when
+	 * used, or <code>null</code> if there is none. Callers that can report the
+	 * failure use {@link #getFrame(int)}.
+	 */
+	@Override
+	public IJavaStackFrame get(int index) {
+		try {
+			return getFrame(index);
+		} catch (DebugException e) {
+			JDIDebugPlugin.log(e);
+			return fFrames.get(index);
+		}
+	}
+
+	@Override
+	public int size() {
+		return fFrames.size();
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		if (o instanceof JDIStackFrame) {
+			// frames are at their depth, counted from the bottom
+			int index = fFrames.size() - ((JDIStackFrame) o).getDepth() - 1;
+			if (index >= 0 && index < fFrames.size() && fFrames.get(index) == o) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		return indexOf(o);
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	@Override
+	public void clear() {
+		fFrames.clear();
+		fRetrieved.clear();
+		fUnchanged.clear();
+	}
+}
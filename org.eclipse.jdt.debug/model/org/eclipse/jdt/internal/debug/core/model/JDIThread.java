@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -35,7 +35,6 @@ import org.eclipse.debug.core.IStatusHandler;
 import org.eclipse.debug.core.model.IBreakpoint;
 import org.eclipse.debug.core.model.IStackFrame;
 import org.eclipse.debug.core.model.IStep;
-import org.eclipse.debug.core.model.IStepFilter;
 import org.eclipse.debug.core.model.ISuspendResume;
 import org.eclipse.debug.core.model.ITerminate;
 import org.eclipse.debug.core.model.IThread;
@@ -132,7 +131,7 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 	/**
 	 * Collection of stack frames
 	 */
-	private List<IJavaStackFrame> fStackFrames;
+	private JDIStackFrameList fStackFrames;
 	/**
 	 * Underlying thread group, cached on first access.
 	 */
@@ -246,6 +245,13 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 	 */
 	private int fOriginalStepStackDepth;
 
+	/**
+	 * Number of frames at the bottom of the stack known not to have executed
+	 * since this thread last suspended. Set when a step ends, and used when
+	 * stack frames are next computed.
+	 */
+	private int fUnchangedFrameCount = 0;
+
 	/**
 	 * Whether or not this thread is currently suspending (user-requested).
 	 */
@@ -331,7 +337,7 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 	 *                initialized
 	 */
 	protected void initialize() throws ObjectCollectedException {
-		fStackFrames = new ArrayList<>();
+		fStackFrames = new JDIStackFrameList(this);
 		// system thread
 		try {
 			determineIfSystemThread();
@@ -601,8 +607,57 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 	 */
 	@Override
 	public synchronized IStackFrame[] getStackFrames() throws DebugException {
-		List<IJavaStackFrame> list = computeStackFrames();
-		return list.toArray(new IStackFrame[list.size()]);
+		return getStackFrames(0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the given range of this thread's stack frames, top frame first.
+	 * Unlike {@link #getStackFrames()}, only the frames in the range are
+	 * retrieved from the VM, by pages of
+	 * {@link JDIDebugPlugin#PREF_STACK_FRAME_PAGE_SIZE} frames. The range is
+	 * truncated to the frames on the stack. Returns an empty array if this
+	 * thread is not suspended.
+	 *
+	 * @param offset
+	 *            index of the first frame, from the top of the stack
+	 * @param length
+	 *            maximum number of frames to return
+	 * @return the frames in the range
+	 * @throws DebugException
+	 *             if an exception occurs retrieving frames
+	 */
+	public synchronized IStackFrame[] getStackFrames(int offset, int length) throws DebugException {
+		if (computeStackFrames().isEmpty()) {
+			return new IStackFrame[0];
+		}
+		return fStackFrames.getFrames(offset, length);
+	}
+
+	/**
+	 * Returns the stack frame at the given index of
+	 * {@link #computeStackFrames()}, retrieving it from the VM unless it is
+	 * retrieved already.
+	 *
+	 * @param index
+	 *            index of the frame, from the top of the stack
+	 * @return the frame
+	 * @throws DebugException
+	 *             if an exception occurs retrieving the frame
+	 */
+	public synchronized IJavaStackFrame getStackFrame(int index) throws DebugException {
+		computeStackFrames();
+		return fStackFrames.getFrame(index);
+	}
+
+	/**
+	 * Returns the number of this thread's stack frames retrieved from the VM
+	 * since it last suspended.
+	 *
+	 * @return the number of retrieved stack frames
+	 * @noreference public for test purposes
+	 */
+	public synchronized int getRetrievedStackFrameCount() {
+		return fStackFrames.getRetrievedCount();
 	}
 
 	/**
@@ -621,45 +676,8 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 			if (isTerminated()) {
 				fStackFrames.clear();
 			} else if (refreshChildren) {
-				List<StackFrame> frames = getUnderlyingFrames();
-				int oldSize = fStackFrames.size();
-				if (oldSize > 0) {
-					((JDIStackFrame) fStackFrames.get(0)).setIsTop(false);
-				}
-				int newSize = frames.size();
-				int discard = oldSize - newSize; // number of old frames to
-													// discard, if any
-				for (int i = 0; i < discard; i++) {
-					JDIStackFrame invalid = (JDIStackFrame) fStackFrames
-							.remove(0);
-					invalid.bind(null, -1);
-				}
-				int newFrames = newSize - oldSize; // number of frames to
-													// create, if any
-				int depth = oldSize;
-				for (int i = newFrames - 1; i >= 0; i--) {
-					fStackFrames.add(0, new JDIStackFrame(this,
-							frames.get(i), depth));
-					depth++;
-				}
-				int numToRebind = Math.min(newSize, oldSize); // number of
-																// frames to
-																// attempt to
-																// re-bind
-				int offset = newSize - 1;
-				for (depth = 0; depth < numToRebind; depth++) {
-					JDIStackFrame oldFrame = (JDIStackFrame) fStackFrames
-							.get(offset);
-					StackFrame frame = frames.get(offset);
-					JDIStackFrame newFrame = oldFrame.bind(frame, depth);
-					if (newFrame != oldFrame) {
-						fStackFrames.set(offset, newFrame);
-					}
-					offset--;
-				}
-				if (newSize > 0) {
-					((JDIStackFrame) fStackFrames.get(0)).setIsTop(true);
-				}
+				fStackFrames.refresh(getUnderlyingFrameCount(), fUnchangedFrameCount);
+				fUnchangedFrameCount = 0;
 			}
 			fRefreshChildren = false;
 		} else {
@@ -717,7 +735,29 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 		return computeStackFrames(true);
 	}
 
-	private List<StackFrame> getUnderlyingFrames() throws DebugException {
+	/**
+	 * Binds the given frame of the previous suspend to its underlying frame,
+	 * if it is still on the stack, or invalidates it.
+	 *
+	 * @param frame
+	 *            the frame to bind
+	 * @throws DebugException
+	 *             if an exception occurs retrieving frames
+	 */
+	protected synchronized void bindStackFrame(JDIStackFrame frame) throws DebugException {
+		computeStackFrames();
+		fStackFrames.bind(frame);
+	}
+
+	/**
+	 * Returns the given range of frames of the underlying thread.
+	 *
+	 * @param start
+	 *            index of the first frame, from the top of the stack
+	 * @param length
+	 *            number of frames, or -1 for all remaining frames
+	 */
+	List<StackFrame> getUnderlyingFrames(int start, int length) throws DebugException {
 		if (!isSuspended()) {
 			// Checking isSuspended here eliminates a race condition in resume
 			// between the time stack frames are preserved and the time the
@@ -727,7 +767,7 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 					null, IJavaThread.ERR_THREAD_NOT_SUSPENDED);
 		}
 		try {
-			return fThread.frames();
+			return fThread.frames(start, length);
 		} catch (IncompatibleThreadStateException e) {
 			requestFailed(
 					JDIDebugModelMessages.JDIThread_Unable_to_retrieve_stack_frame___thread_not_suspended__1,
@@ -837,6 +877,8 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 			if (rule != null) {
 				Job.getJobManager().endRule(rule);
 			}
+			// the evaluation may have assigned values without invoking methods
+			getJavaDebugTarget().incrementStateChangeCount();
 			synchronized (fEvaluationLock) {
 				fEvaluationRunnable = null;
 				fHonorBreakpoints = true;
@@ -1293,6 +1335,7 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 	 * @see #newInstance(ClassType, Method, List)
 	 */
 	protected synchronized void invokeComplete(int restoreTimeout) {
+		getJavaDebugTarget().incrementStateChangeCount();
 		setInvokingMethod(false);
 		setRunning(false);
 		setRequestTimeout(restoreTimeout);
@@ -1415,7 +1458,7 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 			fSuspendVoteInProgress = true;
 			addCurrentBreakpoint(breakpoint);
 			try {
-				policy = breakpoint.getSuspendPolicy();
+				policy = breakpoint.getAttributeSnapshot().getSuspendPolicy();
 			} catch (CoreException e) {
 				logError(e);
 				setRunning(true);
@@ -1433,7 +1476,7 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 		}
 
 		try {
-			if (!(breakpoint.isTriggerPoint())) {
+			if (!(breakpoint.getAttributeSnapshot().isTriggerPoint())) {
 				if (DebugPlugin.getDefault().getBreakpointManager().hasActiveTriggerPoints()){
 					fSuspendVoteInProgress = false;
 					return false;
@@ -1454,7 +1497,14 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 			JavaLineBreakpoint lbp = (JavaLineBreakpoint) breakpoint;
 			// evaluate condition unless we're in an evaluation already (bug
 			// 284022)
-			if (lbp.hasCondition() && !isPerformingEvaluation()) {
+			boolean hasCondition;
+			try {
+				hasCondition = lbp.getAttributeSnapshot().hasCondition();
+			} catch (CoreException e) {
+				JDIDebugPlugin.log(e);
+				hasCondition = false;
+			}
+			if (hasCondition && !isPerformingEvaluation()) {
 				ConditionalBreakpointHandler handler = new ConditionalBreakpointHandler();
 				int vote = handler.breakpointHit(this, breakpoint);
 				if (vote == IJavaBreakpointListener.DONT_SUSPEND) {
@@ -1512,7 +1562,7 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 			boolean suspend, boolean queue, EventSet set) {
 		synchronized (this) {
 			try {
-				int policy = breakpoint.getSuspendPolicy();
+				int policy = breakpoint.getAttributeSnapshot().getSuspendPolicy();
 				// suspend or resume
 				if (suspend) {
 					if (policy == IJavaBreakpoint.SUSPEND_VM) {
@@ -1632,9 +1682,8 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 	@Override
 	public synchronized boolean isOutOfSynch() throws DebugException {
 		if (isSuspended() && ((JDIDebugTarget) getDebugTarget()).hasHCRFailed()) {
-			List<IJavaStackFrame> frames = computeStackFrames();
-			for(IJavaStackFrame frame : frames) {
-				if(((JDIStackFrame)frame).isOutOfSynch()) {
+			for (IStackFrame frame : getStackFrames()) {
+				if (((JDIStackFrame) frame).isOutOfSynch()) {
 					return true;
 				}
 			}
@@ -1746,9 +1795,8 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 	 */
 	protected synchronized void preserveStackFrames() {
 		fRefreshChildren = true;
-		for(IJavaStackFrame frame : fStackFrames) {
-			((JDIStackFrame)frame).setUnderlyingStackFrame(null);
-		}
+		fUnchangedFrameCount = 0;
+		fStackFrames.preserve();
 	}
 
 	/**
@@ -1761,6 +1809,7 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 	protected synchronized void disposeStackFrames() {
 		fStackFrames.clear();
 		fRefreshChildren = true;
+		fUnchangedFrameCount = 0;
 	}
 
 	/**
@@ -2410,6 +2459,12 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 		 */
 		private StepRequest fStepRequest;
 
+		/**
+		 * Number of step requests created by this handler for the current
+		 * step
+		 */
+		private int fStepRequestCount;
+
 		/**
 		 * Initiates a step in the underlying VM by creating a step request of
 		 * the appropriate kind (over, into, return), and resuming this thread.
@@ -2444,6 +2499,7 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 				Location location = top.getUnderlyingStackFrame().location();
 				setOriginalStepLocation(location);
 				setOriginalStepStackDepth(computeStackFrames().size());
+				fStepRequestCount = 0;
 				setStepRequest(createStepRequest());
 				setPendingStepHandler(this);
 				addJDIEventListener(this, getStepRequest());
@@ -2650,6 +2706,9 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 		 */
 		protected void setStepRequest(StepRequest request) {
 			fStepRequest = request;
+			if (request != null) {
+				fStepRequestCount++;
+			}
 		}
 
 		/**
@@ -2727,7 +2786,7 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 				// //is so do not filter @see bug 5587
 				// ReferenceType type= currentLocation.declaringType();
 				// String typeName= type.name();
-				String[] activeFilters = getJavaDebugTarget().getStepFilters();
+				String[] activeFilters = getJavaDebugTarget().getStepFilterMatcher().getExclusionFilters();
 				// for (int i = 0; i < activeFilters.length; i++) {
 				// StringMatcher matcher = new StringMatcher(activeFilters[i],
 				// false, false);
@@ -2735,10 +2794,8 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 				// return;
 				// }
 				// }
-				if (activeFilters != null) {
-					for (String activeFilter : activeFilters) {
-						request.addClassExclusionFilter(activeFilter);
-					}
+				for (String activeFilter : activeFilters) {
+					request.addClassExclusionFilter(activeFilter);
 				}
 			}
 		}
@@ -2909,22 +2966,7 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 		 */
 		protected boolean locationIsFiltered(Method method, boolean orig) {
 			if (isStepFiltersEnabled()) {
-				JDIDebugTarget target = getJavaDebugTarget();
-				if ((target.isFilterStaticInitializers() && method.isStaticInitializer())
-						|| (target.isFilterSynthetics() && method.isSynthetic())
-						|| (target.isFilterConstructors() && method.isConstructor())
-						|| (target.isFilterGetters() && JDIMethod.isGetterMethod(method))
-						|| (target.isFilterSetters() && JDIMethod.isSetterMethod(method))) {
-					return true;
-				}
-				if(!orig) {
-					IStepFilter[] contributedFilters = DebugPlugin.getStepFilters(JDIDebugPlugin.getUniqueIdentifier());
-					for (int i = 0; i < contributedFilters.length; i++) {
-						if (contributedFilters[i].isFiltered(method)) {
-							return true;
-						}
-					}
-				}
+				return getJavaDebugTarget().getStepFilterMatcher().isFiltered(method, orig);
 			}
 			return false;
 		}
@@ -2946,6 +2988,13 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 			setRunning(false);
 			deleteStepRequest();
 			setPendingStepHandler(null);
+			if (set != null && fStepRequestCount == 1) {
+				// a single step only runs the frame it began in, the frames it
+				// calls, and its caller on return
+				synchronized (JDIThread.this) {
+					fUnchangedFrameCount = getOriginalStepStackDepth() - 2;
+				}
+			}
 			if (set != null) {
 				queueSuspendEvent(DebugEvent.STEP_END, set);
 			}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,16 +13,22 @@ package org.eclipse.jdt.internal.debug.core.model;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.debug.core.DebugException;
 import org.eclipse.debug.core.model.IValue;
 import org.eclipse.debug.core.model.IVariable;
+import org.eclipse.jdi.internal.ObjectReferenceImpl;
 
 import org.eclipse.jdt.debug.core.IJavaType;
 import org.eclipse.jdt.debug.core.IJavaValue;
 import org.eclipse.jdt.debug.core.IJavaVariable;
+import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
 
 import com.ibm.icu.text.MessageFormat;
 import com.sun.jdi.ArrayReference;
@@ -47,6 +53,12 @@ public class JDIValue extends JDIDebugElement implements IJavaValue {
 	private Value fValue;
 	private List<IJavaVariable> fVariables;
 
+	/**
+	 * The state change count of the target when the values of this object's fields
+	 * were last retrieved in a batch, or -1.
+	 */
+	private int fFieldsPrefetchStateChangeCount = -1;
+
 	/**
 	 * A flag indicating if this value is still allocated (valid)
 	 */
@@ -224,9 +236,111 @@ public class JDIValue extends JDIDebugElement implements IJavaValue {
 	@Override
 	public IVariable[] getVariables() throws DebugException {
 		List<IJavaVariable> list = getVariablesList();
+		prefetchFieldValues(Collections.singletonList(this));
 		return list.toArray(new IVariable[list.size()]);
 	}
 
+	/**
+	 * Retrieves the values of the fields of the given object values in one
+	 * batch, rather than with a request per field when each field variable's
+	 * value is first asked for. Up to
+	 * {@link JDIDebugPlugin#PREF_VALUE_FETCH_PIPELINE_DEPTH} requests are
+	 * waiting for a reply from the VM at any time.
+	 * <p>
+	 * Values that are not objects, arrays and values whose fields have
+	 * already been retrieved since the target last ran code are skipped. Failures
+	 * are ignored, the values are then retrieved per field as before.
+	 * </p>
+	 *
+	 * @param values
+	 *            the values whose field variables to prime
+	 */
+	public static void prefetchFieldValues(List<? extends IJavaValue> values) {
+		Map<ObjectReference, List<Field>> requests = new LinkedHashMap<>();
+		Map<ObjectReference, List<JDIFieldVariable>> variables = new LinkedHashMap<>();
+		for (IJavaValue value : values) {
+			if (value instanceof JDIValue) {
+				((JDIValue) value).collectFieldsToPrefetch(requests, variables);
+			}
+		}
+		if (requests.isEmpty()) {
+			return;
+		}
+		int depth = Platform.getPreferencesService().getInt(
+				JDIDebugPlugin.getUniqueIdentifier(),
+				JDIDebugPlugin.PREF_VALUE_FETCH_PIPELINE_DEPTH,
+				JDIDebugPlugin.DEF_PIPELINE_DEPTH, null);
+		// the values are only valid as long as the targets do not run code
+		Map<JDIDebugTarget, Integer> stateChangeCounts = new HashMap<>();
+		for (List<JDIFieldVariable> fieldVariables : variables.values()) {
+			JDIDebugTarget target = fieldVariables.get(0).getJavaDebugTarget();
+			if (!stateChangeCounts.containsKey(target)) {
+				stateChangeCounts.put(target, Integer.valueOf(target.getStateChangeCount()));
+			}
+		}
+		Map<ObjectReference, Map<Field, Value>> result;
+		try {
+			result = ObjectReferenceImpl.getValues(requests, depth);
+		} catch (RuntimeException e) {
+			return;
+		}
+		if (result == null) {
+			return;
+		}
+		for (Map.Entry<ObjectReference, List<JDIFieldVariable>> entry : variables.entrySet()) {
+			Map<Field, Value> fieldValues = result.get(entry.getKey());
+			if (fieldValues != null) {
+				for (JDIFieldVariable variable : entry.getValue()) {
+					Field field = variable.getField();
+					if (fieldValues.containsKey(field)) {
+						int stateChangeCount = stateChangeCounts.get(variable.getJavaDebugTarget()).intValue();
+						variable.setPrefetchedValue(fieldValues.get(field), stateChangeCount);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the fields of this object whose values have not been retrieved
+	 * since the target last ran code to the given maps.
+	 */
+	private synchronized void collectFieldsToPrefetch(
+			Map<ObjectReference, List<Field>> requests,
+			Map<ObjectReference, List<JDIFieldVariable>> variables) {
+		if (!(fValue instanceof ObjectReferenceImpl) || isArray()) {
+			return;
+		}
+		int stateChangeCount = getJavaDebugTarget().getStateChangeCount();
+		if (fFieldsPrefetchStateChangeCount == stateChangeCount) {
+			return;
+		}
+		fFieldsPrefetchStateChangeCount = stateChangeCount;
+		List<IJavaVariable> children;
+		try {
+			children = getVariablesList();
+		} catch (DebugException e) {
+			return;
+		}
+		ObjectReference object = (ObjectReference) fValue;
+		if (requests.containsKey(object)) {
+			return;
+		}
+		List<Field> fields = new ArrayList<>(children.size());
+		List<JDIFieldVariable> fieldVariables = new ArrayList<>(children.size());
+		for (IJavaVariable child : children) {
+			if (child instanceof JDIFieldVariable) {
+				JDIFieldVariable variable = (JDIFieldVariable) child;
+				fields.add(variable.getField());
+				fieldVariables.add(variable);
+			}
+		}
+		if (!fields.isEmpty()) {
+			requests.put(object, fields);
+			variables.put(object, fieldVariables);
+		}
+	}
+
 	/**
 	 * Returns a list of variables that are children of this value. The result
 	 * is cached.
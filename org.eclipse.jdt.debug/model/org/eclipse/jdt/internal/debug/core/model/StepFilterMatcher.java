@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.model.IStepFilter;
+import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
+
+import com.sun.jdi.Method;
+
+/**
+ * The step filters of a debug target, compiled when they are first used after
+ * the target's step filter settings change, see
+ * {@link JDIDebugTarget#getStepFilterMatcher()}.
+ * <p>
+ * Class exclusion patterns are added to step requests, and matched by the VM.
+ * Patterns that are covered by a broader <code>prefix.*</code> pattern, or by
+ * a <code>*</code> pattern, are dropped, so that step requests carry fewer
+ * patterns for the VM to match on each step.
+ * </p>
+ * <p>
+ * Whether a method is filtered by the filters of the target is remembered
+ * for the most recently checked methods, as the getter and setter filters
+ * read the bytecodes of the method from the VM. The verdicts are discarded
+ * with the matcher when the step filter settings change or classes are
+ * redefined. Step filters contributed by other plug-ins are looked up in the
+ * extension registry once, and asked on each check.
+ * </p>
+ */
+public class StepFilterMatcher {
+
+	/**
+	 * Maximum number of methods to remember the verdict of
+	 */
+	private static final int MAX_VERDICTS = 1000;
+
+	/**
+	 * A package or class name segment of a class exclusion pattern
+	 */
+	private static final class Node {
+
+		/**
+		 * Whether a <code>prefix.*</code> pattern ends at this node
+		 */
+		boolean fWildcard;
+
+		final Map<String, Node> fChildren = new HashMap<>(4);
+	}
+
+	private final String[] fExclusionFilters;
+
+	private final boolean fFilterStaticInitializers;
+
+	private final boolean fFilterSynthetics;
+
+	private final boolean fFilterConstructors;
+
+	private final boolean fFilterGetters;
+
+	private final boolean fFilterSetters;
+
+	/**
+	 * Step filters contributed by other plug-ins, looked up when first needed
+	 */
+	private volatile IStepFilter[] fContributedFilters;
+
+	/**
+	 * Whether the most recently checked methods are filtered by the filters of
+	 * this target, in access order. Guarded by itself.
+	 */
+	private final Map<Method, Boolean> fVerdicts = new LinkedHashMap<Method, Boolean>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Method, Boolean> eldest) {
+			return size() > MAX_VERDICTS;
+		}
+	};
+
+	StepFilterMatcher(JDIDebugTarget target) {
+		fExclusionFilters = compile(target.getStepFilters());
+		fFilterStaticInitializers = target.isFilterStaticInitializers();
+		fFilterSynthetics = target.isFilterSynthetics();
+		fFilterConstructors = target.isFilterConstructors();
+		fFilterGetters = target.isFilterGetters();
+		fFilterSetters = target.isFilterSetters();
+	}
+
+	/**
+	 * Returns the given class exclusion patterns, without duplicates and
+	 * patterns covered by a broader <code>prefix.*</code> pattern or by a
+	 * <code>*</code> pattern.
+	 *
+	 * @param filters
+	 *            class exclusion patterns, or <code>null</code>
+	 * @return the patterns to add to step requests
+	 * @noreference public for test purposes
+	 */
+	public static String[] compile(String[] filters) {
+		if (filters == null || filters.length == 0) {
+			return new String[0];
+		}
+		Set<String> patterns = new LinkedHashSet<>(filters.length);
+		for (String filter : filters) {
+			if (filter != null && filter.length() > 0) {
+				patterns.add(filter);
+			}
+		}
+		if (patterns.contains("*")) { //$NON-NLS-1$
+			return new String[] { "*" }; //$NON-NLS-1$
+		}
+		Node root = new Node();
+		for (String pattern : patterns) {
+			if (isPrefixPattern(pattern)) {
+				Node node = root;
+				for (String segment : segments(pattern)) {
+					Node child = node.fChildren.get(segment);
+					if (child == null) {
+						child = new Node();
+						node.fChildren.put(segment, child);
+					}
+					node = child;
+				}
+				node.fWildcard = true;
+			}
+		}
+		List<String> compiled = new ArrayList<>(patterns.size());
+		for (String pattern : patterns) {
+			if (!isCovered(root, pattern)) {
+				compiled.add(pattern);
+			}
+		}
+		return compiled.toArray(new String[compiled.size()]);
+	}
+
+	/**
+	 * @return whether the given pattern is of the form <code>prefix.*</code>
+	 */
+	private static boolean isPrefixPattern(String pattern) {
+		return pattern.length() > 2 && pattern.endsWith(".*") //$NON-NLS-1$
+				&& pattern.indexOf('*') == pattern.length() - 1;
+	}
+
+	/**
+	 * Returns the segments of the given class name, or of the prefix of the
+	 * given <code>prefix.*</code> pattern.
+	 */
+	private static String[] segments(String pattern) {
+		String name = isPrefixPattern(pattern) ? pattern.substring(0, pattern.length() - 2) : pattern;
+		return name.split("\\."); //$NON-NLS-1$
+	}
+
+	/**
+	 * @return whether a <code>prefix.*</code> pattern other than the given
+	 *         pattern matches every class the given pattern matches
+	 */
+	private static boolean isCovered(Node root, String pattern) {
+		if (pattern.indexOf('*') >= 0 && !isPrefixPattern(pattern)) {
+			// suffix patterns are matched as they are
+			return false;
+		}
+		String[] segments = segments(pattern);
+		Node node = root;
+		// only patterns ending at an enclosing package cover this one
+		for (int i = 0; i < segments.length - 1; i++) {
+			node = node.fChildren.get(segments[i]);
+			if (node == null) {
+				return false;
+			}
+			if (node.fWildcard) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the class exclusion patterns to add to step requests
+	 */
+	String[] getExclusionFilters() {
+		return fExclusionFilters;
+	}
+
+	/**
+	 * Returns whether the given method is filtered.
+	 *
+	 * @param method
+	 *            the method to check
+	 * @param orig
+	 *            whether the method is the one an original user-requested
+	 *            step began in, which contributed filters do not apply to
+	 * @return whether the method is filtered
+	 */
+	boolean isFiltered(Method method, boolean orig) {
+		Boolean verdict;
+		synchronized (fVerdicts) {
+			verdict = fVerdicts.get(method);
+		}
+		if (verdict == null) {
+			verdict = Boolean.valueOf((fFilterStaticInitializers && method.isStaticInitializer())
+					|| (fFilterSynthetics && method.isSynthetic())
+					|| (fFilterConstructors && method.isConstructor())
+					|| (fFilterGetters && JDIMethod.isGetterMethod(method))
+					|| (fFilterSetters && JDIMethod.isSetterMethod(method)));
+			synchronized (fVerdicts) {
+				fVerdicts.put(method, verdict);
+			}
+		}
+		if (verdict.booleanValue()) {
+			return true;
+		}
+		if (orig) {
+			return false;
+		}
+		return isFilteredByContributedFilters(method);
+	}
+
+	private boolean isFilteredByContributedFilters(Method method) {
+		IStepFilter[] filters = fContributedFilters;
+		if (filters == null) {
+			filters = DebugPlugin.getStepFilters(JDIDebugPlugin.getUniqueIdentifier());
+			fContributedFilters = filters;
+		}
+		for (IStepFilter filter : filters) {
+			if (filter.isFiltered(method)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}